@@ -0,0 +1,58 @@
+package com.permissionnanny
+
+import com.permissionnanny.dagger.ContextModule
+import com.permissionnanny.dagger.DaggerContextComponent
+import com.permissionnanny.dagger.MockComponentFactory
+import org.junit.Test
+import org.robolectric.RuntimeEnvironment
+
+/**
+ * Per-broadcast cost of getting an injected [ClientRequestReceiver]. Reports timings only; run with `-Pbenchmark`.
+ */
+class BaseReceiverBenchmark : NannyAppTestCase() {
+
+    companion object {
+        const val ROUNDS = 10000
+    }
+
+    @Test
+    fun compareGraphPerBroadcastWithSharedGraph() {
+        val app = RuntimeEnvironment.application
+        val appComponent = MockComponentFactory.appComponent
+        val shared = DaggerContextComponent.builder()
+                .appComponent(appComponent)
+                .contextModule(ContextModule(app))
+                .build()
+
+        // Before: a graph per broadcast, with every dependency created up front
+        val perBroadcast = time {
+            val receiver = ClientRequestReceiver()
+            DaggerContextComponent.builder()
+                    .appComponent(appComponent)
+                    .contextModule(ContextModule(app))
+                    .build()
+                    .inject(receiver)
+            receiver.appManager
+            receiver.executor
+        }
+        // After: the shared graph, with dependencies created only when a request gets that far
+        val reused = time { shared.inject(ClientRequestReceiver()) }
+
+        println(String.format("%-14s %10s %10s", "", "graphNs", "sharedNs"))
+        println(String.format("%-14s %10d %10d", "per broadcast", perBroadcast, reused))
+    }
+
+    /**
+     * @return Average nanoseconds spent on one [broadcast].
+     */
+    private fun time(broadcast: () -> Unit): Long {
+        for (i in 0 until ROUNDS) { // warm up
+            broadcast()
+        }
+        val start = System.nanoTime()
+        for (i in 0 until ROUNDS) {
+            broadcast()
+        }
+        return (System.nanoTime() - start) / ROUNDS
+    }
+}
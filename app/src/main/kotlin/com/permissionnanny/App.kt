@@ -8,7 +8,10 @@ import com.crashlytics.android.core.CrashlyticsCore
 import com.permissionnanny.common.StackTraceDebugTree
 import com.permissionnanny.dagger.AppComponent
 import com.permissionnanny.dagger.AppModule
+import com.permissionnanny.dagger.ContextComponent
+import com.permissionnanny.dagger.ContextModule
 import com.permissionnanny.dagger.DaggerAppComponent
+import com.permissionnanny.dagger.DaggerContextComponent
 import com.squareup.leakcanary.LeakCanary
 import io.fabric.sdk.android.Fabric
 import timber.log.Timber
@@ -18,6 +21,7 @@ import timber.log.Timber
  */
 open class App : Application() {
     private var appComponent: AppComponent? = null
+    private var receiverComponent: ContextComponent? = null
 
     override fun onCreate() {
         super.onCreate()
@@ -44,6 +48,20 @@ open class App : Application() {
         return appComponent!!
     }
 
+    /**
+     * Graph shared by every [BaseReceiver]. Android creates a new receiver for each broadcast, so building the graph
+     * per receiver rebuilt it, and its scoped [ProxyExecutor], on every request.
+     */
+    fun getReceiverComponent(): ContextComponent {
+        if (receiverComponent == null) {
+            receiverComponent = DaggerContextComponent.builder()
+                    .appComponent(getAppComponent())
+                    .contextModule(ContextModule(this))
+                    .build()
+        }
+        return receiverComponent!!
+    }
+
     companion object {
 
         /** Identity of the server; sent to clients as a proof of identity.  */
@@ -5,8 +5,6 @@ import android.content.Context
 import android.content.Intent
 import android.support.annotation.VisibleForTesting
 import com.permissionnanny.dagger.ContextComponent
-import com.permissionnanny.dagger.ContextModule
-import com.permissionnanny.dagger.DaggerContextComponent
 
 /**
  * The root of all BroadcastReceivers.
@@ -23,13 +21,20 @@ open class BaseReceiver : BroadcastReceiver() {
         this.component = component
     }
 
+    /**
+     * Run [work] on [pipeline] in [client]'s lane, keeping the broadcast alive until it finishes or times out. See
+     * [RequestPipeline.submit] for when [work] must call `commit`, and when [onOverflow] is called instead.
+     */
+    fun runAsync(pipeline: RequestPipeline, client: String, onTimeout: () -> Unit,
+                 onOverflow: (retryAfter: Long) -> Unit, work: (commit: () -> Boolean) -> Unit) {
+        val pending: PendingResult? = goAsync() // null when not called from the main thread's dispatch
+        pipeline.submit(client, work, onTimeout, onOverflow, { pending?.finish() })
+    }
+
+    /**
+     * @return The application's shared receiver graph, unless a test set one
+     */
     fun getComponent(context: Context): ContextComponent {
-        if (component == null) {
-            component = DaggerContextComponent.builder()
-                    .appComponent((context.applicationContext as App).getAppComponent())
-                    .contextModule(ContextModule(context))
-                    .build()
-        }
-        return component!!
+        return component ?: (context.applicationContext as App).getReceiverComponent()
     }
 }
@@ -0,0 +1,39 @@
+package com.permissionnanny
+
+import android.content.pm.PermissionInfo
+import com.permissionnanny.data.AppPermission
+import com.permissionnanny.data.AppPermissionManager
+import com.permissionnanny.lib.request.RequestParams
+
+/**
+ * The requests of a [com.permissionnanny.lib.request.BatchRequest] and the client's privilege for each of them.
+ */
+class Batch(appPackage: String, val requests: List<RequestParams>, appManager: AppPermissionManager) {
+
+    /** Operation for each request; `null` if unsupported. */
+    val operations: List<Operation?> = requests.map { Operation.getOperation(it) }
+
+    /** Privilege for each request. NORMAL operations are always allowed; unsupported ones always denied. */
+    val privileges = LongArray(requests.size) { i ->
+        val operation = operations[i]
+        when {
+            operation == null -> AppPermission.ALWAYS_DENY
+            operation.protectionLevel == PermissionInfo.PROTECTION_NORMAL -> AppPermission.ALWAYS_ALLOW
+            else -> appManager.getPermissionPrivilege(appPackage, operation, requests[i])
+        }
+    }
+
+    /** Operations the user has to be asked about, each listed once. One prompt covers all of them. */
+    val asked: List<Operation> = operations.indices
+            .filter { privileges[it] == AppPermission.ALWAYS_ASK }
+            .map { operations[it]!! }
+            .distinctBy { it.dialogTitle }
+
+    /**
+     * @return privileges once the user allowed or denied every operation in [asked]
+     */
+    fun answer(allow: Boolean): LongArray {
+        val answer = if (allow) AppPermission.ALWAYS_ALLOW else AppPermission.ALWAYS_DENY
+        return LongArray(privileges.size) { if (privileges[it] == AppPermission.ALWAYS_ASK) answer else privileges[it] }
+    }
+}
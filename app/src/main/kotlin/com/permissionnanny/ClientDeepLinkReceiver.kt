@@ -5,6 +5,7 @@ import android.content.Intent
 import com.permissionnanny.common.IntentUtil
 import com.permissionnanny.lib.Nanny
 import com.permissionnanny.lib.NannyBundle
+import com.permissionnanny.lib.NannyError
 import com.permissionnanny.lib.NannyException
 import com.permissionnanny.lib.PPP
 import com.permissionnanny.lib.deeplink.DeepLinkRequest
@@ -31,7 +32,8 @@ class ClientDeepLinkReceiver : BaseReceiver() {
         val clientAddr = bundle.clientAddress
         val clientPackage = bundle.senderIdentity
         if (clientPackage == null) {
-            badRequest(context, clientAddr, NannyException(Err.NO_SENDER_IDENTITY))
+            badRequest(context, clientAddr, bundle.protocol,
+                    NannyException(NannyError.NO_SENDER_IDENTITY, Err.NO_SENDER_IDENTITY))
             return
         }
 
@@ -40,7 +42,8 @@ class ClientDeepLinkReceiver : BaseReceiver() {
             Nanny.MANAGE_APPLICATIONS_SETTINGS -> context.startActivity(Intent(context, AppControlActivity::class.java)
                     .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK))
             else -> {
-                badRequest(context, clientAddr, NannyException(Err.UNSUPPORTED_DEEP_LINK_TARGET, deepLinkTarget))
+                badRequest(context, clientAddr, bundle.protocol, NannyException(
+                        NannyError.UNSUPPORTED_DEEP_LINK_TARGET, Err.UNSUPPORTED_DEEP_LINK_TARGET, deepLinkTarget))
                 return
             }
         }
@@ -50,16 +53,16 @@ class ClientDeepLinkReceiver : BaseReceiver() {
     private fun okRequest(context: Context, clientAddr: String?) {
         if (clientAddr != null && !clientAddr.isEmpty()) {
             val args = ResponseFactory.newAllowResponse(Nanny.AUTHORIZATION_SERVICE).connection(Nanny.CLOSE).build()
-            val response = Intent(clientAddr).putExtras(args)
+            val response = Nanny.newResponseIntent(clientAddr).putExtras(args)
             context.sendBroadcast(response)
         }
     }
 
-    private fun badRequest(context: Context, clientAddr: String?, error: Throwable) {
+    private fun badRequest(context: Context, clientAddr: String?, protocol: String?, error: Throwable) {
         Timber.wtf("err=" + error.message)
         if (clientAddr != null && !clientAddr.isEmpty()) {
-            val args = ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, error).build()
-            val response = Intent(clientAddr).putExtras(args)
+            val args = ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, error, protocol).build()
+            val response = Nanny.newResponseIntent(clientAddr).putExtras(args)
             context.sendBroadcast(response)
         }
     }
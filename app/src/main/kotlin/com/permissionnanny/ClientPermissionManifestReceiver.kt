@@ -5,8 +5,10 @@ import android.content.Context
 import android.content.Intent
 import com.permissionnanny.data.AppPermissionManager
 import com.permissionnanny.lib.Nanny
+import com.permissionnanny.lib.NannyError
 import com.permissionnanny.lib.NannyException
 import com.permissionnanny.lib.PPP
+import dagger.Lazy
 import timber.log.Timber
 import java.util.*
 import javax.inject.Inject
@@ -17,7 +19,9 @@ import javax.inject.Inject
 @PPP
 class ClientPermissionManifestReceiver : BaseReceiver() {
 
-    @Inject lateinit var appManager: AppPermissionManager
+    @Inject lateinit var lazyAppManager: Lazy<AppPermissionManager>
+
+    val appManager: AppPermissionManager get() = lazyAppManager.get()
 
     override fun onReceive(context: Context, intent: Intent) {
         super.onReceive(context, intent)
@@ -25,19 +29,22 @@ class ClientPermissionManifestReceiver : BaseReceiver() {
 
         // Validate feral request and ensure required parameters are present
         val clientAddr = intent.getStringExtra(Nanny.CLIENT_ADDRESS)
+        val protocol = intent.getStringExtra(Nanny.PROTOCOL_VERSION)
         val entity = intent.getBundleExtra(Nanny.ENTITY_BODY)
         if (entity == null) {
-            badRequest(context, clientAddr, NannyException(Err.NO_ENTITY))
+            badRequest(context, clientAddr, protocol, NannyException(NannyError.NO_ENTITY, Err.NO_ENTITY))
             return
         }
         val client = entity.getParcelable<PendingIntent>(Nanny.SENDER_IDENTITY)
         if (client == null) {
-            badRequest(context, clientAddr, NannyException(Err.NO_SENDER_IDENTITY))
+            badRequest(context, clientAddr, protocol,
+                    NannyException(NannyError.NO_SENDER_IDENTITY, Err.NO_SENDER_IDENTITY))
             return
         }
         val permissionUsage = entity.getStringArrayList(Nanny.PERMISSION_MANIFEST)
         if (permissionUsage == null) {
-            badRequest(context, clientAddr, NannyException(Err.NO_PERMISSION_MANIFEST))
+            badRequest(context, clientAddr, protocol,
+                    NannyException(NannyError.NO_PERMISSION_MANIFEST, Err.NO_PERMISSION_MANIFEST))
             return
         }
 
@@ -48,11 +55,12 @@ class ClientPermissionManifestReceiver : BaseReceiver() {
         okRequest(context, clientAddr)
     }
 
-    private fun badRequest(context: Context, clientAddr: String?, error: Throwable) {
+    private fun badRequest(context: Context, clientAddr: String?, protocol: String?, error: Throwable) {
         Timber.wtf("err=" + error.message)
         if (clientAddr != null && !clientAddr.isEmpty()) {
-            val payload = ResponseFactory.newBadRequestResponse(Nanny.PERMISSION_MANIFEST_SERVICE, error).build()
-            val response = Intent(clientAddr).putExtras(payload)
+            val payload = ResponseFactory.newBadRequestResponse(Nanny.PERMISSION_MANIFEST_SERVICE, error, protocol)
+                    .build()
+            val response = Nanny.newResponseIntent(clientAddr).putExtras(payload)
             context.sendBroadcast(response)
         }
     }
@@ -61,7 +69,7 @@ class ClientPermissionManifestReceiver : BaseReceiver() {
         if (clientAddr != null && !clientAddr.isEmpty()) {
             val payload = ResponseFactory.newAllowResponse(Nanny.PERMISSION_MANIFEST_SERVICE)
             payload.mConnection = Nanny.CLOSE
-            val response = Intent(clientAddr).putExtras(payload.build())
+            val response = Nanny.newResponseIntent(clientAddr).putExtras(payload.build())
             context.sendBroadcast(response)
         }
     }
@@ -8,8 +8,10 @@ import com.permissionnanny.data.AppPermission
 import com.permissionnanny.data.AppPermissionManager
 import com.permissionnanny.lib.Nanny
 import com.permissionnanny.lib.NannyBundle
+import com.permissionnanny.lib.NannyError
 import com.permissionnanny.lib.NannyException
 import com.permissionnanny.lib.PPP
+import dagger.Lazy
 import timber.log.Timber
 import javax.inject.Inject
 
@@ -19,8 +21,13 @@ import javax.inject.Inject
 @PPP
 class ClientRequestReceiver : BaseReceiver() {
 
-    @Inject lateinit var appManager: AppPermissionManager
-    @Inject lateinit var executor: ProxyExecutor
+    @Inject lateinit var lazyAppManager: Lazy<AppPermissionManager>
+    @Inject lateinit var lazyExecutor: Lazy<ProxyExecutor>
+    @Inject lateinit var pipeline: RequestPipeline
+    @Inject lateinit var limiter: RateLimiter
+
+    val appManager: AppPermissionManager get() = lazyAppManager.get()
+    val executor: ProxyExecutor get() = lazyExecutor.get()
 
     override fun onReceive(context: Context, intent: Intent) {
         Timber.wtf("got intent: " + IntentUtil.toString(intent))
@@ -33,42 +40,100 @@ class ClientRequestReceiver : BaseReceiver() {
         val clientAddr = bundle.clientAddress
         val clientPackage = bundle.senderIdentity
         if (clientPackage == null) {
-            badRequest(context, clientAddr, NannyException(Err.NO_SENDER_IDENTITY))
+            badRequest(context, clientAddr, bundle.protocol,
+                    NannyException(NannyError.NO_SENDER_IDENTITY, Err.NO_SENDER_IDENTITY))
+            return
+        }
+        val batch = bundle.batch
+        val retryAfter = limiter.acquire(clientPackage, batch?.size ?: 1)
+        if (retryAfter > 0) {
+            tooManyRequests(context, clientAddr, bundle.protocol, retryAfter)
+            return
+        }
+        if (batch != null) {
+            runAsync(pipeline, clientPackage, { timeout(context, clientAddr) },
+                { retryAfter -> tooManyRequests(context, clientAddr, bundle.protocol, retryAfter) }) { commit ->
+                executeBatch(context, intent, Batch(clientPackage, batch, appManager), clientAddr, commit)
+            }
             return
         }
         val request = bundle.request
         if (request == null) {
-            badRequest(context, clientAddr, NannyException(Err.NO_REQUEST_PARAMS))
+            badRequest(context, clientAddr, bundle.protocol,
+                    NannyException(NannyError.NO_REQUEST_PARAMS, Err.NO_REQUEST_PARAMS))
             return
         }
         val operation = Operation.getOperation(request)
         if (operation == null) {
-            badRequest(context, clientAddr, NannyException(Err.UNSUPPORTED_OPCODE, request.opCode))
+            badRequest(context, clientAddr, bundle.protocol,
+                    NannyException(NannyError.UNSUPPORTED_OPCODE, Err.UNSUPPORTED_OPCODE, request.opCode))
             return
         }
 
-        // NORMAL operation? Automatically allow
-        if (operation.protectionLevel == PermissionInfo.PROTECTION_NORMAL) {
-            executor.executeAllow(operation, request, clientAddr)
+        runAsync(pipeline, clientPackage, { timeout(context, clientAddr) },
+                { retryAfter -> tooManyRequests(context, clientAddr, bundle.protocol, retryAfter) }) { commit ->
+            // NORMAL operation? Automatically allow
+            if (operation.protectionLevel == PermissionInfo.PROTECTION_NORMAL) {
+                if (commit()) {
+                    executor.executeAllow(operation, request, clientAddr, bundle.protocol)
+                }
+                return@runAsync
+            }
+
+            // DANGEROUS operation? Check user's config first
+            val userConfig = appManager.getPermissionPrivilege(clientPackage, operation, request)
+            if (!commit()) { // Timed out while deciding; the client has been told and may retry
+                return@runAsync
+            }
+            when (userConfig) {
+                AppPermission.ALWAYS_ASK -> context.startActivity(Intent(context, ConfirmRequestActivity::class.java)
+                        .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
+                        .putExtras(intent))
+                AppPermission.ALWAYS_ALLOW -> executor.executeAllow(operation, request, clientAddr, bundle.protocol)
+                AppPermission.ALWAYS_DENY -> executor.executeDeny(operation, request, clientAddr)
+            }
+        }
+    }
+
+    /** Decides the whole batch at once; if anything needs asking, the user is prompted once for all of it. */
+    private fun executeBatch(context: Context, intent: Intent, batch: Batch, clientAddr: String?,
+                             commit: () -> Boolean) {
+        if (!commit()) {
             return
         }
+        if (batch.asked.isEmpty()) {
+            executor.executeBatch(batch, batch.privileges, clientAddr)
+            return
+        }
+        context.startActivity(Intent(context, ConfirmRequestActivity::class.java)
+                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
+                .putExtras(intent))
+    }
 
-        // DANGEROUS operation? Check user's config first
-        val userConfig = appManager.getPermissionPrivilege(clientPackage, operation, request)
-        when (userConfig) {
-            AppPermission.ALWAYS_ASK -> context.startActivity(Intent(context, ConfirmRequestActivity::class.java)
-                    .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
-                    .putExtras(intent))
-            AppPermission.ALWAYS_ALLOW -> executor.executeAllow(operation, request, clientAddr)
-            AppPermission.ALWAYS_DENY -> executor.executeDeny(operation, request, clientAddr)
+    private fun tooManyRequests(context: Context, clientAddr: String?, protocol: String?, retryAfter: Long) {
+        if (clientAddr != null && !clientAddr.isEmpty()) {
+            val error = NannyException(NannyError.TOO_MANY_REQUESTS, Err.TOO_MANY_REQUESTS, retryAfter)
+            val args = ResponseFactory.newTooManyRequestsResponse(Nanny.AUTHORIZATION_SERVICE, retryAfter, error,
+                    protocol).build()
+            val response = Nanny.newResponseIntent(clientAddr).putExtras(args)
+            context.sendBroadcast(response)
+        }
+    }
+
+    private fun timeout(context: Context, clientAddr: String?) {
+        Timber.wtf("timed out, pipeline=" + pipeline.metrics())
+        if (clientAddr != null && !clientAddr.isEmpty()) {
+            val args = ResponseFactory.newTimeoutResponse(Nanny.AUTHORIZATION_SERVICE).build()
+            val response = Nanny.newResponseIntent(clientAddr).putExtras(args)
+            context.sendBroadcast(response)
         }
     }
 
-    private fun badRequest(context: Context, clientAddr: String?, error: Throwable) {
+    private fun badRequest(context: Context, clientAddr: String?, protocol: String?, error: Throwable) {
         Timber.wtf("err=" + error.message)
         if (clientAddr != null && !clientAddr.isEmpty()) {
-            val args = ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, error).build()
-            val response = Intent(clientAddr).putExtras(args)
+            val args = ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, error, protocol).build()
+            val response = Nanny.newResponseIntent(clientAddr).putExtras(args)
             context.sendBroadcast(response)
         }
     }
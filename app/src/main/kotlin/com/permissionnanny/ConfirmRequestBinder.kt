@@ -32,8 +32,9 @@ open class ConfirmRequestBinder(
     private val clientAddr: String?
     private val appPackage: String
     private val appInfo: ApplicationInfo?
-    private val request: RequestParams
-    private val operation: Operation
+    private val request: RequestParams?
+    private val operation: Operation?
+    private val batch: Batch?
 
     var rememberPreference: Boolean = false
         @VisibleForTesting set // FIXME: public -> internal
@@ -45,8 +46,10 @@ open class ConfirmRequestBinder(
         clientAddr = bundle.clientAddress
         appPackage = bundle.senderIdentity!!
         appInfo = Util.getApplicationInfo(context, appPackage)
-        request = bundle.request!!
-        operation = Operation.getOperation(request)!!
+        val requests = bundle.batch
+        batch = if (requests != null) Batch(appPackage, requests, appManager) else null
+        request = if (batch == null) bundle.request!! else null
+        operation = if (request != null) Operation.getOperation(request)!! else null
     }
 
     open val dialogTitle: Spanned
@@ -57,7 +60,17 @@ open class ConfirmRequestBinder(
             }
             val boldAppLabel = SpannableStringBuilder(label)
             boldAppLabel.setSpan(StyleSpan(Typeface.BOLD), 0, label.length, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE)
-            return boldAppLabel.append(' ').append(context.getText(operation.dialogTitle))
+            boldAppLabel.append(' ')
+            if (batch == null) {
+                return boldAppLabel.append(context.getText(operation!!.dialogTitle))
+            }
+            batch.asked.forEachIndexed { i, asked ->
+                if (i > 0) {
+                    boldAppLabel.append('\n')
+                }
+                boldAppLabel.append(context.getText(asked.dialogTitle))
+            }
+            return boldAppLabel
         }
 
     open val dialogIcon: Drawable?
@@ -85,16 +98,37 @@ open class ConfirmRequestBinder(
     }
 
     open fun executeAllow() {
+        if (batch != null) {
+            executeBatch(batch, true)
+            return
+        }
         if (rememberPreference) {
-            appManager.changePrivilege(appPackage, operation, request, AppPermission.ALWAYS_ALLOW);
+            appManager.changePrivilege(appPackage, operation!!, request!!, AppPermission.ALWAYS_ALLOW);
         }
-        executor.executeAllow(operation, request, clientAddr)
+        executor.executeAllow(operation!!, request!!, clientAddr, bundle.protocol)
     }
 
     open fun executeDeny() {
+        if (batch != null) {
+            executeBatch(batch, false)
+            return
+        }
         if (rememberPreference) {
-            appManager.changePrivilege(appPackage, operation, request, AppPermission.ALWAYS_DENY);
+            appManager.changePrivilege(appPackage, operation!!, request!!, AppPermission.ALWAYS_DENY);
+        }
+        executor.executeDeny(operation!!, request!!, clientAddr)
+    }
+
+    /** One answer covers every operation the batch asked about. */
+    private fun executeBatch(batch: Batch, allow: Boolean) {
+        if (rememberPreference) {
+            val privilege = if (allow) AppPermission.ALWAYS_ALLOW else AppPermission.ALWAYS_DENY
+            for (i in batch.requests.indices) {
+                if (batch.privileges[i] == AppPermission.ALWAYS_ASK) {
+                    appManager.changePrivilege(appPackage, batch.operations[i]!!, batch.requests[i], privilege)
+                }
+            }
         }
-        executor.executeDeny(operation, request, clientAddr)
+        executor.executeBatch(batch, batch.answer(allow), clientAddr)
     }
 }
@@ -9,6 +9,9 @@ object Err {
     val NO_SENDER_IDENTITY = "SENDER_IDENTITY is missing."
     val NO_REQUEST_PARAMS = "REQUEST_PARAMS is missing"
     val UNSUPPORTED_OPCODE = "Unsupported operation [%s]."
+    val UNBATCHABLE_OPCODE = "Ongoing operation [%s] cannot be batched."
     val NO_PERMISSION_MANIFEST = "PERMISSION_MANIFEST is missing."
     val UNSUPPORTED_DEEP_LINK_TARGET = "Unsupported deep link target [%s]."
+    val TOO_MANY_REQUESTS = "Too many requests; retry after %d ms."
+    val FOREIGN_CLIENT_ADDRESS = "Client address [%s] does not belong to the caller."
 }
@@ -2,8 +2,8 @@ package com.permissionnanny
 
 import android.support.annotation.StringRes
 import com.permissionnanny.content.ContentOperation
+import com.permissionnanny.lib.request.OpCodes
 import com.permissionnanny.lib.request.RequestParams
-import com.permissionnanny.lib.request.content.ContentRequest
 import com.permissionnanny.simple.SimpleOperation
 
 /**
@@ -16,11 +16,11 @@ open class Operation(
 
     companion object {
         fun getOperation(request: RequestParams): Operation? {
-            when (request.opCode) {
-                ContentRequest.SELECT,
-                ContentRequest.INSERT,
-                ContentRequest.UPDATE,
-                ContentRequest.DELETE -> return ContentOperation.getOperation(request)
+            when (request.opCodeId) {
+                OpCodes.CONTENT_SELECT,
+                OpCodes.CONTENT_INSERT,
+                OpCodes.CONTENT_UPDATE,
+                OpCodes.CONTENT_DELETE -> return ContentOperation.getOperation(request)
                 else -> return SimpleOperation.getOperation(request)
             }
         }
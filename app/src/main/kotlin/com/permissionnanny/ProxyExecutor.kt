@@ -6,22 +6,29 @@ import android.os.Bundle
 import com.permissionnanny.common.BundleUtil
 import com.permissionnanny.content.ContentOperation
 import com.permissionnanny.content.ProxyContentProvider
+import com.permissionnanny.data.AppPermission
 import com.permissionnanny.lib.Nanny
 import com.permissionnanny.lib.NannyBundle
+import com.permissionnanny.lib.NannyError
+import com.permissionnanny.lib.NannyException
+import com.permissionnanny.lib.Nonce
+import com.permissionnanny.lib.request.OpCodes
 import com.permissionnanny.lib.request.RequestParams
-import com.permissionnanny.lib.request.content.ContentRequest
 import com.permissionnanny.simple.SimpleOperation
 import timber.log.Timber
-import java.security.SecureRandom
+import java.util.ArrayList
 
 /**
 
  */
 open class ProxyExecutor(private val context: Context) {
 
-    open fun executeAllow(operation: Operation, request: RequestParams, clientId: String?) {
+    /**
+     * @param clientProtocol Protocol version the client spoke, which decides how errors are sent back
+     */
+    open fun executeAllow(operation: Operation, request: RequestParams, clientId: String?, clientProtocol: String?) {
         if (operation is SimpleOperation) {
-            executeAllowSimple(operation, request, clientId)
+            executeAllowSimple(operation, request, clientId, clientProtocol)
         } else if (operation is ContentOperation) {
             executeAllowContent(operation, request, clientId)
         }
@@ -31,16 +38,16 @@ open class ProxyExecutor(private val context: Context) {
         val response = executeContentOperation(request).build()
         if (response != null && clientId != null) {
             Timber.d("server broadcasting=" + BundleUtil.toString(response))
-            val intent = Intent(clientId).putExtras(response)
+            val intent = Nanny.newResponseIntent(clientId).putExtras(response)
             context.sendBroadcast(intent)
         }
     }
 
     private fun executeContentOperation(request: RequestParams): NannyBundle.Builder {
         val entity = Bundle()
-        when (request.opCode) {
-            ContentRequest.SELECT -> {
-                val nonce = SecureRandom().nextLong()
+        when (request.opCodeId) {
+            OpCodes.CONTENT_SELECT -> {
+                val nonce = Nonce.nextLong()
                 Timber.wtf("nonce=" + nonce)
 
                 // cache request params
@@ -49,17 +56,17 @@ open class ProxyExecutor(private val context: Context) {
                 // return nonce to client
                 entity.putLong(request.opCode, nonce)
             }
-            ContentRequest.INSERT -> {
+            OpCodes.CONTENT_INSERT -> {
                 val uri = context.contentResolver
                         .insert(request.uri0, request.contentValues0)
                 entity.putParcelable(request.opCode, uri)
             }
-            ContentRequest.UPDATE -> {
+            OpCodes.CONTENT_UPDATE -> {
                 val updated = context.contentResolver
                         .update(request.uri0, request.contentValues0, request.string0, request.stringArray1)
                 entity.putInt(request.opCode, updated)
             }
-            ContentRequest.DELETE -> {
+            OpCodes.CONTENT_DELETE -> {
                 val deleted = context.contentResolver
                         .delete(request.uri0, request.string0, request.stringArray1)
                 entity.putInt(request.opCode, deleted)
@@ -72,24 +79,26 @@ open class ProxyExecutor(private val context: Context) {
         return response
     }
 
-    private fun executeAllowSimple(operation: SimpleOperation, request: RequestParams, clientId: String?) {
-        val response = executeSimpleOperation(operation, request, clientId)
+    private fun executeAllowSimple(operation: SimpleOperation, request: RequestParams, clientId: String?,
+                                   clientProtocol: String?) {
+        val response = executeSimpleOperation(operation, request, clientId, clientProtocol)
         if (response != null && clientId != null) {
             Timber.d("server broadcasting=" + BundleUtil.toString(response))
-            val intent = Intent(clientId).putExtras(response)
+            val intent = Nanny.newResponseIntent(clientId).putExtras(response)
             context.sendBroadcast(intent)
         }
     }
 
     private fun executeSimpleOperation(operation: SimpleOperation,
                                        request: RequestParams,
-                                       clientId: String?): Bundle? {
+                                       clientId: String?,
+                                       clientProtocol: String?): Bundle? {
         if (operation.proxyFunction != null) { // one-shot request
             val entity = Bundle()
             try {
                 operation.proxyFunction.invoke(context, request, entity)
             } catch (error: Throwable) {
-                return ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, error).build()
+                return ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, error, clientProtocol).build()
             }
 
             return ResponseFactory.newAllowResponse(Nanny.AUTHORIZATION_SERVICE)
@@ -102,17 +111,57 @@ open class ProxyExecutor(private val context: Context) {
         val server = Intent(context, ProxyService::class.java)
         server.putExtra(ProxyService.CLIENT_ADDR, clientId)
         server.putExtra(ProxyService.REQUEST_PARAMS, request)
+        server.putExtra(ProxyService.CLIENT_PROTOCOL, clientProtocol)
         Timber.wtf("Operation.function is null, starting service with args: " + BundleUtil.toString(server))
         context.startService(server)
         return null
     }
 
+    /**
+     * Execute every request of [batch] its privilege allows and deny the rest, then send all results in one response.
+     * Only PPP/0.2 clients send batches, so errors are always structured.
+     */
+    open fun executeBatch(batch: Batch, privileges: LongArray, clientId: String?) {
+        val responses = ArrayList<Bundle>(batch.requests.size)
+        for (i in batch.requests.indices) {
+            responses.add(executeBatched(batch.operations[i], batch.requests[i], privileges[i]))
+        }
+        if (clientId != null) {
+            val entity = Bundle()
+            entity.putParcelableArrayList(Nanny.BATCH_RESPONSES, responses)
+            val response = ResponseFactory.newAllowResponse(Nanny.AUTHORIZATION_SERVICE)
+                    .connection(Nanny.CLOSE)
+                    .entity(entity)
+                    .build()
+            Timber.d("server broadcasting=" + BundleUtil.toString(response))
+            context.sendBroadcast(Nanny.newResponseIntent(clientId).putExtras(response))
+        }
+    }
+
+    private fun executeBatched(operation: Operation?, request: RequestParams, privilege: Long): Bundle {
+        if (operation == null) {
+            return ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, NannyException(
+                    NannyError.UNSUPPORTED_OPCODE, Err.UNSUPPORTED_OPCODE, request.opCode), Nanny.PPP_0_2).build()
+        }
+        if (operation is SimpleOperation && operation.proxyFunction == null) {
+            return ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, NannyException(
+                    NannyError.UNSUPPORTED_OPCODE, Err.UNBATCHABLE_OPCODE, request.opCode), Nanny.PPP_0_2).build()
+        }
+        if (privilege != AppPermission.ALWAYS_ALLOW) {
+            return ResponseFactory.newDenyResponse(Nanny.AUTHORIZATION_SERVICE).build()
+        }
+        if (operation is SimpleOperation) {
+            return executeSimpleOperation(operation, request, null, Nanny.PPP_0_2)!!
+        }
+        return executeContentOperation(request).build()
+    }
+
     open fun executeDeny(operation: Operation, request: RequestParams, clientId: String?) {
         if (clientId != null) {
             val response = ResponseFactory.newDenyResponse(Nanny.AUTHORIZATION_SERVICE).build()
             if (response != null) {
                 Timber.d("server broadcasting=" + BundleUtil.toString(response))
-                val intent = Intent(clientId).putExtras(response)
+                val intent = Nanny.newResponseIntent(clientId).putExtras(response)
                 context.sendBroadcast(intent)
             }
         }
@@ -4,7 +4,6 @@ import android.content.Context
 import android.content.Intent
 import android.os.Bundle
 import android.os.SystemClock
-import com.permissionnanny.common.BundleUtil
 import com.permissionnanny.lib.Nanny
 import com.permissionnanny.lib.NannyBundle
 import com.permissionnanny.lib.request.RequestParams
@@ -19,19 +18,43 @@ open class ProxyListener<Listener>(
         /** Proxy service name.  */
         protected val server: String) {
 
-    /** Time of last broadcast.  */
-    private var lastBroadcast: Long = 0
+    companion object {
+        /** Most events a client may grant per ACK. */
+        const val MAX_ACK_WINDOW = 64
+        /** How long an owed ACK may be late before the client is deemed dead. */
+        const val ACK_TIMEOUT_MS = 5000L
+    }
+
     /** Time of last ACK received.  */
     private var lastAck: Long = 0
+    /** Events the client granted per ACK; legacy clients ACK every event.  */
+    private var ackWindow = 1
+    /** Whether the client granted a window, so events past it must wait for the next ACK.  */
+    private var windowed = false
+    /** Longest the client lets pass between ACKs while events arrive.  */
+    private var ackInterval = 0L
+    /** Events broadcast since the last ACK.  */
+    private var unacked = 0
+    /** Time of the broadcast the client owes an ACK for, or 0 if it owes none.  */
+    private var ackOwedSince = 0L
+    /** Latest event withheld because the client's window ran out; sent on its next ACK.  */
+    private var pending: Intent? = null
 
     var listener: Listener? = null
 
+    /** Protocol version the client spoke; decides how errors are sent back. */
+    var clientProtocol: String? = null
+
+    /** Metadata shared by every OK response to this client. Built once; each event only adds its entity. */
+    internal val okTemplate = Nanny.newResponseIntent(clientAddr)
+            .putExtras(ResponseFactory.newAllowResponse(server).build())
+            .putExtra(Nanny.ACK_WINDOW, MAX_ACK_WINDOW)
+
     fun register(c: Context, r: RequestParams, l: Listener) {
     }
 
     init {
         lastAck = SystemClock.elapsedRealtime()
-        lastBroadcast = lastAck
     }
 
     open fun register(context: Context, request: RequestParams) {
@@ -41,7 +64,24 @@ open class ProxyListener<Listener>(
     }
 
     protected fun sendBroadcast(response: Bundle) {
-        if (lastBroadcast - lastAck > 5000) { // no recent ack? assume client died
+        sendBroadcast(Nanny.newResponseIntent(clientAddr).putExtras(response))
+    }
+
+    protected fun sendBroadcast(response: Intent) {
+        send(response, false)
+    }
+
+    /**
+     * Broadcast [response] unless the client is overdue with an ACK. The client owes one for the [ackWindow]th event
+     * after its last ACK, or for the first event [ackInterval] or more after it.
+     * <p/>
+     * A client that granted a window gets no more than [ackWindow] events per ACK. Once they are used up, a
+     * [conflatable] event replaces the one already waiting and goes out when the next ACK arrives. Other responses are
+     * always sent.
+     */
+    private fun send(response: Intent, conflatable: Boolean) {
+        val now = SystemClock.elapsedRealtime()
+        if (ackOwedSince != 0L && now - ackOwedSince > ACK_TIMEOUT_MS) { // no recent ack? assume client died
             Timber.wtf("Dead client. Removing " + clientAddr)
             stop()
 
@@ -50,16 +90,35 @@ open class ProxyListener<Listener>(
                     .server(Nanny.AUTHORIZATION_SERVICE)
                     .connection(Nanny.CLOSE)
                     .build()
-            service.sendBroadcast(Intent(clientAddr).putExtras(timeoutResponse))
+            service.deliver(clientAddr, Nanny.newResponseIntent(clientAddr).putExtras(timeoutResponse))
             return
         }
-        lastBroadcast = SystemClock.elapsedRealtime()
-        service.sendBroadcast(Intent(clientAddr).putExtras(response))
-        Timber.wtf(BundleUtil.toString(response))
+        if (conflatable && windowed && unacked >= ackWindow) {
+            pending = response
+            return
+        }
+        unacked++
+        if (ackOwedSince == 0L && (unacked >= ackWindow || now - lastAck >= ackInterval)) {
+            ackOwedSince = now
+        }
+        service.deliver(clientAddr, response)
     }
 
-    fun updateAck(time: Long) {
+    /**
+     * @param window   Events the client granted, or 0 if it ACKs every event
+     * @param interval Longest the client lets pass between ACKs, if it granted a window
+     */
+    fun updateAck(time: Long, window: Int = 0, interval: Long = 0) {
         lastAck = time
+        unacked = 0
+        ackOwedSince = 0
+        ackWindow = if (window > 0) Math.min(window, MAX_ACK_WINDOW) else 1
+        ackInterval = if (window > 0) interval else 0
+        windowed = window > 0
+
+        val withheld = pending ?: return
+        pending = null
+        send(withheld, true)
     }
 
     fun stop() {
@@ -67,10 +126,22 @@ open class ProxyListener<Listener>(
         service.removeProxyClient(clientAddr)
     }
 
-    protected fun okResponse(entity: Bundle): Bundle {
-        return ResponseFactory.newAllowResponse(server)
-                .entity(entity)
-                .ackAddress(service.ackAddress)
-                .build()
+    /**
+     * Report [error] to the client's authorization listener, in the form its protocol version understands.
+     */
+    protected fun sendBadRequestResponse(error: Throwable) {
+        sendBroadcast(ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, error, clientProtocol).build())
+    }
+
+    protected fun sendOkResponse(entity: Bundle) {
+        send(newOkResponse(entity), true)
+    }
+
+    /**
+     * @return A copy of [okTemplate] carrying [entity]
+     */
+    internal fun newOkResponse(entity: Bundle): Intent {
+        entity.putString(Nanny.ACK_SERVER_ADDRESS, service.ackAddress)
+        return Intent(okTemplate).putExtra(Nanny.ENTITY_BODY, entity)
     }
 }
@@ -5,17 +5,18 @@ import android.content.Context
 import android.content.Intent
 import android.content.IntentFilter
 import android.os.Bundle
+import android.os.Handler
+import android.os.Looper
 import android.os.SystemClock
 import android.support.v4.util.ArrayMap
 import com.permissionnanny.common.BundleUtil
 import com.permissionnanny.data.OngoingRequestDB
 import com.permissionnanny.lib.Nanny
+import com.permissionnanny.lib.Nonce
+import com.permissionnanny.lib.request.OpCodes
 import com.permissionnanny.lib.request.RequestParams
-import com.permissionnanny.lib.request.simple.AccountRequest
-import com.permissionnanny.lib.request.simple.LocationRequest
 import com.permissionnanny.simple.*
 import timber.log.Timber
-import java.security.SecureRandom
 import javax.inject.Inject
 
 /**
@@ -25,16 +26,19 @@ class ProxyService : BaseService() {
 
     private val clients = ArrayMap<String, ProxyClient>()
     private val ackReceiver = AckReceiver()
+    private val handler = Handler(Looper.getMainLooper())
     var ackAddress: String? = null
         private set
 
     @Inject internal lateinit var db: OngoingRequestDB
+    @Inject internal lateinit var streams: StreamRegistry
 
     override fun onCreate() {
         super.onCreate()
         getComponent().inject(this)
-        ackAddress = java.lang.Long.toString(SecureRandom().nextLong())
+        ackAddress = Nonce.nextAddress()
         registerReceiver(ackReceiver, IntentFilter(ackAddress))
+        streams.onCancel = { clientAddr -> handler.post { cancelProxyClient(clientAddr) } }
         Timber.wtf("init service")
     }
 
@@ -46,13 +50,14 @@ class ProxyService : BaseService() {
         Timber.wtf("Server started with args: " + BundleUtil.toString(intent))
         val clientId = intent.getStringExtra(CLIENT_ADDR)
         val requestParams = intent.getParcelableExtra<RequestParams>(REQUEST_PARAMS)
-        handleRequest(clientId, requestParams, true)
+        handleRequest(clientId, requestParams, intent.getStringExtra(CLIENT_PROTOCOL), true)
         return super.onStartCommand(intent, flags, startId)
     }
 
     override fun onDestroy() {
         super.onDestroy()
         unregisterReceiver(ackReceiver)
+        streams.onCancel = null
     }
 
     private fun restoreState() {
@@ -61,41 +66,58 @@ class ProxyService : BaseService() {
         var i = 0
         val len = requests.size
         while (i < len) {
-            handleRequest(requests.keyAt(i), requests.valueAt(i), false)
+            handleRequest(requests.keyAt(i), requests.valueAt(i), protocolOf(requests.keyAt(i)), false)
             i++
         }
         Timber.wtf("restored $count clients")
     }
 
     /**
-     * @param clientAddr    Client address
+     * The protocol of a restored client is not stored, but only PPP/0.2 clients ask for responses at dispatch
+     * addresses.
+     */
+    private fun protocolOf(clientAddr: String): String {
+        return if (Nanny.getDispatchPackage(clientAddr) != null) Nanny.PPP_0_2 else Nanny.PPP_0_1
+    }
+
+    /**
+     * @param clientAddr     Client address
+     * *
+     * @param requestParams  Client request
      * *
-     * @param requestParams Client request
+     * @param clientProtocol Protocol version the client spoke
      * *
-     * @param cacheRequest  Flag that controls caching request to disk
+     * @param cacheRequest   Flag that controls caching request to disk
      */
-    private fun handleRequest(clientAddr: String, requestParams: RequestParams, cacheRequest: Boolean) {
+    private fun handleRequest(clientAddr: String, requestParams: RequestParams, clientProtocol: String?,
+                              cacheRequest: Boolean) {
         Timber.wtf("handling client=$clientAddr req=$requestParams")
+        if (isRetransmit(clients[clientAddr], requestParams)) { // Already serving it; don't register a second listener
+            val response = ResponseFactory.newAllowResponse(Nanny.AUTHORIZATION_SERVICE).build()
+            sendBroadcast(Nanny.newResponseIntent(clientAddr).putExtras(response))
+            return
+        }
         val listener: ProxyListener<*>
-        when (requestParams.opCode) {
-            AccountRequest.ADD_ON_ACCOUNTS_UPDATED_LISTENER -> listener = ProxyOnAccountsUpdateListener<Any>(this, clientAddr)
-            AccountRequest.GET_ACCOUNTS_BY_TYPE_AND_FEATURES -> listener = ProxyAccountManagerListener.GetAccountsByTypeAndFeatures(this, clientAddr)
-            AccountRequest.GET_AUTH_TOKEN1 -> listener = ProxyAccountManagerListener.GetAuthToken1(this, clientAddr)
-            AccountRequest.GET_AUTH_TOKEN2 -> listener = ProxyAccountManagerListener.GetAuthToken2(this, clientAddr)
-            AccountRequest.HAS_FEATURES -> listener = ProxyAccountManagerListener.HasFeatures(this, clientAddr)
-            AccountRequest.REMOVE_ACCOUNT -> listener = ProxyAccountManagerListener.RemoveAccount(this, clientAddr)
-            AccountRequest.RENAME_ACCOUNT -> listener = ProxyAccountManagerListener.RenameAccount(this, clientAddr)
-            LocationRequest.ADD_GPS_STATUS_LISTENER -> listener = ProxyGpsStatusListener<Any>(this, clientAddr)
-            LocationRequest.ADD_NMEA_LISTENER -> listener = ProxyNmeaListener<Any>(this, clientAddr)
-            LocationRequest.REQUEST_LOCATION_UPDATES1 -> listener = RequestLocationUpdatesListener.Api1(this, clientAddr)
-            LocationRequest.REQUEST_LOCATION_UPDATES2 -> listener = RequestLocationUpdatesListener.Api2(this, clientAddr)
-            LocationRequest.REQUEST_SINGLE_UPDATE -> listener = RequestSingleUpdateListener.Api(this, clientAddr)
-            LocationRequest.REQUEST_SINGLE_UPDATE1 -> listener = RequestSingleUpdateListener.Api1(this, clientAddr)
+        when (requestParams.opCodeId) {
+            OpCodes.ACCOUNT_ADD_ON_ACCOUNTS_UPDATED_LISTENER -> listener = ProxyOnAccountsUpdateListener<Any>(this, clientAddr)
+            OpCodes.ACCOUNT_GET_ACCOUNTS_BY_TYPE_AND_FEATURES -> listener = ProxyAccountManagerListener.GetAccountsByTypeAndFeatures(this, clientAddr)
+            OpCodes.ACCOUNT_GET_AUTH_TOKEN1 -> listener = ProxyAccountManagerListener.GetAuthToken1(this, clientAddr)
+            OpCodes.ACCOUNT_GET_AUTH_TOKEN2 -> listener = ProxyAccountManagerListener.GetAuthToken2(this, clientAddr)
+            OpCodes.ACCOUNT_HAS_FEATURES -> listener = ProxyAccountManagerListener.HasFeatures(this, clientAddr)
+            OpCodes.ACCOUNT_REMOVE_ACCOUNT -> listener = ProxyAccountManagerListener.RemoveAccount(this, clientAddr)
+            OpCodes.ACCOUNT_RENAME_ACCOUNT -> listener = ProxyAccountManagerListener.RenameAccount(this, clientAddr)
+            OpCodes.LOCATION_ADD_GPS_STATUS_LISTENER -> listener = ProxyGpsStatusListener<Any>(this, clientAddr)
+            OpCodes.LOCATION_ADD_NMEA_LISTENER -> listener = ProxyNmeaListener<Any>(this, clientAddr)
+            OpCodes.LOCATION_REQUEST_LOCATION_UPDATES1 -> listener = RequestLocationUpdatesListener.Api1(this, clientAddr)
+            OpCodes.LOCATION_REQUEST_LOCATION_UPDATES2 -> listener = RequestLocationUpdatesListener.Api2(this, clientAddr)
+            OpCodes.LOCATION_REQUEST_SINGLE_UPDATE -> listener = RequestSingleUpdateListener.Api(this, clientAddr)
+            OpCodes.LOCATION_REQUEST_SINGLE_UPDATE1 -> listener = RequestSingleUpdateListener.Api1(this, clientAddr)
             else -> throw UnsupportedOperationException("Unsupported opcode " + requestParams.opCode)
         }
 
+        listener.clientProtocol = clientProtocol
         val response = startRequest(clientAddr, requestParams, listener, cacheRequest)
-        val intent = Intent(clientAddr).putExtras(response)
+        val intent = Nanny.newResponseIntent(clientAddr).putExtras(response)
         sendBroadcast(intent)
     }
 
@@ -114,7 +136,8 @@ class ProxyService : BaseService() {
         try {
             listener.register(this, params)
         } catch (error: Throwable) {
-            return ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, error).build()
+            return ResponseFactory.newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, error, listener.clientProtocol)
+                    .build()
         }
 
         // Good request? Cache request to memory and disk
@@ -125,21 +148,48 @@ class ProxyService : BaseService() {
         return ResponseFactory.newAllowResponse(Nanny.AUTHORIZATION_SERVICE).build()
     }
 
+    /**
+     * @return true if [params] is the request [client] was started with, sent again under the same client address
+     */
+    private fun isRetransmit(client: ProxyClient?, params: RequestParams): Boolean {
+        val fingerprint = params.fingerprint
+        return client != null && fingerprint != 0L && client.requestParams.fingerprint == fingerprint
+    }
+
+    /**
+     * Send [response] to [clientAddr] over the Binder callback it registered with [StreamService], or broadcast it if
+     * there is none.
+     */
+    fun deliver(clientAddr: String, response: Intent) {
+        if (!streams.push(clientAddr, response)) {
+            sendBroadcast(response)
+        }
+    }
+
     fun removeProxyClient(clientAddr: String) {
         clients.remove(clientAddr)
+        streams.unregister(clientAddr)
         db.delOngoingRequest(clientAddr)
         if (clients.isEmpty) { // no more clients? kill service
             stopSelf()
         }
     }
 
+    /**
+     * Stop the listener of a client that cancelled its request. Clients already removed are ignored.
+     */
+    internal fun cancelProxyClient(clientAddr: String) {
+        clients[clientAddr]?.listener?.stop()
+    }
+
     internal inner class AckReceiver : BroadcastReceiver() {
         override fun onReceive(context: Context, intent: Intent) {
             // TODO: validate
             val clientAddr = intent.getStringExtra(Nanny.CLIENT_ADDRESS)
             val client = clients[clientAddr]
             if (client != null) {
-                client.listener.updateAck(SystemClock.elapsedRealtime())
+                client.listener.updateAck(SystemClock.elapsedRealtime(), intent.getIntExtra(Nanny.ACK_WINDOW, 0),
+                        intent.getLongExtra(Nanny.ACK_INTERVAL, 0))
             }
         }
     }
@@ -148,5 +198,6 @@ class ProxyService : BaseService() {
 
         val CLIENT_ADDR = "clientAddr"
         val REQUEST_PARAMS = "requestParams"
+        val CLIENT_PROTOCOL = "clientProtocol"
     }
 }
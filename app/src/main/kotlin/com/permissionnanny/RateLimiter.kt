@@ -0,0 +1,79 @@
+package com.permissionnanny
+
+import android.os.SystemClock
+import android.support.v4.util.ArrayMap
+
+/**
+ * Token bucket per client package. A client may send [burst] requests at once, then [refillPerSecond] a second.
+ * Tokens are counted in thousandths so refilling needs no floating point; a client whose bucket is full holds no
+ * state worth keeping and is forgotten once [MAX_CLIENTS] buckets exist.
+ * <p/>
+ * Buckets are keyed by package name because that is the identity a request carries. Resolving the sender's uid would
+ * cost another call into the system server per request, which is more than the map lookup it would save.
+ */
+open class RateLimiter(
+        burst: Int = BURST,
+        private val refillPerSecond: Int = REFILL_PER_SECOND,
+        private val clock: () -> Long = { SystemClock.elapsedRealtime() }) {
+
+    companion object {
+        const val BURST = 20
+        const val REFILL_PER_SECOND = 5
+        const val MAX_CLIENTS = 64
+
+        private const val TOKEN = 1000L
+    }
+
+    private class Bucket(var tokens: Long, var stamp: Long)
+
+    private val capacity: Long
+    private val buckets = ArrayMap<String, Bucket>()
+
+    init {
+        require(burst > 0) { "Burst must be positive, got $burst" }
+        require(refillPerSecond > 0) { "Refill must be positive, got $refillPerSecond" }
+        capacity = burst * TOKEN
+    }
+
+    /**
+     * Take [requests] tokens from [client]'s bucket, one per request. Batches bigger than the burst cost a full bucket.
+     *
+     * @return 0 if the requests are admitted; otherwise the milliseconds until the client may retry
+     */
+    @Synchronized
+    fun acquire(client: String, requests: Int = 1): Long {
+        val cost = Math.min(Math.max(requests, 1) * TOKEN, capacity)
+        val now = clock()
+        var bucket = buckets[client]
+        if (bucket == null) {
+            if (buckets.size >= MAX_CLIENTS) {
+                evictFull(now)
+            }
+            bucket = Bucket(capacity, now)
+            buckets.put(client, bucket)
+        } else {
+            refill(bucket, now)
+        }
+        if (bucket.tokens >= cost) {
+            bucket.tokens -= cost
+            return 0
+        }
+        // refillPerSecond tokens a second is refillPerSecond thousandths a millisecond
+        return (cost - bucket.tokens + refillPerSecond - 1) / refillPerSecond
+    }
+
+    private fun refill(bucket: Bucket, now: Long) {
+        bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.stamp) * refillPerSecond)
+        bucket.stamp = now
+    }
+
+    private fun evictFull(now: Long) {
+        for (i in buckets.size - 1 downTo 0) {
+            val bucket = buckets.valueAt(i)
+            refill(bucket, now)
+            if (bucket.tokens == capacity) {
+                buckets.removeAt(i)
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.permissionnanny
+
+import android.support.v4.util.ArrayMap
+import timber.log.Timber
+import java.util.*
+import java.util.concurrent.Executor
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Runs client requests off the main thread. Each client has a lane: its requests run one at a time, in the order
+ * they arrived, while different clients share [workers]. A request that has not committed to its side effects
+ * [deadlineMs] after it was submitted times out: if it had not started yet, it is skipped, and if it is still deciding,
+ * it must not go on to act. A request that committed in time answers for itself, however long it takes.
+ */
+open class RequestPipeline(
+        private val workers: Executor,
+        private val timer: ScheduledExecutorService,
+        private val deadlineMs: Long = DEADLINE_MS,
+        private val maxPending: Int = MAX_PENDING) {
+
+    companion object {
+        /** Below the 10 second broadcast ANR limit. */
+        const val DEADLINE_MS = 8000L
+        /** Most requests waiting for a worker before new ones are turned away. */
+        const val MAX_PENDING = 128
+        /** Threads shared by all clients. */
+        const val WORKERS = 4
+        /** Least time a turned away client is asked to wait before retrying. */
+        const val MIN_RETRY_AFTER_MS = 1000L
+
+        private const val PENDING = 0
+        private const val RUNNING = 1
+        private const val COMMITTED = 2
+        private const val DONE = 3
+        private const val EXPIRED = 4
+    }
+
+    /**
+     * Snapshot of the pipeline's load.
+     *
+     * @property queueDepth     Requests waiting for a worker
+     * @property completed      Requests that finished in time
+     * @property timedOut       Requests that missed their deadline
+     * @property rejected       Requests turned away because too many were pending
+     * @property meanServiceNs  Mean time requests spent running
+     * @property maxServiceNs   Longest time a request spent running
+     */
+    data class Metrics(val queueDepth: Int,
+                       val completed: Long,
+                       val timedOut: Long,
+                       val rejected: Long,
+                       val meanServiceNs: Long,
+                       val maxServiceNs: Long)
+
+    private inner class Task(val work: (commit: () -> Boolean) -> Unit,
+                             val onTimeout: () -> Unit,
+                             val onDone: () -> Unit) {
+        val state = AtomicInteger(PENDING)
+        val released = AtomicBoolean()
+        @Volatile var deadline: ScheduledFuture<*>? = null
+
+        /** Claim the task for its side effects. Returns false once it has timed out. */
+        fun commit(): Boolean {
+            return state.compareAndSet(RUNNING, COMMITTED) || state.get() == COMMITTED
+        }
+
+        fun release() {
+            if (released.compareAndSet(false, true)) {
+                onDone()
+            }
+        }
+    }
+
+    /** Tasks waiting or running, by client. A client has a lane only while it has tasks. */
+    private val lanes = ArrayMap<String, ArrayDeque<Task>>()
+    private val queued = AtomicInteger()
+    private val completed = AtomicLong()
+    private val timedOut = AtomicLong()
+    private val rejected = AtomicLong()
+    private val serviceNs = AtomicLong()
+    private val maxServiceNs = AtomicLong()
+
+    /**
+     * Queue [work] behind [client]'s earlier requests. [work] must call its `commit` argument right before it sends a
+     * response or causes any other side effect, and stop without doing so if `commit` returns false: the request has
+     * timed out and [onTimeout] has answered the client instead. [onDone] is called once, when [work] finishes, when
+     * the request times out, or at the deadline of a request that committed but is still running.
+     *
+     * If too many requests are pending, [work] never runs: [onOverflow] is called with the milliseconds the client
+     * should wait before retrying, then [onDone].
+     */
+    fun submit(client: String, work: (commit: () -> Boolean) -> Unit, onTimeout: () -> Unit,
+               onOverflow: (retryAfter: Long) -> Unit, onDone: () -> Unit) {
+        if (queued.get() >= maxPending) {
+            rejected.incrementAndGet()
+            onOverflow(retryAfterMs())
+            onDone()
+            return
+        }
+        val task = Task(work, onTimeout, onDone)
+        queued.incrementAndGet()
+        task.deadline = timer.schedule(Runnable { expire(task) }, deadlineMs, TimeUnit.MILLISECONDS)
+        val idle: Boolean
+        synchronized (lanes) {
+            var lane = lanes[client]
+            idle = lane == null
+            if (lane == null) {
+                lane = ArrayDeque<Task>()
+                lanes.put(client, lane)
+            }
+            lane.offer(task)
+        }
+        if (idle) {
+            workers.execute { drain(client) }
+        }
+    }
+
+    fun metrics(): Metrics {
+        val done = completed.get()
+        return Metrics(queued.get(), done, timedOut.get(), rejected.get(),
+                if (done > 0) serviceNs.get() / done else 0, maxServiceNs.get())
+    }
+
+    /**
+     * Roughly how long the pending requests take to run at the mean service time, between [MIN_RETRY_AFTER_MS] and
+     * the deadline.
+     */
+    private fun retryAfterMs(): Long {
+        val done = completed.get()
+        val backlogMs = if (done > 0) TimeUnit.NANOSECONDS.toMillis(serviceNs.get() / done * queued.get()) else 0
+        return Math.min(Math.max(backlogMs, MIN_RETRY_AFTER_MS), Math.max(deadlineMs, MIN_RETRY_AFTER_MS))
+    }
+
+    /**
+     * Run [client]'s tasks until its lane is empty.
+     */
+    private fun drain(client: String) {
+        while (true) {
+            val task = synchronized (lanes) {
+                val lane = lanes[client]!!
+                val next = lane.peek()
+                if (next == null) {
+                    lanes.remove(client)
+                }
+                next
+            } ?: return
+            run(task)
+            synchronized (lanes) {
+                lanes[client]!!.poll()
+            }
+        }
+    }
+
+    private fun run(task: Task) {
+        if (!task.state.compareAndSet(PENDING, RUNNING)) { // Expired while queued
+            return
+        }
+        queued.decrementAndGet()
+        val start = System.nanoTime()
+        try {
+            task.work({ task.commit() })
+        } catch (e: Exception) {
+            Timber.wtf(e, "Request failed")
+        }
+        val elapsed = System.nanoTime() - start
+        if (task.state.compareAndSet(RUNNING, DONE) || task.state.compareAndSet(COMMITTED, DONE)) {
+            task.deadline?.cancel(false)
+            serviceNs.addAndGet(elapsed)
+            completed.incrementAndGet()
+            task.release()
+        }
+        while (true) {
+            val max = maxServiceNs.get()
+            if (elapsed <= max || maxServiceNs.compareAndSet(max, elapsed)) {
+                break
+            }
+        }
+    }
+
+    private fun expire(task: Task) {
+        if (task.state.compareAndSet(PENDING, EXPIRED)) {
+            queued.decrementAndGet()
+        } else if (!task.state.compareAndSet(RUNNING, EXPIRED)) { // Done, or committed and will answer for itself
+            task.release()
+            return
+        }
+        timedOut.incrementAndGet()
+        task.onTimeout()
+        task.release()
+    }
+}
@@ -19,16 +19,33 @@ object ResponseFactory {
         return builder
     }
 
-    fun newBadRequestResponse(error: Throwable): NannyBundle.Builder {
-        return newBadRequestResponse(Nanny.AUTHORIZATION_SERVICE, error)
+    fun newTimeoutResponse(server: String): NannyBundle.Builder {
+        val builder = NannyBundle.Builder()
+        builder.mStatusCode = Nanny.SC_TIMEOUT
+        builder.mServer = server
+        builder.mConnection = Nanny.CLOSE
+        return builder
+    }
+
+    fun newTooManyRequestsResponse(server: String, retryAfter: Long, error: Throwable, protocol: String?)
+            : NannyBundle.Builder {
+        val builder = newBadRequestResponse(server, error, protocol)
+        builder.mStatusCode = Nanny.SC_TOO_MANY_REQUESTS
+        builder.mRetryAfter = retryAfter
+        return builder
     }
 
-    fun newBadRequestResponse(server: String, error: Throwable): NannyBundle.Builder {
+    /**
+     * @param clientProtocol Protocol version the client spoke; `null` and PPP/0.1 clients get a serialized Throwable
+     * instead of a [com.permissionnanny.lib.NannyError]
+     */
+    fun newBadRequestResponse(server: String, error: Throwable, clientProtocol: String? = null): NannyBundle.Builder {
         val builder = NannyBundle.Builder()
         builder.mStatusCode = Nanny.SC_BAD_REQUEST
         builder.mServer = server
         builder.mConnection = Nanny.CLOSE
         builder.mError = error
+        builder.mLegacyError = clientProtocol == null || clientProtocol == Nanny.PPP_0_1
         return builder
     }
 }
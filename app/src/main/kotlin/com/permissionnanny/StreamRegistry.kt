@@ -0,0 +1,71 @@
+package com.permissionnanny
+
+import android.content.Intent
+import android.os.IBinder
+import android.os.RemoteException
+import android.support.v4.util.ArrayMap
+import com.permissionnanny.lib.request.INannyStreamCallback
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Callbacks clients registered with [StreamService], by client address. [ProxyService] pushes responses through them
+ * instead of broadcasting.
+ */
+@Singleton
+open class StreamRegistry @Inject constructor() {
+
+    private val callbacks = ArrayMap<String, INannyStreamCallback>()
+
+    /** Called with the client address when a client cancels its ongoing request. */
+    var onCancel: ((String) -> Unit)? = null
+
+    fun register(clientAddr: String, callback: INannyStreamCallback) {
+        try {
+            callback.asBinder().linkToDeath(IBinder.DeathRecipient { unregister(clientAddr, callback) }, 0)
+        } catch (e: RemoteException) { // Died already
+            return
+        }
+        synchronized (callbacks) {
+            callbacks.put(clientAddr, callback)
+        }
+    }
+
+    fun unregister(clientAddr: String) {
+        synchronized (callbacks) {
+            callbacks.remove(clientAddr)
+        }
+    }
+
+    /**
+     * Unregister [clientAddr] because the client stopped its request, and tell [onCancel].
+     */
+    fun cancel(clientAddr: String) {
+        unregister(clientAddr)
+        onCancel?.invoke(clientAddr)
+    }
+
+    private fun unregister(clientAddr: String, callback: INannyStreamCallback) {
+        synchronized (callbacks) {
+            if (callbacks[clientAddr] === callback) {
+                callbacks.remove(clientAddr)
+            }
+        }
+    }
+
+    /**
+     * Push [response] to the callback registered for [clientAddr] as a oneway call.
+     *
+     * @return `false` if there is no live callback and the response must be broadcast instead
+     */
+    fun push(clientAddr: String, response: Intent): Boolean {
+        val callback = synchronized (callbacks) { callbacks[clientAddr] } ?: return false
+        try {
+            callback.onResponse(response)
+            return true
+        } catch (e: RemoteException) {
+            unregister(clientAddr, callback)
+            return false
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.permissionnanny
+
+import android.content.Intent
+import android.os.Binder
+import android.os.IBinder
+import com.permissionnanny.lib.Nanny
+import com.permissionnanny.lib.request.INannyStream
+import com.permissionnanny.lib.request.INannyStreamCallback
+import timber.log.Timber
+import javax.inject.Inject
+
+/**
+ * Lets PPP/0.2 clients receive ongoing resource responses over Binder. See [Nanny.STREAM_SERVICE].
+ */
+open class StreamService : BaseService() {
+
+    @Inject internal lateinit var streams: StreamRegistry
+
+    private val binder = object : INannyStream.Stub() {
+        override fun register(clientAddr: String, callback: INannyStreamCallback) {
+            if (isCallerAddress(clientAddr)) {
+                streams.register(clientAddr, callback)
+            }
+        }
+
+        override fun unregister(clientAddr: String) {
+            if (isCallerAddress(clientAddr)) {
+                streams.cancel(clientAddr)
+            }
+        }
+    }
+
+    override fun onCreate() {
+        super.onCreate()
+        getComponent().inject(this)
+    }
+
+    override fun onBind(intent: Intent): IBinder? {
+        return binder
+    }
+
+    /**
+     * Only dispatch addresses name the package they belong to, so only they can be streamed, and only to that package.
+     */
+    internal fun isCallerAddress(clientAddr: String): Boolean {
+        val clientPackage = Nanny.getDispatchPackage(clientAddr)
+        val callerPackages = packageManager.getPackagesForUid(Binder.getCallingUid())
+        if (clientPackage == null || callerPackages == null || clientPackage !in callerPackages) {
+            Timber.wtf(Err.FOREIGN_CLIENT_ADDRESS.format(clientAddr))
+            return false
+        }
+        return true
+    }
+}
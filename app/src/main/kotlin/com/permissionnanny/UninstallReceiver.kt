@@ -3,6 +3,7 @@ package com.permissionnanny
 import android.content.Context
 import android.content.Intent
 import com.permissionnanny.data.AppPermissionManager
+import dagger.Lazy
 import timber.log.Timber
 import javax.inject.Inject
 
@@ -11,7 +12,9 @@ import javax.inject.Inject
  */
 class UninstallReceiver : BaseReceiver() {
 
-    @Inject internal lateinit var appManager: AppPermissionManager
+    @Inject internal lateinit var lazyAppManager: Lazy<AppPermissionManager>
+
+    internal val appManager: AppPermissionManager get() = lazyAppManager.get()
 
     override fun onReceive(context: Context, intent: Intent) {
         super.onReceive(context, intent)
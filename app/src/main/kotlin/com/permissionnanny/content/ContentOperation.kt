@@ -8,6 +8,7 @@ import android.provider.CalendarContract
 import android.provider.ContactsContract
 import android.provider.MediaStore.Files
 import android.provider.Telephony.*
+import com.permissionnanny.Manifest
 import com.permissionnanny.Operation
 import com.permissionnanny.R
 import com.permissionnanny.lib.request.RequestParams
@@ -23,6 +24,36 @@ class ContentOperation(
         minSdk: Int)
     : Operation(dialogTitle, minSdk, PermissionInfo.PROTECTION_DANGEROUS) {
 
+    /** Permission a client needs to query [uri]. */
+    val readPermission: String
+    /** Permission a client needs to insert, update or delete at [uri]. */
+    val writePermission: String
+
+    init {
+        when (contentType) {
+            CONTENT_CALENDAR -> {
+                readPermission = Manifest.permission.READ_CALENDAR
+                writePermission = Manifest.permission.WRITE_CALENDAR
+            }
+            CONTENT_CONTACTS -> {
+                readPermission = Manifest.permission.READ_CONTACTS
+                writePermission = Manifest.permission.WRITE_CONTACTS
+            }
+            CONTENT_EXTERNAL_STORAGE -> {
+                readPermission = Manifest.permission.READ_EXTERNAL_STORAGE
+                writePermission = Manifest.permission.WRITE_EXTERNAL_STORAGE
+            }
+            CONTENT_SMS -> {
+                readPermission = Manifest.permission.READ_SMS
+                writePermission = Manifest.permission.WRITE_SMS
+            }
+            else -> {
+                readPermission = ""
+                writePermission = ""
+            }
+        }
+    }
+
     companion object {
 
         val CONTENT_CALENDAR = 1
@@ -31,7 +62,7 @@ class ContentOperation(
         val CONTENT_SMS = 4
 
         // TODO #4: Parse other types of content provider URIs to show client intent to the user
-        var operations = arrayOf(
+        val operations = arrayOf(
                 // CalendarContract
                 // TODO #23: Implement CalendarContract's static query methods in a request builder
                 ContentOperation(CalendarContract.CONTENT_URI, CONTENT_CALENDAR, R.string.dialogTitle_contentCalendar, 14),
@@ -56,14 +87,23 @@ class ContentOperation(
                 ContentOperation(Sms.CONTENT_URI, CONTENT_SMS, R.string.dialogTitle_contentSms, 19)
         )
 
-        fun getOperation(request: RequestParams): ContentOperation? {
-            val requestUri = request.uri0.toString()
-            for (operation in ContentOperation.operations) {
-                if (requestUri.startsWith(operation.uri.toString())) {
-                    return operation
-                }
+        /** Replaced, never modified, so lookups read it without locking. */
+        @Volatile private var trie = operations.fold(UriTrie<ContentOperation>()) { trie, operation ->
+            trie.plus(operation.uri, operation)
+        }
+
+        /**
+         * Recognize URIs under [operation]'s. Registering is cheap and does not slow lookups down.
+         */
+        fun register(operation: ContentOperation) {
+            synchronized (operations) {
+                trie = trie.plus(operation.uri, operation)
             }
-            return null
+        }
+
+        fun getOperation(request: RequestParams): ContentOperation? {
+            val requestUri = request.uri0 ?: return null
+            return trie.find(requestUri)
         }
     }
 }
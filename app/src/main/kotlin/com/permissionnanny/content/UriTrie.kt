@@ -0,0 +1,133 @@
+package com.permissionnanny.content
+
+import android.net.Uri
+import android.util.SparseArray
+import java.util.*
+
+/**
+ * Immutable values keyed by content URI prefix, stored as a tree of authorities and encoded path segments. [find] walks
+ * the string form of a URI in place, which a URI parsed or unparcelled from a string already holds, so lookups build
+ * no Strings and cost one hash probe per segment no matter how many prefixes are registered. [plus] copies only the
+ * nodes on the new prefix's path, so a trie can be shared across threads and replaced wholesale.
+ */
+class UriTrie<T : Any> private constructor(private val root: Node<T>) {
+
+    constructor() : this(Node<T>(""))
+
+    /**
+     * Children are bucketed by [String.hashCode] of their key so a segment can be hashed and compared in place.
+     */
+    private class Node<T : Any>(val key: String, val value: T?, val children: SparseArray<List<Node<T>>>) {
+
+        constructor(key: String) : this(key, null, SparseArray<List<Node<T>>>(2))
+
+        fun child(s: String, start: Int, end: Int): Node<T>? {
+            val bucket = children.get(hash(s, start, end)) ?: return null
+            val length = end - start
+            var i = 0
+            while (i < bucket.size) {
+                val node = bucket[i++]
+                if (node.key.length == length && s.regionMatches(start, node.key, 0, length)) {
+                    return node
+                }
+            }
+            return null
+        }
+
+        fun plus(keys: List<String>, index: Int, value: T): Node<T> {
+            if (index == keys.size) {
+                return Node(key, value, children)
+            }
+            val key = keys[index]
+            val hash = key.hashCode()
+            val bucket = children.get(hash) ?: emptyList()
+            val next = ArrayList<Node<T>>(bucket.size + 1)
+            var child: Node<T>? = null
+            for (node in bucket) {
+                if (node.key == key) child = node else next.add(node)
+            }
+            next.add((child ?: Node<T>(key)).plus(keys, index + 1, value))
+            val copy = children.clone()
+            copy.put(hash, next)
+            return Node(this.key, this.value, copy)
+        }
+    }
+
+    /**
+     * @return A trie that also maps [prefix] to [value], replacing any value it had
+     */
+    fun plus(prefix: Uri, value: T): UriTrie<T> {
+        val s = prefix.toString()
+        if (!s.startsWith(CONTENT_PREFIX)) {
+            throw IllegalArgumentException("Not a content URI: " + s)
+        }
+        val keys = ArrayList<String>()
+        var start = CONTENT_PREFIX.length
+        var end = segmentEnd(s, start)
+        keys.add(s.substring(start, end))
+        while (end < s.length && s[end] == '/') {
+            start = end + 1
+            end = segmentEnd(s, start)
+            if (start < end) {
+                keys.add(s.substring(start, end))
+            }
+        }
+        return UriTrie(root.plus(keys, 0, value))
+    }
+
+    /**
+     * @return The value of the longest registered prefix of [uri], matching whole path segments, or `null` if none
+     * matches or [uri] is not a content URI
+     */
+    fun find(uri: Uri): T? {
+        val s = uri.toString()
+        if (!s.startsWith(CONTENT_PREFIX)) {
+            return null
+        }
+        var start = CONTENT_PREFIX.length
+        var end = segmentEnd(s, start)
+        var node = root.child(s, start, end) ?: return null
+        var match = node.value
+        while (end < s.length && s[end] == '/') {
+            start = end + 1
+            end = segmentEnd(s, start)
+            if (start == end) {
+                continue // Skip empty segments like Uri.getPathSegments() does
+            }
+            node = node.child(s, start, end) ?: break
+            match = node.value ?: match
+        }
+        return match
+    }
+
+    companion object {
+
+        private val CONTENT_PREFIX = "content://"
+
+        /**
+         * @return The index of the first '/', '?' or '#' at or after [start], or the length of [s] if there is none
+         */
+        private fun segmentEnd(s: String, start: Int): Int {
+            var i = start
+            while (i < s.length) {
+                val c = s[i]
+                if (c == '/' || c == '?' || c == '#') {
+                    break
+                }
+                i++
+            }
+            return i
+        }
+
+        /**
+         * @return [String.hashCode] of the region of [s] from [start] to [end], without building the substring
+         */
+        private fun hash(s: String, start: Int, end: Int): Int {
+            var h = 0
+            for (i in start..end - 1) {
+                h = 31 * h + s[i].toInt()
+            }
+            return h
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.permissionnanny.dagger
 
 import android.app.Application
+import com.permissionnanny.RateLimiter
+import com.permissionnanny.RequestPipeline
+import com.permissionnanny.StreamRegistry
 import com.permissionnanny.data.AppPermissionManager
 import com.permissionnanny.data.OngoingRequestDB
 import dagger.Component
@@ -20,4 +23,10 @@ interface AppComponent {
     fun appPermissionManager(): AppPermissionManager
 
     fun db(): OngoingRequestDB
+
+    fun streams(): StreamRegistry
+
+    fun pipeline(): RequestPipeline
+
+    fun limiter(): RateLimiter
 }
@@ -4,6 +4,8 @@ import android.app.Application
 import com.esotericsoftware.kryo.Kryo
 import com.esotericsoftware.kryo.serializers.CompatibleFieldSerializer
 import com.permissionnanny.App
+import com.permissionnanny.RateLimiter
+import com.permissionnanny.RequestPipeline
 import com.permissionnanny.data.*
 import dagger.Module
 import dagger.Provides
@@ -11,6 +13,10 @@ import net.engio.mbassy.bus.MBassador
 import org.objenesis.strategy.StdInstantiatorStrategy
 import java.io.File
 import java.io.IOException
+import java.util.concurrent.Executors
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
 import javax.inject.Singleton
 
 /**
@@ -77,6 +83,21 @@ open class AppModule(private val app: App) {
         return AppPermissionManager(app, db, bus)
     }
 
+    @Provides
+    @Singleton
+    open fun provideRequestPipeline(): RequestPipeline {
+        val workers = ThreadPoolExecutor(RequestPipeline.WORKERS, RequestPipeline.WORKERS, 30, TimeUnit.SECONDS,
+                LinkedBlockingQueue<Runnable>())
+        workers.allowCoreThreadTimeOut(true)
+        return RequestPipeline(workers, Executors.newSingleThreadScheduledExecutor())
+    }
+
+    @Provides
+    @Singleton
+    open fun provideRateLimiter(): RateLimiter {
+        return RateLimiter()
+    }
+
     companion object {
 
         @Deprecated("") private val APP_PERMISSION_DB_SNAPDB_PATH = "clientPermissionUsage"
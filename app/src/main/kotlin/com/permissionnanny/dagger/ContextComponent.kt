@@ -20,6 +20,8 @@ interface ContextComponent {
 
     fun inject(victim: ProxyService)
 
+    fun inject(victim: StreamService)
+
     fun inject(victim: ClientRequestReceiver)
 
     fun inject(victim: ClientPermissionManifestReceiver)
@@ -6,13 +6,12 @@ import android.os.Bundle
 import android.support.v4.util.ArrayMap
 import com.permissionnanny.AllOpen
 import com.permissionnanny.App
-import com.permissionnanny.Manifest
 import com.permissionnanny.Operation
 import com.permissionnanny.content.ContentOperation
 import com.permissionnanny.dagger.AppModule
 import com.permissionnanny.lib.Nanny
+import com.permissionnanny.lib.request.OpCodes
 import com.permissionnanny.lib.request.RequestParams
-import com.permissionnanny.lib.request.content.ContentRequest
 import com.permissionnanny.simple.SimpleOperation
 import timber.log.Timber
 import java.util.*
@@ -33,6 +32,8 @@ constructor(
 
     /** Index definition: {App Name: {Permission Name: Privilege}}  */
     internal val mConfigs: MutableMap<String, MutableMap<String, AppPermission>> = ArrayMap()
+    /** Privileges from [mConfigs], read by requests on worker threads. */
+    private val privileges = PrivilegeTable()
 
     init {
         readDB()
@@ -66,22 +67,26 @@ constructor(
             configMap.put(config.permissionName, config)
             i++
         }
+        privileges.putAll(configs)
     }
 
     open fun readPermissionManifest(appPackage: String, permissions: ArrayList<String>) {
         val oldConfigs = mConfigs[appPackage]
         val newConfigs = oldConfigs ?: ArrayMap<String, AppPermission>()
+        val added = ArrayList<AppPermission>()
 
         for (permission in permissions) {
             val config = newConfigs[permission]
             if (config == null) { // New permission config? Create new entry
                 val newConfig = AppPermission(appPackage, permission, AppPermission.ALWAYS_ASK)
                 newConfigs.put(permission, newConfig)
+                added.add(newConfig)
                 db.putConfig(newConfig)
                 Timber.wtf("New config=" + newConfig)
             }
         }
 
+        privileges.putAll(added)
         mConfigs.put(appPackage, newConfigs)
         bus.publish(mConfigs)
     }
@@ -89,6 +94,7 @@ constructor(
     open fun removeApp(appPackage: String) {
         db.delApp(appPackage)
         mConfigs.remove(appPackage)
+        privileges.removeApp(appPackage)
         bus.publish(mConfigs)
     }
 
@@ -100,6 +106,7 @@ constructor(
         if (config.privilege != newPrivilege) {
             config = config.setPrivilege(newPrivilege)
             mConfigs[config.appPackageName]!!.put(config.permissionName, config)
+            privileges.put(config.appPackageName, config.permissionName, newPrivilege)
             db.putConfig(config)
             Timber.wtf("Updated config=" + config)
         }
@@ -127,6 +134,7 @@ constructor(
 
         }
         permissions.put(permission, config!!)
+        privileges.put(appPackage, permission, newPrivilege)
         db.putConfig(config)
         bus.publish(mConfigs)
     }
@@ -160,29 +168,14 @@ constructor(
             return AppPermission.ALWAYS_ALLOW
         }
 
-        val permissions = mConfigs[appPackage] ?: // App not registered yet? Default to ALWAYS_ASK
-                return AppPermission.ALWAYS_ASK
-
-        val config = permissions[permission] ?: // App didn't register this permission? Default to ALWAYS_ASK
-                return AppPermission.ALWAYS_ASK
-
-        return config.privilege
+        // App not registered yet, or didn't register this permission? Default to ALWAYS_ASK
+        return privileges.get(appPackage, permission, AppPermission.ALWAYS_ASK)
     }
 
     private fun contentPermissionMap(operation: ContentOperation, request: RequestParams): String {
-        when (request.opCode) {
-            ContentRequest.SELECT -> when (operation.contentType) {
-                ContentOperation.CONTENT_CALENDAR -> return Manifest.permission.READ_CALENDAR
-                ContentOperation.CONTENT_CONTACTS -> return Manifest.permission.READ_CONTACTS
-                ContentOperation.CONTENT_EXTERNAL_STORAGE -> return Manifest.permission.READ_EXTERNAL_STORAGE
-                ContentOperation.CONTENT_SMS -> return Manifest.permission.READ_SMS
-            }
-            ContentRequest.INSERT, ContentRequest.UPDATE, ContentRequest.DELETE -> when (operation.contentType) {
-                ContentOperation.CONTENT_CALENDAR -> return Manifest.permission.WRITE_CALENDAR
-                ContentOperation.CONTENT_CONTACTS -> return Manifest.permission.WRITE_CONTACTS
-                ContentOperation.CONTENT_EXTERNAL_STORAGE -> return Manifest.permission.WRITE_EXTERNAL_STORAGE
-                ContentOperation.CONTENT_SMS -> return Manifest.permission.WRITE_SMS
-            }
+        when (request.opCodeId) {
+            OpCodes.CONTENT_SELECT -> return operation.readPermission
+            OpCodes.CONTENT_INSERT, OpCodes.CONTENT_UPDATE, OpCodes.CONTENT_DELETE -> return operation.writePermission
         }
         return ""
     }
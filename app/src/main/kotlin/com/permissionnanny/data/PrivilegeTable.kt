@@ -0,0 +1,154 @@
+package com.permissionnanny.data
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Privileges by (app package, permission) for the request path. Package and permission names are interned to small
+ * ids; privileges live in an open addressing table keyed by both ids. Writers copy the table, change the copy and
+ * publish it, so readers on any thread never lock. Load many privileges with [putAll], which copies once.
+ */
+internal class PrivilegeTable {
+
+    companion object {
+        private const val EMPTY = 0L
+        /** Fibonacci hashing multiplier, 2^64 / golden ratio. */
+        private const val MIX = -7046029254386353131L
+    }
+
+    /** Names to ids. Ids start at 1 so no key is [EMPTY], and are never reused. */
+    private val packages = ConcurrentHashMap<String, Int>()
+    private val permissions = ConcurrentHashMap<String, Int>()
+
+    @Volatile private var table = Table(16)
+
+    /**
+     * @return [appPackage]'s privilege for [permission], or [default] if it has none
+     */
+    fun get(appPackage: String, permission: String, default: Long): Long {
+        val app = packages[appPackage] ?: return default
+        val perm = permissions[permission] ?: return default
+        val table = table
+        val i = table.indexOf(key(app, perm))
+        return if (i >= 0) table.values[i] else default
+    }
+
+    @Synchronized
+    fun put(appPackage: String, permission: String, privilege: Long) {
+        val key = key(intern(packages, appPackage), intern(permissions, permission))
+        val old = table
+        val i = old.indexOf(key)
+        if (i >= 0) { // Only the privilege changed; share the keys
+            val next = Table(old.keys, old.values.clone(), old.size)
+            next.values[i] = privilege
+            table = next
+            return
+        }
+        val next = if ((old.size + 1) * 2 > old.keys.size) old.rehash(old.keys.size * 2, 0) else old.copy()
+        next.insert(key, privilege)
+        table = next
+    }
+
+    /**
+     * Add or replace the privileges of [configs] in a single copy of the table.
+     */
+    @Synchronized
+    fun putAll(configs: Collection<AppPermission>) {
+        if (configs.isEmpty()) {
+            return
+        }
+        val old = table
+        var capacity = old.keys.size
+        while ((old.size + configs.size) * 2 > capacity) { // Room for them all, should every one be new
+            capacity *= 2
+        }
+        val next = if (capacity > old.keys.size) old.rehash(capacity, 0) else old.copy()
+        for (config in configs) {
+            next.put(key(intern(packages, config.appPackageName), intern(permissions, config.permissionName)),
+                    config.privilege)
+        }
+        table = next
+    }
+
+    @Synchronized
+    fun removeApp(appPackage: String) {
+        val app = packages[appPackage] ?: return
+        table = table.rehash(table.keys.size, app)
+    }
+
+    private fun key(app: Int, permission: Int): Long {
+        return (app.toLong() shl 32) or permission.toLong()
+    }
+
+    private fun intern(ids: ConcurrentHashMap<String, Int>, name: String): Int {
+        var id = ids[name]
+        if (id == null) {
+            id = ids.size + 1
+            ids.put(name, id)
+        }
+        return id
+    }
+
+    /**
+     * Linear probing table, at most half full. Published tables are never modified.
+     */
+    private class Table(val keys: LongArray, val values: LongArray, var size: Int) {
+
+        constructor(capacity: Int) : this(LongArray(capacity), LongArray(capacity), 0)
+
+        fun indexOf(key: Long): Int {
+            val mask = keys.size - 1
+            var i = slot(key)
+            while (true) {
+                val k = keys[i]
+                if (k == key) {
+                    return i
+                } else if (k == EMPTY) {
+                    return -1
+                }
+                i = (i + 1) and mask
+            }
+        }
+
+        fun put(key: Long, value: Long) {
+            val i = indexOf(key)
+            if (i >= 0) {
+                values[i] = value
+            } else {
+                insert(key, value)
+            }
+        }
+
+        fun insert(key: Long, value: Long) {
+            val mask = keys.size - 1
+            var i = slot(key)
+            while (keys[i] != EMPTY) {
+                i = (i + 1) and mask
+            }
+            keys[i] = key
+            values[i] = value
+            size++
+        }
+
+        fun copy(): Table {
+            return Table(keys.clone(), values.clone(), size)
+        }
+
+        /**
+         * @param dropApp Package id whose entries are left out, or 0 to keep everything
+         */
+        fun rehash(capacity: Int, dropApp: Int): Table {
+            val next = Table(capacity)
+            for (i in 0 until keys.size) {
+                val key = keys[i]
+                if (key != EMPTY && (key ushr 32).toInt() != dropApp) {
+                    next.insert(key, values[i])
+                }
+            }
+            return next
+        }
+
+        private fun slot(key: Long): Int {
+            return ((key * MIX) ushr (64 - Integer.numberOfTrailingZeros(keys.size))).toInt()
+        }
+    }
+}
@@ -9,6 +9,7 @@ import android.os.Build
 import android.os.Bundle
 import com.permissionnanny.Manifest
 import com.permissionnanny.lib.request.RequestParams
+import com.permissionnanny.lib.request.simple.AccountPayloads
 import com.permissionnanny.lib.request.simple.AccountRequest
 import java.io.IOException
 
@@ -31,8 +32,9 @@ class AccountOperation(
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.AddAccountExplicitly.from(request)
                             val am = AccountManager.get(context)
-                            response.putBoolean(request.opCode, am.addAccountExplicitly(request.account0, request.string0, request.bundle0))
+                            response.putBoolean(request.opCode, am.addAccountExplicitly(p.account, p.password, p.userdata))
                         }),
                 SimpleOperation(AccountRequest.ADD_ON_ACCOUNTS_UPDATED_LISTENER,
                         Manifest.permission.GET_ACCOUNTS,
@@ -43,10 +45,11 @@ class AccountOperation(
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.BlockingGetAuthToken.from(request)
                             val am = AccountManager.get(context)
                             try {
-                                response.putString(request.opCode, am.blockingGetAuthToken(request.account0, request.string0,
-                                        request.boolean0))
+                                response.putString(request.opCode, am.blockingGetAuthToken(p.account, p.authTokenType,
+                                        p.notifyAuthFailure))
                             } catch (e: OperationCanceledException) {
                                 throw RuntimeException(e)
                             } catch (e: IOException) {
@@ -60,8 +63,9 @@ class AccountOperation(
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.ClearPassword.from(request)
                             val am = AccountManager.get(context)
-                            am.clearPassword(request.account0)
+                            am.clearPassword(p.account)
                         }),
                 SimpleOperation(AccountRequest.GET_ACCOUNTS,
                         Manifest.permission.GET_ACCOUNTS,
@@ -76,8 +80,9 @@ class AccountOperation(
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.GetAccountsByType.from(request)
                             val am = AccountManager.get(context)
-                            response.putParcelableArray(request.opCode, am.getAccountsByType(request.string0))
+                            response.putParcelableArray(request.opCode, am.getAccountsByType(p.type))
                         }),
                 SimpleOperation(AccountRequest.GET_ACCOUNTS_BY_TYPE_AND_FEATURES,
                         Manifest.permission.GET_ACCOUNTS,
@@ -96,16 +101,18 @@ class AccountOperation(
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.GetPassword.from(request)
                             val am = AccountManager.get(context)
-                            response.putString(request.opCode, am.getPassword(request.account0))
+                            response.putString(request.opCode, am.getPassword(p.account))
                         }),
                 SimpleOperation(AccountRequest.GET_USER_DATA,
                         Manifest.permission.AUTHENTICATE_ACCOUNTS,
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.GetUserData.from(request)
                             val am = AccountManager.get(context)
-                            response.putString(request.opCode, am.getUserData(request.account0, request.string0))
+                            response.putString(request.opCode, am.getUserData(p.account, p.key))
                         }),
                 SimpleOperation(AccountRequest.HAS_FEATURES,
                         Manifest.permission.GET_ACCOUNTS,
@@ -116,25 +123,28 @@ class AccountOperation(
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.InvalidateAuthToken.from(request)
                             val am = AccountManager.get(context)
-                            am.invalidateAuthToken(request.string0, request.string1)
+                            am.invalidateAuthToken(p.accountType, p.authToken)
                         }),
                 SimpleOperation(AccountRequest.PEEK_AUTH_TOKEN,
                         Manifest.permission.AUTHENTICATE_ACCOUNTS,
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.PeekAuthToken.from(request)
                             val am = AccountManager.get(context)
-                            response.putString(request.opCode, am.peekAuthToken(request.account0, request.string0))
+                            response.putString(request.opCode, am.peekAuthToken(p.account, p.authTokenType))
                         }),
                 SimpleOperation(AccountRequest.REMOVE_ACCOUNT_EXPLICITLY,
                         Manifest.permission.AUTHENTICATE_ACCOUNTS,
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 22,
                         { context, request, response ->
+                            val p = AccountPayloads.RemoveAccountExplicitly.from(request)
                             if (Build.VERSION.SDK_INT >= 22) {
                                 val am = AccountManager.get(context)
-                                response.putBoolean(request.opCode, am.removeAccountExplicitly(request.account0))
+                                response.putBoolean(request.opCode, am.removeAccountExplicitly(p.account))
                             }
                         }),
                 SimpleOperation(AccountRequest.RENAME_ACCOUNT,
@@ -146,24 +156,27 @@ class AccountOperation(
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.SetAuthToken.from(request)
                             val am = AccountManager.get(context)
-                            am.setAuthToken(request.account0, request.string0, request.string1)
+                            am.setAuthToken(p.account, p.authTokenType, p.authToken)
                         }),
                 SimpleOperation(AccountRequest.SET_PASSWORD,
                         Manifest.permission.AUTHENTICATE_ACCOUNTS,
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.SetPassword.from(request)
                             val am = AccountManager.get(context)
-                            am.setPassword(request.account0, request.string0)
+                            am.setPassword(p.account, p.password)
                         }),
                 SimpleOperation(AccountRequest.SET_USER_DATA,
                         Manifest.permission.AUTHENTICATE_ACCOUNTS,
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 5,
                         { context, request, response ->
+                            val p = AccountPayloads.SetUserData.from(request)
                             val am = AccountManager.get(context)
-                            am.setUserData(request.account0, request.string0, request.string1)
+                            am.setUserData(p.account, p.key, p.value)
                         })
         )
     }
@@ -5,6 +5,8 @@ import android.content.Context
 import android.content.pm.PermissionInfo
 import android.location.LocationManager
 import com.permissionnanny.R
+import com.permissionnanny.lib.request.OpCodes
+import com.permissionnanny.lib.request.simple.LocationPayloads
 import com.permissionnanny.lib.request.simple.LocationRequest
 import javax.inject.Inject
 
@@ -29,25 +31,28 @@ constructor() {
                         PermissionInfo.PROTECTION_DANGEROUS,
                         R.string.dialogTitle_locationAddProximityAlert, 1,
                         { context, request, response ->
+                            val p = LocationPayloads.AddProximityAlert.from(request)
                             val mgr = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
-                            mgr.addProximityAlert(request.double0, request.double1, request.float0,
-                                    request.long0, request.pendingIntent0)
+                            mgr.addProximityAlert(p.latitude, p.longitude, p.radius,
+                                    p.expiration, p.intent)
                         }),
                 SimpleOperation(LocationRequest.GET_LAST_KNOWN_LOCATION,
                         Manifest.permission.ACCESS_COARSE_LOCATION,
                         PermissionInfo.PROTECTION_DANGEROUS,
                         R.string.dialogTitle_locationGetLastKnownLocation, 1,
                         { context, request, response ->
+                            val p = LocationPayloads.GetLastKnownLocation.from(request)
                             val mgr = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
-                            response.putParcelable(request.opCode, mgr.getLastKnownLocation(request.string0))
+                            response.putParcelable(request.opCode, mgr.getLastKnownLocation(p.provider))
                         }),
                 SimpleOperation(LocationRequest.REMOVE_PROXIMITY_ALERT,
                         "",
                         PermissionInfo.PROTECTION_NORMAL,
                         R.string.dialogTitle_locationRemoveProximityAlert, 1,
                         { context, request, response ->
+                            val p = LocationPayloads.RemoveProximityAlert.from(request)
                             val mgr = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
-                            mgr.removeProximityAlert(request.pendingIntent0)
+                            mgr.removeProximityAlert(p.intent)
                         }),
                 SimpleOperation(LocationRequest.REMOVE_UPDATES,
                         "",
@@ -58,9 +63,10 @@ constructor() {
                         PermissionInfo.PROTECTION_DANGEROUS,
                         R.string.dialogTitle_locationRequestLocationUpdates, 9,
                         { context, request, response ->
+                            val p = LocationPayloads.RequestLocationUpdates.from(request)
                             val mgr = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
-                            mgr.requestLocationUpdates(request.long0, request.float0, request.criteria0,
-                                    request.pendingIntent0)
+                            mgr.requestLocationUpdates(p.minTime, p.minDistance, p.criteria,
+                                    p.intent)
                         }),
                 SimpleOperation(LocationRequest.REQUEST_LOCATION_UPDATES1,
                         Manifest.permission.ACCESS_COARSE_LOCATION,
@@ -87,26 +93,23 @@ constructor() {
                         PermissionInfo.PROTECTION_DANGEROUS,
                         R.string.dialogTitle_locationRequestLocationUpdates, 9,
                         { context, request, response ->
+                            val p = LocationPayloads.RequestSingleUpdate2.from(request)
                             val mgr = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
-                            mgr.requestSingleUpdate(request.string0, request.pendingIntent0)
+                            mgr.requestSingleUpdate(p.provider, p.intent)
                         }),
                 SimpleOperation(LocationRequest.REQUEST_SINGLE_UPDATE3,
                         Manifest.permission.ACCESS_COARSE_LOCATION,
                         PermissionInfo.PROTECTION_DANGEROUS,
                         R.string.dialogTitle_locationRequestLocationUpdates, 9,
                         { context, request, response ->
+                            val p = LocationPayloads.RequestSingleUpdate3.from(request)
                             val mgr = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
-                            mgr.requestSingleUpdate(request.criteria0, request.pendingIntent0)
+                            mgr.requestSingleUpdate(p.criteria, p.intent)
                         })
         )
 
         fun getOperation(opCode: String): SimpleOperation? {
-            for (operation in operations) {
-                if (operation.opCode == opCode) {
-                    return operation
-                }
-            }
-            return null
+            return SimpleOperation.getOperation(OpCodes.idOf(opCode))
         }
     }
 }
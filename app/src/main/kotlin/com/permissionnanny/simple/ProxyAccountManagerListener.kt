@@ -10,6 +10,7 @@ import com.permissionnanny.ResponseFactory
 import com.permissionnanny.lib.Nanny
 import com.permissionnanny.lib.request.RequestParams
 import com.permissionnanny.lib.request.simple.AccountManagerEvent
+import com.permissionnanny.lib.request.simple.AccountPayloads
 import java.io.IOException
 
 /**
@@ -31,11 +32,11 @@ abstract class ProxyAccountManagerListener<T>(
                     .build())
         } catch (e: OperationCanceledException) {
             // TODO #75: Handle OCE & IOE as 500s?
-            sendBroadcast(ResponseFactory.newBadRequestResponse(e).build())
+            sendBadRequestResponse(e)
         } catch (e: IOException) {
-            sendBroadcast(ResponseFactory.newBadRequestResponse(e).build())
+            sendBadRequestResponse(e)
         } catch (e: AuthenticatorException) {
-            sendBroadcast(ResponseFactory.newBadRequestResponse(e).build())
+            sendBadRequestResponse(e)
         }
     }
 
@@ -44,7 +45,8 @@ abstract class ProxyAccountManagerListener<T>(
     class GetAccountsByTypeAndFeatures(service: ProxyService, clientAddr: String) : ProxyAccountManagerListener<Array<Account>>(service, clientAddr) {
 
         override fun register(context: Context, request: RequestParams) {
-            AccountManager.get(context).getAccountsByTypeAndFeatures(request.string0, request.stringArray0, this, null)
+            val p = AccountPayloads.GetAccountsByTypeAndFeatures.from(request)
+            AccountManager.get(context).getAccountsByTypeAndFeatures(p.type, p.features, this, null)
         }
 
         override fun parse(entity: Bundle, value: Array<Account>) {
@@ -55,7 +57,8 @@ abstract class ProxyAccountManagerListener<T>(
     class GetAuthToken1(service: ProxyService, clientAddr: String) : ProxyAccountManagerListener<Bundle>(service, clientAddr) {
 
         override fun register(context: Context, request: RequestParams) {
-            AccountManager.get(context).getAuthToken(request.account0, request.string0, request.boolean0, this, null)
+            val p = AccountPayloads.GetAuthToken1.from(request)
+            AccountManager.get(context).getAuthToken(p.account, p.authTokenType, p.notifyAuthFailure, this, null)
         }
 
         override fun parse(entity: Bundle, value: Bundle) {
@@ -67,8 +70,9 @@ abstract class ProxyAccountManagerListener<T>(
 
         override fun register(context: Context, request: RequestParams) {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
-                AccountManager.get(context).getAuthToken(request.account0, request.string0, request.bundle0, request
-                        .boolean0, this, null)
+                val p = AccountPayloads.GetAuthToken2.from(request)
+                AccountManager.get(context).getAuthToken(p.account, p.authTokenType, p.options, p.notifyAuthFailure,
+                        this, null)
             }
         }
 
@@ -80,7 +84,8 @@ abstract class ProxyAccountManagerListener<T>(
     class HasFeatures(service: ProxyService, clientAddr: String) : ProxyAccountManagerListener<Boolean>(service, clientAddr) {
 
         override fun register(context: Context, request: RequestParams) {
-            AccountManager.get(context).hasFeatures(request.account0, request.stringArray0, this, null)
+            val p = AccountPayloads.HasFeatures.from(request)
+            AccountManager.get(context).hasFeatures(p.account, p.features, this, null)
         }
 
         override fun parse(entity: Bundle, value: Boolean) {
@@ -91,7 +96,7 @@ abstract class ProxyAccountManagerListener<T>(
     class RemoveAccount(service: ProxyService, clientAddr: String) : ProxyAccountManagerListener<Boolean>(service, clientAddr) {
 
         override fun register(context: Context, request: RequestParams) {
-            AccountManager.get(context).removeAccount(request.account0, this, null)
+            AccountManager.get(context).removeAccount(AccountPayloads.RemoveAccount.from(request).account, this, null)
         }
 
         override fun parse(entity: Bundle, value: Boolean) {
@@ -103,7 +108,8 @@ abstract class ProxyAccountManagerListener<T>(
 
         override fun register(context: Context, request: RequestParams) {
             if (Build.VERSION.SDK_INT >= 21) {
-                AccountManager.get(context).renameAccount(request.account0, request.string0, this, null)
+                val p = AccountPayloads.RenameAccount.from(request)
+                AccountManager.get(context).renameAccount(p.account, p.newName, this, null)
             }
         }
 
@@ -32,6 +32,6 @@ class ProxyGpsStatusListener<L>(
         val entity = Bundle()
         entity.putInt(GpsStatusEvent.EVENT, event)
 
-        sendBroadcast(okResponse(entity))
+        sendOkResponse(entity)
     }
 }
@@ -33,6 +33,6 @@ class ProxyNmeaListener<L>(
         entity.putLong(NmeaEvent.TIMESTAMP, timestamp)
         entity.putString(NmeaEvent.NMEA, nmea)
 
-        sendBroadcast(okResponse(entity))
+        sendOkResponse(entity)
     }
 }
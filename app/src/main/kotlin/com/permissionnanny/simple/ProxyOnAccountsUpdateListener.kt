@@ -8,6 +8,7 @@ import android.os.Bundle
 import com.permissionnanny.ProxyListener
 import com.permissionnanny.ProxyService
 import com.permissionnanny.lib.request.RequestParams
+import com.permissionnanny.lib.request.simple.AccountPayloads
 import com.permissionnanny.lib.request.simple.AccountsUpdateEvent
 
 /**
@@ -19,7 +20,8 @@ class ProxyOnAccountsUpdateListener<L>(
     : ProxyListener<L>(service, clientAddr, AccountsUpdateEvent.FILTER), OnAccountsUpdateListener {
 
     override fun register(context: Context, request: RequestParams) {
-        AccountManager.get(context).addOnAccountsUpdatedListener(this, null, request.boolean0)
+        val p = AccountPayloads.AddOnAccountsUpdatedListener.from(request)
+        AccountManager.get(context).addOnAccountsUpdatedListener(this, null, p.updateImmediately)
     }
 
     override fun unregister(context: Context) {
@@ -29,6 +31,6 @@ class ProxyOnAccountsUpdateListener<L>(
     override fun onAccountsUpdated(accounts: Array<Account>) {
         val entity = Bundle()
         entity.putParcelableArray(AccountsUpdateEvent.ACCOUNTS, accounts)
-        sendBroadcast(okResponse(entity))
+        sendOkResponse(entity)
     }
 }
@@ -9,6 +9,7 @@ import com.permissionnanny.ProxyListener
 import com.permissionnanny.ProxyService
 import com.permissionnanny.lib.Nanny
 import com.permissionnanny.lib.request.RequestParams
+import com.permissionnanny.lib.request.simple.LocationPayloads
 import com.permissionnanny.lib.request.simple.LocationEvent
 import com.permissionnanny.lib.request.simple.LocationRequest
 
@@ -31,7 +32,7 @@ open class RequestLocationUpdatesListener(
         entity.putString(Nanny.TYPE, LocationEvent.ON_LOCATION_CHANGED)
         entity.putParcelable(LocationEvent.LOCATION, location)
 
-        sendBroadcast(okResponse(entity))
+        sendOkResponse(entity)
     }
 
     override fun onProviderDisabled(provider: String) {
@@ -39,7 +40,7 @@ open class RequestLocationUpdatesListener(
         entity.putString(Nanny.TYPE, LocationEvent.ON_PROVIDER_DISABLED)
         entity.putString(LocationEvent.PROVIDER, provider)
 
-        sendBroadcast(okResponse(entity))
+        sendOkResponse(entity)
     }
 
     override fun onProviderEnabled(provider: String) {
@@ -47,7 +48,7 @@ open class RequestLocationUpdatesListener(
         entity.putString(Nanny.TYPE, LocationEvent.ON_PROVIDER_ENABLED)
         entity.putString(LocationEvent.PROVIDER, provider)
 
-        sendBroadcast(okResponse(entity))
+        sendOkResponse(entity)
     }
 
     override fun onStatusChanged(provider: String, status: Int, extras: Bundle) {
@@ -57,7 +58,7 @@ open class RequestLocationUpdatesListener(
         entity.putInt(LocationEvent.STATUS, status)
         entity.putBundle(LocationEvent.EXTRAS, extras)
 
-        sendBroadcast(okResponse(entity))
+        sendOkResponse(entity)
     }
 
     /**
@@ -66,8 +67,9 @@ open class RequestLocationUpdatesListener(
     class Api1(service: ProxyService, clientAddr: String) : RequestLocationUpdatesListener(service, clientAddr) {
 
         override fun register(context: Context, request: RequestParams) {
+            val p = LocationPayloads.RequestLocationUpdates1.from(request)
             val lm = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
-            lm.requestLocationUpdates(request.long0, request.float0, request.criteria0, this, null)
+            lm.requestLocationUpdates(p.minTime, p.minDistance, p.criteria, this, null)
         }
     }
 
@@ -77,8 +79,9 @@ open class RequestLocationUpdatesListener(
     class Api2(service: ProxyService, clientAddr: String) : RequestLocationUpdatesListener(service, clientAddr) {
 
         override fun register(context: Context, request: RequestParams) {
+            val p = LocationPayloads.RequestLocationUpdates2.from(request)
             val lm = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
-            lm.requestLocationUpdates(request.string0, request.long0, request.float0, this, null)
+            lm.requestLocationUpdates(p.provider, p.minTime, p.minDistance, this, null)
         }
     }
 }
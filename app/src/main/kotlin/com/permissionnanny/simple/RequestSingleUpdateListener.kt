@@ -5,6 +5,7 @@ import android.location.Location
 import android.location.LocationManager
 import com.permissionnanny.ProxyService
 import com.permissionnanny.lib.request.RequestParams
+import com.permissionnanny.lib.request.simple.LocationPayloads
 import com.permissionnanny.lib.request.simple.LocationRequest
 
 /**
@@ -26,7 +27,7 @@ open class RequestSingleUpdateListener(
 
         override fun register(context: Context, request: RequestParams) {
             val lm = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
-            lm.requestSingleUpdate(request.string0, this, null)
+            lm.requestSingleUpdate(LocationPayloads.RequestSingleUpdate.from(request).provider, this, null)
         }
     }
 
@@ -37,7 +38,7 @@ open class RequestSingleUpdateListener(
 
         override fun register(context: Context, request: RequestParams) {
             val lm = context.getSystemService(Context.LOCATION_SERVICE) as LocationManager
-            lm.requestSingleUpdate(request.criteria0, this, null)
+            lm.requestSingleUpdate(LocationPayloads.RequestSingleUpdate1.from(request).criteria, this, null)
         }
     }
 }
@@ -2,8 +2,8 @@ package com.permissionnanny.simple
 
 import android.content.Context
 import android.os.Bundle
-import android.support.v4.util.ArrayMap
 import com.permissionnanny.Operation
+import com.permissionnanny.lib.request.OpCodes
 import com.permissionnanny.lib.request.RequestParams
 
 /**
@@ -19,45 +19,38 @@ open class SimpleOperation(
     : Operation(dialogTitle, minSdk, protectionLevel) {
 
     companion object {
-        val operations: MutableMap<String, SimpleOperation> = ArrayMap()
+        fun getOperation(params: RequestParams): SimpleOperation? {
+            return getOperation(params.opCodeId)
+        }
 
-        init {
-//            for (operation in AccountOperation.operations) {
-//                operations.put(operation.opCode, operation)
-//            }
-//            for (operation in LocationOperation.operations) {
-//                operations.put(operation.opCode, operation)
-//            }
-//            for (operation in TelephonyOperation.operations) {
-//                operations.put(operation.opCode, operation)
-//            }
-//            for (operation in SmsOperation.operations) {
-//                operations.put(operation.opCode, operation)
-//            }
-//            for (operation in WifiOperation.operations) {
-//                operations.put(operation.opCode, operation)
-//            }
+        /**
+         * @param id [OpCodes] ID
+         * @return The operation for [id], or `null` if there is none
+         */
+        fun getOperation(id: Int): SimpleOperation? {
+            val operations = Registry.operations
+            return if (id > OpCodes.UNKNOWN && id < operations.size) operations[id] else null
         }
+    }
 
-        fun getOperation(params: RequestParams): SimpleOperation? {
-            if(operations.isEmpty()){
-                for (operation in AccountOperation.operations) {
-                    operations.put(operation.opCode, operation)
-                }
-                for (operation in LocationOperation.operations) {
-                    operations.put(operation.opCode, operation)
-                }
-                for (operation in TelephonyOperation.operations) {
-                    operations.put(operation.opCode, operation)
-                }
-                for (operation in SmsOperation.operations) {
-                    operations.put(operation.opCode, operation)
-                }
-                for (operation in WifiOperation.operations) {
-                    operations.put(operation.opCode, operation)
+    /**
+     * Every simple operation, indexed by [OpCodes] ID. The JVM builds it once, on first read, and publishes it safely,
+     * so receivers on any thread read it without locks. It lives outside [SimpleOperation]'s companion because the
+     * tables it reads construct SimpleOperations: building it from there would read them half-initialized.
+     */
+    private object Registry {
+        val operations = arrayOfNulls<SimpleOperation>(OpCodes.size())
+
+        init {
+            for (table in arrayOf(AccountOperation.operations, LocationOperation.operations,
+                    TelephonyOperation.operations, SmsOperation.operations, WifiOperation.operations)) {
+                for (operation in table) {
+                    val id = OpCodes.idOf(operation.opCode)
+                    check(id != OpCodes.UNKNOWN) { "Unknown opcode " + operation.opCode }
+                    check(operations[id] == null) { "Duplicate opcode " + operation.opCode }
+                    operations[id] = operation
                 }
             }
-            return operations[params.opCode]
         }
     }
 }
@@ -5,6 +5,8 @@ import android.content.pm.PermissionInfo
 import android.os.Build.VERSION
 import android.telephony.SmsManager
 import com.permissionnanny.R
+import com.permissionnanny.lib.request.OpCodes
+import com.permissionnanny.lib.request.simple.SmsPayloads
 import com.permissionnanny.lib.request.simple.SmsRequest
 import javax.inject.Inject
 
@@ -21,19 +23,21 @@ constructor() {
                         PermissionInfo.PROTECTION_DANGEROUS,
                         R.string.dialogTitle_smsSendDataMessage, 4,
                         { context, request, response ->
+                            val p = SmsPayloads.SendDataMessage.from(request)
                             val mgr = SmsManager.getDefault()
-                            mgr.sendDataMessage(request.string0, request.string1, request.int0.toShort(), request.byteArray0,
-                                    request.pendingIntent0, request.pendingIntent1)
+                            mgr.sendDataMessage(p.destinationAddress, p.scAddress, p.destinationPort.toShort(), p.data,
+                                    p.sentIntent, p.deliveryIntent)
                         }),
                 SimpleOperation(SmsRequest.SEND_MULTIMEDIA_MESSAGE,
                         Manifest.permission.SEND_SMS,
                         PermissionInfo.PROTECTION_DANGEROUS,
                         R.string.dialogTitle_smsSendMultimediaMessage, 21,
                         { context, request, response ->
+                            val p = SmsPayloads.SendMultimediaMessage.from(request)
                             if (VERSION.SDK_INT >= 21) {
                                 val mgr = SmsManager.getDefault()
-                                mgr.sendMultimediaMessage(null, request.uri0, request.string0, request.bundle0,
-                                        request.pendingIntent0)
+                                mgr.sendMultimediaMessage(null, p.contentUri, p.locationUrl, p.configOverrides,
+                                        p.sentIntent)
                             }
                         }),
                 SimpleOperation(SmsRequest.SEND_MULTIPART_TEXT_MESSAGE,
@@ -41,27 +45,24 @@ constructor() {
                         PermissionInfo.PROTECTION_DANGEROUS,
                         R.string.dialogTitle_smsSendMultipartTextMessage, 4,
                         { context, request, response ->
+                            val p = SmsPayloads.SendMultipartTextMessage.from(request)
                             val mgr = SmsManager.getDefault()
-                            mgr.sendMultipartTextMessage(request.string0, request.string1, request.arrayListOfStrings0,
-                                    request.arrayListOfPendingIntents0, request.arrayListOfPendingIntents1)
+                            mgr.sendMultipartTextMessage(p.destinationAddress, p.scAddress, p.parts,
+                                    p.sentIntents, p.deliveryIntents)
                         }),
                 SimpleOperation(SmsRequest.SEND_TEXT_MESSAGE,
                         Manifest.permission.SEND_SMS,
                         PermissionInfo.PROTECTION_DANGEROUS,
                         R.string.dialogTitle_smsSendTextMessage, 4,
                         { context, request, response ->
+                            val p = SmsPayloads.SendTextMessage.from(request)
                             val mgr = SmsManager.getDefault()
-                            mgr.sendTextMessage(request.string0, request.string1, request.string2,
-                                    request.pendingIntent0, request.pendingIntent1)
+                            mgr.sendTextMessage(p.destinationAddress, p.scAddress, p.text,
+                                    p.sentIntent, p.deliveryIntent)
                         }))
 
         fun getOperation(opCode: String): SimpleOperation? {
-            for (operation in operations) {
-                if (operation.opCode == opCode) {
-                    return operation
-                }
-            }
-            return null
+            return SimpleOperation.getOperation(OpCodes.idOf(opCode))
         }
     }
 }
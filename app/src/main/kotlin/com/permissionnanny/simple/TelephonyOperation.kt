@@ -6,6 +6,7 @@ import android.content.pm.PermissionInfo
 import android.os.Build.VERSION
 import android.telephony.TelephonyManager
 import com.permissionnanny.R
+import com.permissionnanny.lib.request.OpCodes
 import com.permissionnanny.lib.request.simple.TelephonyRequest
 import java.util.*
 import javax.inject.Inject
@@ -105,12 +106,7 @@ constructor() {
         )
 
         fun getOperation(opCode: String): SimpleOperation? {
-            for (operation in operations) {
-                if (operation.opCode == opCode) {
-                    return operation
-                }
-            }
-            return null
+            return SimpleOperation.getOperation(OpCodes.idOf(opCode))
         }
     }
 }
@@ -5,6 +5,8 @@ import android.net.wifi.WifiManager
 import com.permissionnanny.Manifest
 import com.permissionnanny.PermissionInfo
 import com.permissionnanny.R
+import com.permissionnanny.lib.request.OpCodes
+import com.permissionnanny.lib.request.simple.WifiPayloads
 import com.permissionnanny.lib.request.simple.WifiRequest
 import java.util.*
 import javax.inject.Inject
@@ -22,16 +24,18 @@ constructor() {
                         PermissionInfo.PROTECTION_NORMAL,
                         R.string.dialogTitle_wifiAddNetwork, 1,
                         { context, request, response ->
+                            val p = WifiPayloads.AddNetwork.from(request)
                             val mgr = context.getSystemService(Context.WIFI_SERVICE) as WifiManager
-                            response.putInt(request.opCode, mgr.addNetwork(request.wifiConfiguration0))
+                            response.putInt(request.opCode, mgr.addNetwork(p.wifiConfiguration))
                         }),
                 SimpleOperation(WifiRequest.DISABLE_NETWORK,
                         Manifest.permission.CHANGE_WIFI_STATE,
                         PermissionInfo.PROTECTION_NORMAL,
                         R.string.dialogTitle_wifiDisableNetwork, 1,
                         { context, request, response ->
+                            val p = WifiPayloads.DisableNetwork.from(request)
                             val mgr = context.getSystemService(Context.WIFI_SERVICE) as WifiManager
-                            response.putBoolean(request.opCode, mgr.disableNetwork(request.int0))
+                            response.putBoolean(request.opCode, mgr.disableNetwork(p.netId))
                         }),
                 SimpleOperation(WifiRequest.DISCONNECT,
                         Manifest.permission.CHANGE_WIFI_STATE,
@@ -46,9 +50,10 @@ constructor() {
                         PermissionInfo.PROTECTION_NORMAL,
                         R.string.dialogTitle_wifiEnableNetwork, 1,
                         { context, request, response ->
+                            val p = WifiPayloads.EnableNetwork.from(request)
                             val mgr = context.getSystemService(Context.WIFI_SERVICE) as WifiManager
 
-                            response.putBoolean(request.opCode, mgr.enableNetwork(request.int0, request.boolean0))
+                            response.putBoolean(request.opCode, mgr.enableNetwork(p.netId, p.disableOthers))
                         }),
                 SimpleOperation(WifiRequest.GET_CONFIGURED_NETWORKS,
                         Manifest.permission.ACCESS_WIFI_STATE,
@@ -127,8 +132,9 @@ constructor() {
                         PermissionInfo.PROTECTION_NORMAL,
                         R.string.dialogTitle_wifiRemoveNetwork, 1,
                         { context, request, response ->
+                            val p = WifiPayloads.RemoveNetwork.from(request)
                             val mgr = context.getSystemService(Context.WIFI_SERVICE) as WifiManager
-                            response.putBoolean(request.opCode, mgr.removeNetwork(request.int0))
+                            response.putBoolean(request.opCode, mgr.removeNetwork(p.netId))
                         }),
                 SimpleOperation(WifiRequest.SAVE_CONFIGURATION,
                         Manifest.permission.CHANGE_WIFI_STATE,
@@ -143,8 +149,9 @@ constructor() {
                         PermissionInfo.PROTECTION_NORMAL,
                         0, 1,
                         { context, request, response ->
+                            val p = WifiPayloads.SetWifiEnabled.from(request)
                             val mgr = context.getSystemService(Context.WIFI_SERVICE) as WifiManager
-                            response.putBoolean(request.opCode, mgr.setWifiEnabled(request.boolean0))
+                            response.putBoolean(request.opCode, mgr.setWifiEnabled(p.enabled))
                         }),
                 SimpleOperation(WifiRequest.START_SCAN,
                         Manifest.permission.CHANGE_WIFI_STATE,
@@ -159,18 +166,14 @@ constructor() {
                         PermissionInfo.PROTECTION_NORMAL,
                         R.string.dialogTitle_wifiUpdateNetwork, 1,
                         { context, request, response ->
+                            val p = WifiPayloads.UpdateNetwork.from(request)
                             val mgr = context.getSystemService(Context.WIFI_SERVICE) as WifiManager
-                            response.putInt(request.opCode, mgr.updateNetwork(request.wifiConfiguration0))
+                            response.putInt(request.opCode, mgr.updateNetwork(p.wifiConfiguration))
                         })
         )
 
         fun getOperation(opCode: String): SimpleOperation? {
-            for (operation in operations) {
-                if (operation.opCode == opCode) {
-                    return operation
-                }
-            }
-            return null
+            return SimpleOperation.getOperation(OpCodes.idOf(opCode))
         }
     }
 }
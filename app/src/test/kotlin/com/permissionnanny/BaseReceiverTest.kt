@@ -0,0 +1,19 @@
+package com.permissionnanny
+
+import org.hamcrest.Matchers.sameInstance
+import org.junit.Assert.assertThat
+import org.junit.Test
+import org.robolectric.RuntimeEnvironment
+
+class BaseReceiverTest : NannyAppTestCase() {
+
+    @Test
+    fun getComponent_shouldReuseGraphAcrossBroadcasts() {
+        val app = RuntimeEnvironment.application
+
+        val first = UninstallReceiver().getComponent(app)
+        val second = ClientRequestReceiver().getComponent(app)
+
+        assertThat(second, sameInstance(first))
+    }
+}
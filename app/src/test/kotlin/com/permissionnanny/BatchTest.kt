@@ -0,0 +1,67 @@
+package com.permissionnanny
+
+import com.permissionnanny.data.AppPermission
+import com.permissionnanny.data.AppPermissionManager
+import com.permissionnanny.lib.request.RequestParams
+import com.permissionnanny.lib.request.simple.TelephonyRequest
+import com.permissionnanny.lib.request.simple.WifiRequest
+import mocklin.Mocklin.eq
+import mocklin.Mocklin.same
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.nullValue
+import org.junit.Assert.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.BDDMockito.given
+import org.mockito.Mock
+
+class BatchTest : NannyAppTestCase() {
+
+    private lateinit var deviceId1: RequestParams
+    private lateinit var deviceId2: RequestParams
+    private lateinit var connectionInfo: RequestParams
+    private lateinit var unsupported: RequestParams
+    @Mock private lateinit var appManager: AppPermissionManager
+
+    @Before
+    fun setUp() {
+        deviceId1 = newParams(TelephonyRequest.GET_DEVICE_ID)
+        deviceId2 = newParams(TelephonyRequest.GET_DEVICE_ID)
+        connectionInfo = newParams(WifiRequest.GET_CONNECTION_INFO)
+        unsupported = newParams("rm -rf / --no-preserve-root")
+    }
+
+    @Test
+    fun privilegesShouldAllowNormalAndDenyUnsupportedOperations() {
+        val batch = Batch("3rd.party.app", listOf(connectionInfo, unsupported), appManager)
+
+        assertThat(batch.operations[1], nullValue())
+        assertThat(batch.privileges.toList(), `is`(listOf(AppPermission.ALWAYS_ALLOW, AppPermission.ALWAYS_DENY)))
+        assertThat(batch.asked.isEmpty(), `is`(true))
+    }
+
+    @Test
+    fun askedShouldListEachOperationOnce() {
+        val batch = Batch("3rd.party.app", listOf(deviceId1, connectionInfo, deviceId2), appManager)
+
+        assertThat(batch.asked, `is`(listOf(Operation.getOperation(deviceId1)!!)))
+    }
+
+    @Test
+    fun answerShouldOnlyChangeAskedRequests() {
+        given(appManager.getPermissionPrivilege(eq("3rd.party.app"), same(Operation.getOperation(deviceId2)!!),
+                same(deviceId2))).willReturn(AppPermission.ALWAYS_DENY)
+        val batch = Batch("3rd.party.app", listOf(deviceId1, deviceId2, connectionInfo), appManager)
+
+        val ans = batch.answer(true)
+
+        assertThat(ans.toList(), `is`(listOf(AppPermission.ALWAYS_ALLOW, AppPermission.ALWAYS_DENY,
+                AppPermission.ALWAYS_ALLOW)))
+    }
+
+    private fun newParams(opCode: String): RequestParams {
+        val params = RequestParams()
+        params.opCode = opCode
+        return params
+    }
+}
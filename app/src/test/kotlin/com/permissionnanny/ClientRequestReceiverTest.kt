@@ -12,11 +12,14 @@ import com.permissionnanny.dagger.MockComponentFactory
 import com.permissionnanny.data.AppPermission
 import com.permissionnanny.data.AppPermissionManager
 import com.permissionnanny.lib.Nanny
+import com.permissionnanny.lib.NannyBundle
+import com.permissionnanny.lib.NannyError
 import com.permissionnanny.lib.NannyException
 import com.permissionnanny.lib.request.RequestParams
 import com.permissionnanny.lib.request.simple.TelephonyRequest
 import com.permissionnanny.lib.request.simple.WifiRequest
 import mocklin.Mocklin.eq
+import mocklin.Mocklin.isNull
 import mocklin.Mocklin.same
 import org.hamcrest.core.Is.`is`
 import org.junit.Assert.assertThat
@@ -26,6 +29,8 @@ import org.mockito.ArgumentCaptor
 import org.mockito.Captor
 import org.mockito.Mock
 import org.mockito.Mockito.`when`
+import org.mockito.Mockito.never
+import org.mockito.Mockito.times
 import org.mockito.Mockito.verify
 import javax.inject.Inject
 
@@ -41,6 +46,8 @@ class ClientRequestReceiverTest : NannyAppTestCase() {
     @Inject lateinit var appManager: AppPermissionManager
     @Inject lateinit var executor: ProxyExecutor
     @Captor internal lateinit var intentCaptor: ArgumentCaptor<Intent>
+    @Captor internal lateinit var batchCaptor: ArgumentCaptor<Batch>
+    @Captor internal lateinit var privilegesCaptor: ArgumentCaptor<LongArray>
 
     @Before
     fun setUp() {
@@ -64,7 +71,23 @@ class ClientRequestReceiverTest : NannyAppTestCase() {
 
         receiver.onReceive(context, intent)
 
-        verify(receiver.executor).executeAllow(same(Operation.getOperation(requestParams)!!), same(requestParams), eq("123"))
+        verify(receiver.executor).executeAllow(same(Operation.getOperation(requestParams)!!), same(requestParams),
+                eq("123"), isNull<String>())
+    }
+
+    @Test
+    fun onReceiveShouldPassClientProtocolToExecutor() {
+        intent.putExtra(Nanny.PROTOCOL_VERSION, Nanny.PPP_0_2)
+        intent.putExtra(Nanny.CLIENT_ADDRESS, "123")
+        intent.putExtra(Nanny.ENTITY_BODY, entity)
+        entity.putParcelable(Nanny.SENDER_IDENTITY, sender)
+        requestParams.opCode = WifiRequest.GET_CONNECTION_INFO
+        entity.putParcelable(Nanny.REQUEST_PARAMS, requestParams)
+
+        receiver.onReceive(context, intent)
+
+        verify(receiver.executor).executeAllow(same(Operation.getOperation(requestParams)!!), same(requestParams),
+                eq("123"), eq(Nanny.PPP_0_2))
     }
 
     @Test
@@ -101,7 +124,7 @@ class ClientRequestReceiverTest : NannyAppTestCase() {
 
         receiver.onReceive(context, intent)
 
-        verify(receiver.executor).executeAllow(same(op), same(requestParams), eq("123"))
+        verify(receiver.executor).executeAllow(same(op), same(requestParams), eq("123"), isNull<String>())
     }
 
     @Test
@@ -148,6 +171,20 @@ class ClientRequestReceiverTest : NannyAppTestCase() {
                 Nanny.AUTHORIZATION_SERVICE, NannyException(Err.NO_REQUEST_PARAMS))))
     }
 
+    @Test
+    fun onReceiveShouldReturnStructuredErrorWhenClientSpeaksPPP02() {
+        intent.putExtra(Nanny.PROTOCOL_VERSION, Nanny.PPP_0_2)
+        intent.putExtra(Nanny.CLIENT_ADDRESS, "123")
+        intent.putExtra(Nanny.ENTITY_BODY, entity)
+        entity.putParcelable(Nanny.SENDER_IDENTITY, sender)
+
+        receiver.onReceive(context, intent)
+
+        verify<Context>(context).sendBroadcast(intentCaptor.capture())
+        assertThat(intentCaptor.value.getParcelableExtra<NannyError>(Nanny.ENTITY_ERROR),
+                `is`(NannyError(NannyError.NO_REQUEST_PARAMS, Err.NO_REQUEST_PARAMS, null)))
+    }
+
     @Test
     fun onReceiveShouldReturn400WhenRequestMissingSenderIdentity() {
         intent.putExtra(Nanny.CLIENT_ADDRESS, "123")
@@ -159,4 +196,80 @@ class ClientRequestReceiverTest : NannyAppTestCase() {
         assertThat(intentCaptor.value, equalToIntent(AppTestUtil.new400Response("123",
                 Nanny.AUTHORIZATION_SERVICE, NannyException(Err.NO_SENDER_IDENTITY))))
     }
+
+    @Test
+    fun onReceiveShouldReturn429WhenClientExceedsItsBurst() {
+        intent.putExtra(Nanny.CLIENT_ADDRESS, "123")
+        intent.putExtra(Nanny.ENTITY_BODY, entity)
+        entity.putParcelable(Nanny.SENDER_IDENTITY, sender)
+        requestParams.opCode = WifiRequest.GET_CONNECTION_INFO
+        entity.putParcelable(Nanny.REQUEST_PARAMS, requestParams)
+
+        for (i in 0 until RateLimiter.BURST + 1) {
+            receiver.onReceive(context, intent)
+        }
+
+        verify(receiver.executor, times(RateLimiter.BURST)).executeAllow(same(Operation.getOperation(requestParams)!!),
+                same(requestParams), eq("123"), isNull<String>())
+        verify<Context>(context).sendBroadcast(intentCaptor.capture())
+        val response = NannyBundle(intentCaptor.value)
+        assertThat(response.statusCode, `is`(Nanny.SC_TOO_MANY_REQUESTS))
+        assertThat(response.retryAfter, `is`(1000L / RateLimiter.REFILL_PER_SECOND))
+        assertThat((response.error as NannyException).code, `is`(NannyError.TOO_MANY_REQUESTS))
+    }
+
+    @Test
+    fun onReceiveShouldChargeOneTokenPerBatchedRequest() {
+        requestParams.opCode = WifiRequest.GET_CONNECTION_INFO
+        intent.putExtra(Nanny.CLIENT_ADDRESS, "123")
+        intent.putExtra(Nanny.ENTITY_BODY, entity)
+        entity.putParcelable(Nanny.SENDER_IDENTITY, sender)
+        entity.putParcelableArrayList(Nanny.REQUEST_BATCH, ArrayList((1..RateLimiter.BURST).map { requestParams }))
+        receiver.onReceive(context, intent)
+        entity.remove(Nanny.REQUEST_BATCH)
+        entity.putParcelable(Nanny.REQUEST_PARAMS, requestParams)
+
+        receiver.onReceive(context, intent)
+
+        verify(receiver.executor).executeBatch(batchCaptor.capture(), privilegesCaptor.capture(), eq("123"))
+        verify(receiver.executor, never()).executeAllow(same(Operation.getOperation(requestParams)!!),
+                same(requestParams), eq("123"), isNull<String>())
+        verify<Context>(context).sendBroadcast(intentCaptor.capture())
+        assertThat(NannyBundle(intentCaptor.value).statusCode, `is`(Nanny.SC_TOO_MANY_REQUESTS))
+    }
+
+    @Test
+    fun onReceiveShouldExecuteBatchWhenNothingNeedsAsking() {
+        val unsupported = RequestParams()
+        unsupported.opCode = "rm -rf / --no-preserve-root"
+        requestParams.opCode = WifiRequest.GET_CONNECTION_INFO
+        intent.putExtra(Nanny.CLIENT_ADDRESS, "123")
+        intent.putExtra(Nanny.ENTITY_BODY, entity)
+        entity.putParcelable(Nanny.SENDER_IDENTITY, sender)
+        entity.putParcelableArrayList(Nanny.REQUEST_BATCH, arrayListOf(requestParams, unsupported))
+
+        receiver.onReceive(context, intent)
+
+        verify(receiver.executor).executeBatch(batchCaptor.capture(), privilegesCaptor.capture(), eq("123"))
+        assertThat(batchCaptor.value.requests.size, `is`(2))
+        assertThat(privilegesCaptor.value.toList(), `is`(listOf(AppPermission.ALWAYS_ALLOW, AppPermission.ALWAYS_DENY)))
+    }
+
+    @Test
+    fun onReceiveShouldStartDialogActivityOnceWhenBatchNeedsAsking() {
+        val another = RequestParams()
+        another.opCode = TelephonyRequest.GET_DEVICE_ID
+        requestParams.opCode = TelephonyRequest.GET_DEVICE_ID
+        intent.putExtra(Nanny.CLIENT_ADDRESS, "123")
+        intent.putExtra(Nanny.ENTITY_BODY, entity)
+        entity.putParcelable(Nanny.SENDER_IDENTITY, sender)
+        entity.putParcelableArrayList(Nanny.REQUEST_BATCH, arrayListOf(requestParams, another))
+        `when`(appManager.getPermissionPrivilege(eq("3rd.party.app"), same(Operation.getOperation(requestParams)!!),
+                eq(requestParams))).thenReturn(AppPermission.ALWAYS_ASK)
+
+        receiver.onReceive(context, intent)
+
+        verify<Context>(context).startActivity(intentCaptor.capture())
+        assertThat(intentCaptor.value.component.className, `is`(ConfirmRequestActivity::class.java.name))
+    }
 }
@@ -0,0 +1,230 @@
+package com.permissionnanny
+
+import android.content.Context
+import android.content.ContextWrapper
+import android.content.Intent
+import android.location.Location
+import android.os.SystemClock
+import com.permissionnanny.dagger.MockComponentFactory
+import com.permissionnanny.data.OngoingRequestDB
+import com.permissionnanny.lib.Nanny
+import com.permissionnanny.lib.NannyBundle
+import com.permissionnanny.lib.request.Ack
+import com.permissionnanny.lib.request.simple.LocationEvent
+import com.permissionnanny.lib.request.simple.NmeaEvent
+import com.permissionnanny.simple.ProxyNmeaListener
+import com.permissionnanny.simple.RequestLocationUpdatesListener
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.lessThanOrEqualTo
+import org.hamcrest.Matchers.sameInstance
+import org.junit.Assert.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito.never
+import org.mockito.Mockito.verify
+import org.robolectric.Robolectric
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.shadows.ShadowApplication
+import javax.inject.Inject
+
+class ProxyListenerTest : NannyAppTestCase() {
+
+    companion object {
+        const val CLIENT = "client"
+        const val NMEA_PERIOD_MS = 100L
+    }
+
+    private lateinit var service: ProxyService
+    @Inject internal lateinit var db: OngoingRequestDB
+
+    /** Responses the service broadcast. */
+    private val sent: List<Intent>
+        get() = ShadowApplication.getInstance().broadcastIntents
+
+    @Before
+    fun setUp() {
+        val controller = Robolectric.buildService(ProxyService::class.java)
+        val component = MockComponentFactory.contextComponent
+        controller.get().setTestComponent(component)
+        component.inject(this)
+        service = controller.create().get()
+    }
+
+    @Test
+    fun onLocationChanged_shouldBroadcastOkResponse() {
+        val listener = RequestLocationUpdatesListener.Api1(service, CLIENT)
+        val location = Location("gps")
+
+        listener.onLocationChanged(location)
+
+        val response = sent.single()
+        assertThat(response.action, `is`(CLIENT))
+        val bundle = NannyBundle(response)
+        assertThat(bundle.protocol, `is`(Nanny.PPP_0_1))
+        assertThat(bundle.statusCode, `is`(Nanny.SC_OK))
+        assertThat(bundle.server, `is`(Nanny.LOCATION_SERVICE))
+        assertThat(bundle.entityBody!!.getString(Nanny.TYPE), `is`(LocationEvent.ON_LOCATION_CHANGED))
+        assertThat(bundle.entityBody!!.getParcelable<Location>(LocationEvent.LOCATION), `is`(location))
+        assertThat(bundle.entityBody!!.containsKey(Nanny.ACK_SERVER_ADDRESS), `is`(true))
+    }
+
+    @Test
+    fun onNmeaReceived_shouldBroadcastOkResponse() {
+        val listener = ProxyNmeaListener<Any>(service, CLIENT)
+
+        listener.onNmeaReceived(1, "nmea")
+
+        val bundle = NannyBundle(sent.single())
+        assertThat(bundle.statusCode, `is`(Nanny.SC_OK))
+        assertThat(bundle.server, `is`(Nanny.NMEA_SERVICE))
+        assertThat(bundle.entityBody!!.getLong(NmeaEvent.TIMESTAMP), `is`(1L))
+        assertThat(bundle.entityBody!!.getString(NmeaEvent.NMEA), `is`("nmea"))
+    }
+
+    @Test
+    fun okResponse_shouldNotLeakEntitiesBetweenEvents() {
+        val listener = ProxyNmeaListener<Any>(service, CLIENT)
+
+        listener.onNmeaReceived(1, "first")
+        listener.onNmeaReceived(2, "second")
+
+        assertThat(NannyBundle(sent[0]).entityBody!!.getString(NmeaEvent.NMEA), `is`("first"))
+        assertThat(NannyBundle(sent[1]).entityBody!!.getString(NmeaEvent.NMEA), `is`("second"))
+    }
+
+    @Test
+    fun newOkResponse_shouldReuseTemplate_forLocationUpdates() {
+        val listener = RequestLocationUpdatesListener.Api1(service, CLIENT)
+        val template = listener.okTemplate
+
+        listener.onLocationChanged(Location("gps"))
+        listener.onLocationChanged(Location("gps"))
+
+        assertTemplateReused(listener, template)
+    }
+
+    @Test
+    fun newOkResponse_shouldReuseTemplate_forNmea() {
+        val listener = ProxyNmeaListener<Any>(service, CLIENT)
+        val template = listener.okTemplate
+
+        listener.onNmeaReceived(1, "first")
+        listener.onNmeaReceived(2, "second")
+
+        assertTemplateReused(listener, template)
+    }
+
+    @Test
+    fun sendBroadcast_shouldTimeOut_whenOwedAckIsLate() {
+        val listener = ProxyNmeaListener<Any>(service, CLIENT)
+        listener.onNmeaReceived(1, "first")
+
+        SystemClock.sleep(ProxyListener.ACK_TIMEOUT_MS + 1)
+        listener.onNmeaReceived(2, "second")
+
+        assertThat(NannyBundle(sent.last()).statusCode, `is`(Nanny.SC_TIMEOUT))
+        verify(db).delOngoingRequest(CLIENT)
+    }
+
+    @Test
+    fun sendBroadcast_shouldNotTimeOut_withinGrantedWindow() {
+        val listener = ProxyNmeaListener<Any>(service, CLIENT)
+        listener.updateAck(SystemClock.elapsedRealtime(), ProxyListener.MAX_ACK_WINDOW, 60000)
+
+        for (i in 1..ProxyListener.MAX_ACK_WINDOW - 1) {
+            SystemClock.sleep(NMEA_PERIOD_MS)
+            listener.onNmeaReceived(i.toLong(), "nmea")
+        }
+
+        assertThat(sent.count { NannyBundle(it).statusCode == Nanny.SC_OK },
+                `is`(ProxyListener.MAX_ACK_WINDOW - 1))
+        verify(db, never()).delOngoingRequest(CLIENT)
+    }
+
+    @Test
+    fun sendOkResponse_shouldConflateEventsPastWindow_untilNextAck() {
+        val listener = ProxyNmeaListener<Any>(service, CLIENT)
+        listener.updateAck(SystemClock.elapsedRealtime(), 2, 60000)
+
+        for (i in 1..4) {
+            listener.onNmeaReceived(i.toLong(), "nmea$i")
+        }
+        assertThat(sent.map { nmeaOf(it) }, `is`(listOf("nmea1", "nmea2")))
+
+        listener.updateAck(SystemClock.elapsedRealtime(), 2, 60000)
+        assertThat(sent.map { nmeaOf(it) }, `is`(listOf("nmea1", "nmea2", "nmea4")))
+
+        listener.onNmeaReceived(5, "nmea5")
+        listener.onNmeaReceived(6, "nmea6")
+        assertThat(sent.map { nmeaOf(it) }, `is`(listOf("nmea1", "nmea2", "nmea4", "nmea5")))
+    }
+
+    @Test
+    fun sendOkResponse_shouldNotWithholdEvents_fromLegacyClient() {
+        val listener = ProxyNmeaListener<Any>(service, CLIENT)
+        listener.updateAck(SystemClock.elapsedRealtime())
+
+        for (i in 1..3) {
+            listener.onNmeaReceived(i.toLong(), "nmea$i")
+        }
+
+        assertThat(sent.map { nmeaOf(it) }, `is`(listOf("nmea1", "nmea2", "nmea3")))
+    }
+
+    @Test
+    fun windowedAcks_shouldCutAckTrafficTenfold_andStillDetectDeadClient() {
+        val listener = ProxyNmeaListener<Any>(service, CLIENT)
+        var acks = 0
+        val client = object : ContextWrapper(RuntimeEnvironment.application) {
+            override fun sendBroadcast(intent: Intent) {
+                acks++
+                listener.updateAck(SystemClock.elapsedRealtime(), intent.getIntExtra(Nanny.ACK_WINDOW, 0),
+                        intent.getLongExtra(Nanny.ACK_INTERVAL, 0))
+            }
+        }
+        val ack = Ack()
+        val events = 600 // 1 minute of 10 Hz NMEA
+
+        for (i in 1..events) {
+            listener.onNmeaReceived(i.toLong(), "nmea")
+            ackLast(client, ack)
+            SystemClock.sleep(NMEA_PERIOD_MS)
+        }
+        assertThat(acks * 10, lessThanOrEqualTo(events))
+        verify(db, never()).delOngoingRequest(CLIENT)
+
+        var undelivered = 0 // The client dies; events go unacked
+        while (NannyBundle(sent.last()).statusCode != Nanny.SC_TIMEOUT) {
+            listener.onNmeaReceived(0, "nmea")
+            SystemClock.sleep(NMEA_PERIOD_MS)
+            undelivered++
+        }
+        val deadline = (Ack.DEFAULT_INTERVAL_MS + ProxyListener.ACK_TIMEOUT_MS) / NMEA_PERIOD_MS + 1
+        assertThat(undelivered.toLong(), lessThanOrEqualTo(deadline))
+        verify(db).delOngoingRequest(CLIENT)
+    }
+
+    /**
+     * Every response sent so far must be a copy of [template] plus its entity: the header is built once per client,
+     * not once per event.
+     */
+    private fun assertTemplateReused(listener: ProxyListener<*>, template: Intent) {
+        assertThat(listener.okTemplate, sameInstance(template))
+        assertThat(template.hasExtra(Nanny.ENTITY_BODY), `is`(false))
+        assertThat(sent.size, `is`(2))
+        for (response in sent) {
+            assertThat(response.extras.keySet(), `is`(template.extras.keySet() + Nanny.ENTITY_BODY))
+        }
+    }
+
+    private fun nmeaOf(response: Intent): String? {
+        return NannyBundle(response).entityBody!!.getString(NmeaEvent.NMEA)
+    }
+
+    /** Hand the last response to the client's [Ack] the way the client's event filter would. */
+    private fun ackLast(client: Context, ack: Ack) {
+        val response = sent.last()
+        response.getBundleExtra(Nanny.ENTITY_BODY).putString(Nanny.ACK_SERVER_ADDRESS, "ack")
+        ack.sendAck(client, response)
+    }
+}
@@ -0,0 +1,91 @@
+package com.permissionnanny
+
+import org.hamcrest.Matchers.*
+import org.junit.Assert.assertThat
+import org.junit.Before
+import org.junit.Test
+
+class RateLimiterTest : NannyAppTestCase() {
+
+    private var now = 0L
+    private lateinit var limiter: RateLimiter
+
+    @Before
+    fun setUp() {
+        now = 1000
+        limiter = RateLimiter(3, 2, { now })
+    }
+
+    @Test
+    fun acquire_shouldAdmitBurst() {
+        assertThat(limiter.acquire("a"), `is`(0L))
+        assertThat(limiter.acquire("a"), `is`(0L))
+        assertThat(limiter.acquire("a"), `is`(0L))
+        assertThat(limiter.acquire("a"), `is`(500L))
+    }
+
+    @Test
+    fun acquire_shouldRefillOverTime() {
+        exhaust("a")
+
+        now += 300
+        assertThat(limiter.acquire("a"), `is`(200L))
+        now += 200
+        assertThat(limiter.acquire("a"), `is`(0L))
+        assertThat(limiter.acquire("a"), `is`(500L))
+    }
+
+    @Test
+    fun acquire_shouldNotRefillPastBurst() {
+        exhaust("a")
+
+        now += 60000
+        exhaust("a")
+        assertThat(limiter.acquire("a"), `is`(500L))
+    }
+
+    @Test
+    fun acquire_shouldChargeOneTokenPerRequest() {
+        assertThat(limiter.acquire("a", 2), `is`(0L))
+        assertThat(limiter.acquire("a", 2), `is`(500L))
+        assertThat(limiter.acquire("a"), `is`(0L))
+        assertThat(limiter.acquire("a"), `is`(500L))
+    }
+
+    @Test
+    fun acquire_shouldChargeFullBucket_forRequestsPastBurst() {
+        assertThat(limiter.acquire("a", 10), `is`(0L))
+        assertThat(limiter.acquire("a"), `is`(500L))
+
+        now += 60000
+        assertThat(limiter.acquire("a", 10), `is`(0L))
+    }
+
+    @Test
+    fun acquire_shouldLimitClientsSeparately() {
+        exhaust("a")
+
+        assertThat(limiter.acquire("b"), `is`(0L))
+    }
+
+    @Test
+    fun acquire_shouldRememberLimitedClients_whenManyClientsArrive() {
+        exhaust("a")
+        for (i in 0 until RateLimiter.MAX_CLIENTS * 2) {
+            now += 1
+            limiter.acquire("client" + i)
+        }
+
+        assertThat(limiter.acquire("a"), greaterThan(0L))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun init_shouldRejectZeroRefill() {
+        RateLimiter(1, 0)
+    }
+
+    private fun exhaust(client: String) {
+        while (limiter.acquire(client) == 0L) {
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.permissionnanny
+
+import org.hamcrest.Matchers.*
+import org.junit.Assert.assertThat
+import org.junit.Before
+import org.junit.Test
+import java.util.*
+import java.util.concurrent.Executor
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+class RequestPipelineTest : NannyAppTestCase() {
+
+    private lateinit var workers: ManualExecutor
+    private lateinit var timer: ManualTimer
+    private lateinit var pipeline: RequestPipeline
+    private lateinit var events: MutableList<String>
+
+    @Before
+    fun setUp() {
+        workers = ManualExecutor()
+        timer = ManualTimer()
+        pipeline = RequestPipeline(workers, timer, 1000, 3)
+        events = ArrayList()
+    }
+
+    @Test
+    fun submit_shouldRunEachClientsRequestsInOrder() {
+        submit("a", "a1")
+        submit("b", "b1")
+        submit("a", "a2")
+
+        assertThat(workers.tasks.size, `is`(2))
+        workers.runAll()
+
+        assertThat(events, contains("a1", "a1 done", "a2", "a2 done", "b1", "b1 done"))
+        assertThat(pipeline.metrics().completed, `is`(3L))
+        assertThat(pipeline.metrics().queueDepth, `is`(0))
+    }
+
+    @Test
+    fun submit_shouldStartNewLane_afterClientsLaneDrained() {
+        submit("a", "a1")
+        workers.runAll()
+        submit("a", "a2")
+
+        assertThat(workers.tasks.size, `is`(1))
+        workers.runAll()
+        assertThat(events, contains("a1", "a1 done", "a2", "a2 done"))
+    }
+
+    @Test
+    fun expire_shouldSkipQueuedRequest() {
+        submit("a", "a1")
+
+        timer.fireAll()
+        workers.runAll()
+
+        assertThat(events, contains("a1 timeout", "a1 done"))
+        assertThat(pipeline.metrics().timedOut, `is`(1L))
+        assertThat(pipeline.metrics().queueDepth, `is`(0))
+    }
+
+    @Test
+    fun expire_shouldRespondOnce_whenRequestOverruns() {
+        pipeline.submit("a", { events.add("a1"); timer.fireAll() }, { events.add("a1 timeout") },
+                { events.add("a1 overflow") }, { events.add("a1 done") })
+
+        workers.runAll()
+
+        assertThat(events, contains("a1", "a1 timeout", "a1 done"))
+        assertThat(pipeline.metrics().completed, `is`(0L))
+        assertThat(pipeline.metrics().timedOut, `is`(1L))
+    }
+
+    @Test
+    fun expire_shouldSkipSideEffects_whenWorkOverrunsBeforeCommitting() {
+        pipeline.submit("a", { commit ->
+            events.add("a1")
+            timer.fireAll()
+            if (commit()) {
+                events.add("a1 sms sent")
+            }
+        }, { events.add("a1 timeout") }, { events.add("a1 overflow") }, { events.add("a1 done") })
+
+        workers.runAll()
+
+        assertThat(events, contains("a1", "a1 timeout", "a1 done"))
+        assertThat(pipeline.metrics().completed, `is`(0L))
+        assertThat(pipeline.metrics().timedOut, `is`(1L))
+    }
+
+    @Test
+    fun expire_shouldNotTimeOut_whenWorkCommittedBeforeDeadline() {
+        pipeline.submit("a", { commit ->
+            if (commit()) {
+                timer.fireAll()
+                events.add("a1 sms sent")
+            }
+        }, { events.add("a1 timeout") }, { events.add("a1 overflow") }, { events.add("a1 done") })
+
+        workers.runAll()
+
+        assertThat(events, contains("a1 done", "a1 sms sent"))
+        assertThat(pipeline.metrics().completed, `is`(1L))
+        assertThat(pipeline.metrics().timedOut, `is`(0L))
+    }
+
+    @Test
+    fun submit_shouldTurnAwayRequest_whenTooManyArePending() {
+        submit("a", "a1")
+        submit("b", "b1")
+        submit("c", "c1")
+        submit("d", "d1")
+
+        assertThat(events, contains("d1 overflow", "d1 done"))
+        assertThat(pipeline.metrics().queueDepth, `is`(3))
+        assertThat(pipeline.metrics().rejected, `is`(1L))
+        assertThat(pipeline.metrics().timedOut, `is`(0L))
+        assertThat(timer.tasks.size, `is`(3))
+    }
+
+    @Test
+    fun submit_shouldAskTurnedAwayClientToRetryLater() {
+        submit("a", "a1")
+        submit("b", "b1")
+        submit("c", "c1")
+        var retryAfter = 0L
+
+        pipeline.submit("d", { events.add("d1") }, { events.add("d1 timeout") }, { retryAfter = it }, {})
+
+        assertThat(retryAfter, greaterThanOrEqualTo(RequestPipeline.MIN_RETRY_AFTER_MS))
+        assertThat(retryAfter, lessThanOrEqualTo(1000L))
+    }
+
+    @Test
+    fun submit_shouldRunNextRequest_whenWorkThrows() {
+        pipeline.submit("a", { throw RuntimeException() }, { events.add("a1 timeout") }, { events.add("a1 overflow") },
+                { events.add("a1 done") })
+        submit("a", "a2")
+
+        workers.runAll()
+
+        assertThat(events, contains("a1 done", "a2", "a2 done"))
+    }
+
+    private fun submit(client: String, name: String) {
+        pipeline.submit(client, { events.add(name) }, { events.add(name + " timeout") },
+                { events.add(name + " overflow") }, { events.add(name + " done") })
+    }
+
+    class ManualExecutor : Executor {
+        val tasks = ArrayDeque<Runnable>()
+
+        override fun execute(command: Runnable) {
+            tasks.offer(command)
+        }
+
+        fun runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run()
+            }
+        }
+    }
+
+    /** Holds deadlines until the test fires them. */
+    class ManualTimer : ScheduledThreadPoolExecutor(0) {
+        val tasks = ArrayList<Runnable>()
+
+        override fun schedule(command: Runnable, delay: Long, unit: TimeUnit): ScheduledFuture<*>? {
+            tasks.add(command)
+            return null
+        }
+
+        fun fireAll() {
+            val fired = ArrayList(tasks)
+            tasks.clear()
+            for (task in fired) {
+                task.run()
+            }
+        }
+    }
+}
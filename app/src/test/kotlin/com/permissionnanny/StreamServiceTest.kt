@@ -0,0 +1,137 @@
+package com.permissionnanny
+
+import android.content.Intent
+import android.location.Location
+import android.location.LocationListener
+import android.os.Bundle
+import android.os.RemoteException
+import com.permissionnanny.dagger.MockComponentFactory
+import com.permissionnanny.lib.Nanny
+import com.permissionnanny.lib.request.INannyStreamCallback
+import com.permissionnanny.lib.request.NannyDispatcher
+import com.permissionnanny.lib.request.NannyExecutors
+import com.permissionnanny.lib.request.NannyStream
+import com.permissionnanny.lib.request.PermissionReceiver
+import com.permissionnanny.lib.request.simple.LocationEvent
+import com.permissionnanny.simple.RequestLocationUpdatesListener
+import org.hamcrest.Matchers.`is`
+import org.junit.After
+import org.junit.Assert.assertThat
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.robolectric.Robolectric
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.shadows.ShadowApplication
+import org.robolectric.shadows.ShadowLooper
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+
+/**
+ * Ongoing responses reach the same client [LocationEvent] whether they are broadcast or pushed through [StreamService].
+ */
+class StreamServiceTest : NannyAppTestCase() {
+
+    companion object {
+        val CLIENT = Nanny.newDispatchAddress("com.example", "1")
+    }
+
+    @Inject internal lateinit var streams: StreamRegistry
+    private lateinit var server: RequestLocationUpdatesListener.Api1
+    private lateinit var delivered: CountDownLatch
+    private val received = mutableListOf<Location>()
+    private val location = Location("gps")
+
+    @Before
+    fun setUp() {
+        val controller = Robolectric.buildService(ProxyService::class.java)
+        val component = MockComponentFactory.contextComponent
+        controller.get().setTestComponent(component)
+        component.inject(this)
+        server = RequestLocationUpdatesListener.Api1(controller.create().get(), CLIENT)
+        delivered = CountDownLatch(1)
+        val event = LocationEvent(object : LocationListener {
+            override fun onLocationChanged(location: Location) {
+                received.add(location)
+                delivered.countDown()
+            }
+
+            override fun onStatusChanged(provider: String, status: Int, extras: Bundle) {
+            }
+
+            override fun onProviderEnabled(provider: String) {
+            }
+
+            override fun onProviderDisabled(provider: String) {
+            }
+        }, NannyExecutors.direct())
+        NannyDispatcher.getInstance().register(RuntimeEnvironment.application, CLIENT, PermissionReceiver().addFilter(event))
+    }
+
+    @After
+    fun tearDown() {
+        NannyDispatcher.getInstance().unregister(CLIENT)
+    }
+
+    @Test
+    fun onLocationChanged_shouldReachLocationEvent_overBroadcast() {
+        server.onLocationChanged(location)
+
+        val broadcast = sent.single()
+        assertThat(broadcast.action, `is`(Nanny.ACTION_DISPATCH))
+        NannyDispatcher.getInstance().onReceive(RuntimeEnvironment.application, broadcast)
+
+        awaitDelivery()
+        assertThat(received, `is`(listOf(location)))
+    }
+
+    @Test
+    fun onLocationChanged_shouldReachLocationEvent_overBinder() {
+        NannyStream.getInstance().attach(RuntimeEnvironment.application, CLIENT) // Binds the stream context
+        streams.register(CLIENT, NannyStream.getInstance())
+
+        server.onLocationChanged(location)
+        ShadowLooper.idleMainLooper()
+
+        awaitDelivery()
+        assertThat(received, `is`(listOf(location)))
+        assertThat(sent.isEmpty(), `is`(true))
+        NannyStream.getInstance().detach(CLIENT)
+    }
+
+    @Test
+    fun onLocationChanged_shouldFallBackToBroadcast_whenCallbackDied() {
+        streams.register(CLIENT, object : INannyStreamCallback.Stub() {
+            override fun onResponse(response: Intent) {
+                throw RemoteException()
+            }
+        })
+
+        server.onLocationChanged(location)
+        server.onLocationChanged(location)
+
+        assertThat(sent.size, `is`(2))
+    }
+
+    @Test
+    fun cancel_shouldStopOngoingRequest() {
+        val cancelled = mutableListOf<String>()
+        streams.onCancel = { cancelled.add(it) }
+        streams.register(CLIENT, NannyStream.getInstance())
+
+        streams.cancel(CLIENT)
+        server.onLocationChanged(location)
+
+        assertThat(cancelled, `is`(listOf(CLIENT)))
+        assertThat(sent.size, `is`(1)) // No longer streamed
+    }
+
+    /** Responses the service broadcast. */
+    private val sent: List<Intent>
+        get() = ShadowApplication.getInstance().broadcastIntents
+
+    private fun awaitDelivery() {
+        assertTrue(delivered.await(1, TimeUnit.SECONDS))
+    }
+}
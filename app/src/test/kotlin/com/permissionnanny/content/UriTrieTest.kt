@@ -0,0 +1,84 @@
+package com.permissionnanny.content
+
+import android.net.Uri
+import android.provider.Telephony
+import com.permissionnanny.NannyAppTestCase
+import com.permissionnanny.lib.request.RequestParams
+import org.hamcrest.Matchers.*
+import org.junit.Assert.assertThat
+import org.junit.Before
+import org.junit.Test
+
+class UriTrieTest : NannyAppTestCase() {
+
+    private lateinit var trie: UriTrie<String>
+
+    @Before
+    fun setUp() {
+        trie = UriTrie<String>()
+                .plus(Uri.parse("content://media/external"), "external")
+                .plus(Uri.parse("content://media/external/audio"), "audio")
+                .plus(Uri.parse("content://mms"), "mms")
+                .plus(Uri.parse("content://mms-sms"), "mms-sms")
+    }
+
+    @Test
+    fun find_shouldMatchLongestPrefix() {
+        assertThat(trie.find(Uri.parse("content://media/external/audio/media/1")), `is`("audio"))
+        assertThat(trie.find(Uri.parse("content://media/external/images/media/1")), `is`("external"))
+    }
+
+    @Test
+    fun find_shouldMatchWholeSegments() {
+        assertThat(trie.find(Uri.parse("content://mms-sms/conversations")), `is`("mms-sms"))
+        assertThat(trie.find(Uri.parse("content://media/external/audiobooks")), `is`("external"))
+    }
+
+    @Test
+    fun find_shouldIgnoreQueryFragmentAndEmptySegments() {
+        assertThat(trie.find(Uri.parse("content://media/external/audio?limit=1")), `is`("audio"))
+        assertThat(trie.find(Uri.parse("content://media/external#audio")), `is`("external"))
+        assertThat(trie.find(Uri.parse("content://media//external/audio/")), `is`("audio"))
+        assertThat(trie.find(Uri.parse("content://mms?x=1")), `is`("mms"))
+    }
+
+    @Test
+    fun find_shouldMatchBuiltUris() {
+        val uri = Uri.Builder().scheme("content").authority("media").appendPath("external").appendPath("audio").build()
+
+        assertThat(trie.find(uri), `is`("audio"))
+    }
+
+    @Test
+    fun plus_shouldLeaveOriginalTrieUnchanged() {
+        val next = trie.plus(Uri.parse("content://media/external/images"), "images")
+                .plus(Uri.parse("content://mms"), "mms2")
+
+        assertThat(next.find(Uri.parse("content://media/external/images/1")), `is`("images"))
+        assertThat(next.find(Uri.parse("content://mms/1")), `is`("mms2"))
+        assertThat(next.find(Uri.parse("content://media/external/audio/1")), `is`("audio"))
+        assertThat(trie.find(Uri.parse("content://media/external/images/1")), `is`("external"))
+        assertThat(trie.find(Uri.parse("content://mms/1")), `is`("mms"))
+    }
+
+    @Test
+    fun find_shouldReturnNull_whenNoPrefixMatches() {
+        assertThat(trie.find(Uri.parse("content://media/internal/audio")), nullValue())
+        assertThat(trie.find(Uri.parse("content://sms")), nullValue())
+        assertThat(trie.find(Uri.parse("file://media/external/audio")), nullValue())
+    }
+
+    @Test
+    fun getOperation_shouldScaleToManyRegisteredUris() {
+        for (i in 0 until 500) {
+            ContentOperation.register(ContentOperation(Uri.parse("content://com.example.provider$i/items"),
+                    ContentOperation.CONTENT_CONTACTS, 0, 1))
+        }
+        val request = RequestParams()
+
+        request.uri0 = Uri.parse("content://com.example.provider499/items/7")
+        assertThat(ContentOperation.getOperation(request)!!.uri, `is`(Uri.parse("content://com.example.provider499/items")))
+        request.uri0 = Uri.withAppendedPath(Telephony.MmsSms.CONTENT_URI, "conversations")
+        assertThat(ContentOperation.getOperation(request)!!.uri, `is`(Telephony.MmsSms.CONTENT_URI))
+    }
+}
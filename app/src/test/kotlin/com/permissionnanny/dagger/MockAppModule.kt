@@ -2,11 +2,14 @@ package com.permissionnanny.dagger
 
 import android.app.Application
 import com.permissionnanny.App
+import com.permissionnanny.RequestPipeline
 import com.permissionnanny.data.AppPermissionDB
 import com.permissionnanny.data.AppPermissionManager
 import com.permissionnanny.data.Cryo
 import com.permissionnanny.data.OngoingRequestDB
 import org.mockito.Mockito.mock
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
 
 /**
  * [AppModule] that returns mocks.
@@ -25,6 +28,10 @@ class MockAppModule : AppModule(mock(App::class.java)) {
         return mock(OngoingRequestDB::class.java)
     }
 
+    override fun provideRequestPipeline(): RequestPipeline {
+        return RequestPipeline(Executor { it.run() }, Executors.newSingleThreadScheduledExecutor())
+    }
+
     override fun provideAppPermissionManager(app: Application, db: AppPermissionDB, bus: AppModule.Bus): AppPermissionManager {
         return mock(AppPermissionManager::class.java)
     }
@@ -3,6 +3,8 @@ package com.permissionnanny.dagger
 import com.permissionnanny.ClientPermissionManifestReceiverTest
 import com.permissionnanny.ClientRequestReceiverTest
 import com.permissionnanny.ConfirmRequestBinderTest
+import com.permissionnanny.ProxyListenerTest
+import com.permissionnanny.StreamServiceTest
 import com.permissionnanny.UninstallReceiverTest
 
 /**
@@ -19,4 +21,8 @@ interface MockContextComponent : ContextComponent {
     fun inject(victim: ClientRequestReceiverTest)
 
     fun inject(victim: ConfirmRequestBinderTest)
+
+    fun inject(victim: ProxyListenerTest)
+
+    fun inject(victim: StreamServiceTest)
 }
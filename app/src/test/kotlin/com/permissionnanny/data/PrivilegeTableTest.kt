@@ -0,0 +1,93 @@
+package com.permissionnanny.data
+
+import com.permissionnanny.Manifest
+import com.permissionnanny.NannyAppTestCase
+import org.hamcrest.Matchers.`is`
+import org.junit.Assert.assertThat
+import org.junit.Before
+import org.junit.Test
+
+class PrivilegeTableTest : NannyAppTestCase() {
+
+    private lateinit var table: PrivilegeTable
+
+    @Before
+    fun setUp() {
+        table = PrivilegeTable()
+        table.put("a", Manifest.permission.READ_SMS, AppPermission.ALWAYS_ALLOW)
+        table.put("a", Manifest.permission.READ_CONTACTS, AppPermission.ALWAYS_DENY)
+        table.put("b", Manifest.permission.READ_SMS, AppPermission.ALWAYS_DENY)
+    }
+
+    @Test
+    fun get_shouldReturnPrivilege() {
+        assertThat(table.get("a", Manifest.permission.READ_SMS, -1), `is`(AppPermission.ALWAYS_ALLOW))
+        assertThat(table.get("a", Manifest.permission.READ_CONTACTS, -1), `is`(AppPermission.ALWAYS_DENY))
+        assertThat(table.get("b", Manifest.permission.READ_SMS, -1), `is`(AppPermission.ALWAYS_DENY))
+    }
+
+    @Test
+    fun get_shouldReturnDefault_whenPairIsUnknown() {
+        assertThat(table.get("c", Manifest.permission.READ_SMS, -1), `is`(-1L))
+        assertThat(table.get("b", Manifest.permission.READ_CONTACTS, -1), `is`(-1L))
+        assertThat(table.get("a", Manifest.permission.WRITE_SMS, -1), `is`(-1L))
+    }
+
+    @Test
+    fun put_shouldReplacePrivilege() {
+        table.put("a", Manifest.permission.READ_SMS, AppPermission.ALWAYS_ASK)
+
+        assertThat(table.get("a", Manifest.permission.READ_SMS, -1), `is`(AppPermission.ALWAYS_ASK))
+        assertThat(table.get("a", Manifest.permission.READ_CONTACTS, -1), `is`(AppPermission.ALWAYS_DENY))
+    }
+
+    @Test
+    fun put_shouldKeepEntries_whenTableGrows() {
+        for (i in 0 until 500) {
+            table.put("app" + i, "permission" + i % 7, i.toLong())
+        }
+
+        for (i in 0 until 500) {
+            assertThat(table.get("app" + i, "permission" + i % 7, -1), `is`(i.toLong()))
+        }
+        assertThat(table.get("a", Manifest.permission.READ_SMS, -1), `is`(AppPermission.ALWAYS_ALLOW))
+    }
+
+    @Test
+    fun putAll_shouldAddAndReplacePrivileges() {
+        table.putAll(listOf(AppPermission("a", Manifest.permission.READ_SMS, AppPermission.ALWAYS_ASK),
+                AppPermission("c", Manifest.permission.READ_SMS, AppPermission.ALWAYS_ALLOW)))
+
+        assertThat(table.get("a", Manifest.permission.READ_SMS, -1), `is`(AppPermission.ALWAYS_ASK))
+        assertThat(table.get("a", Manifest.permission.READ_CONTACTS, -1), `is`(AppPermission.ALWAYS_DENY))
+        assertThat(table.get("c", Manifest.permission.READ_SMS, -1), `is`(AppPermission.ALWAYS_ALLOW))
+    }
+
+    @Test
+    fun putAll_shouldKeepEntries_whenTableGrows() {
+        table.putAll((0 until 500).map { AppPermission("app" + it, "permission" + it % 7, it.toLong()) })
+
+        for (i in 0 until 500) {
+            assertThat(table.get("app" + i, "permission" + i % 7, -1), `is`(i.toLong()))
+        }
+        assertThat(table.get("a", Manifest.permission.READ_SMS, -1), `is`(AppPermission.ALWAYS_ALLOW))
+    }
+
+    @Test
+    fun removeApp_shouldDropOnlyThatApp() {
+        table.removeApp("a")
+
+        assertThat(table.get("a", Manifest.permission.READ_SMS, -1), `is`(-1L))
+        assertThat(table.get("a", Manifest.permission.READ_CONTACTS, -1), `is`(-1L))
+        assertThat(table.get("b", Manifest.permission.READ_SMS, -1), `is`(AppPermission.ALWAYS_DENY))
+    }
+
+    @Test
+    fun put_shouldRestoreApp_afterRemoval() {
+        table.removeApp("a")
+        table.put("a", Manifest.permission.READ_SMS, AppPermission.ALWAYS_DENY)
+
+        assertThat(table.get("a", Manifest.permission.READ_SMS, -1), `is`(AppPermission.ALWAYS_DENY))
+        assertThat(table.get("a", Manifest.permission.READ_CONTACTS, -1), `is`(-1L))
+    }
+}
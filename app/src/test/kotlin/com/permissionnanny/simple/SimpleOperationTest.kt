@@ -0,0 +1,35 @@
+package com.permissionnanny.simple
+
+import com.permissionnanny.NannyAppTestCase
+import com.permissionnanny.lib.request.OpCodes
+import com.permissionnanny.lib.request.simple.LocationRequest
+import org.hamcrest.Matchers.*
+import org.junit.Assert.assertThat
+import org.junit.Test
+
+class SimpleOperationTest : NannyAppTestCase() {
+
+    @Test
+    fun getOperation_shouldFindEveryOperation() {
+        for (table in arrayOf(AccountOperation.operations, LocationOperation.operations,
+                TelephonyOperation.operations, SmsOperation.operations, WifiOperation.operations)) {
+            for (operation in table) {
+                assertThat(SimpleOperation.getOperation(OpCodes.idOf(operation.opCode)), sameInstance(operation))
+            }
+        }
+    }
+
+    @Test
+    fun getOperation_shouldReturnNull_whenIdIsNotAnOperation() {
+        assertThat(SimpleOperation.getOperation(OpCodes.UNKNOWN), nullValue())
+        assertThat(SimpleOperation.getOperation(-1), nullValue())
+        assertThat(SimpleOperation.getOperation(OpCodes.size()), nullValue())
+    }
+
+    @Test
+    fun getOperation_shouldAgreeWithTableLookup() {
+        val operation = LocationOperation.getOperation(LocationRequest.GET_LAST_KNOWN_LOCATION)
+
+        assertThat(operation!!.opCode, sameInstance(LocationRequest.GET_LAST_KNOWN_LOCATION))
+    }
+}
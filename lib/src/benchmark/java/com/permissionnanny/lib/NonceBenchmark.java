@@ -0,0 +1,37 @@
+package com.permissionnanny.lib;
+
+import java.security.SecureRandom;
+import org.junit.Test;
+
+/**
+ * Address minting throughput: the shared stream against a SecureRandom per address, which is what every request used
+ * to pay. Reports only; run with {@code -Pbenchmark}.
+ */
+public class NonceBenchmark extends NannyLibTestCase {
+
+    private static final int ROUNDS = 20000;
+
+    @Test
+    public void compareSharedStreamWithSecureRandomPerAddress() throws Exception {
+        long sink = 0;
+        for (int i = 0; i < ROUNDS; i++) { // Warm up both paths
+            sink += Nonce.nextAddress().length();
+            sink += Long.toString(new SecureRandom().nextLong()).length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += Nonce.nextAddress().length();
+        }
+        long shared = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += Long.toString(new SecureRandom().nextLong()).length();
+        }
+        long perCall = System.nanoTime() - start;
+
+        System.out.printf("Nonce.nextAddress: %d ns/op, new SecureRandom(): %d ns/op (%d)%n",
+                shared / ROUNDS, perCall / ROUNDS, sink);
+    }
+}
@@ -0,0 +1,42 @@
+package com.permissionnanny.lib.request;
+
+import com.permissionnanny.lib.NannyLibTestCase;
+import org.junit.Test;
+
+/**
+ * Parcel size and round-trip time of every request, in the legacy and compact encodings. Reports only; run with {@code
+ * -Pbenchmark}.
+ */
+public class RequestParamsBenchmark extends NannyLibTestCase {
+
+    static final int ROUNDS = 1000;
+
+    @Test
+    public void compareEncodings() throws Exception {
+        System.out.println(String.format("%-36s %8s %8s %12s %12s", "opCode", "legacyB", "compactB", "legacyNs",
+                "compactNs"));
+        for (PermissionRequest request : RequestParamsTest.newRequests()) {
+            RequestParams params = request.mParams;
+            int legacy = RequestParamsTest.size(params, RequestParams.ENCODING_LEGACY);
+            int compact = RequestParamsTest.size(params, RequestParams.ENCODING_COMPACT);
+            long legacyNs = time(params, RequestParams.ENCODING_LEGACY);
+            long compactNs = time(params, RequestParams.ENCODING_COMPACT);
+            System.out.println(String.format("%-36s %8d %8d %12d %12d", params.opCode, legacy, compact, legacyNs,
+                    compactNs));
+        }
+    }
+
+    /**
+     * @return Average nanoseconds spent on one write and read of {@code params}.
+     */
+    private static long time(RequestParams params, @RequestParams.Encoding int encoding) {
+        for (int i = 0; i < ROUNDS; i++) { // warm up
+            RequestParamsTest.roundTrip(params, encoding);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            RequestParamsTest.roundTrip(params, encoding);
+        }
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+}
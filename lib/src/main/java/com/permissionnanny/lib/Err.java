@@ -8,4 +8,7 @@ public class Err {
     public static final String NO_ENTITY = "Expected entity, got [null]!";
     public static final String NO_ACK_ADDR = "Expected ack addr, got [%s]";
     public static final String NO_ACCOUNTS = "Expected accounts, got [null]";
+    public static final String NO_EVENT_FILTER = "Expected event filter for server [%s], got [null]";
+    public static final String NO_DISPATCH_TARGET = "Expected receiver for client addr [%s], got [null]";
+    public static final String STREAM_REGISTER_FAILED = "Expected stream service, got dead object for client addr [%s]";
 }
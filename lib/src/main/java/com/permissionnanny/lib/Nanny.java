@@ -3,14 +3,13 @@ package com.permissionnanny.lib;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageManager;
 import android.location.Criteria;
 import android.location.LocationListener;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Looper;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import com.permissionnanny.lib.request.PermissionRequest;
 import com.permissionnanny.lib.request.content.ContentRequest;
@@ -90,6 +89,13 @@ import com.permissionnanny.lib.request.simple.WifiRequest;
  * #CLIENT_ADDRESS} that the client's response receiver is listening on and is packaged in the request so that
  * Permission Nanny knows where to send responses to.
  * <p/>
+ * Clients talking to a PPP/0.2 server use dispatch addresses instead, see {@link #newDispatchAddress(String, String)}.
+ * The server delivers those responses as a {@link #ACTION_DISPATCH} Intent restricted to the client's package, so the
+ * client needs a single process-wide receiver rather than one per request. Clients that are bound to {@link
+ * #STREAM_SERVICE} and have registered a callback for a dispatch address receive the ongoing resource responses for it
+ * through the callback instead, as oneway Binder calls carrying the same Intent. Unregistering the callback stops the
+ * ongoing request on the server.
+ * <p/>
  * <h2>Ongoing Request Handshake Flow</h2>
  * <p/>
  * A request that accesses a stream of resources over a period of time and requires an Android callback - such as {@link
@@ -144,8 +150,15 @@ import com.permissionnanny.lib.request.simple.WifiRequest;
  *  {
  *      {@link #PROTOCOL_VERSION}*
  *      {@link #CLIENT_ADDRESS}*
+ *      {@link #ACK_WINDOW}
+ *      {@link #ACK_INTERVAL}
  *  }
  * </pre>
+ * If a resource response carries an {@link #ACK_WINDOW}, the client <b>may</b> acknowledge a window of events at a
+ * time instead of every event. Its acknowledgement then carries the {@link #ACK_WINDOW} it grants, no larger than the
+ * server's, and an {@link #ACK_INTERVAL}; the client <b>must</b> acknowledge again at the latest on the {@link
+ * #ACK_WINDOW}th event after its last acknowledgement, or on the first event that arrives {@link #ACK_INTERVAL} or more
+ * after it.
  * <h2>Content Query Handshake Flow</h2>
  * <p/>
  * A request that queries resources stored in {@link android.content.ContentProvider}s is considered a content query.
@@ -186,6 +199,11 @@ public class Nanny {
     @PPP public static final String PROTOCOL_VERSION = "Protocol-Version";
     /** Request/Response value: Permission Police Protocol v0.1 */
     @PPP public static final String PPP_0_1 = "PPP/0.1";
+    /**
+     * Request/Response value: Permission Police Protocol v0.2. Adds the compact {@link #REQUEST_PARAMS} encoding and
+     * integer opcodes.
+     */
+    @PPP public static final String PPP_0_2 = "PPP/0.2";
 
     /** Response field: Result status code. Type: int */
     @PPP public static final String STATUS_CODE = "Status-Code";
@@ -201,9 +219,16 @@ public class Nanny {
     @PPP public static final int SC_NOT_FOUND = 404;
     /** Response value: Server waited too long for the client to respond. (eg: ACKs for ongoing requests) */
     @PPP public static final int SC_TIMEOUT = 408;
+    /** Response value: Client sent too many requests; try again after {@link #RETRY_AFTER}. */
+    @PPP public static final int SC_TOO_MANY_REQUESTS = 429;
+
+    /** Response field: Milliseconds the client should wait before making another request. Type: long */
+    @PPP public static final String RETRY_AFTER = "Retry-After";
 
     /** Request field: Address client is listening on. */
     @PPP public static final String CLIENT_ADDRESS = "Client-Address";
+    /** Client address prefix: Responses go to the client's process-wide dispatcher. Format: prefix + package/nonce */
+    @PPP public static final String DISPATCH_ADDRESS_PREFIX = "dispatch:";
 
     /** Response field: Connection options. Type: {@link String} */
     @PPP public static final String CONNECTION = "Connection";
@@ -229,13 +254,19 @@ public class Nanny {
 
     /** Request/Response field: Resource payload. Type: {@link Bundle}. */
     @PPP public static final String ENTITY_BODY = "Entity-Body";
-    /** Response field: Error payload. Type: {@link NannyException}. */
+    /**
+     * Response field: Error payload. Type: {@link NannyError}; PPP/0.1 clients get a serialized {@link NannyException}.
+     */
     @PPP public static final String ENTITY_ERROR = "Entity-Error";
 
     /** Entity field: */
     @PPP public static final String TYPE = "Type";
     /** Entity field: */
     @PPP public static final String REQUEST_PARAMS = "RequestParams";
+    /** Entity field: Ordered requests sent in place of {@link #REQUEST_PARAMS}; PPP/0.2. Type: ArrayList */
+    @PPP public static final String REQUEST_BATCH = "RequestBatch";
+    /** Entity field: One response Bundle per {@link #REQUEST_BATCH} entry, in the same order. Type: ArrayList */
+    @PPP public static final String BATCH_RESPONSES = "BatchResponses";
     /** @deprecated Use {@link #REQUEST_RATIONALE} instead. */
     @PPP @Deprecated public static final String REQUEST_REASON = "RequestReason";
     /** Entity field: */
@@ -246,6 +277,13 @@ public class Nanny {
     @PPP public static final String PERMISSION_MANIFEST = "PermissionManifest";
     /** Entity field: */
     @PPP public static final String ACK_SERVER_ADDRESS = "AckServerAddress";
+    /**
+     * Response/Acknowledgement field: In a resource response, the most events the server lets a client leave
+     * unacknowledged; in an acknowledgement, the window the client grants. Type: int
+     */
+    @PPP public static final String ACK_WINDOW = "AckWindow";
+    /** Acknowledgement field: Longest the client lets pass between acknowledgements. Type: long, milliseconds */
+    @PPP public static final String ACK_INTERVAL = "AckInterval";
     /** Entity field: Target Permission Nanny Activity to deep link into. Type: {@link String} */
     @PPP public static final String DEEP_LINK_TARGET = "DeepLinkTarget";
     /** Entity value: App-Permission Switchboard deep link target. Users can configure permission settings for apps. */
@@ -259,6 +297,9 @@ public class Nanny {
     /** Permission Nanny's Debug build application ID. */
     public static final String SERVER_DEBUG_APP_ID = SERVER_PACKAGE_NAME + ".debug";
 
+    /** Server manifest meta-data: Highest protocol version the server speaks. Absent means {@link #PPP_0_1}. */
+    @PPP public static final String META_PROTOCOL_VERSION = SERVER_PACKAGE_NAME + ".PROTOCOL_VERSION";
+
     /** Server Component that handles client requests. */
     @PPP public static final String CLIENT_REQUEST_RECEIVER = SERVER_PACKAGE_NAME + ".ClientRequestReceiver";
 
@@ -269,9 +310,15 @@ public class Nanny {
     /** Server Component that handles deep link requests. */
     @PPP public static final String CLIENT_DEEP_LINK_RECEIVER = SERVER_PACKAGE_NAME + ".ClientDeepLinkReceiver";
 
+    /** Server Component clients bind to for ongoing responses over Binder; see {@link #getDispatchPackage(String)}. */
+    @PPP public static final String STREAM_SERVICE = SERVER_PACKAGE_NAME + ".StreamService";
+
     /** Broadcast Action: Sent when Permission Nanny wants to know which permissions clients are using. */
     @PPP public static final String ACTION_GET_PERMISSION_MANIFEST = SERVER_PACKAGE_NAME + ".GET_PERMISSION_MANIFEST";
 
+    /** Broadcast Action: Response to a dispatch address. {@link #CLIENT_ADDRESS} names the request it belongs to. */
+    @PPP public static final String ACTION_DISPATCH = SERVER_PACKAGE_NAME + ".DISPATCH";
+
     /** Authority that resolves to Permission Nanny's proxy content provider. */
     @PPP public static final String PROVIDER_AUTHORITY = ".proxy_content_provider";
     @PPP public static final Uri PROVIDER = Uri.parse("content://" + SERVER_APP_ID + PROVIDER_AUTHORITY);
@@ -288,6 +335,7 @@ public class Nanny {
     @VisibleForTesting
     public static void configureServer(boolean targetDebugBuild) {
         debugBuild = targetDebugBuild;
+        ServerInfo.invalidate();
     }
 
     /**
@@ -307,18 +355,33 @@ public class Nanny {
     }
 
     /**
-     * Checks if Permission Nanny is installed.
+     * Checks if Permission Nanny is installed. The answer is cached until Permission Nanny is installed, removed or
+     * replaced; see {@link #refreshServerInfo()}.
      *
      * @param context Activity, Service, etc.
      * @return {@code true} if Permission Nanny is installed
      */
     public static boolean isPermissionNannyInstalled(@NonNull Context context) {
-        PackageManager pm = context.getPackageManager();
-        ApplicationInfo server = null;
-        try {
-            server = pm.getApplicationInfo(getServerAppId(), 0);
-        } catch (PackageManager.NameNotFoundException e) {/* Nothing to see here. */}
-        return server != null;
+        return ServerInfo.get(context).installed;
+    }
+
+    /**
+     * Return the highest protocol version the installed Permission Nanny speaks, as advertised by its {@link
+     * #META_PROTOCOL_VERSION} meta-data. Cached like {@link #isPermissionNannyInstalled(Context)}.
+     *
+     * @param context Activity, Service, etc.
+     * @return {@link #PPP_0_2} or later if advertised, {@link #PPP_0_1} otherwise
+     */
+    public static String getServerProtocolVersion(@NonNull Context context) {
+        return ServerInfo.get(context).protocolVersion;
+    }
+
+    /**
+     * Forget what is known about the installed Permission Nanny so the next check asks PackageManager again. Package
+     * changes already do this; call it if the cached answer may be stale for some other reason.
+     */
+    public static void refreshServerInfo() {
+        ServerInfo.invalidate();
     }
 
     /**
@@ -343,4 +406,59 @@ public class Nanny {
         }
         return true;
     }
+
+    /**
+     * Create a client address that routes responses through the client's process-wide dispatcher.
+     *
+     * @param clientPackage Client's package name
+     * @param nonce         Unguessable per-request token
+     * @return dispatch address
+     */
+    public static String newDispatchAddress(String clientPackage, String nonce) {
+        return DISPATCH_ADDRESS_PREFIX + clientPackage + '/' + nonce;
+    }
+
+    /**
+     * Create the Intent a response to {@code clientAddr} is broadcast with. Responses to dispatch addresses are
+     * restricted to the client's package; anything else is broadcast with the address as the action.
+     *
+     * @param clientAddr {@link #CLIENT_ADDRESS} from the request
+     * @return Intent to put the response in
+     */
+    public static Intent newResponseIntent(String clientAddr) {
+        String clientPackage = getDispatchPackage(clientAddr);
+        if (clientPackage != null) {
+            return new Intent(ACTION_DISPATCH)
+                    .setPackage(clientPackage)
+                    .putExtra(CLIENT_ADDRESS, clientAddr);
+        }
+        return new Intent(clientAddr);
+    }
+
+    /**
+     * Return the client address a response was sent to. Responses to dispatch addresses carry it in {@link
+     * #CLIENT_ADDRESS}; anything else uses it as the action. See {@link #newResponseIntent(String)}.
+     *
+     * @param response Response from Permission Nanny
+     * @return Client address of the request the response belongs to
+     */
+    public static String getResponseAddress(Intent response) {
+        return ACTION_DISPATCH.equals(response.getAction()) ?
+                response.getStringExtra(CLIENT_ADDRESS) : response.getAction();
+    }
+
+    /**
+     * @param clientAddr {@link #CLIENT_ADDRESS} from the request
+     * @return Package of the client that owns {@code clientAddr}, or {@code null} if it is not a dispatch address
+     */
+    @Nullable
+    public static String getDispatchPackage(String clientAddr) {
+        if (clientAddr.startsWith(DISPATCH_ADDRESS_PREFIX)) {
+            int slash = clientAddr.indexOf('/', DISPATCH_ADDRESS_PREFIX.length());
+            if (slash > DISPATCH_ADDRESS_PREFIX.length()) {
+                return clientAddr.substring(DISPATCH_ADDRESS_PREFIX.length(), slash);
+            }
+        }
+        return null;
+    }
 }
@@ -5,14 +5,32 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import com.permissionnanny.lib.request.RequestParams;
+import java.util.ArrayList;
 
 /**
- *
+ * Read-only view of a PPP request or response.
+ * <p>
+ * {@link Nanny#ENTITY_BODY} is unparcelled at most once, on first access; typed entity fields are cached as they are
+ * read. Use {@link Header} when only the response metadata is needed.
  */
 public class NannyBundle {
 
+    private static final int SENDER_IDENTITY = 1;
+    private static final int REQUEST = 1 << 1;
+    private static final int REQUEST_RATIONALE = 1 << 2;
+    private static final int ENTITY_BODY = 1 << 3;
+    private static final int BATCH = 1 << 4;
+
     private final Bundle mBundle;
 
+    /** Bitmask of the fields below that were already decoded. */
+    private int mDecoded;
+    private Bundle mEntityBody;
+    private String mSenderIdentity;
+    private RequestParams mRequest;
+    private ArrayList<RequestParams> mBatch;
+    private String mRequestRationale;
+
     public NannyBundle(Intent intent) {
         this(intent.getExtras());
     }
@@ -44,45 +62,92 @@ public class NannyBundle {
         return mBundle.getString(Nanny.SERVER);
     }
 
+    /**
+     * @return Milliseconds to wait before retrying, or 0 if the server did not say
+     */
+    public long getRetryAfter() {
+        return mBundle.getLong(Nanny.RETRY_AFTER);
+    }
+
+    /**
+     * @return The response error. PPP/0.1 servers send a serialized Throwable; later servers send a {@link NannyError},
+     * which is returned as a {@link NannyException}.
+     */
     @Nullable
     public Throwable getError() {
-        return (Throwable) mBundle.getSerializable(Nanny.ENTITY_ERROR);
+        Object error = mBundle.get(Nanny.ENTITY_ERROR);
+        return error instanceof NannyError ? ((NannyError) error).toException() : (Throwable) error;
     }
 
     @Nullable
     public Bundle getEntityBody() {
-        return mBundle.getBundle(Nanny.ENTITY_BODY);
+        if ((mDecoded & ENTITY_BODY) == 0) {
+            mEntityBody = mBundle.getBundle(Nanny.ENTITY_BODY);
+            mDecoded |= ENTITY_BODY;
+        }
+        return mEntityBody;
     }
 
     @Nullable
     public String getSenderIdentity() {
-        Bundle entity = getEntityBody();
-        if (entity != null) {
-            PendingIntent sender = entity.getParcelable(Nanny.SENDER_IDENTITY);
-            if (sender != null) {
-                return sender.getIntentSender().getTargetPackage();
+        if ((mDecoded & SENDER_IDENTITY) == 0) {
+            Bundle entity = getEntityBody();
+            if (entity != null) {
+                PendingIntent sender = entity.getParcelable(Nanny.SENDER_IDENTITY);
+                if (sender != null) {
+                    mSenderIdentity = sender.getIntentSender().getTargetPackage();
+                }
             }
+            mDecoded |= SENDER_IDENTITY;
         }
-        return null;
+        return mSenderIdentity;
     }
 
     @Nullable
     public RequestParams getRequest() {
+        if ((mDecoded & REQUEST) == 0) {
+            Bundle entity = getEntityBody();
+            mRequest = entity != null ? (RequestParams) entity.getParcelable(Nanny.REQUEST_PARAMS) : null;
+            mDecoded |= REQUEST;
+        }
+        return mRequest;
+    }
+
+    /**
+     * @return The batched requests, or {@code null} if this is not a batch request
+     */
+    @Nullable
+    public ArrayList<RequestParams> getBatch() {
+        if ((mDecoded & BATCH) == 0) {
+            Bundle entity = getEntityBody();
+            mBatch = entity != null ? entity.<RequestParams>getParcelableArrayList(Nanny.REQUEST_BATCH) : null;
+            mDecoded |= BATCH;
+        }
+        return mBatch;
+    }
+
+    /**
+     * @return One response per batched request, in request order, or {@code null} if this is not a batch response
+     */
+    @Nullable
+    public ArrayList<Bundle> getBatchResponses() {
         Bundle entity = getEntityBody();
-        return entity != null ? (RequestParams) entity.getParcelable(Nanny.REQUEST_PARAMS) : null;
+        return entity != null ? entity.<Bundle>getParcelableArrayList(Nanny.BATCH_RESPONSES) : null;
     }
 
     @Nullable
     public String getRequestRationale() {
-        String value = null;
-        Bundle entity = getEntityBody();
-        if (entity != null) {
-            value = entity.getString(Nanny.REQUEST_RATIONALE);
-            if (value == null) {
-                value = entity.getString(Nanny.REQUEST_REASON);
+        if ((mDecoded & REQUEST_RATIONALE) == 0) {
+            Bundle entity = getEntityBody();
+            if (entity != null) {
+                mRequestRationale = entity.getString(Nanny.REQUEST_RATIONALE);
+                if (mRequestRationale == null) {
+                    mRequestRationale = entity.getString(Nanny.REQUEST_REASON);
+                }
             }
+            mDecoded |= REQUEST_RATIONALE;
         }
-        return value;
+        return mRequestRationale;
     }
 
     public String getDeepLinkTarget() {
@@ -96,6 +161,47 @@ public class NannyBundle {
         return entity != null ? entity.getString(Nanny.ACK_SERVER_ADDRESS) : null;
     }
 
+    /**
+     * Response metadata read straight from the Intent's extras. Neither copies the extras nor touches {@link
+     * Nanny#ENTITY_BODY}, so receivers can route or drop a response without unparcelling its payload.
+     */
+    public static class Header {
+
+        private final Intent mIntent;
+
+        public Header(Intent intent) {
+            mIntent = intent;
+        }
+
+        public int getStatusCode() {
+            return mIntent.getIntExtra(Nanny.STATUS_CODE, 0);
+        }
+
+        @Nullable
+        public String getConnection() {
+            return mIntent.getStringExtra(Nanny.CONNECTION);
+        }
+
+        @Nullable
+        public String getServer() {
+            return mIntent.getStringExtra(Nanny.SERVER);
+        }
+
+        /**
+         * @return Milliseconds to wait before retrying, or 0 if the server did not say
+         */
+        public long getRetryAfter() {
+            return mIntent.getLongExtra(Nanny.RETRY_AFTER, 0);
+        }
+
+        /**
+         * @return {@code true} if the server will send no further responses on this connection
+         */
+        public boolean isClosed() {
+            return Nanny.CLOSE.equals(getConnection());
+        }
+    }
+
     public static class Builder {
 
         public String mProtocolVersion = Nanny.PPP_0_1;
@@ -103,15 +209,23 @@ public class NannyBundle {
         public String mClientAddress;
         public String mConnection;
         public String mServer;
+        public long mRetryAfter;
         public Throwable mError;
+        public boolean mLegacyError;
 
         public Bundle mEntity;
         public PendingIntent mSender;
         public RequestParams mParams;
+        public ArrayList<RequestParams> mBatch;
         public String mRationale;
         public String mDeepLinkTarget;
         public String mAckAddress;
 
+        public Builder protocolVersion(String protocolVersion) {
+            mProtocolVersion = protocolVersion;
+            return this;
+        }
+
         public Builder statusCode(int statusCode) {
             mStatusCode = statusCode;
             return this;
@@ -132,11 +246,25 @@ public class NannyBundle {
             return this;
         }
 
+        public Builder retryAfter(long retryAfter) {
+            mRetryAfter = retryAfter;
+            return this;
+        }
+
         public Builder error(Throwable error) {
             mError = error;
             return this;
         }
 
+        /**
+         * Send {@link #mError} as a serialized Throwable instead of a {@link NannyError}. Needed by PPP/0.1 clients,
+         * which read the error with {@code getSerializable()}.
+         */
+        public Builder legacyError(boolean legacyError) {
+            mLegacyError = legacyError;
+            return this;
+        }
+
         public Builder entity(Bundle body) {
             mEntity = body;
             return this;
@@ -152,6 +280,11 @@ public class NannyBundle {
             return this;
         }
 
+        public Builder batch(ArrayList<RequestParams> batch) {
+            mBatch = batch;
+            return this;
+        }
+
         public Builder rationale(String rationale) {
             mRationale = rationale;
             return this;
@@ -177,6 +310,9 @@ public class NannyBundle {
             if (mParams != null) {
                 mEntity.putParcelable(Nanny.REQUEST_PARAMS, mParams);
             }
+            if (mBatch != null) {
+                mEntity.putParcelableArrayList(Nanny.REQUEST_BATCH, mBatch);
+            }
             if (mRationale != null) {
                 mEntity.putString(Nanny.REQUEST_REASON, mRationale);
                 mEntity.putString(Nanny.REQUEST_RATIONALE, mRationale);
@@ -202,8 +338,15 @@ public class NannyBundle {
             if (mServer != null) {
                 ppp.putString(Nanny.SERVER, mServer);
             }
+            if (mRetryAfter > 0) {
+                ppp.putLong(Nanny.RETRY_AFTER, mRetryAfter);
+            }
             if (mError != null) {
-                ppp.putSerializable(Nanny.ENTITY_ERROR, mError);
+                if (mLegacyError) {
+                    ppp.putSerializable(Nanny.ENTITY_ERROR, mError);
+                } else {
+                    ppp.putParcelable(Nanny.ENTITY_ERROR, NannyError.from(mError));
+                }
             }
             if (!mEntity.isEmpty()) {
                 ppp.putBundle(Nanny.ENTITY_BODY, mEntity);
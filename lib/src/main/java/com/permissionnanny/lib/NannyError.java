@@ -0,0 +1,141 @@
+package com.permissionnanny.lib;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.Nullable;
+
+/**
+ * Compact, natively parcelled error record sent as {@link Nanny#ENTITY_ERROR}. Replaces Java-serialized Throwables,
+ * which carry full stack traces across the process boundary.
+ */
+@PPP
+public class NannyError implements Parcelable {
+
+    /** Error code: Not classified. */
+    @PPP public static final int UNKNOWN = 0;
+    /** Error code: {@link Nanny#ENTITY_BODY} is missing. */
+    @PPP public static final int NO_ENTITY = 1;
+    /** Error code: {@link Nanny#SENDER_IDENTITY} is missing. */
+    @PPP public static final int NO_SENDER_IDENTITY = 2;
+    /** Error code: {@link Nanny#REQUEST_PARAMS} is missing. */
+    @PPP public static final int NO_REQUEST_PARAMS = 3;
+    /** Error code: The server does not support the requested opcode. */
+    @PPP public static final int UNSUPPORTED_OPCODE = 4;
+    /** Error code: {@link Nanny#PERMISSION_MANIFEST} is missing. */
+    @PPP public static final int NO_PERMISSION_MANIFEST = 5;
+    /** Error code: The server does not support the requested {@link Nanny#DEEP_LINK_TARGET}. */
+    @PPP public static final int UNSUPPORTED_DEEP_LINK_TARGET = 6;
+    /** Error code: Permission Nanny is not installed. */
+    @PPP public static final int NOT_INSTALLED = 7;
+    /** Error code: The server failed while executing the request. */
+    @PPP public static final int EXECUTION_FAILED = 8;
+    /** Error code: The server does not speak the protocol version the request needs. */
+    @PPP public static final int UNSUPPORTED_PROTOCOL = 9;
+    /** Error code: The client exceeded its request rate; see {@link Nanny#RETRY_AFTER}. */
+    @PPP public static final int TOO_MANY_REQUESTS = 10;
+
+    /** Maximum number of causes summarized in {@link #getCause()}. */
+    private static final int MAX_CAUSES = 4;
+
+    private final int mCode;
+    private final String mMessage;
+    private final String mCause;
+
+    public NannyError(int code, @Nullable String message, @Nullable String cause) {
+        mCode = code;
+        mMessage = message;
+        mCause = cause;
+    }
+
+    /**
+     * Summarize {@code error} into an error record.
+     *
+     * @param error Error to summarize
+     * @return Error record whose code is {@link NannyException#getCode()} if {@code error} is a NannyException, {@link
+     * #EXECUTION_FAILED} otherwise
+     */
+    public static NannyError from(Throwable error) {
+        int code = error instanceof NannyException ? ((NannyException) error).getCode() : EXECUTION_FAILED;
+        StringBuilder cause = null;
+        Throwable t = error.getCause();
+        for (int i = 0; t != null && i < MAX_CAUSES; i++, t = t.getCause()) {
+            cause = cause == null ? new StringBuilder() : cause.append(" <- ");
+            cause.append(t.getClass().getName()).append(": ").append(t.getMessage());
+        }
+        return new NannyError(code, error.getMessage(), cause != null ? cause.toString() : null);
+    }
+
+    public int getCode() {
+        return mCode;
+    }
+
+    @Nullable
+    public String getMessage() {
+        return mMessage;
+    }
+
+    /**
+     * @return Summary of the cause chain, eg: "java.lang.SecurityException: denied <- ...", or {@code null}
+     */
+    @Nullable
+    public String getCause() {
+        return mCause;
+    }
+
+    /**
+     * @return A NannyException carrying this record's code and message; the cause summary is appended to the message
+     */
+    public NannyException toException() {
+        String message = mMessage != null ? mMessage : "";
+        return mCause == null ?
+                new NannyException(mCode, "%s", message) :
+                new NannyException(mCode, "%s (caused by %s)", message, mCause);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        NannyError that = (NannyError) o;
+
+        if (mCode != that.mCode) return false;
+        if (mMessage != null ? !mMessage.equals(that.mMessage) : that.mMessage != null) return false;
+        return mCause != null ? mCause.equals(that.mCause) : that.mCause == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mCode;
+        result = 31 * result + (mMessage != null ? mMessage.hashCode() : 0);
+        result = 31 * result + (mCause != null ? mCause.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "NannyError{code=" + mCode + ", message=" + mMessage + ", cause=" + mCause + "}";
+    }
+
+    @Override
+    public int describeContents() { return 0; }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(mCode);
+        dest.writeString(mMessage);
+        dest.writeString(mCause);
+    }
+
+    protected NannyError(Parcel in) {
+        mCode = in.readInt();
+        mMessage = in.readString();
+        mCause = in.readString();
+    }
+
+    public static final Creator<NannyError> CREATOR = new Creator<NannyError>() {
+        public NannyError createFromParcel(Parcel source) {return new NannyError(source);}
+
+        public NannyError[] newArray(int size) {return new NannyError[size];}
+    };
+}
@@ -4,12 +4,35 @@ package com.permissionnanny.lib;
  *
  */
 public class NannyException extends Exception {
+
+    /**
+     * Computed value of the class before {@link #getCode()} was added. PPP/0.1 clients still receive this class
+     * serialized, so it must stay readable in both directions; errors from older peers read as {@link
+     * NannyError#UNKNOWN}.
+     */
+    private static final long serialVersionUID = -3270531235424407039L;
+
+    private final int mCode;
+
     public NannyException(String format, Object... args) {
-        super(String.format(format, args));
+        this(NannyError.UNKNOWN, format, args);
     }
 
     public NannyException(Throwable throwable, String format, Object... args) {
         super(String.format(format, args), throwable);
+        mCode = NannyError.UNKNOWN;
+    }
+
+    public NannyException(int code, String format, Object... args) {
+        super(String.format(format, args));
+        mCode = code;
+    }
+
+    /**
+     * @return One of the {@link NannyError} codes
+     */
+    public int getCode() {
+        return mCode;
     }
 
     @Override
@@ -4,8 +4,9 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.support.annotation.Nullable;
+import com.permissionnanny.lib.request.NannyDispatcher;
+import com.permissionnanny.lib.request.NannyStream;
 import com.permissionnanny.lib.request.PermissionReceiver;
-import java.security.SecureRandom;
 
 /**
  * The root class of all requests.
@@ -13,11 +14,15 @@ import java.security.SecureRandom;
 public class NannyRequest {
 
     protected final String mClientAddr;
+    @Nullable private String mDispatchAddr;
     @Nullable private PermissionReceiver mReceiver;
     @Nullable private Intent mPaylaod;
+    private boolean mStreamed;
+    /** {@code true} while {@link #mReceiver} may be registered with the framework. */
+    private boolean mRegistered;
 
     public NannyRequest() {
-        mClientAddr = Long.toString(new SecureRandom().nextLong());
+        mClientAddr = Nonce.nextAddress();
     }
 
     protected NannyRequest addFilter(@Nullable Event event) {
@@ -31,10 +36,35 @@ public class NannyRequest {
         return this;
     }
 
+    @Nullable
+    protected Event getFilter(String server) {
+        return mReceiver != null ? mReceiver.getFilter(server) : null;
+    }
+
     protected boolean hasReceiver() {
         return mReceiver != null;
     }
 
+    /**
+     * Return the address the server should respond to. Servers that speak PPP/0.2 respond to a dispatch address, which
+     * is served by the process-wide {@link NannyDispatcher} instead of a receiver registered for this request alone.
+     *
+     * @param context  Activity, Service, etc.
+     * @param dispatch {@code true} if the server understands dispatch addresses
+     */
+    protected String clientAddress(Context context, boolean dispatch) {
+        mDispatchAddr = dispatch ? Nanny.newDispatchAddress(context.getPackageName(), mClientAddr) : null;
+        return dispatch ? mDispatchAddr : mClientAddr;
+    }
+
+    /**
+     * Ask for responses to be pushed over Binder by {@link NannyStream} rather than broadcast, if the request gets a
+     * dispatch address. Only worth it for ongoing requests.
+     */
+    protected void setStreamed(boolean streamed) {
+        mStreamed = streamed;
+    }
+
     protected void setPayload(Intent payload) {
         mPaylaod = payload;
     }
@@ -50,14 +80,33 @@ public class NannyRequest {
             throw new IllegalStateException("No payload.");
         }
         if (mReceiver != null) {
-            context.registerReceiver(mReceiver, new IntentFilter(mClientAddr));
+            if (mDispatchAddr != null) {
+                NannyDispatcher.getInstance().register(context, mDispatchAddr, mReceiver);
+                if (mStreamed) {
+                    NannyStream.getInstance().attach(context, mDispatchAddr);
+                }
+            } else {
+                mReceiver.register(context, new IntentFilter(mClientAddr));
+                mRegistered = true;
+            }
         }
         context.sendBroadcast(mPaylaod);
     }
 
+    /**
+     * Stop receiving responses. Safe to call more than once, and after the server closed the connection.
+     */
     protected void stop(Context context) {
         if (mReceiver != null) {
-            context.unregisterReceiver(mReceiver);
+            if (mDispatchAddr != null) {
+                NannyDispatcher.getInstance().unregister(mDispatchAddr);
+                if (mStreamed) {
+                    NannyStream.getInstance().detach(mDispatchAddr);
+                }
+            } else if (mRegistered) {
+                mRegistered = false;
+                mReceiver.unregister(context);
+            }
         }
     }
 
@@ -65,7 +114,8 @@ public class NannyRequest {
         return new Intent().putExtras(new NannyBundle.Builder()
                 .statusCode(Nanny.SC_NOT_FOUND)
                 .server(Nanny.AUTHORIZATION_SERVICE)
-                .error(new NannyException("Permission Nanny is not installed."))
+                .error(new NannyException(NannyError.NOT_INSTALLED, "Permission Nanny is not installed."))
+                .legacyError(true)
                 .build());
     }
 }
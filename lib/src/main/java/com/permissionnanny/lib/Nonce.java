@@ -0,0 +1,48 @@
+package com.permissionnanny.lib;
+
+import java.security.SecureRandom;
+
+/**
+ * Unguessable IDs for client addresses, ack addresses and content query keys.
+ * <p>
+ * Constructing and seeding a SecureRandom is slow and may block on the entropy pool, so every caller in the process
+ * draws from one seeded stream instead. Bytes are pulled from it a block at a time and handed out a long at a time;
+ * each long is handed out once and overwritten on the next refill.
+ */
+public final class Nonce {
+
+    private static final int BATCH = 64;
+
+    private static final byte[] sBlock = new byte[BATCH * 8];
+    private static int sNext = sBlock.length;
+
+    private Nonce() {}
+
+    /** Holds the stream so it is only seeded when the first ID is minted, after PRNG fixes are applied. */
+    private static class Holder {
+        static final SecureRandom RANDOM = new SecureRandom();
+    }
+
+    /**
+     * Return the next random long.
+     */
+    public static synchronized long nextLong() {
+        if (sNext == sBlock.length) {
+            Holder.RANDOM.nextBytes(sBlock);
+            sNext = 0;
+        }
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | sBlock[sNext] & 0xff;
+            sBlock[sNext++] = 0;
+        }
+        return value;
+    }
+
+    /**
+     * Return a random address to listen for broadcasts on.
+     */
+    public static String nextAddress() {
+        return Long.toString(nextLong());
+    }
+}
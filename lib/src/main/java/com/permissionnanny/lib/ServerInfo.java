@@ -0,0 +1,97 @@
+package com.permissionnanny.lib;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.support.annotation.Nullable;
+
+/**
+ * What PackageManager says about Permission Nanny, cached per process.
+ * <p/>
+ * Looking it up is a Binder call to system_server, so it is done once and kept until Permission Nanny is installed,
+ * removed or replaced. The first lookup registers a package listener on the application context to catch those.
+ */
+final class ServerInfo {
+
+    @Nullable private static volatile ServerInfo sCached;
+    /** Bumped by every invalidation, so that a lookup that raced with one is not cached. */
+    private static int sGeneration;
+    @Nullable private static PackageListener sListener;
+
+    final boolean installed;
+    final String protocolVersion;
+
+    private ServerInfo(boolean installed, String protocolVersion) {
+        this.installed = installed;
+        this.protocolVersion = protocolVersion;
+    }
+
+    static ServerInfo get(Context context) {
+        ServerInfo info = sCached;
+        if (info == null) {
+            listen(context);
+            int generation = generation();
+            info = load(context);
+            store(info, generation);
+        }
+        return info;
+    }
+
+    static synchronized void invalidate() {
+        sGeneration++;
+        sCached = null;
+    }
+
+    private static synchronized int generation() {
+        return sGeneration;
+    }
+
+    /**
+     * Cache {@code info} unless the cache was invalidated since {@code generation}, when the lookup started.
+     */
+    private static synchronized void store(ServerInfo info, int generation) {
+        if (sGeneration == generation) {
+            sCached = info;
+        }
+    }
+
+    private static ServerInfo load(Context context) {
+        PackageManager pm = context.getPackageManager();
+        ApplicationInfo server = null;
+        try {
+            server = pm.getApplicationInfo(Nanny.getServerAppId(), PackageManager.GET_META_DATA);
+        } catch (PackageManager.NameNotFoundException e) {/* Nothing to see here. */}
+        String version = server != null && server.metaData != null ?
+                server.metaData.getString(Nanny.META_PROTOCOL_VERSION) : null;
+        return new ServerInfo(server != null, version != null ? version : Nanny.PPP_0_1);
+    }
+
+    private static synchronized void listen(Context context) {
+        if (sListener != null) {
+            return;
+        }
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        Context app = context.getApplicationContext();
+        sListener = new PackageListener();
+        (app != null ? app : context).registerReceiver(sListener, filter);
+    }
+
+    static class PackageListener extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Uri data = intent.getData();
+            // Filtering by package in the IntentFilter needs API 19, so do it here
+            if (data != null && Nanny.getServerAppId().equals(data.getSchemeSpecificPart())) {
+                invalidate();
+            }
+        }
+    }
+}
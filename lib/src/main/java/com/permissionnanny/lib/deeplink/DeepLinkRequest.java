@@ -102,9 +102,10 @@ public class DeepLinkRequest extends NannyRequest {
     }
 
     protected Intent newBroadcastIntent(Context context) {
+        boolean legacyServer = Nanny.PPP_0_1.equals(Nanny.getServerProtocolVersion(context));
         NannyBundle.Builder builder = new NannyBundle.Builder()
                 .sender(PendingIntent.getBroadcast(context, 0, C.EMPTY_INTENT, 0))
-                .clientAddress(mClientAddr)
+                .clientAddress(clientAddress(context, !legacyServer))
                 .deepLinkTarget(mDeepLinkTarget);
         return new Intent()
                 .setClassName(Nanny.getServerAppId(), Nanny.CLIENT_DEEP_LINK_RECEIVER)
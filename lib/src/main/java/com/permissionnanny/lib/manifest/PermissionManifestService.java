@@ -11,9 +11,9 @@ import android.os.IBinder;
 import com.permissionnanny.lib.C;
 import com.permissionnanny.lib.Event;
 import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.Nonce;
 import com.permissionnanny.lib.request.PermissionReceiver;
 
-import java.security.SecureRandom;
 import java.util.ArrayList;
 
 /**
@@ -30,7 +30,7 @@ public class PermissionManifestService extends Service {
     public void onCreate() {
         super.onCreate();
         mPermissions = new ArrayList<>();
-        mClientAddr = Long.toString(new SecureRandom().nextLong());
+        mClientAddr = Nonce.nextAddress();
         mReceiver = new PermissionReceiver().addFilter(new ManifestEvent());
         registerReceiver(mReceiver, new IntentFilter(mClientAddr));
     }
@@ -2,6 +2,7 @@ package com.permissionnanny.lib.request;
 
 import android.content.Context;
 import android.content.Intent;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import com.permissionnanny.lib.Err;
 import com.permissionnanny.lib.Nanny;
@@ -10,21 +11,59 @@ import timber.log.Timber;
 
 /**
  * Acknowledgement responder.
+ * <p/>
+ * Servers that advertise an {@link Nanny#ACK_WINDOW} are acknowledged once per window of events, or once per interval
+ * if events arrive slower than that, instead of once per event. Older servers get an acknowledgement for every event.
+ * Each ongoing request has its own responder.
  */
 public class Ack {
 
-    public void sendAck(Context context, Intent response) {
+    /** Events granted to the server per acknowledgement. */
+    public static final int DEFAULT_WINDOW = 32;
+    /** Longest time between acknowledgements while events arrive. */
+    public static final long DEFAULT_INTERVAL_MS = 2000;
+
+    private final int mWindow;
+    private final long mIntervalMs;
+    /** Events received since the last acknowledgement. */
+    private int mUnacked;
+    /** Time of the last acknowledgement; 0 if none has been sent. */
+    private long mLastAck;
+
+    public Ack() {
+        this(DEFAULT_WINDOW, DEFAULT_INTERVAL_MS);
+    }
+
+    /**
+     * @param window     Events to grant the server per acknowledgement
+     * @param intervalMs Longest time between acknowledgements
+     */
+    public Ack(int window, long intervalMs) {
+        mWindow = window;
+        mIntervalMs = intervalMs;
+    }
+
+    public synchronized void sendAck(Context context, Intent response) {
         NannyBundle bundle = new NannyBundle(response);
         String ackAddr = bundle.getAckAddress();
         if (TextUtils.isEmpty(ackAddr)) {
             Timber.wtf(Err.NO_ACK_ADDR, ackAddr);
             return;
         }
-        String clientAddr = response.getAction();
+        int window = Math.min(mWindow, response.getIntExtra(Nanny.ACK_WINDOW, 0));
+        long now = SystemClock.elapsedRealtime();
+        if (window > 0 && mLastAck != 0 && ++mUnacked < window && now - mLastAck < mIntervalMs) {
+            return;
+        }
+        mUnacked = 0;
+        mLastAck = now;
 
         Intent ackIntent = new Intent(ackAddr)
                 .putExtra(Nanny.PROTOCOL_VERSION, Nanny.PPP_0_1)
-                .putExtra(Nanny.CLIENT_ADDRESS, clientAddr);
+                .putExtra(Nanny.CLIENT_ADDRESS, Nanny.getResponseAddress(response));
+        if (window > 0) {
+            ackIntent.putExtra(Nanny.ACK_WINDOW, window).putExtra(Nanny.ACK_INTERVAL, mIntervalMs);
+        }
         context.sendBroadcast(ackIntent);
     }
 }
@@ -11,15 +11,10 @@ import com.permissionnanny.lib.Nanny;
  */
 public abstract class BaseEvent implements Event {
 
-    protected void sendAck(Context context, Intent response) {
-        Bundle entity = response.getBundleExtra(Nanny.ENTITY_BODY);
-        String ackServerAddr = entity.getString(Nanny.ACK_SERVER_ADDRESS);
-        String clientAddr = response.getAction();
+    private final Ack mAck = new Ack();
 
-        Intent ackIntent = new Intent(ackServerAddr)
-                .putExtra(Nanny.PROTOCOL_VERSION, Nanny.PPP_0_1)
-                .putExtra(Nanny.CLIENT_ADDRESS, clientAddr);
-        context.sendBroadcast(ackIntent);
+    protected void sendAck(Context context, Intent response) {
+        mAck.sendAck(context, response);
     }
 
     @Override
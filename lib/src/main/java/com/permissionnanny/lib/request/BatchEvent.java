@@ -0,0 +1,34 @@
+package com.permissionnanny.lib.request;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import com.permissionnanny.lib.Event;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Event filter that handles {@link Nanny#AUTHORIZATION_SERVICE} responses to {@link BatchRequest}s.
+ */
+public class BatchEvent implements Event {
+
+    private final BatchListener mListener;
+
+    public BatchEvent(BatchListener listener) {
+        mListener = listener;
+    }
+
+    @Override
+    public String filter() {
+        return Nanny.AUTHORIZATION_SERVICE;
+    }
+
+    @Override
+    public void process(Context context, Intent intent) {
+        Bundle response = intent.getExtras();
+        List<Bundle> responses = new NannyBundle(response).getBatchResponses();
+        mListener.onResponse(response, responses != null ? responses : Collections.<Bundle>emptyList());
+    }
+}
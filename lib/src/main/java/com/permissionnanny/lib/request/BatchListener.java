@@ -0,0 +1,19 @@
+package com.permissionnanny.lib.request;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import java.util.List;
+
+/**
+ * Listener to attach to {@link BatchRequest}s to receive responses from Permission Nanny.
+ */
+public interface BatchListener {
+    /**
+     * Callback when Permission Nanny returns a response.
+     *
+     * @param response  Response from Permission Nanny about the batch as a whole
+     * @param responses One response per batched request, in the order the requests were added; empty if the batch
+     *                  as a whole failed
+     */
+    void onResponse(@NonNull Bundle response, @NonNull List<Bundle> responses);
+}
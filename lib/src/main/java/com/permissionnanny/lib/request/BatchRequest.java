@@ -0,0 +1,107 @@
+package com.permissionnanny.lib.request;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.permissionnanny.lib.C;
+import com.permissionnanny.lib.Event;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
+import com.permissionnanny.lib.NannyError;
+import com.permissionnanny.lib.NannyException;
+import com.permissionnanny.lib.NannyRequest;
+import com.permissionnanny.lib.request.simple.LocationRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Several one-shot requests sent to Permission Nanny in a single broadcast.
+ * <p/>
+ * The server decides on the whole batch at once, asking the user at most once, and answers with a single response
+ * that holds one response per request under {@link Nanny#BATCH_RESPONSES}, in the order the requests were added.
+ * <pre>
+ * <code>
+ *  new BatchRequest(WifiRequest.getWifiState(), WifiRequest.getConnectionInfo(), WifiRequest.getDhcpInfo())
+ *          .listener(new BatchListener() {
+ *              public void onResponse(Bundle response, List&lt;Bundle&gt; responses) {
+ *                  Bundle wifiState = responses.get(0);
+ *              }
+ *          }).startRequest(context, "Trust me");
+ * </code>
+ * </pre>
+ * Ongoing requests, such as {@link LocationRequest} updates, cannot be batched; the server fails them
+ * individually. Batches need a PPP/0.2 server; older servers get no broadcast and the listener receives {@link
+ * NannyError#UNSUPPORTED_PROTOCOL}.
+ */
+public class BatchRequest extends NannyRequest {
+
+    private final ArrayList<RequestParams> mBatch;
+
+    public BatchRequest(@NonNull PermissionRequest... requests) {
+        this(Arrays.asList(requests));
+    }
+
+    public BatchRequest(@NonNull List<? extends PermissionRequest> requests) {
+        mBatch = new ArrayList<>(requests.size());
+        for (PermissionRequest request : requests) {
+            mBatch.add(request.mParams);
+        }
+    }
+
+    /**
+     * Attach a listener.
+     *
+     * @param listener Response receiver
+     * @return itself
+     */
+    public BatchRequest listener(@NonNull BatchListener listener) {
+        return (BatchRequest) addFilter(new BatchEvent(listener));
+    }
+
+    /**
+     * Start the request.
+     *
+     * @param context   Activity, Service, etc.
+     * @param rationale Explain to the user why you need to access the resources.
+     */
+    public void startRequest(Context context, @Nullable String rationale) {
+        if (Nanny.isPermissionNannyInstalled(context) &&
+                Nanny.PPP_0_1.equals(Nanny.getServerProtocolVersion(context))) {
+            Event event = getFilter(Nanny.AUTHORIZATION_SERVICE);
+            if (event != null) {
+                event.process(context, newUnsupportedIntent());
+            }
+            return;
+        }
+        setPayload(newBroadcastIntent(context, rationale));
+        super.startRequest(context);
+    }
+
+    protected Intent newBroadcastIntent(Context context, @Nullable String rationale) {
+        for (RequestParams params : mBatch) {
+            params.setEncoding(RequestParams.ENCODING_COMPACT);
+        }
+        NannyBundle.Builder builder = new NannyBundle.Builder()
+                .protocolVersion(Nanny.PPP_0_2)
+                .sender(PendingIntent.getBroadcast(context, 0, C.EMPTY_INTENT, 0))
+                .clientAddress(hasReceiver() ? clientAddress(context, true) : null)
+                .batch(mBatch)
+                .rationale(rationale);
+        return new Intent()
+                .setClassName(Nanny.getServerAppId(), Nanny.CLIENT_REQUEST_RECEIVER)
+                .setFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES)
+                .putExtras(builder.build());
+    }
+
+    private static Intent newUnsupportedIntent() {
+        return new Intent().putExtras(new NannyBundle.Builder()
+                .statusCode(Nanny.SC_BAD_REQUEST)
+                .server(Nanny.AUTHORIZATION_SERVICE)
+                .connection(Nanny.CLOSE)
+                .error(new NannyException(NannyError.UNSUPPORTED_PROTOCOL, "Server does not support batches."))
+                .build());
+    }
+}
@@ -0,0 +1,70 @@
+package com.permissionnanny.lib.request;
+
+import android.content.Context;
+import android.content.Intent;
+import android.support.annotation.Nullable;
+import com.permissionnanny.lib.Event;
+import java.util.concurrent.Executor;
+
+/**
+ * Event filter that unparcels and acks responses off the thread that received them, then delivers the listener
+ * callback on another. Callbacks wait for the listener's thread in a queue bounded by the subscription's {@link
+ * Overflow} policy.
+ *
+ * @see NannyExecutors
+ */
+public abstract class DecodingEvent implements Event {
+
+    private final Executor mDecoder;
+    private final Executor mDelivery;
+    private Overflow mOverflow = Overflow.unbounded();
+    private final Runnable mDrain = new Runnable() {
+        @Override
+        public void run() {
+            Runnable callback;
+            while ((callback = mOverflow.poll()) != null) {
+                callback.run();
+            }
+        }
+    };
+
+    /**
+     * @param decoder  Where responses are decoded; {@link NannyExecutors#decoder()} unless testing
+     * @param delivery Where listener callbacks run
+     */
+    protected DecodingEvent(Executor decoder, Executor delivery) {
+        mDecoder = decoder;
+        mDelivery = delivery;
+    }
+
+    @Override
+    public final void process(final Context context, final Intent intent) {
+        mDecoder.execute(new Runnable() {
+            @Override
+            public void run() {
+                Runnable callback = decode(context, intent);
+                if (callback != null && mOverflow.offer(callback)) {
+                    mDelivery.execute(mDrain);
+                }
+            }
+        });
+    }
+
+    /**
+     * Bound the callbacks waiting for the listener's thread. Set it before the request starts.
+     *
+     * @param overflow Policy used by no other subscription
+     */
+    public void setOverflow(Overflow overflow) {
+        overflow.attach(this);
+        mOverflow = overflow;
+    }
+
+    /**
+     * Ack and unparcel a response. Runs on the decoder.
+     *
+     * @return Callback that hands the decoded response to the listener, or {@code null} to drop the response
+     */
+    @Nullable
+    protected abstract Runnable decode(Context context, Intent intent);
+}
@@ -0,0 +1,250 @@
+package com.permissionnanny.lib.request;
+
+import android.accounts.Account;
+import android.content.ContentValues;
+import android.net.Uri;
+import android.os.Bundle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 64-bit FNV-1a hash over canonical field values. Only content goes into the hash, never identity hash codes or
+ * string forms, so the same values produce the same fingerprint in every process.
+ * <p/>
+ * Bundle and ContentValues values of a type the fingerprint does not know how to hash field by field make it
+ * incomplete; see {@link #isComplete()}.
+ */
+final class Fingerprint {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long mHash = OFFSET_BASIS;
+    private boolean mComplete = true;
+
+    long get() {
+        return mHash;
+    }
+
+    /**
+     * @return {@code false} if a value could not be hashed, so equal fingerprints do not imply equal requests
+     */
+    boolean isComplete() {
+        return mComplete;
+    }
+
+    Fingerprint put(boolean value) {
+        return putByte(value ? 1 : 0);
+    }
+
+    Fingerprint put(int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            putByte(value >>> shift);
+        }
+        return this;
+    }
+
+    Fingerprint put(long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            putByte((int) (value >>> shift));
+        }
+        return this;
+    }
+
+    Fingerprint put(float value) {
+        return put(Float.floatToIntBits(value));
+    }
+
+    Fingerprint put(double value) {
+        return put(Double.doubleToLongBits(value));
+    }
+
+    Fingerprint put(String value) {
+        if (value == null) {
+            return put(-1);
+        }
+        put(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            putByte(c);
+            putByte(c >>> 8);
+        }
+        return this;
+    }
+
+    Fingerprint put(byte[] value) {
+        if (value == null) {
+            return put(-1);
+        }
+        put(value.length);
+        for (byte b : value) {
+            putByte(b);
+        }
+        return this;
+    }
+
+    Fingerprint put(String[] value) {
+        return value == null ? put(-1) : put(Arrays.asList(value));
+    }
+
+    Fingerprint put(List<String> value) {
+        if (value == null) {
+            return put(-1);
+        }
+        put(value.size());
+        for (String s : value) {
+            put(s);
+        }
+        return this;
+    }
+
+    Fingerprint put(Bundle value) {
+        if (value == null) {
+            return put(-1);
+        }
+        Set<String> keySet = value.keySet();
+        String[] keys = keySet.toArray(new String[keySet.size()]);
+        Arrays.sort(keys);
+        put(keys.length);
+        for (String key : keys) {
+            put(key).putValue(value.get(key));
+        }
+        return this;
+    }
+
+    Fingerprint put(ContentValues value) {
+        if (value == null) {
+            return put(-1);
+        }
+        Set<String> keySet = value.keySet();
+        String[] keys = keySet.toArray(new String[keySet.size()]);
+        Arrays.sort(keys);
+        put(keys.length);
+        for (String key : keys) {
+            put(key).putValue(value.get(key));
+        }
+        return this;
+    }
+
+    /**
+     * Hash a loosely typed Bundle or ContentValues value. Boxed primitives, Strings, Uris and Accounts are hashed by
+     * content, and nested Bundles, arrays and lists are walked. Anything else, such as an arbitrary Parcelable, is
+     * left out and marks the fingerprint incomplete.
+     */
+    private Fingerprint putValue(Object value) {
+        if (value == null) {
+            return put(-1);
+        }
+        put(value.getClass().getName());
+        if (value instanceof String) {
+            return put((String) value);
+        }
+        if (value instanceof Boolean) {
+            return put((boolean) (Boolean) value);
+        }
+        if (value instanceof Byte || value instanceof Short || value instanceof Integer) {
+            return put(((Number) value).intValue());
+        }
+        if (value instanceof Character) {
+            return put((int) (Character) value);
+        }
+        if (value instanceof Long) {
+            return put((long) (Long) value);
+        }
+        if (value instanceof Float) {
+            return put((float) (Float) value);
+        }
+        if (value instanceof Double) {
+            return put((double) (Double) value);
+        }
+        if (value instanceof Bundle) {
+            return put((Bundle) value);
+        }
+        if (value instanceof ContentValues) {
+            return put((ContentValues) value);
+        }
+        if (value instanceof Uri) {
+            return put(value.toString()); // A Uri's string form is the Uri
+        }
+        if (value instanceof Account) {
+            return put(((Account) value).name).put(((Account) value).type);
+        }
+        if (value instanceof byte[]) {
+            return put((byte[]) value);
+        }
+        if (value instanceof Object[]) {
+            return putValues(Arrays.asList((Object[]) value));
+        }
+        if (value instanceof List) {
+            return putValues((List<?>) value);
+        }
+        if (value instanceof boolean[]) {
+            boolean[] array = (boolean[]) value;
+            put(array.length);
+            for (boolean element : array) {
+                put(element);
+            }
+            return this;
+        }
+        if (value instanceof char[]) {
+            return put(new String((char[]) value));
+        }
+        if (value instanceof short[]) {
+            short[] array = (short[]) value;
+            put(array.length);
+            for (short element : array) {
+                put(element);
+            }
+            return this;
+        }
+        if (value instanceof int[]) {
+            int[] array = (int[]) value;
+            put(array.length);
+            for (int element : array) {
+                put(element);
+            }
+            return this;
+        }
+        if (value instanceof long[]) {
+            long[] array = (long[]) value;
+            put(array.length);
+            for (long element : array) {
+                put(element);
+            }
+            return this;
+        }
+        if (value instanceof float[]) {
+            float[] array = (float[]) value;
+            put(array.length);
+            for (float element : array) {
+                put(element);
+            }
+            return this;
+        }
+        if (value instanceof double[]) {
+            double[] array = (double[]) value;
+            put(array.length);
+            for (double element : array) {
+                put(element);
+            }
+            return this;
+        }
+        mComplete = false;
+        return this;
+    }
+
+    private Fingerprint putValues(List<?> values) {
+        put(values.size());
+        for (Object value : values) {
+            putValue(value);
+        }
+        return this;
+    }
+
+    private Fingerprint putByte(int b) {
+        mHash ^= b & 0xff;
+        mHash *= PRIME;
+        return this;
+    }
+}
@@ -0,0 +1,39 @@
+package com.permissionnanny.lib.request;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import com.permissionnanny.lib.Event;
+import com.permissionnanny.lib.Nanny;
+
+/**
+ * Event filter that completes a {@link NannyFuture} with the {@link Nanny#AUTHORIZATION_SERVICE} response, after
+ * handing it to the listener that was attached before the request was submitted, if any.
+ */
+class FutureEvent implements Event {
+
+    private final NannyFuture<Bundle> mFuture;
+    @Nullable private final Event mDelegate;
+
+    FutureEvent(NannyFuture<Bundle> future, @Nullable Event delegate) {
+        mFuture = future;
+        mDelegate = delegate;
+    }
+
+    @Override
+    public String filter() {
+        return Nanny.AUTHORIZATION_SERVICE;
+    }
+
+    @Override
+    public void process(Context context, Intent intent) {
+        if (mFuture.isCancelled()) { // Nobody cares anymore
+            return;
+        }
+        if (mDelegate != null) {
+            mDelegate.process(context, intent);
+        }
+        mFuture.complete(intent.getExtras());
+    }
+}
@@ -0,0 +1,87 @@
+package com.permissionnanny.lib.request;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.support.annotation.VisibleForTesting;
+import com.permissionnanny.lib.Err;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import timber.log.Timber;
+
+/**
+ * The one BroadcastReceiver per process that receives responses sent to dispatch addresses.
+ * <p/>
+ * Requests to a PPP/0.2 server register their {@link PermissionReceiver} here instead of with the framework, so
+ * starting and stopping a request is a map update rather than an IPC round trip. The dispatcher registers itself for
+ * {@link Nanny#ACTION_DISPATCH} on the application context the first time a request is registered, and routes each
+ * response to the receiver registered for its {@link Nanny#CLIENT_ADDRESS}.
+ * <p/>
+ * Responses for unknown addresses are dropped.
+ */
+public class NannyDispatcher extends BroadcastReceiver {
+
+    private static NannyDispatcher sInstance;
+
+    private final Map<String, PermissionReceiver> mReceivers = new ConcurrentHashMap<>();
+    private boolean mRegistered;
+
+    @VisibleForTesting
+    NannyDispatcher() {}
+
+    public static synchronized NannyDispatcher getInstance() {
+        if (sInstance == null) {
+            sInstance = new NannyDispatcher();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Route responses sent to {@code clientAddr} to {@code receiver} until the server closes the connection or
+     * {@link #unregister(String)} is called.
+     *
+     * @param context    Activity, Service, etc.
+     * @param clientAddr Dispatch address
+     * @param receiver   Response receiver
+     */
+    public void register(Context context, String clientAddr, PermissionReceiver receiver) {
+        mReceivers.put(clientAddr, receiver);
+        synchronized (this) {
+            if (!mRegistered) {
+                Context app = context.getApplicationContext();
+                (app != null ? app : context).registerReceiver(this, new IntentFilter(Nanny.ACTION_DISPATCH));
+                mRegistered = true;
+            }
+        }
+    }
+
+    /**
+     * Stop routing responses sent to {@code clientAddr}.
+     *
+     * @param clientAddr Dispatch address
+     */
+    public void unregister(String clientAddr) {
+        mReceivers.remove(clientAddr);
+    }
+
+    @VisibleForTesting
+    int size() {
+        return mReceivers.size();
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String clientAddr = intent.getStringExtra(Nanny.CLIENT_ADDRESS);
+        NannyBundle.Header header = new NannyBundle.Header(intent);
+        PermissionReceiver receiver = clientAddr == null ? null : header.isClosed() ?
+                mReceivers.remove(clientAddr) : mReceivers.get(clientAddr);
+        if (receiver == null) { // Stopped request or a stranger guessing; nobody to hand the response to
+            Timber.w(Err.NO_DISPATCH_TARGET, clientAddr);
+            return;
+        }
+        receiver.route(context, intent, header);
+    }
+}
@@ -0,0 +1,80 @@
+package com.permissionnanny.lib.request;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.concurrent.Executor;
+
+/**
+ * Executors that decode responses and deliver callbacks.
+ * <p/>
+ * Ongoing requests such as location and NMEA updates can stream several responses a second. Their events unparcel and
+ * ack each response on {@link #decoder()}, one process-wide background thread, so the main thread only routes the
+ * broadcast. Callbacks then run on the Executor the caller asked for, or on the main thread.
+ */
+public final class NannyExecutors {
+
+    private NannyExecutors() {}
+
+    /** Holds the decoder thread so it is only started when the first ongoing request is made. */
+    private static class Holder {
+        static final Executor DECODER;
+
+        static {
+            HandlerThread thread = new HandlerThread("PermissionNanny-decoder", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            DECODER = of(thread.getLooper());
+        }
+    }
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * Return the background thread that unparcels and acks responses in order of arrival.
+     */
+    public static Executor decoder() {
+        return Holder.DECODER;
+    }
+
+    /**
+     * Return an Executor that runs tasks on the calling thread.
+     */
+    public static Executor direct() {
+        return DIRECT;
+    }
+
+    /**
+     * Return an Executor that runs tasks on the main thread.
+     */
+    public static Executor mainThread() {
+        return of(Looper.getMainLooper());
+    }
+
+    /**
+     * Return an Executor that runs tasks on {@code looper}, or the main thread if it is {@code null}.
+     */
+    public static Executor of(@Nullable Looper looper) {
+        return of(new Handler(looper != null ? looper : Looper.getMainLooper()));
+    }
+
+    /**
+     * Return an Executor that posts tasks to {@code handler}, or the main thread if it is {@code null}.
+     */
+    public static Executor of(@Nullable Handler handler) {
+        final Handler target = handler != null ? handler : new Handler(Looper.getMainLooper());
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                target.post(command);
+            }
+        };
+    }
+}
@@ -0,0 +1,247 @@
+package com.permissionnanny.lib.request;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pending result of a request started with {@link PermissionRequest#submit}.
+ * <p/>
+ * A future completes once with the server's response, fails once its deadline passes, or is cancelled. Failing and
+ * cancelling stop the request so its receiver does not outlive the caller's interest in it. Several futures can be
+ * awaited together with {@link #allOf(List)} and {@link #anyOf(List)}.
+ * <p/>
+ * Responses are delivered on the main thread, so never block on {@link #get()} there; attach a {@link Listener}
+ * instead.
+ *
+ * @param <T> Result type
+ */
+public class NannyFuture<T> implements Future<T> {
+
+    /**
+     * Callback for when a future completes, fails or is cancelled.
+     */
+    public interface Listener<T> {
+        void onDone(@NonNull NannyFuture<T> future);
+    }
+
+    private static final int PENDING = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+    private static final int CANCELLED = 3;
+
+    private final CountDownLatch mDone = new CountDownLatch(1);
+    private final List<Listener<T>> mListeners = new ArrayList<>();
+    @Nullable private final Runnable mOnAbort;
+    private int mState = PENDING;
+    private T mValue;
+    private Throwable mError;
+
+    /**
+     * @param onAbort Run once if the future fails or is cancelled
+     */
+    NannyFuture(@Nullable Runnable onAbort) {
+        mOnAbort = onAbort;
+    }
+
+    /**
+     * Run {@code listener} when this future is done, or right away if it already is.
+     *
+     * @return itself
+     */
+    public NannyFuture<T> addListener(@NonNull Listener<T> listener) {
+        synchronized (this) {
+            if (mState == PENDING) {
+                mListeners.add(listener);
+                return this;
+            }
+        }
+        listener.onDone(this);
+        return this;
+    }
+
+    boolean complete(T value) {
+        synchronized (this) {
+            if (mState != PENDING) {
+                return false;
+            }
+            mValue = value;
+            mState = SUCCEEDED;
+        }
+        done();
+        return true;
+    }
+
+    boolean fail(@NonNull Throwable error) {
+        synchronized (this) {
+            if (mState != PENDING) {
+                return false;
+            }
+            mError = error;
+            mState = FAILED;
+        }
+        abort();
+        return true;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized (this) {
+            if (mState != PENDING) {
+                return false;
+            }
+            mState = CANCELLED;
+        }
+        abort();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return mState == CANCELLED;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return mState != PENDING;
+    }
+
+    /**
+     * Return the failure, or {@code null} if the future succeeded or is not done.
+     */
+    @Nullable
+    public synchronized Throwable getError() {
+        return mError;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        mDone.await();
+        return result();
+    }
+
+    @Override
+    public T get(long timeout, @NonNull TimeUnit unit) throws InterruptedException, ExecutionException,
+            TimeoutException {
+        if (!mDone.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return result();
+    }
+
+    private synchronized T value() {
+        return mValue;
+    }
+
+    private synchronized T result() throws ExecutionException {
+        switch (mState) {
+            case SUCCEEDED:
+                return mValue;
+            case FAILED:
+                throw new ExecutionException(mError);
+            default:
+                throw new CancellationException();
+        }
+    }
+
+    private void abort() {
+        if (mOnAbort != null) {
+            mOnAbort.run();
+        }
+        done();
+    }
+
+    private void done() {
+        mDone.countDown();
+        List<Listener<T>> listeners;
+        synchronized (this) {
+            listeners = new ArrayList<>(mListeners);
+            mListeners.clear();
+        }
+        for (Listener<T> listener : listeners) {
+            listener.onDone(this);
+        }
+    }
+
+    /**
+     * Return a future that succeeds with every result, in order, once all {@code futures} succeed. It fails as soon
+     * as one of them fails or is cancelled; the rest are then cancelled. Cancelling it cancels all of them.
+     */
+    public static <T> NannyFuture<List<T>> allOf(@NonNull final List<? extends NannyFuture<T>> futures) {
+        final NannyFuture<List<T>> all = new NannyFuture<>(cancelAll(futures));
+        if (futures.isEmpty()) {
+            all.complete(Collections.<T>emptyList());
+            return all;
+        }
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+        Listener<T> listener = new Listener<T>() {
+            @Override
+            public void onDone(@NonNull NannyFuture<T> future) {
+                if (future.isCancelled()) {
+                    all.fail(new CancellationException());
+                } else if (future.getError() != null) {
+                    all.fail(future.getError());
+                } else if (remaining.decrementAndGet() == 0) {
+                    List<T> results = new ArrayList<>(futures.size());
+                    for (NannyFuture<T> each : futures) {
+                        results.add(each.value());
+                    }
+                    all.complete(results);
+                }
+            }
+        };
+        for (NannyFuture<T> future : futures) {
+            future.addListener(listener);
+        }
+        return all;
+    }
+
+    /**
+     * Return a future that succeeds with the first result of any of {@code futures}; the rest are then cancelled. It
+     * fails with the last failure if none of them succeed. Cancelling it cancels all of them.
+     */
+    public static <T> NannyFuture<T> anyOf(@NonNull final List<? extends NannyFuture<T>> futures) {
+        final NannyFuture<T> any = new NannyFuture<>(cancelAll(futures));
+        if (futures.isEmpty()) {
+            any.fail(new IllegalArgumentException("No futures."));
+            return any;
+        }
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+        Listener<T> listener = new Listener<T>() {
+            @Override
+            public void onDone(@NonNull NannyFuture<T> future) {
+                if (!future.isCancelled() && future.getError() == null) {
+                    if (any.complete(future.value())) {
+                        cancelAll(futures).run();
+                    }
+                } else if (remaining.decrementAndGet() == 0) {
+                    any.fail(future.isCancelled() ? new CancellationException() : future.getError());
+                }
+            }
+        };
+        for (NannyFuture<T> future : futures) {
+            future.addListener(listener);
+        }
+        return any;
+    }
+
+    private static Runnable cancelAll(final List<? extends NannyFuture<?>> futures) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                for (NannyFuture<?> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        };
+    }
+}
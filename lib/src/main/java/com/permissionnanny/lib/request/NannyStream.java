@@ -0,0 +1,153 @@
+package com.permissionnanny.lib.request;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.RemoteException;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.permissionnanny.lib.Err;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
+import java.util.HashSet;
+import java.util.Set;
+import timber.log.Timber;
+
+/**
+ * The one Binder per process that receives ongoing resource responses from Permission Nanny's {@link
+ * Nanny#STREAM_SERVICE}.
+ * <p/>
+ * Ongoing requests to a PPP/0.2 server attach their dispatch address here. The first attach binds to the stream service,
+ * and each address is registered with it as soon as the service is connected. From then on the server pushes responses
+ * as oneway Binder calls instead of queueing a broadcast per event. Responses are handed to the {@link NannyDispatcher}
+ * on the main thread, just like broadcasts, so events don't care which way a response came. Until the service is
+ * connected, or if it is unavailable, responses keep arriving as broadcasts.
+ * <p/>
+ * The service is unbound when the last address is detached.
+ */
+public class NannyStream extends INannyStreamCallback.Stub implements ServiceConnection {
+
+    private static NannyStream sInstance;
+
+    private final NannyDispatcher mDispatcher;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Set<String> mAddresses = new HashSet<>();
+    private boolean mEnabled = true;
+    /** Application context the service is bound on; {@code null} until the first attach. */
+    @Nullable private volatile Context mContext;
+    private boolean mBound;
+    /** Bound service; {@code null} until connected. */
+    @Nullable private INannyStream mService;
+
+    @VisibleForTesting
+    NannyStream(NannyDispatcher dispatcher) {
+        mDispatcher = dispatcher;
+    }
+
+    public static synchronized NannyStream getInstance() {
+        if (sInstance == null) {
+            sInstance = new NannyStream(NannyDispatcher.getInstance());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Allow or stop streaming responses over Binder. Requests attached while disabled get their responses as
+     * broadcasts. Enabled by default.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    /**
+     * Ask the server to push responses for {@code clientAddr} over Binder, binding to it first if needed.
+     *
+     * @param context    Activity, Service, etc.
+     * @param clientAddr Dispatch address already registered with the {@link NannyDispatcher}
+     */
+    public synchronized void attach(Context context, String clientAddr) {
+        if (!mEnabled || !mAddresses.add(clientAddr)) {
+            return;
+        }
+        if (mService != null) {
+            register(mService, clientAddr);
+        } else if (!mBound) {
+            if (mContext == null) {
+                Context app = context.getApplicationContext();
+                mContext = app != null ? app : context;
+            }
+            Intent intent = new Intent().setClassName(Nanny.getServerAppId(), Nanny.STREAM_SERVICE);
+            mBound = mContext.bindService(intent, this, Context.BIND_AUTO_CREATE);
+            if (!mBound) { // Server predates the stream service; broadcasts it is
+                mAddresses.clear();
+            }
+        }
+    }
+
+    /**
+     * Stop receiving responses for {@code clientAddr} over Binder, unbinding if it was the last one.
+     *
+     * @param clientAddr Dispatch address
+     */
+    public synchronized void detach(String clientAddr) {
+        if (!mAddresses.remove(clientAddr)) {
+            return;
+        }
+        if (mService != null) {
+            try {
+                mService.unregister(clientAddr);
+            } catch (RemoteException e) {/* Server died; nothing to undo. */}
+        }
+        if (mAddresses.isEmpty() && mBound) {
+            mContext.unbindService(this);
+            mBound = false;
+            mService = null;
+        }
+    }
+
+    @VisibleForTesting
+    synchronized boolean isAttached(String clientAddr) {
+        return mAddresses.contains(clientAddr);
+    }
+
+    @Override
+    public synchronized void onServiceConnected(ComponentName name, IBinder binder) {
+        mService = INannyStream.Stub.asInterface(binder);
+        for (String clientAddr : mAddresses) {
+            register(mService, clientAddr);
+        }
+    }
+
+    @Override
+    public synchronized void onServiceDisconnected(ComponentName name) {
+        mService = null; // Server died; it broadcasts again until the framework reconnects us and we re-register
+    }
+
+    /**
+     * Called by the server on a Binder thread.
+     */
+    @Override
+    public void onResponse(final Intent response) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mDispatcher.onReceive(mContext, response);
+                if (new NannyBundle.Header(response).isClosed()) {
+                    detach(response.getStringExtra(Nanny.CLIENT_ADDRESS));
+                }
+            }
+        });
+    }
+
+    private void register(INannyStream service, String clientAddr) {
+        try {
+            service.register(clientAddr, this);
+        } catch (RemoteException e) {
+            Timber.w(e, Err.STREAM_REGISTER_FAILED, clientAddr);
+        }
+    }
+}
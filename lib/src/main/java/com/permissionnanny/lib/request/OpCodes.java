@@ -0,0 +1,278 @@
+package com.permissionnanny.lib.request;
+
+import com.permissionnanny.lib.PPP;
+import com.permissionnanny.lib.request.content.ContentRequest;
+import com.permissionnanny.lib.request.simple.AccountRequest;
+import com.permissionnanny.lib.request.simple.LocationRequest;
+import com.permissionnanny.lib.request.simple.SmsRequest;
+import com.permissionnanny.lib.request.simple.TelephonyRequest;
+import com.permissionnanny.lib.request.simple.WifiRequest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dense integer IDs for every opcode. PPP/0.2 clients send the ID instead of the opcode String so that the server can
+ * dispatch by array index.
+ * <p>
+ * IDs are part of PPP: append new opcodes to the end of the table and never reuse or reorder existing IDs.
+ */
+public class OpCodes {
+
+    /** ID of an opcode that is not in the table. */
+    public static final int UNKNOWN = 0;
+
+    @PPP public static final int ACCOUNT_ADD_ACCOUNT = 1;
+    @PPP public static final int ACCOUNT_ADD_ACCOUNT_EXPLICITLY = 2;
+    @PPP public static final int ACCOUNT_ADD_ON_ACCOUNTS_UPDATED_LISTENER = 3;
+    @PPP public static final int ACCOUNT_BLOCKING_GET_AUTH_TOKEN = 4;
+    @PPP public static final int ACCOUNT_CLEAR_PASSWORD = 5;
+    @PPP public static final int ACCOUNT_CONFIRM_CREDENTIALS = 6;
+    @PPP public static final int ACCOUNT_EDIT_PROPERTIES = 7;
+    @PPP public static final int ACCOUNT_GET_ACCOUNTS = 8;
+    @PPP public static final int ACCOUNT_GET_ACCOUNTS_BY_TYPE = 9;
+    @PPP public static final int ACCOUNT_GET_ACCOUNTS_BY_TYPE_AND_FEATURES = 10;
+    @PPP public static final int ACCOUNT_GET_AUTH_TOKEN_BY_FEATURES = 11;
+    @PPP public static final int ACCOUNT_GET_AUTH_TOKEN = 12;
+    @PPP public static final int ACCOUNT_GET_AUTH_TOKEN1 = 13;
+    @PPP public static final int ACCOUNT_GET_AUTH_TOKEN2 = 14;
+    @PPP public static final int ACCOUNT_GET_PASSWORD = 15;
+    @PPP public static final int ACCOUNT_GET_USER_DATA = 16;
+    @PPP public static final int ACCOUNT_HAS_FEATURES = 17;
+    @PPP public static final int ACCOUNT_INVALIDATE_AUTH_TOKEN = 18;
+    @PPP public static final int ACCOUNT_PEEK_AUTH_TOKEN = 19;
+    @PPP public static final int ACCOUNT_REMOVE_ACCOUNT = 20;
+    @PPP public static final int ACCOUNT_REMOVE_ACCOUNT1 = 21;
+    @PPP public static final int ACCOUNT_REMOVE_ACCOUNT_EXPLICITLY = 22;
+    @PPP public static final int ACCOUNT_RENAME_ACCOUNT = 23;
+    @PPP public static final int ACCOUNT_SET_AUTH_TOKEN = 24;
+    @PPP public static final int ACCOUNT_SET_PASSWORD = 25;
+    @PPP public static final int ACCOUNT_SET_USER_DATA = 26;
+    @PPP public static final int ACCOUNT_UPDATE_CREDENTIALS = 27;
+
+    @PPP public static final int LOCATION_ADD_GPS_STATUS_LISTENER = 28;
+    @PPP public static final int LOCATION_ADD_NMEA_LISTENER = 29;
+    @PPP public static final int LOCATION_ADD_PROXIMITY_ALERT = 30;
+    @PPP public static final int LOCATION_GET_LAST_KNOWN_LOCATION = 31;
+    @PPP public static final int LOCATION_REMOVE_GPS_STATUS_LISTENER = 32;
+    @PPP public static final int LOCATION_REMOVE_NMEA_LISTENER = 33;
+    @PPP public static final int LOCATION_REMOVE_PROXIMITY_ALERT = 34;
+    @PPP public static final int LOCATION_REMOVE_UPDATES = 35;
+    @PPP public static final int LOCATION_REMOVE_UPDATES1 = 36;
+    @PPP public static final int LOCATION_REQUEST_LOCATION_UPDATES = 37;
+    @PPP public static final int LOCATION_REQUEST_LOCATION_UPDATES1 = 38;
+    @PPP public static final int LOCATION_REQUEST_LOCATION_UPDATES2 = 39;
+    @PPP public static final int LOCATION_REQUEST_LOCATION_UPDATES3 = 40;
+    @PPP public static final int LOCATION_REQUEST_LOCATION_UPDATES4 = 41;
+    @PPP public static final int LOCATION_REQUEST_SINGLE_UPDATE = 42;
+    @PPP public static final int LOCATION_REQUEST_SINGLE_UPDATE1 = 43;
+    @PPP public static final int LOCATION_REQUEST_SINGLE_UPDATE2 = 44;
+    @PPP public static final int LOCATION_REQUEST_SINGLE_UPDATE3 = 45;
+
+    @PPP public static final int SMS_SEND_DATA_MESSAGE = 46;
+    @PPP public static final int SMS_SEND_MULTIMEDIA_MESSAGE = 47;
+    @PPP public static final int SMS_SEND_MULTIPART_TEXT_MESSAGE = 48;
+    @PPP public static final int SMS_SEND_TEXT_MESSAGE = 49;
+
+    @PPP public static final int TELEPHONY_GET_ALL_CELL_INFO = 50;
+    @PPP public static final int TELEPHONY_GET_DEVICE_ID = 51;
+    @PPP public static final int TELEPHONY_GET_DEVICE_SOFTWARE_VERSION = 52;
+    @PPP public static final int TELEPHONY_GET_GROUP_ID_LEVEL_1 = 53;
+    @PPP public static final int TELEPHONY_GET_LINE_1_NUMBER = 54;
+    @PPP public static final int TELEPHONY_GET_NEIGHBORING_CELL_INFO = 55;
+    @PPP public static final int TELEPHONY_GET_SIM_SERIAL_NUMBER = 56;
+    @PPP public static final int TELEPHONY_GET_SUBSCRIBER_ID = 57;
+    @PPP public static final int TELEPHONY_GET_VOICE_MAIL_ALPHA_TAG = 58;
+    @PPP public static final int TELEPHONY_GET_VOICE_MAIL_NUMBER = 59;
+
+    @PPP public static final int WIFI_ADD_NETWORK = 60;
+    @PPP public static final int WIFI_DISABLE_NETWORK = 61;
+    @PPP public static final int WIFI_DISCONNECT = 62;
+    @PPP public static final int WIFI_ENABLE_NETWORK = 63;
+    @PPP public static final int WIFI_GET_CONFIGURED_NETWORKS = 64;
+    @PPP public static final int WIFI_GET_CONNECTION_INFO = 65;
+    @PPP public static final int WIFI_GET_DHCP_INFO = 66;
+    @PPP public static final int WIFI_GET_SCAN_RESULTS = 67;
+    @PPP public static final int WIFI_GET_WIFI_STATE = 68;
+    @PPP public static final int WIFI_IS_WIFI_ENABLED = 69;
+    @PPP public static final int WIFI_PING_SUPPLICANT = 70;
+    @PPP public static final int WIFI_REASSOCIATE = 71;
+    @PPP public static final int WIFI_RECONNECT = 72;
+    @PPP public static final int WIFI_REMOVE_NETWORK = 73;
+    @PPP public static final int WIFI_SAVE_CONFIGURATION = 74;
+    @PPP public static final int WIFI_SET_WIFI_ENABLED = 75;
+    @PPP public static final int WIFI_START_SCAN = 76;
+    @PPP public static final int WIFI_UPDATE_NETWORK = 77;
+
+    @PPP public static final int CONTENT_SELECT = 78;
+    @PPP public static final int CONTENT_INSERT = 79;
+    @PPP public static final int CONTENT_UPDATE = 80;
+    @PPP public static final int CONTENT_DELETE = 81;
+
+    private static final String[] NAMES = {
+            null,
+            AccountRequest.ADD_ACCOUNT,
+            AccountRequest.ADD_ACCOUNT_EXPLICITLY,
+            AccountRequest.ADD_ON_ACCOUNTS_UPDATED_LISTENER,
+            AccountRequest.BLOCKING_GET_AUTH_TOKEN,
+            AccountRequest.CLEAR_PASSWORD,
+            AccountRequest.CONFIRM_CREDENTIALS,
+            AccountRequest.EDIT_PROPERTIES,
+            AccountRequest.GET_ACCOUNTS,
+            AccountRequest.GET_ACCOUNTS_BY_TYPE,
+            AccountRequest.GET_ACCOUNTS_BY_TYPE_AND_FEATURES,
+            AccountRequest.GET_AUTH_TOKEN_BY_FEATURES,
+            AccountRequest.GET_AUTH_TOKEN,
+            AccountRequest.GET_AUTH_TOKEN1,
+            AccountRequest.GET_AUTH_TOKEN2,
+            AccountRequest.GET_PASSWORD,
+            AccountRequest.GET_USER_DATA,
+            AccountRequest.HAS_FEATURES,
+            AccountRequest.INVALIDATE_AUTH_TOKEN,
+            AccountRequest.PEEK_AUTH_TOKEN,
+            AccountRequest.REMOVE_ACCOUNT,
+            AccountRequest.REMOVE_ACCOUNT1,
+            AccountRequest.REMOVE_ACCOUNT_EXPLICITLY,
+            AccountRequest.RENAME_ACCOUNT,
+            AccountRequest.SET_AUTH_TOKEN,
+            AccountRequest.SET_PASSWORD,
+            AccountRequest.SET_USER_DATA,
+            AccountRequest.UPDATE_CREDENTIALS,
+            LocationRequest.ADD_GPS_STATUS_LISTENER,
+            LocationRequest.ADD_NMEA_LISTENER,
+            LocationRequest.ADD_PROXIMITY_ALERT,
+            LocationRequest.GET_LAST_KNOWN_LOCATION,
+            LocationRequest.REMOVE_GPS_STATUS_LISTENER,
+            LocationRequest.REMOVE_NMEA_LISTENER,
+            LocationRequest.REMOVE_PROXIMITY_ALERT,
+            LocationRequest.REMOVE_UPDATES,
+            LocationRequest.REMOVE_UPDATES1,
+            LocationRequest.REQUEST_LOCATION_UPDATES,
+            LocationRequest.REQUEST_LOCATION_UPDATES1,
+            LocationRequest.REQUEST_LOCATION_UPDATES2,
+            LocationRequest.REQUEST_LOCATION_UPDATES3,
+            LocationRequest.REQUEST_LOCATION_UPDATES4,
+            LocationRequest.REQUEST_SINGLE_UPDATE,
+            LocationRequest.REQUEST_SINGLE_UPDATE1,
+            LocationRequest.REQUEST_SINGLE_UPDATE2,
+            LocationRequest.REQUEST_SINGLE_UPDATE3,
+            SmsRequest.SEND_DATA_MESSAGE,
+            SmsRequest.SEND_MULTIMEDIA_MESSAGE,
+            SmsRequest.SEND_MULTIPART_TEXT_MESSAGE,
+            SmsRequest.SEND_TEXT_MESSAGE,
+            TelephonyRequest.GET_ALL_CELL_INFO,
+            TelephonyRequest.GET_DEVICE_ID,
+            TelephonyRequest.GET_DEVICE_SOFTWARE_VERSION,
+            TelephonyRequest.GET_GROUP_ID_LEVEL_1,
+            TelephonyRequest.GET_LINE_1_NUMBER,
+            TelephonyRequest.GET_NEIGHBORING_CELL_INFO,
+            TelephonyRequest.GET_SIM_SERIAL_NUMBER,
+            TelephonyRequest.GET_SUBSCRIBER_ID,
+            TelephonyRequest.GET_VOICE_MAIL_ALPHA_TAG,
+            TelephonyRequest.GET_VOICE_MAIL_NUMBER,
+            WifiRequest.ADD_NETWORK,
+            WifiRequest.DISABLE_NETWORK,
+            WifiRequest.DISCONNECT,
+            WifiRequest.ENABLE_NETWORK,
+            WifiRequest.GET_CONFIGURED_NETWORKS,
+            WifiRequest.GET_CONNECTION_INFO,
+            WifiRequest.GET_DHCP_INFO,
+            WifiRequest.GET_SCAN_RESULTS,
+            WifiRequest.GET_WIFI_STATE,
+            WifiRequest.IS_WIFI_ENABLED,
+            WifiRequest.PING_SUPPLICANT,
+            WifiRequest.REASSOCIATE,
+            WifiRequest.RECONNECT,
+            WifiRequest.REMOVE_NETWORK,
+            WifiRequest.SAVE_CONFIGURATION,
+            WifiRequest.SET_WIFI_ENABLED,
+            WifiRequest.START_SCAN,
+            WifiRequest.UPDATE_NETWORK,
+            ContentRequest.SELECT,
+            ContentRequest.INSERT,
+            ContentRequest.UPDATE,
+            ContentRequest.DELETE
+    };
+
+    private static final Map<String, Integer> IDS = new HashMap<>(NAMES.length * 2);
+
+    static {
+        for (int id = 1; id < NAMES.length; id++) {
+            IDS.put(NAMES[id], id);
+        }
+    }
+
+    /** Opcodes that only read device state, never change it. */
+    private static final Set<String> READ_ONLY = new HashSet<>(Arrays.asList(
+            WifiRequest.GET_CONFIGURED_NETWORKS,
+            WifiRequest.GET_CONNECTION_INFO,
+            WifiRequest.GET_DHCP_INFO,
+            WifiRequest.GET_SCAN_RESULTS,
+            WifiRequest.GET_WIFI_STATE,
+            WifiRequest.IS_WIFI_ENABLED,
+            TelephonyRequest.GET_ALL_CELL_INFO,
+            TelephonyRequest.GET_DEVICE_ID,
+            TelephonyRequest.GET_DEVICE_SOFTWARE_VERSION,
+            TelephonyRequest.GET_GROUP_ID_LEVEL_1,
+            TelephonyRequest.GET_LINE_1_NUMBER,
+            TelephonyRequest.GET_NEIGHBORING_CELL_INFO,
+            TelephonyRequest.GET_SIM_SERIAL_NUMBER,
+            TelephonyRequest.GET_SUBSCRIBER_ID,
+            TelephonyRequest.GET_VOICE_MAIL_ALPHA_TAG,
+            TelephonyRequest.GET_VOICE_MAIL_NUMBER,
+            AccountRequest.GET_ACCOUNTS,
+            AccountRequest.GET_ACCOUNTS_BY_TYPE));
+
+    /** Opcodes whose resources keep streaming from Permission Nanny's ProxyService after the request is allowed. */
+    private static final Set<String> ONGOING = new HashSet<>(Arrays.asList(
+            AccountRequest.ADD_ON_ACCOUNTS_UPDATED_LISTENER,
+            LocationRequest.ADD_GPS_STATUS_LISTENER,
+            LocationRequest.ADD_NMEA_LISTENER,
+            LocationRequest.REQUEST_LOCATION_UPDATES1,
+            LocationRequest.REQUEST_LOCATION_UPDATES2,
+            LocationRequest.REQUEST_SINGLE_UPDATE,
+            LocationRequest.REQUEST_SINGLE_UPDATE1));
+
+    private OpCodes() {}
+
+    /**
+     * @return Number of slots an array indexed by opcode ID needs, including {@link #UNKNOWN}
+     */
+    public static int size() {
+        return NAMES.length;
+    }
+
+    /**
+     * @param opCode Opcode String
+     * @return ID of {@code opCode}, or {@link #UNKNOWN} if it is not in the table
+     */
+    public static int idOf(String opCode) {
+        Integer id = opCode != null ? IDS.get(opCode) : null;
+        return id != null ? id : UNKNOWN;
+    }
+
+    /**
+     * @param id Opcode ID
+     * @return The opcode constant for {@code id}, or {@code null} if it is not in the table
+     */
+    public static String nameOf(int id) {
+        return id > UNKNOWN && id < NAMES.length ? NAMES[id] : null;
+    }
+
+    /**
+     * @param opCode Opcode String
+     * @return {@code true} if {@code opCode} only reads device state, so identical requests get identical answers
+     */
+    public static boolean isReadOnly(String opCode) {
+        return READ_ONLY.contains(opCode);
+    }
+
+    /**
+     * @return {@code true} if responses to {@code opCode} keep coming until the request is stopped
+     */
+    public static boolean isOngoing(String opCode) {
+        return ONGOING.contains(opCode);
+    }
+}
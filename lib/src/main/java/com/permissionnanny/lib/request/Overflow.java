@@ -0,0 +1,140 @@
+package com.permissionnanny.lib.request;
+
+import android.support.annotation.Nullable;
+import java.util.ArrayDeque;
+
+/**
+ * What a subscription does with events its listener is not keeping up with, and how many it lost that way.
+ * <p/>
+ * Events of an ongoing request are decoded in the background and queued for the listener's thread. If that thread
+ * falls behind, the queue grows by one callback per event, and callbacks arrive late. An overflow policy bounds the
+ * queue:
+ * <ul>
+ * <li>{@link #conflate()} keeps only the latest event; older ones are overwritten.</li>
+ * <li>{@link #dropOldest(int)} keeps the latest {@code capacity} events.</li>
+ * <li>{@link #buffer(int)} keeps the first {@code capacity} events and drops newer ones until the listener catches
+ * up.</li>
+ * </ul>
+ * Subscriptions buffer without bound unless given a policy. A policy also counts the events it dropped or conflated,
+ * so it belongs to exactly one subscription: create a new one for each request.
+ *
+ * @see com.permissionnanny.lib.request.simple.SimpleRequest#overflow(Overflow)
+ */
+public final class Overflow {
+
+    private static final int CONFLATE = 0;
+    private static final int DROP_OLDEST = 1;
+    private static final int BUFFER = 2;
+
+    private final int mPolicy;
+    private final int mCapacity;
+    private final ArrayDeque<Runnable> mQueue = new ArrayDeque<>();
+    /** {@code true} while a drain is scheduled on the listener's thread. */
+    private boolean mDraining;
+    private long mDropped;
+    private long mConflated;
+    @Nullable private Object mOwner;
+
+    private Overflow(int policy, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        mPolicy = policy;
+        mCapacity = capacity;
+    }
+
+    /**
+     * Deliver only the latest event.
+     */
+    public static Overflow conflate() {
+        return new Overflow(CONFLATE, 1);
+    }
+
+    /**
+     * Queue up to {@code capacity} events, dropping the oldest when full.
+     */
+    public static Overflow dropOldest(int capacity) {
+        return new Overflow(DROP_OLDEST, capacity);
+    }
+
+    /**
+     * Queue up to {@code capacity} events, dropping new ones when full.
+     */
+    public static Overflow buffer(int capacity) {
+        return new Overflow(BUFFER, capacity);
+    }
+
+    /**
+     * @return Events dropped because the queue was full
+     */
+    public synchronized long getDroppedCount() {
+        return mDropped;
+    }
+
+    /**
+     * @return Events overwritten by a newer one before the listener got them
+     */
+    public synchronized long getConflatedCount() {
+        return mConflated;
+    }
+
+    /**
+     * Claim this policy for a subscription.
+     *
+     * @throws IllegalStateException if another subscription uses it already
+     */
+    synchronized void attach(Object owner) {
+        if (mOwner != null && mOwner != owner) {
+            throw new IllegalStateException("Overflow policies cannot be shared between subscriptions.");
+        }
+        mOwner = owner;
+    }
+
+    /**
+     * Queue a listener callback.
+     *
+     * @return {@code true} if the caller must schedule a {@link #poll()} loop on the listener's thread
+     */
+    synchronized boolean offer(Runnable callback) {
+        if (mQueue.size() >= mCapacity) {
+            switch (mPolicy) {
+                case CONFLATE:
+                    mQueue.pollFirst();
+                    mConflated++;
+                    break;
+                case DROP_OLDEST:
+                    mQueue.pollFirst();
+                    mDropped++;
+                    break;
+                default:
+                    mDropped++;
+                    return false;
+            }
+        }
+        mQueue.offerLast(callback);
+        if (mDraining) {
+            return false;
+        }
+        mDraining = true;
+        return true;
+    }
+
+    /**
+     * @return Next callback to run, or {@code null} once the queue is empty and the drain is over
+     */
+    @Nullable
+    synchronized Runnable poll() {
+        Runnable callback = mQueue.pollFirst();
+        if (callback == null) {
+            mDraining = false;
+        }
+        return callback;
+    }
+
+    /**
+     * Policy of subscriptions that were not given one.
+     */
+    static Overflow unbounded() {
+        return new Overflow(BUFFER, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,20 @@
+package com.permissionnanny.lib.request;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the {@link RequestParams} slots an opcode uses, as {@code "name:slot"} pairs in factory argument order.
+ * eg: {@code @Params({"netId:int0", "disableOthers:boolean0"})}.
+ * <p>
+ * For every annotated opcode in a factory such as {@code WifiRequest}, the payload processor generates a typed holder
+ * nested in {@code WifiPayloads}. It holds only the declared fields; {@code from(RequestParams)} and {@code
+ * toRequestParams()} convert it to and from RequestParams, which stays the wire format.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Params {
+    String[] value();
+}
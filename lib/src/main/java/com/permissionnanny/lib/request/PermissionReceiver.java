@@ -3,10 +3,15 @@ package com.permissionnanny.lib.request;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
+import android.support.annotation.Nullable;
 import android.support.v4.util.ArrayMap;
+import com.permissionnanny.lib.Err;
 import com.permissionnanny.lib.Event;
 import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
 import java.util.Map;
+import timber.log.Timber;
 
 /**
  * This is the main BroadcastReceiver that will receive responses from the server.
@@ -15,22 +20,67 @@ import java.util.Map;
  * for processing.
  * <p/>
  * Responses are dropped if the no event filters match {@link Nanny#SERVER}.
+ * <p/>
+ * The receiver unregisters itself when the server closes the connection, so it may already be gone by the time the
+ * request is stopped; {@link #unregister(Context)} only unregisters it once.
  */
 public class PermissionReceiver extends BroadcastReceiver {
 
     private Map<String, Event> mEventFilters = new ArrayMap<>();
+    private boolean mUnregistered;
 
     public PermissionReceiver addFilter(Event event) {
         mEventFilters.put(event.filter(), event);
         return this;
     }
 
+    @Nullable
+    public Event getFilter(String server) {
+        return mEventFilters.get(server);
+    }
+
+    /**
+     * Register with the framework for responses matching {@code filter}.
+     */
+    public synchronized void register(Context context, IntentFilter filter) {
+        mUnregistered = false;
+        context.registerReceiver(this, filter);
+    }
+
+    /**
+     * Unregister from the framework, unless the receiver already did so.
+     *
+     * @return {@code true} if the receiver was unregistered by this call
+     */
+    public synchronized boolean unregister(Context context) {
+        if (mUnregistered) {
+            return false;
+        }
+        mUnregistered = true;
+        context.unregisterReceiver(this);
+        return true;
+    }
+
     @Override
     public void onReceive(Context context, Intent intent) {
-        if (Nanny.CLOSE.equals(intent.getStringExtra(Nanny.CONNECTION))) {
-            context.unregisterReceiver(this);
+        NannyBundle.Header header = new NannyBundle.Header(intent);
+        if (header.isClosed()) {
+            unregister(context);
+        }
+        route(context, intent, header);
+    }
+
+    /**
+     * Hand the response to the event filter matching its {@link Nanny#SERVER}. {@link NannyDispatcher} calls this
+     * directly as the receiver is not registered with the framework.
+     */
+    void route(Context context, Intent intent, NannyBundle.Header header) {
+        String server = header.getServer();
+        Event event = mEventFilters.get(server);
+        if (event == null) { // Nobody is listening? Drop the response without unparcelling its entity
+            Timber.wtf(Err.NO_EVENT_FILTER, server);
+            return;
         }
-        String server = intent.getStringExtra(Nanny.SERVER);
-        mEventFilters.get(server).process(context, intent);
+        event.process(context, intent);
     }
 }
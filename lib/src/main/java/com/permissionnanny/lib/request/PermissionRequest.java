@@ -5,11 +5,16 @@ import android.content.Context;
 import android.content.Intent;
 import android.location.Criteria;
 import android.location.LocationListener;
+import android.os.Bundle;
+import android.os.Handler;
 import android.os.Looper;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import com.permissionnanny.lib.C;
+import com.permissionnanny.lib.Event;
 import com.permissionnanny.lib.Nanny;
 import com.permissionnanny.lib.NannyBundle;
+import com.permissionnanny.lib.NannyError;
 import com.permissionnanny.lib.NannyException;
 import com.permissionnanny.lib.NannyRequest;
 import com.permissionnanny.lib.request.content.ContentListener;
@@ -18,6 +23,8 @@ import com.permissionnanny.lib.request.simple.LocationRequest;
 import com.permissionnanny.lib.request.simple.SimpleListener;
 import com.permissionnanny.lib.request.simple.SimpleRequest;
 import com.permissionnanny.lib.request.simple.WifiRequest;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * A request to Permission Nanny to access resources that are protected by Android permissions on your behalf.
@@ -45,8 +52,9 @@ import com.permissionnanny.lib.request.simple.WifiRequest;
  * in a Bundle. The response Bundle consists of 2 components: metadata entries describing the response such as {@link
  * Nanny#PROTOCOL_VERSION} and {@link Nanny#STATUS_CODE}; and entity data which contains the requested resource. Entity
  * data is structured as a nested Bundle within the response Bundle indexed at {@link Nanny#ENTITY_BODY}. If Permission
- * Nanny encountered a failure while executing your request, a nested {@link NannyException} indexed at {@link
- * Nanny#ENTITY_ERROR} will provide you details of what went wrong.
+ * Nanny encountered a failure while executing your request, a nested {@link NannyError} indexed at {@link
+ * Nanny#ENTITY_ERROR} will provide you details of what went wrong; {@link NannyBundle#getError()} reads it as a {@link
+ * NannyException}.
  * <p>
  * For one-shot requests, the requested resource is indexed using the method name within the entity data Bundle. For
  * example, if you were to make a {@link WifiRequest#getConnectionInfo()} request, the resource would be indexed at
@@ -57,7 +65,7 @@ import com.permissionnanny.lib.request.simple.WifiRequest;
  *      public void onResponse(Bundle response) {
  *          Bundle entity = response.getBundle(Nanny.ENTITY_BODY);
  *          if (Nanny.SC_OK != response.getInt(Nanny.STATUS_CODE)) {
- *              NannyException error = (NannyException) entity.getSerializable(Nanny.ENTITY_ERROR);
+ *              NannyException error = (NannyException) new NannyBundle(response).getError();
  *              return;
  *          }
  *          WifiInfo info = entity.getParcelable(WifiRequest.GET_CONNECTION_INFO);
@@ -96,7 +104,7 @@ import com.permissionnanny.lib.request.simple.WifiRequest;
  *      public void onResponse(@NonNull Bundle response, Cursor data, Uri inserted, int rowsUpdated, int rowsDeleted) {
  *          Bundle entity = response.getBundle(Nanny.ENTITY_BODY);
  *          if (Nanny.SC_OK != response.getInt(Nanny.STATUS_CODE)) {
- *              NannyException error = (NannyException) entity.getSerializable(Nanny.ENTITY_ERROR);
+ *              NannyException error = (NannyException) new NannyBundle(response).getError();
  *              return;
  *          }
  *          String[] columns = data.getColumnNames();
@@ -107,11 +115,23 @@ import com.permissionnanny.lib.request.simple.WifiRequest;
  * <p>
  * <h1>How to Start a Request</h1>
  * <p>
- * Send the request to Permission Nanny via {@link #startRequest(Context, String)}.
+ * Send the request to Permission Nanny via {@link #startRequest(Context, String)}, or via {@link #submit(Context,
+ * String)} to get a {@link NannyFuture} that times out and can be cancelled and combined with other requests.
  */
 public class PermissionRequest extends NannyRequest {
 
+    /** Deadline {@link #submit(Context, String)} gives the user to answer the authorization dialog. */
+    public static final long DEFAULT_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+
     protected final RequestParams mParams;
+    /** Event filter registered with the {@link RequestCoalescer}, if this request was coalesced. */
+    @Nullable private Event mCoalesced;
+    /** {@code true} if this request joined an identical one in flight instead of being sent. */
+    private boolean mJoined;
+    /** The authorization filter as attached by the caller, before the last start wrapped it. */
+    @Nullable private Event mUnwrapped;
+    /** The outermost wrapper the last start installed around {@link #mUnwrapped}. */
+    @Nullable private Event mWrapped;
 
     protected PermissionRequest(RequestParams params) {
         mParams = params;
@@ -123,16 +143,143 @@ public class PermissionRequest extends NannyRequest {
      * @param context   Activity, Service, etc.
      * @param rationale Explain to the user why you need to access the resource. This is displayed to the user in a
      *                  dialog when Permission Nanny needs to ask the user for authorization.
+     * @see ResponseCache
+     * @see RequestCoalescer
+     */
+    public void startRequest(final Context context, @Nullable final String rationale) {
+        ResponseCache cache = ResponseCache.getInstalled();
+        Event event = getCallerFilter();
+        addFilter(event); // Restarted? Wrap the caller's filter afresh, not the previous start's wrappers
+        mUnwrapped = event;
+        mWrapped = null;
+        mJoined = false;
+        if (cache != null && event != null && cache.isCacheable(mParams)) {
+            Bundle cached = cache.get(mParams);
+            if (cached != null) {
+                event.process(context, new Intent().putExtras(cached));
+                return;
+            }
+            wrapFilter(new ResponseCache.CachingEvent(cache, mParams, event));
+        }
+        if (event != null && OpCodes.isReadOnly(mParams.opCode)) {
+            event = getFilter(Nanny.AUTHORIZATION_SERVICE);
+            Event lead = RequestCoalescer.getInstance().coalesce(mParams, event, new RequestCoalescer.Successor() {
+                @Override
+                public void lead(Event lead) { // The request this one joined went away; send it ourselves
+                    mCoalesced = lead;
+                    mJoined = false;
+                    wrapFilter(lead);
+                    send(context, rationale);
+                }
+            });
+            if (lead == null) {
+                mCoalesced = event;
+                mJoined = true;
+                return;
+            }
+            mCoalesced = lead;
+            wrapFilter(lead);
+        }
+        send(context, rationale);
+    }
+
+    /**
+     * @return The authorization filter without the wrappers the last start installed
      */
-    public void startRequest(Context context, @Nullable String rationale) {
+    @Nullable
+    private Event getCallerFilter() {
+        Event event = getFilter(Nanny.AUTHORIZATION_SERVICE);
+        return event != null && event == mWrapped ? mUnwrapped : event;
+    }
+
+    private void wrapFilter(Event wrapper) {
+        addFilter(wrapper);
+        mWrapped = wrapper;
+    }
+
+    private void send(Context context, @Nullable String rationale) {
+        setStreamed(OpCodes.isOngoing(mParams.opCode));
         setPayload(newBroadcastIntent(context, rationale));
         super.startRequest(context);
     }
 
+    /**
+     * Start the request and return its pending response, which fails if there is no response within {@link
+     * #DEFAULT_TIMEOUT_MS}.
+     *
+     * @see #submit(Context, String, long, TimeUnit)
+     */
+    public NannyFuture<Bundle> submit(Context context, @Nullable String rationale) {
+        return submit(context, rationale, DEFAULT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start the request and return its pending response. The future completes with the authorization response and
+     * calls any listener attached beforehand. If there is no response within the deadline, the future fails with a
+     * {@link TimeoutException}. Timing out or cancelling stops the request, unregistering its receiver.
+     * <p>
+     * A one-shot request is stopped once its future succeeds. An {@link OpCodes#isOngoing(String) ongoing} request
+     * keeps delivering resources to its listener after the authorization response, so it is left running; stop it
+     * with {@link SimpleRequest#stop()} when done.
+     *
+     * @param context   Activity, Service, etc.
+     * @param rationale Explain to the user why you need to access the resource.
+     * @param timeout   How long to wait for the response
+     * @param unit      Unit of {@code timeout}
+     * @return pending response
+     */
+    public NannyFuture<Bundle> submit(final Context context, @Nullable String rationale, long timeout,
+                                      TimeUnit unit) {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        final NannyFuture<Bundle> future = new NannyFuture<>(new Runnable() {
+            @Override
+            public void run() {
+                stop(context);
+            }
+        });
+        final Runnable deadline = new Runnable() {
+            @Override
+            public void run() {
+                future.fail(new TimeoutException("No response from Permission Nanny."));
+            }
+        };
+        future.addListener(new NannyFuture.Listener<Bundle>() {
+            @Override
+            public void onDone(@NonNull NannyFuture<Bundle> future) {
+                handler.removeCallbacks(deadline);
+                if (future.getError() == null && !future.isCancelled() && !OpCodes.isOngoing(mParams.opCode)) {
+                    stop(context); // No more responses are coming
+                }
+            }
+        });
+        addFilter(new FutureEvent(future, getCallerFilter()));
+        handler.postDelayed(deadline, unit.toMillis(timeout));
+        startRequest(context, rationale);
+        return future;
+    }
+
+    /**
+     * Safe to call more than once: the request leaves the {@link RequestCoalescer} and unregisters only the first time.
+     */
+    @Override
+    protected void stop(Context context) {
+        if (mCoalesced != null) {
+            RequestCoalescer.getInstance().leave(mParams, mCoalesced);
+            mCoalesced = null;
+        }
+        if (!mJoined) { // Joined requests never registered a receiver
+            super.stop(context);
+        }
+    }
+
     protected Intent newBroadcastIntent(Context context, @Nullable String rationale) {
+        // PPP/0.1 servers only understand the legacy RequestParams layout
+        boolean legacyServer = Nanny.PPP_0_1.equals(Nanny.getServerProtocolVersion(context));
+        mParams.setEncoding(legacyServer ? RequestParams.ENCODING_LEGACY : RequestParams.ENCODING_COMPACT);
         NannyBundle.Builder builder = new NannyBundle.Builder()
+                .protocolVersion(legacyServer ? Nanny.PPP_0_1 : Nanny.PPP_0_2)
                 .sender(PendingIntent.getBroadcast(context, 0, C.EMPTY_INTENT, 0))
-                .clientAddress(hasReceiver() ? mClientAddr : null)
+                .clientAddress(hasReceiver() ? clientAddress(context, !legacyServer) : null)
                 .params(mParams)
                 .rationale(rationale);
         return new Intent()
@@ -0,0 +1,160 @@
+package com.permissionnanny.lib.request;
+
+import android.content.Context;
+import android.content.Intent;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.util.ArrayMap;
+import com.permissionnanny.lib.Event;
+import com.permissionnanny.lib.Nanny;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collapses identical read-only requests that are in flight at the same time into a single broadcast.
+ * <p/>
+ * The first request for some {@link RequestParams} leads: it is sent to Permission Nanny as usual. Until its response
+ * arrives, requests with equal parameters and a {@link OpCodes#isReadOnly(String) read-only} opcode join it instead of
+ * being sent, and the response is handed to every listener. A joined request that is stopped simply stops listening.
+ * If the leader is stopped, times out or is cancelled, the request that joined first is promoted: it sends the
+ * request itself and leads the rest.
+ */
+public class RequestCoalescer {
+
+    /**
+     * Sends a joined request itself when it is promoted to lead.
+     */
+    interface Successor {
+        /**
+         * @param lead Event filter the request must now use in place of the one it joined with
+         */
+        void lead(Event lead);
+    }
+
+    private static final RequestCoalescer sInstance = new RequestCoalescer();
+
+    /** Leading requests' fan-out events by {@link RequestParams#getFingerprint()}. */
+    private final Map<Long, FanOutEvent> mInFlight = new ArrayMap<>();
+    private final AtomicLong mAbsorbed = new AtomicLong();
+
+    @VisibleForTesting
+    RequestCoalescer() {}
+
+    public static RequestCoalescer getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * @return Number of requests that joined an identical request instead of being sent
+     */
+    public long getAbsorbedCount() {
+        return mAbsorbed.get();
+    }
+
+    /**
+     * Join an identical in-flight request, or lead a new one.
+     *
+     * @param params    Request parameters
+     * @param event     Event filter that handles the request's {@link Nanny#AUTHORIZATION_SERVICE} response
+     * @param successor Sends the request if it joins and is later promoted to lead
+     * @return The event filter the leading request should use in place of {@code event}, or {@code null} if the
+     * request joined one already in flight and must not be sent
+     */
+    @Nullable
+    synchronized Event coalesce(RequestParams params, Event event, Successor successor) {
+        Long key = params.getFingerprint();
+        if (key == 0) { // No fingerprint, no way to tell if another request is identical
+            return new FanOutEvent(key, params, event);
+        }
+        FanOutEvent inFlight = mInFlight.get(key);
+        if (inFlight != null && inFlight.mParams.equals(params)) {
+            inFlight.mEvents.add(event);
+            inFlight.mSuccessors.put(event, successor);
+            mAbsorbed.incrementAndGet();
+            return null;
+        }
+        FanOutEvent lead = new FanOutEvent(key, params, event);
+        if (inFlight == null) { // A colliding fingerprint keeps its slot; this request simply goes uncoalesced
+            mInFlight.put(key, lead);
+        }
+        return lead;
+    }
+
+    /**
+     * Stop handing responses to {@code event}, which {@link #coalesce} was given or returned for {@code params}. If it
+     * was returned, the leader is leaving and the first request that joined it is promoted.
+     */
+    void leave(RequestParams params, Event event) {
+        Event joined;
+        Successor successor;
+        synchronized (this) {
+            Long key = params.getFingerprint();
+            FanOutEvent inFlight = mInFlight.get(key);
+            if (inFlight == null) {
+                return;
+            }
+            if (inFlight != event) {
+                inFlight.mEvents.remove(event);
+                inFlight.mSuccessors.remove(event);
+                return;
+            }
+            inFlight.mEvents.remove(0); // The leader's own event
+            if (inFlight.mEvents.isEmpty()) {
+                mInFlight.remove(key);
+                return;
+            }
+            joined = inFlight.mEvents.get(0);
+            successor = inFlight.mSuccessors.remove(joined);
+        }
+        successor.lead(event);
+    }
+
+    @VisibleForTesting
+    synchronized void clear() {
+        mInFlight.clear();
+    }
+
+    private synchronized List<Event> finish(FanOutEvent lead) {
+        if (mInFlight.get(lead.mKey) == lead) {
+            mInFlight.remove(lead.mKey);
+        }
+        List<Event> events = new ArrayList<>(lead.mEvents);
+        lead.mEvents.clear();
+        lead.mSuccessors.clear();
+        return events;
+    }
+
+    /**
+     * Event filter of a leading request: hands its response to the leader and every request that joined it.
+     */
+    private class FanOutEvent implements Event {
+
+        /** Fingerprint the leader was registered under. */
+        private final Long mKey;
+        private final RequestParams mParams;
+        /** The leader's event, then those of the requests that joined it, in order. */
+        private final List<Event> mEvents = new ArrayList<>(2);
+        private final Map<Event, Successor> mSuccessors = new ArrayMap<>();
+
+        FanOutEvent(Long key, RequestParams params, Event lead) {
+            mKey = key;
+            mParams = params;
+            mEvents.add(lead);
+        }
+
+        @Override
+        public String filter() {
+            return Nanny.AUTHORIZATION_SERVICE;
+        }
+
+        @Override
+        public void process(Context context, Intent intent) {
+            List<Event> events = finish(this);
+            for (int i = 0; i < events.size(); i++) {
+                events.get(i).process(context, i == 0 ? intent : new Intent(intent));
+            }
+        }
+    }
+}
@@ -9,16 +9,69 @@ import android.net.wifi.WifiConfiguration;
 import android.os.Bundle;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.support.annotation.IntDef;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 /**
- *
+ * Parameters of a {@link PermissionRequest}. Each opcode populates a handful of the generic slots below.
+ * <p>
+ * Two parcel encodings exist. {@link #ENCODING_LEGACY} writes every slot in declaration order; it is what PPP/0.1
+ * clients and servers expect. {@link #ENCODING_COMPACT} writes a header, a field-presence bitmask and then only the
+ * populated slots, with the opcode sent as its {@link OpCodes} ID; it requires a PPP/0.2 server. The decoder accepts
+ * both.
  */
 public class RequestParams implements Parcelable {
 
+    /** Parcel encoding: all 28 slots, in declaration order. */
+    public static final int ENCODING_LEGACY = 1;
+    /** Parcel encoding: header, field-presence bitmask, populated slots only. */
+    public static final int ENCODING_COMPACT = 2;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({ENCODING_LEGACY, ENCODING_COMPACT})
+    public @interface Encoding {}
+
+    /**
+     * Leading int of a compact parcel. A legacy parcel starts with the length of {@link #opCode}, which is never less
+     * than -1, so the two layouts cannot be confused.
+     */
+    private static final int COMPACT_HEADER = -0x50500002;
+
+    private static final int F_OP_CODE = 1;
+    private static final int F_BOOLEAN_0 = 1 << 1;
+    private static final int F_BYTE_ARRAY_0 = 1 << 2;
+    private static final int F_DOUBLE_0 = 1 << 3;
+    private static final int F_DOUBLE_1 = 1 << 4;
+    private static final int F_FLOAT_0 = 1 << 5;
+    private static final int F_INT_0 = 1 << 6;
+    private static final int F_LONG_0 = 1 << 7;
+    private static final int F_ACCOUNT_0 = 1 << 8;
+    private static final int F_PENDING_INTENTS_0 = 1 << 9;
+    private static final int F_PENDING_INTENTS_1 = 1 << 10;
+    private static final int F_STRINGS_0 = 1 << 11;
+    private static final int F_BUNDLE_0 = 1 << 12;
+    private static final int F_BUNDLE_1 = 1 << 13;
+    private static final int F_CONTENT_VALUES_0 = 1 << 14;
+    private static final int F_CRITERIA_0 = 1 << 15;
+    private static final int F_INET_ADDRESS_0 = 1 << 16;
+    private static final int F_LIST_OF_STRINGS_0 = 1 << 17;
+    private static final int F_LIST_OF_STRINGS_1 = 1 << 18;
+    private static final int F_PENDING_INTENT_0 = 1 << 19;
+    private static final int F_PENDING_INTENT_1 = 1 << 20;
+    private static final int F_STRING_0 = 1 << 21;
+    private static final int F_STRING_1 = 1 << 22;
+    private static final int F_STRING_2 = 1 << 23;
+    private static final int F_STRING_ARRAY_0 = 1 << 24;
+    private static final int F_STRING_ARRAY_1 = 1 << 25;
+    private static final int F_URI_0 = 1 << 26;
+    private static final int F_WIFI_CONFIGURATION_0 = 1 << 27;
+    private static final int F_OP_CODE_ID = 1 << 28;
+
     public String opCode;
     public boolean boolean0;
     public byte[] byteArray0;
@@ -48,8 +101,105 @@ public class RequestParams implements Parcelable {
     public Uri uri0;
     public WifiConfiguration wifiConfiguration0;
 
+    /** Cached {@link OpCodes} ID of {@link #opCode}. */
+    private transient int opCodeId;
+    /** Encoding used by {@link #writeToParcel(Parcel, int)}. */
+    private transient int encoding = ENCODING_COMPACT;
+
     public RequestParams() {}
 
+    /**
+     * @return {@link OpCodes} ID of {@link #opCode}, or {@link OpCodes#UNKNOWN}
+     */
+    public int getOpCodeId() {
+        if (OpCodes.nameOf(opCodeId) != opCode) { // opCode changed or was never resolved? Look it up again
+            opCodeId = OpCodes.idOf(opCode);
+        }
+        return opCodeId;
+    }
+
+    /**
+     * Canonical 64-bit hash of the request's semantic fields. The value depends only on field contents, so client and
+     * server compute the same fingerprint for the same request. Use it as a key for deduplication, result caching and
+     * retransmits.
+     * <p>
+     * PendingIntents are left out because they identify the caller, not the request. Pair the fingerprint with the
+     * sender identity when keying per client.
+     * <p>
+     * The fields are public and may hold mutable objects, so the fingerprint is computed from their current contents
+     * on every call rather than memoized. Keep the value instead of calling this repeatedly, and do not change the
+     * fields of a request once it has been sent: the keys it was cached or coalesced under would no longer match.
+     * <p>
+     * Requests carrying a Bundle or ContentValues value that cannot be hashed by content, such as an arbitrary
+     * Parcelable, have no fingerprint, and must not be deduplicated or cached.
+     *
+     * @return Non-zero fingerprint, or 0 if the request has none
+     */
+    public long getFingerprint() {
+        Fingerprint f = computeFingerprint();
+        return !f.isComplete() ? 0 : f.get() != 0 ? f.get() : 1;
+    }
+
+    private Fingerprint computeFingerprint() {
+        Fingerprint f = new Fingerprint()
+                .put(opCode)
+                .put(boolean0)
+                .put(byteArray0)
+                .put(double0)
+                .put(double1)
+                .put(float0)
+                .put(int0)
+                .put(long0)
+                .put(account0 != null);
+        if (account0 != null) {
+            f.put(account0.name).put(account0.type);
+        }
+        f.put(arrayListOfStrings0)
+                .put(bundle0)
+                .put(bundle1)
+                .put(contentValues0)
+                .put(criteria0 != null);
+        if (criteria0 != null) {
+            f.put(criteria0.getAccuracy())
+                    .put(criteria0.getHorizontalAccuracy())
+                    .put(criteria0.getVerticalAccuracy())
+                    .put(criteria0.getSpeedAccuracy())
+                    .put(criteria0.getBearingAccuracy())
+                    .put(criteria0.getPowerRequirement())
+                    .put(criteria0.isAltitudeRequired())
+                    .put(criteria0.isSpeedRequired())
+                    .put(criteria0.isBearingRequired())
+                    .put(criteria0.isCostAllowed());
+        }
+        f.put(inetAddress0 != null ? inetAddress0.getAddress() : null)
+                .put(listOfStrings0)
+                .put(listOfStrings1)
+                .put(string0)
+                .put(string1)
+                .put(string2)
+                .put(stringArray0)
+                .put(stringArray1)
+                .put(uri0 != null ? uri0.toString() : null)
+                .put(wifiConfiguration0 != null);
+        if (wifiConfiguration0 != null) {
+            f.put(wifiConfiguration0.networkId)
+                    .put(wifiConfiguration0.SSID)
+                    .put(wifiConfiguration0.BSSID)
+                    .put(wifiConfiguration0.preSharedKey)
+                    .put(wifiConfiguration0.hiddenSSID)
+                    .put(wifiConfiguration0.priority);
+        }
+        return f;
+    }
+
+    /**
+     * Set the encoding {@link #writeToParcel(Parcel, int)} will use. Clients pick one based on the protocol version the
+     * server supports.
+     */
+    void setEncoding(@Encoding int encoding) {
+        this.encoding = encoding;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -143,6 +293,25 @@ public class RequestParams implements Parcelable {
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
+        writeToParcel(dest, flags, encoding);
+    }
+
+    /**
+     * Flatten this object into a Parcel using the given encoding.
+     *
+     * @param dest     The Parcel in which the object should be written
+     * @param flags    Additional flags about how the object should be written
+     * @param encoding {@link #ENCODING_COMPACT} or {@link #ENCODING_LEGACY}
+     */
+    public void writeToParcel(Parcel dest, int flags, @Encoding int encoding) {
+        if (encoding == ENCODING_LEGACY) {
+            writeLegacy(dest);
+        } else {
+            writeCompact(dest);
+        }
+    }
+
+    private void writeLegacy(Parcel dest) {
         dest.writeString(this.opCode);
         dest.writeByte(boolean0 ? (byte) 1 : (byte) 0);
         dest.writeByteArray(this.byteArray0);
@@ -173,8 +342,88 @@ public class RequestParams implements Parcelable {
         dest.writeParcelable(this.wifiConfiguration0, 0);
     }
 
+    private void writeCompact(Parcel dest) {
+        int mask = presenceMask();
+        dest.writeInt(COMPACT_HEADER);
+        dest.writeInt(mask);
+        if ((mask & F_OP_CODE) != 0) dest.writeString(opCode);
+        if ((mask & F_OP_CODE_ID) != 0) dest.writeInt(opCodeId);
+        if ((mask & F_BYTE_ARRAY_0) != 0) dest.writeByteArray(byteArray0);
+        if ((mask & F_DOUBLE_0) != 0) dest.writeDouble(double0);
+        if ((mask & F_DOUBLE_1) != 0) dest.writeDouble(double1);
+        if ((mask & F_FLOAT_0) != 0) dest.writeFloat(float0);
+        if ((mask & F_INT_0) != 0) dest.writeInt(int0);
+        if ((mask & F_LONG_0) != 0) dest.writeLong(long0);
+        if ((mask & F_ACCOUNT_0) != 0) account0.writeToParcel(dest, 0);
+        if ((mask & F_PENDING_INTENTS_0) != 0) dest.writeTypedList(arrayListOfPendingIntents0);
+        if ((mask & F_PENDING_INTENTS_1) != 0) dest.writeTypedList(arrayListOfPendingIntents1);
+        if ((mask & F_STRINGS_0) != 0) dest.writeStringList(arrayListOfStrings0);
+        if ((mask & F_BUNDLE_0) != 0) dest.writeBundle(bundle0);
+        if ((mask & F_BUNDLE_1) != 0) dest.writeBundle(bundle1);
+        if ((mask & F_CONTENT_VALUES_0) != 0) contentValues0.writeToParcel(dest, 0);
+        if ((mask & F_CRITERIA_0) != 0) criteria0.writeToParcel(dest, 0);
+        if ((mask & F_INET_ADDRESS_0) != 0) dest.writeSerializable(inetAddress0);
+        if ((mask & F_LIST_OF_STRINGS_0) != 0) dest.writeStringList(listOfStrings0);
+        if ((mask & F_LIST_OF_STRINGS_1) != 0) dest.writeStringList(listOfStrings1);
+        if ((mask & F_PENDING_INTENT_0) != 0) pendingIntent0.writeToParcel(dest, 0);
+        if ((mask & F_PENDING_INTENT_1) != 0) pendingIntent1.writeToParcel(dest, 0);
+        if ((mask & F_STRING_0) != 0) dest.writeString(string0);
+        if ((mask & F_STRING_1) != 0) dest.writeString(string1);
+        if ((mask & F_STRING_2) != 0) dest.writeString(string2);
+        if ((mask & F_STRING_ARRAY_0) != 0) dest.writeStringArray(stringArray0);
+        if ((mask & F_STRING_ARRAY_1) != 0) dest.writeStringArray(stringArray1);
+        if ((mask & F_URI_0) != 0) Uri.writeToParcel(dest, uri0);
+        if ((mask & F_WIFI_CONFIGURATION_0) != 0) dest.writeParcelable(wifiConfiguration0, 0);
+    }
+
+    /**
+     * @return Bitmask of the fields that hold non-default values. {@link #boolean0} is stored in the mask itself.
+     */
+    private int presenceMask() {
+        int mask = 0;
+        if (opCode != null) mask |= getOpCodeId() != OpCodes.UNKNOWN ? F_OP_CODE_ID : F_OP_CODE;
+        if (boolean0) mask |= F_BOOLEAN_0;
+        if (byteArray0 != null) mask |= F_BYTE_ARRAY_0;
+        if (Double.doubleToRawLongBits(double0) != 0) mask |= F_DOUBLE_0;
+        if (Double.doubleToRawLongBits(double1) != 0) mask |= F_DOUBLE_1;
+        if (Float.floatToRawIntBits(float0) != 0) mask |= F_FLOAT_0;
+        if (int0 != 0) mask |= F_INT_0;
+        if (long0 != 0) mask |= F_LONG_0;
+        if (account0 != null) mask |= F_ACCOUNT_0;
+        if (arrayListOfPendingIntents0 != null) mask |= F_PENDING_INTENTS_0;
+        if (arrayListOfPendingIntents1 != null) mask |= F_PENDING_INTENTS_1;
+        if (arrayListOfStrings0 != null) mask |= F_STRINGS_0;
+        if (bundle0 != null) mask |= F_BUNDLE_0;
+        if (bundle1 != null) mask |= F_BUNDLE_1;
+        if (contentValues0 != null) mask |= F_CONTENT_VALUES_0;
+        if (criteria0 != null) mask |= F_CRITERIA_0;
+        if (inetAddress0 != null) mask |= F_INET_ADDRESS_0;
+        if (listOfStrings0 != null) mask |= F_LIST_OF_STRINGS_0;
+        if (listOfStrings1 != null) mask |= F_LIST_OF_STRINGS_1;
+        if (pendingIntent0 != null) mask |= F_PENDING_INTENT_0;
+        if (pendingIntent1 != null) mask |= F_PENDING_INTENT_1;
+        if (string0 != null) mask |= F_STRING_0;
+        if (string1 != null) mask |= F_STRING_1;
+        if (string2 != null) mask |= F_STRING_2;
+        if (stringArray0 != null) mask |= F_STRING_ARRAY_0;
+        if (stringArray1 != null) mask |= F_STRING_ARRAY_1;
+        if (uri0 != null) mask |= F_URI_0;
+        if (wifiConfiguration0 != null) mask |= F_WIFI_CONFIGURATION_0;
+        return mask;
+    }
+
     protected RequestParams(Parcel in) {
-        this.opCode = in.readString();
+        int start = in.dataPosition();
+        if (in.readInt() == COMPACT_HEADER) {
+            readCompact(in);
+        } else { // PPP/0.1 client? Rewind and read every field
+            in.setDataPosition(start);
+            readLegacy(in);
+        }
+    }
+
+    private void readLegacy(Parcel in) {
+        this.opCode = internOpCode(in.readString());
         this.boolean0 = in.readByte() != 0;
         this.byteArray0 = in.createByteArray();
         this.double0 = in.readDouble();
@@ -204,6 +453,56 @@ public class RequestParams implements Parcelable {
         this.wifiConfiguration0 = in.readParcelable(WifiConfiguration.class.getClassLoader());
     }
 
+    private void readCompact(Parcel in) {
+        int mask = in.readInt();
+        if ((mask & F_OP_CODE) != 0) opCode = internOpCode(in.readString());
+        if ((mask & F_OP_CODE_ID) != 0) {
+            opCodeId = in.readInt();
+            opCode = OpCodes.nameOf(opCodeId);
+        }
+        boolean0 = (mask & F_BOOLEAN_0) != 0;
+        if ((mask & F_BYTE_ARRAY_0) != 0) byteArray0 = in.createByteArray();
+        if ((mask & F_DOUBLE_0) != 0) double0 = in.readDouble();
+        if ((mask & F_DOUBLE_1) != 0) double1 = in.readDouble();
+        if ((mask & F_FLOAT_0) != 0) float0 = in.readFloat();
+        if ((mask & F_INT_0) != 0) int0 = in.readInt();
+        if ((mask & F_LONG_0) != 0) long0 = in.readLong();
+        if ((mask & F_ACCOUNT_0) != 0) account0 = Account.CREATOR.createFromParcel(in);
+        if ((mask & F_PENDING_INTENTS_0) != 0) {
+            arrayListOfPendingIntents0 = in.createTypedArrayList(PendingIntent.CREATOR);
+        }
+        if ((mask & F_PENDING_INTENTS_1) != 0) {
+            arrayListOfPendingIntents1 = in.createTypedArrayList(PendingIntent.CREATOR);
+        }
+        if ((mask & F_STRINGS_0) != 0) arrayListOfStrings0 = in.createStringArrayList();
+        if ((mask & F_BUNDLE_0) != 0) bundle0 = in.readBundle(getClass().getClassLoader());
+        if ((mask & F_BUNDLE_1) != 0) bundle1 = in.readBundle(getClass().getClassLoader());
+        if ((mask & F_CONTENT_VALUES_0) != 0) contentValues0 = ContentValues.CREATOR.createFromParcel(in);
+        if ((mask & F_CRITERIA_0) != 0) criteria0 = Criteria.CREATOR.createFromParcel(in);
+        if ((mask & F_INET_ADDRESS_0) != 0) inetAddress0 = (InetAddress) in.readSerializable();
+        if ((mask & F_LIST_OF_STRINGS_0) != 0) listOfStrings0 = in.createStringArrayList();
+        if ((mask & F_LIST_OF_STRINGS_1) != 0) listOfStrings1 = in.createStringArrayList();
+        if ((mask & F_PENDING_INTENT_0) != 0) pendingIntent0 = PendingIntent.CREATOR.createFromParcel(in);
+        if ((mask & F_PENDING_INTENT_1) != 0) pendingIntent1 = PendingIntent.CREATOR.createFromParcel(in);
+        if ((mask & F_STRING_0) != 0) string0 = in.readString();
+        if ((mask & F_STRING_1) != 0) string1 = in.readString();
+        if ((mask & F_STRING_2) != 0) string2 = in.readString();
+        if ((mask & F_STRING_ARRAY_0) != 0) stringArray0 = in.createStringArray();
+        if ((mask & F_STRING_ARRAY_1) != 0) stringArray1 = in.createStringArray();
+        if ((mask & F_URI_0) != 0) uri0 = Uri.CREATOR.createFromParcel(in);
+        if ((mask & F_WIFI_CONFIGURATION_0) != 0) {
+            wifiConfiguration0 = in.readParcelable(WifiConfiguration.class.getClassLoader());
+        }
+    }
+
+    /**
+     * Swap a decoded opcode for the matching constant so that {@link #getOpCodeId()} can compare references.
+     */
+    private String internOpCode(String opCode) {
+        opCodeId = OpCodes.idOf(opCode);
+        return opCodeId != OpCodes.UNKNOWN ? OpCodes.nameOf(opCodeId) : opCode;
+    }
+
     public static final Creator<RequestParams> CREATOR = new Creator<RequestParams>() {
         public RequestParams createFromParcel(Parcel source) {return new RequestParams(source);}
 
@@ -0,0 +1,228 @@
+package com.permissionnanny.lib.request;
+
+import android.accounts.AccountManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.wifi.WifiManager;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.ArrayMap;
+import android.support.v4.util.LruCache;
+import com.permissionnanny.lib.Event;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.request.simple.AccountRequest;
+import com.permissionnanny.lib.request.simple.WifiRequest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in cache of successful responses to read-only requests, keyed by {@link RequestParams#getFingerprint()}.
+ * <p/>
+ * Only opcodes given a TTL via {@link #ttl(String, long)} are cached, and only {@link OpCodes#isReadOnly(String)}
+ * opcodes accept one. Entries
+ * expire after their opcode's TTL, the least recently used entries are evicted past the size bound, and system
+ * broadcasts that signal a change - such as {@link WifiManager#WIFI_STATE_CHANGED_ACTION} - drop the affected opcodes.
+ * <pre>
+ * <code>
+ *  ResponseCache.install(context, new ResponseCache(32)
+ *          .ttl(WifiRequest.GET_WIFI_STATE, 5000)
+ *          .ttl(TelephonyRequest.GET_DEVICE_ID, 60 * 60 * 1000));
+ * </code>
+ * </pre>
+ * Once installed, {@link PermissionRequest#startRequest(Context, String)} answers cache hits without contacting
+ * Permission Nanny. Hit responses are delivered synchronously.
+ */
+public class ResponseCache {
+
+    /** System broadcasts and the opcodes whose responses they make stale. */
+    private static final Map<String, List<String>> INVALIDATED_BY = new ArrayMap<>();
+
+    static {
+        List<String> wifi = Arrays.asList(WifiRequest.GET_CONFIGURED_NETWORKS, WifiRequest.GET_CONNECTION_INFO,
+                WifiRequest.GET_DHCP_INFO, WifiRequest.GET_WIFI_STATE, WifiRequest.IS_WIFI_ENABLED);
+        INVALIDATED_BY.put(WifiManager.WIFI_STATE_CHANGED_ACTION, wifi);
+        INVALIDATED_BY.put(WifiManager.NETWORK_STATE_CHANGED_ACTION, wifi);
+        INVALIDATED_BY.put(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION,
+                Collections.singletonList(WifiRequest.GET_SCAN_RESULTS));
+        INVALIDATED_BY.put(AccountManager.LOGIN_ACCOUNTS_CHANGED_ACTION,
+                Arrays.asList(AccountRequest.GET_ACCOUNTS, AccountRequest.GET_ACCOUNTS_BY_TYPE));
+    }
+
+    @Nullable private static ResponseCache sInstalled;
+
+    private final LruCache<Long, Entry> mEntries;
+    private final Map<String, Long> mTtls = new ArrayMap<>();
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+    private final BroadcastReceiver mInvalidator = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            List<String> opCodes = INVALIDATED_BY.get(intent.getAction());
+            if (opCodes != null) {
+                invalidate(opCodes);
+            }
+        }
+    };
+
+    /**
+     * @param maxEntries Maximum number of responses kept
+     */
+    public ResponseCache(int maxEntries) {
+        mEntries = new LruCache<>(maxEntries);
+    }
+
+    /**
+     * Cache responses for {@code opCode} for {@code ttlMs} milliseconds.
+     *
+     * @return itself
+     * @throws IllegalArgumentException if {@code opCode} is not read-only
+     */
+    public synchronized ResponseCache ttl(@NonNull String opCode, long ttlMs) {
+        if (!OpCodes.isReadOnly(opCode)) {
+            throw new IllegalArgumentException(opCode + " is not a read-only operation.");
+        }
+        mTtls.put(opCode, ttlMs);
+        return this;
+    }
+
+    /**
+     * Answer read-only requests from {@code cache}, replacing any cache installed before.
+     *
+     * @param context Activity, Service, etc.
+     * @param cache   Response cache
+     */
+    public static synchronized void install(@NonNull Context context, @NonNull ResponseCache cache) {
+        uninstall(context);
+        IntentFilter filter = new IntentFilter();
+        for (String action : INVALIDATED_BY.keySet()) {
+            filter.addAction(action);
+        }
+        Context app = context.getApplicationContext();
+        (app != null ? app : context).registerReceiver(cache.mInvalidator, filter);
+        sInstalled = cache;
+    }
+
+    /**
+     * Stop answering requests from the installed cache, if any.
+     *
+     * @param context Activity, Service, etc.
+     */
+    public static synchronized void uninstall(@NonNull Context context) {
+        if (sInstalled != null) {
+            Context app = context.getApplicationContext();
+            (app != null ? app : context).unregisterReceiver(sInstalled.mInvalidator);
+            sInstalled = null;
+        }
+    }
+
+    @Nullable
+    static synchronized ResponseCache getInstalled() {
+        return sInstalled;
+    }
+
+    public long getHitCount() {
+        return mHits.get();
+    }
+
+    public long getMissCount() {
+        return mMisses.get();
+    }
+
+    /**
+     * Drop every cached response.
+     */
+    public void clear() {
+        mEntries.evictAll();
+    }
+
+    synchronized boolean isCacheable(RequestParams params) {
+        return mTtls.containsKey(params.opCode) && params.getFingerprint() != 0;
+    }
+
+    /**
+     * @return a copy of the cached response to {@code params}, or {@code null} if there is none or it expired
+     */
+    @Nullable
+    Bundle get(RequestParams params) {
+        Long key = params.getFingerprint();
+        Entry entry = mEntries.get(key);
+        if (entry != null && entry.opCode.equals(params.opCode) && SystemClock.elapsedRealtime() < entry.expiry) {
+            mHits.incrementAndGet();
+            return new Bundle(entry.response);
+        }
+        if (entry != null) {
+            mEntries.remove(key);
+        }
+        mMisses.incrementAndGet();
+        return null;
+    }
+
+    void put(RequestParams params, Bundle response) {
+        Long ttl;
+        synchronized (this) {
+            ttl = mTtls.get(params.opCode);
+        }
+        if (ttl == null || response.getInt(Nanny.STATUS_CODE) != Nanny.SC_OK) {
+            return;
+        }
+        long key = params.getFingerprint();
+        if (key != 0) {
+            long expiry = SystemClock.elapsedRealtime() + ttl;
+            mEntries.put(key, new Entry(params.opCode, new Bundle(response), expiry));
+        }
+    }
+
+    void invalidate(List<String> opCodes) {
+        for (Map.Entry<Long, Entry> entry : mEntries.snapshot().entrySet()) {
+            if (opCodes.contains(entry.getValue().opCode)) {
+                mEntries.remove(entry.getKey());
+            }
+        }
+    }
+
+    private static class Entry {
+        final String opCode;
+        final Bundle response;
+        final long expiry;
+
+        Entry(String opCode, Bundle response, long expiry) {
+            this.opCode = opCode;
+            this.response = response;
+            this.expiry = expiry;
+        }
+    }
+
+    /**
+     * Event filter that stores the {@link Nanny#AUTHORIZATION_SERVICE} response before handing it on.
+     */
+    static class CachingEvent implements Event {
+
+        private final ResponseCache mCache;
+        private final RequestParams mParams;
+        private final Event mDelegate;
+
+        CachingEvent(ResponseCache cache, RequestParams params, Event delegate) {
+            mCache = cache;
+            mParams = params;
+            mDelegate = delegate;
+        }
+
+        @Override
+        public String filter() {
+            return Nanny.AUTHORIZATION_SERVICE;
+        }
+
+        @Override
+        public void process(Context context, Intent intent) {
+            mCache.put(mParams, intent.getExtras());
+            mDelegate.process(context, intent);
+        }
+    }
+}
@@ -8,31 +8,41 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.Looper;
 import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 import com.permissionnanny.lib.Err;
-import com.permissionnanny.lib.Event;
 import com.permissionnanny.lib.NannyBundle;
 import com.permissionnanny.lib.PPP;
+import com.permissionnanny.lib.request.DecodingEvent;
+import com.permissionnanny.lib.request.NannyExecutors;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import timber.log.Timber;
 
 /**
  *
  */
-public class AccountManagerEvent<T> implements Event {
+public class AccountManagerEvent<T> extends DecodingEvent {
 
     @PPP public static final String FILTER = "AccountManagerEvent";
 
     @PPP public static final String CALLBACK = "callback";
 
-    private Handler mHandler;
     private AccountManagerCallback<T> mCallback;
     private Class mType;
 
     public AccountManagerEvent(AccountManagerCallback<T> callback, @Nullable Handler handler, Class<T> type) {
-        mHandler = handler != null ? handler : new Handler(Looper.getMainLooper());
+        this(callback, NannyExecutors.of(handler), type);
+    }
+
+    public AccountManagerEvent(AccountManagerCallback<T> callback, Executor executor, Class<T> type) {
+        this(callback, NannyExecutors.decoder(), executor, type);
+    }
+
+    @VisibleForTesting
+    AccountManagerEvent(AccountManagerCallback<T> callback, Executor decoder, Executor delivery, Class<T> type) {
+        super(decoder, delivery);
         mCallback = callback;
         mType = type;
     }
@@ -43,14 +53,15 @@ public class AccountManagerEvent<T> implements Event {
     }
 
     @Override
-    public void process(Context context, Intent intent) {
+    protected Runnable decode(Context context, Intent intent) {
         final Bundle entity = new NannyBundle(intent).getEntityBody();
         if (entity == null) {
             Timber.wtf(Err.NO_ENTITY);
-            return;
+            return null;
         }
+        entity.size(); // Unparcel here rather than on the delivery thread
 
-        mHandler.post(new Runnable() {
+        return new Runnable() {
             @Override
             public void run() {
                 mCallback.run(new AccountManagerFuture<T>() {
@@ -86,6 +97,6 @@ public class AccountManagerEvent<T> implements Event {
                     }
                 });
             }
-        });
+        };
     }
 }
@@ -7,37 +7,57 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.support.annotation.Nullable;
 import com.permissionnanny.lib.PPP;
+import com.permissionnanny.lib.request.Params;
 import com.permissionnanny.lib.request.RequestParams;
+import java.util.concurrent.Executor;
 
 public class AccountRequest extends SimpleRequest {
 
     //    @PPP public static final String ADD_ACCOUNT = "addAccount";
-    @PPP public static final String ADD_ACCOUNT_EXPLICITLY = "addAccountExplicitly";
-    @PPP public static final String ADD_ON_ACCOUNTS_UPDATED_LISTENER = "addOnAccountsUpdatedListener";
-    @PPP public static final String BLOCKING_GET_AUTH_TOKEN = "blockingGetAuthToken";
-    @PPP public static final String CLEAR_PASSWORD = "clearPassword";
+    @PPP @Params({"account:account0", "password:string0", "userdata:bundle0"})
+    public static final String ADD_ACCOUNT_EXPLICITLY = "addAccountExplicitly";
+    @PPP @Params({"updateImmediately:boolean0"})
+    public static final String ADD_ON_ACCOUNTS_UPDATED_LISTENER = "addOnAccountsUpdatedListener";
+    @PPP @Params({"account:account0", "authTokenType:string0", "notifyAuthFailure:boolean0"})
+    public static final String BLOCKING_GET_AUTH_TOKEN = "blockingGetAuthToken";
+    @PPP @Params({"account:account0"})
+    public static final String CLEAR_PASSWORD = "clearPassword";
     //    @PPP public static final String CONFIRM_CREDENTIALS = "confirmCredentials";
     //    @PPP public static final String EDIT_PROPERTIES = "editProperties";
     @PPP public static final String GET_ACCOUNTS = "getAccounts";
-    @PPP public static final String GET_ACCOUNTS_BY_TYPE = "getAccountsByType";
-    @PPP
+    @PPP @Params({"type:string0"})
+    public static final String GET_ACCOUNTS_BY_TYPE = "getAccountsByType";
+    @PPP @Params({"type:string0", "features:stringArray0"})
     public static final String GET_ACCOUNTS_BY_TYPE_AND_FEATURES = "getAccountsByTypeAndFeatures";
     //    @PPP public static final String GET_AUTH_TOKEN_BY_FEATURES = "getAuthTokenByFeatures";
     //    @PPP public static final String GET_AUTH_TOKEN = "getAuthToken";
-    @PPP public static final String GET_AUTH_TOKEN1 = "getAuthToken1";
-    @PPP public static final String GET_AUTH_TOKEN2 = "getAuthToken2";
-    @PPP public static final String GET_PASSWORD = "getPassword";
-    @PPP public static final String GET_USER_DATA = "getUserData";
-    @PPP public static final String HAS_FEATURES = "hasFeatures";
-    @PPP public static final String INVALIDATE_AUTH_TOKEN = "invalidateAuthToken";
-    @PPP public static final String PEEK_AUTH_TOKEN = "peekAuthToken";
-    @PPP public static final String REMOVE_ACCOUNT = "removeAccount";
+    @PPP @Params({"account:account0", "authTokenType:string0", "notifyAuthFailure:boolean0"})
+    public static final String GET_AUTH_TOKEN1 = "getAuthToken1";
+    @PPP @Params({"account:account0", "authTokenType:string0", "options:bundle0", "notifyAuthFailure:boolean0"})
+    public static final String GET_AUTH_TOKEN2 = "getAuthToken2";
+    @PPP @Params({"account:account0"})
+    public static final String GET_PASSWORD = "getPassword";
+    @PPP @Params({"account:account0", "key:string0"})
+    public static final String GET_USER_DATA = "getUserData";
+    @PPP @Params({"account:account0", "features:stringArray0"})
+    public static final String HAS_FEATURES = "hasFeatures";
+    @PPP @Params({"accountType:string0", "authToken:string1"})
+    public static final String INVALIDATE_AUTH_TOKEN = "invalidateAuthToken";
+    @PPP @Params({"account:account0", "authTokenType:string0"})
+    public static final String PEEK_AUTH_TOKEN = "peekAuthToken";
+    @PPP @Params({"account:account0"})
+    public static final String REMOVE_ACCOUNT = "removeAccount";
     //    @PPP public static final String REMOVE_ACCOUNT1 = "removeAccount1";
-    @PPP public static final String REMOVE_ACCOUNT_EXPLICITLY = "removeAccountExplicitly";
-    @PPP public static final String RENAME_ACCOUNT = "renameAccount";
-    @PPP public static final String SET_AUTH_TOKEN = "setAuthToken";
-    @PPP public static final String SET_PASSWORD = "setPassword";
-    @PPP public static final String SET_USER_DATA = "setUserData";
+    @PPP @Params({"account:account0"})
+    public static final String REMOVE_ACCOUNT_EXPLICITLY = "removeAccountExplicitly";
+    @PPP @Params({"account:account0", "newName:string0"})
+    public static final String RENAME_ACCOUNT = "renameAccount";
+    @PPP @Params({"account:account0", "authTokenType:string0", "authToken:string1"})
+    public static final String SET_AUTH_TOKEN = "setAuthToken";
+    @PPP @Params({"account:account0", "password:string0"})
+    public static final String SET_PASSWORD = "setPassword";
+    @PPP @Params({"account:account0", "key:string0", "value:string1"})
+    public static final String SET_USER_DATA = "setUserData";
 //    @PPP public static final String UPDATE_CREDENTIALS = "updateCredentials";
 
 //    public static AccountRequest addAccount(String accountType,
@@ -61,40 +81,42 @@ public class AccountRequest extends SimpleRequest {
     public static AccountRequest addAccountExplicitly(Account account,
                                                       String password,
                                                       Bundle userdata) {
-        RequestParams p = new RequestParams();
-        p.opCode = ADD_ACCOUNT_EXPLICITLY;
-        p.account0 = account;
-        p.string0 = password;
-        p.bundle0 = userdata;
+        RequestParams p = new AccountPayloads.AddAccountExplicitly(account, password, userdata).toRequestParams();
         return new AccountRequest(p);
     }
 
     public static AccountRequest addOnAccountsUpdatedListener(OnAccountsUpdateListener listener,
                                                               @Nullable Handler handler,
                                                               boolean updateImmediately) {
-        RequestParams p = new RequestParams();
-        p.opCode = ADD_ON_ACCOUNTS_UPDATED_LISTENER;
-        p.boolean0 = updateImmediately;
+        RequestParams p = new AccountPayloads.AddOnAccountsUpdatedListener(updateImmediately).toRequestParams();
         AccountRequest r = new AccountRequest(p);
         r.addFilter(new AccountsUpdateEvent(listener, handler));
         return r;
     }
 
+    /**
+     * Like {@link #addOnAccountsUpdatedListener(OnAccountsUpdateListener, Handler, boolean)}, but calls {@code
+     * listener} on {@code executor}.
+     */
+    public static AccountRequest addOnAccountsUpdatedListener(Executor executor,
+                                                              OnAccountsUpdateListener listener,
+                                                              boolean updateImmediately) {
+        RequestParams p = new AccountPayloads.AddOnAccountsUpdatedListener(updateImmediately).toRequestParams();
+        AccountRequest r = new AccountRequest(p);
+        r.addFilter(new AccountsUpdateEvent(listener, executor));
+        return r;
+    }
+
     public static AccountRequest blockingGetAuthToken(Account account,
                                                       String authTokenType,
                                                       boolean notifyAuthFailure) {
-        RequestParams p = new RequestParams();
-        p.opCode = BLOCKING_GET_AUTH_TOKEN;
-        p.account0 = account;
-        p.string0 = authTokenType;
-        p.boolean0 = notifyAuthFailure;
+        RequestParams p = new AccountPayloads.BlockingGetAuthToken(account, authTokenType,
+                notifyAuthFailure).toRequestParams();
         return new AccountRequest(p);
     }
 
     public static AccountRequest clearPassword(Account account) {
-        RequestParams p = new RequestParams();
-        p.opCode = CLEAR_PASSWORD;
-        p.account0 = account;
+        RequestParams p = new AccountPayloads.ClearPassword(account).toRequestParams();
         return new AccountRequest(p);
     }
 
@@ -129,9 +151,7 @@ public class AccountRequest extends SimpleRequest {
     }
 
     public static AccountRequest getAccountsByType(String type) {
-        RequestParams p = new RequestParams();
-        p.opCode = GET_ACCOUNTS_BY_TYPE;
-        p.string0 = type;
+        RequestParams p = new AccountPayloads.GetAccountsByType(type).toRequestParams();
         return new AccountRequest(p);
     }
 
@@ -139,10 +159,7 @@ public class AccountRequest extends SimpleRequest {
                                                               String[] features,
                                                               @Nullable AccountManagerCallback<Account[]> callback,
                                                               @Nullable Handler handler) {
-        RequestParams p = new RequestParams();
-        p.opCode = GET_ACCOUNTS_BY_TYPE_AND_FEATURES;
-        p.string0 = type;
-        p.stringArray0 = features;
+        RequestParams p = new AccountPayloads.GetAccountsByTypeAndFeatures(type, features).toRequestParams();
         AccountRequest r = new AccountRequest(p);
         if (callback != null) {
             r.addFilter(new AccountManagerEvent<>(callback, handler, Account[].class));
@@ -171,11 +188,8 @@ public class AccountRequest extends SimpleRequest {
                                               boolean notifyAuthFailure,
                                               @Nullable AccountManagerCallback<Bundle> callback,
                                               @Nullable Handler handler) {
-        RequestParams p = new RequestParams();
-        p.opCode = GET_AUTH_TOKEN1;
-        p.account0 = account;
-        p.string0 = authTokenType;
-        p.boolean0 = notifyAuthFailure;
+        RequestParams p = new AccountPayloads.GetAuthToken1(account, authTokenType,
+                notifyAuthFailure).toRequestParams();
         AccountRequest r = new AccountRequest(p);
         if (callback != null) {
             r.addFilter(new AccountManagerEvent<>(callback, handler, Bundle.class));
@@ -189,11 +203,8 @@ public class AccountRequest extends SimpleRequest {
                                               boolean notifyAuthFailure,
                                               @Nullable AccountManagerCallback<Bundle> callback,
                                               @Nullable Handler handler) {
-        RequestParams p = new RequestParams();
-        p.opCode = GET_AUTH_TOKEN2;
-        p.string0 = authTokenType;
-        p.bundle0 = options;
-        p.boolean0 = notifyAuthFailure;
+        RequestParams p = new AccountPayloads.GetAuthToken2(account, authTokenType, options,
+                notifyAuthFailure).toRequestParams();
         AccountRequest r = new AccountRequest(p);
         if (callback != null) {
             r.addFilter(new AccountManagerEvent<>(callback, handler, Bundle.class));
@@ -221,17 +232,12 @@ public class AccountRequest extends SimpleRequest {
 //    }
 
     public static AccountRequest getPassword(Account account) {
-        RequestParams p = new RequestParams();
-        p.opCode = GET_PASSWORD;
-        p.account0 = account;
+        RequestParams p = new AccountPayloads.GetPassword(account).toRequestParams();
         return new AccountRequest(p);
     }
 
     public static AccountRequest getUserData(Account account, String key) {
-        RequestParams p = new RequestParams();
-        p.opCode = GET_USER_DATA;
-        p.account0 = account;
-        p.string0 = key;
+        RequestParams p = new AccountPayloads.GetUserData(account, key).toRequestParams();
         return new AccountRequest(p);
     }
 
@@ -239,10 +245,7 @@ public class AccountRequest extends SimpleRequest {
                                              String[] features,
                                              @Nullable AccountManagerCallback<Boolean> callback,
                                              @Nullable Handler handler) {
-        RequestParams p = new RequestParams();
-        p.opCode = HAS_FEATURES;
-        p.account0 = account;
-        p.stringArray0 = features;
+        RequestParams p = new AccountPayloads.HasFeatures(account, features).toRequestParams();
         AccountRequest r = new AccountRequest(p);
         if (callback != null) {
             r.addFilter(new AccountManagerEvent<>(callback, handler, Boolean.class));
@@ -251,18 +254,12 @@ public class AccountRequest extends SimpleRequest {
     }
 
     public static AccountRequest invalidateAuthToken(String accountType, String authToken) {
-        RequestParams p = new RequestParams();
-        p.opCode = INVALIDATE_AUTH_TOKEN;
-        p.string0 = accountType;
-        p.string1 = authToken;
+        RequestParams p = new AccountPayloads.InvalidateAuthToken(accountType, authToken).toRequestParams();
         return new AccountRequest(p);
     }
 
     public static AccountRequest peekAuthToken(Account account, String authTokenType) {
-        RequestParams p = new RequestParams();
-        p.opCode = PEEK_AUTH_TOKEN;
-        p.account0 = account;
-        p.string0 = authTokenType;
+        RequestParams p = new AccountPayloads.PeekAuthToken(account, authTokenType).toRequestParams();
         return new AccountRequest(p);
     }
 
@@ -270,9 +267,7 @@ public class AccountRequest extends SimpleRequest {
     public static AccountRequest removeAccount(Account account,
                                                @Nullable AccountManagerCallback<Boolean> callback,
                                                @Nullable Handler handler) {
-        RequestParams p = new RequestParams();
-        p.opCode = REMOVE_ACCOUNT;
-        p.account0 = account;
+        RequestParams p = new AccountPayloads.RemoveAccount(account).toRequestParams();
         AccountRequest r = new AccountRequest(p);
         if (callback != null) {
             r.addFilter(new AccountManagerEvent<>(callback, handler, Boolean.class));
@@ -292,9 +287,7 @@ public class AccountRequest extends SimpleRequest {
 //    }
 
     public static AccountRequest removeAccountExplicitly(Account account) {
-        RequestParams p = new RequestParams();
-        p.opCode = REMOVE_ACCOUNT_EXPLICITLY;
-        p.account0 = account;
+        RequestParams p = new AccountPayloads.RemoveAccountExplicitly(account).toRequestParams();
         return new AccountRequest(p);
     }
 
@@ -302,10 +295,7 @@ public class AccountRequest extends SimpleRequest {
                                                String newName,
                                                @Nullable AccountManagerCallback<Account> callback,
                                                @Nullable Handler handler) {
-        RequestParams p = new RequestParams();
-        p.opCode = RENAME_ACCOUNT;
-        p.account0 = account;
-        p.string0 = newName;
+        RequestParams p = new AccountPayloads.RenameAccount(account, newName).toRequestParams();
         AccountRequest r = new AccountRequest(p);
         if (callback != null) {
             r.addFilter(new AccountManagerEvent<>(callback, handler, Account.class));
@@ -316,28 +306,17 @@ public class AccountRequest extends SimpleRequest {
     public static AccountRequest setAuthToken(Account account,
                                               String authTokenType,
                                               String authToken) {
-        RequestParams p = new RequestParams();
-        p.opCode = SET_AUTH_TOKEN;
-        p.account0 = account;
-        p.string0 = authTokenType;
-        p.string1 = authToken;
+        RequestParams p = new AccountPayloads.SetAuthToken(account, authTokenType, authToken).toRequestParams();
         return new AccountRequest(p);
     }
 
     public static AccountRequest setPassword(Account account, String password) {
-        RequestParams p = new RequestParams();
-        p.opCode = SET_PASSWORD;
-        p.account0 = account;
-        p.string0 = password;
+        RequestParams p = new AccountPayloads.SetPassword(account, password).toRequestParams();
         return new AccountRequest(p);
     }
 
     public static AccountRequest setUserData(Account account, String key, String value) {
-        RequestParams p = new RequestParams();
-        p.opCode = SET_USER_DATA;
-        p.account0 = account;
-        p.string0 = key;
-        p.string1 = value;
+        RequestParams p = new AccountPayloads.SetUserData(account, key, value).toRequestParams();
         return new AccountRequest(p);
     }
 
@@ -6,39 +6,48 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.Looper;
 import android.os.Parcelable;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import com.permissionnanny.lib.Err;
-import com.permissionnanny.lib.Event;
 import com.permissionnanny.lib.Nanny;
 import com.permissionnanny.lib.NannyBundle;
 import com.permissionnanny.lib.PPP;
 import com.permissionnanny.lib.request.Ack;
+import com.permissionnanny.lib.request.DecodingEvent;
+import com.permissionnanny.lib.request.NannyExecutors;
+import java.util.concurrent.Executor;
 import timber.log.Timber;
 
 /**
  * Event filter that handles {@link Nanny#ACCOUNTS_UPDATE_SERVICE} responses.
  */
-public class AccountsUpdateEvent implements Event {
+public class AccountsUpdateEvent extends DecodingEvent {
 
     @PPP public static final String FILTER = "AccountsUpdateEvent";
 
     @PPP public static final String ACCOUNTS = "accounts";
 
     private final OnAccountsUpdateListener mListener;
-    private final Handler mHandler;
     private final Ack mAck;
 
     public AccountsUpdateEvent(OnAccountsUpdateListener listener, @Nullable Handler handler) {
-        this(listener, handler, new Ack());
+        this(listener, NannyExecutors.of(handler));
+    }
+
+    public AccountsUpdateEvent(OnAccountsUpdateListener listener, Executor executor) {
+        this(listener, NannyExecutors.decoder(), executor, new Ack());
     }
 
     @VisibleForTesting
     public AccountsUpdateEvent(OnAccountsUpdateListener listener, @Nullable Handler handler, Ack ack) {
+        this(listener, NannyExecutors.direct(), NannyExecutors.of(handler), ack);
+    }
+
+    @VisibleForTesting
+    AccountsUpdateEvent(OnAccountsUpdateListener listener, Executor decoder, Executor delivery, Ack ack) {
+        super(decoder, delivery);
         mListener = listener;
-        mHandler = handler != null ? handler : new Handler(Looper.getMainLooper());
         mAck = ack;
     }
 
@@ -48,28 +57,28 @@ public class AccountsUpdateEvent implements Event {
     }
 
     @Override
-    public void process(Context context, Intent intent) {
+    protected Runnable decode(Context context, Intent intent) {
         mAck.sendAck(context, intent);
 
         Bundle entity = new NannyBundle(intent).getEntityBody();
         if (entity == null) {
             Timber.wtf(Err.NO_ENTITY);
-            return;
+            return null;
         }
 
-        final Parcelable[] parcels = entity.getParcelableArray(ACCOUNTS);
+        Parcelable[] parcels = entity.getParcelableArray(ACCOUNTS);
         if (parcels == null) {
             Timber.wtf(Err.NO_ACCOUNTS);
-            return;
+            return null;
         }
 
-        mHandler.post(new Runnable() {
+        final Account[] accounts = new Account[parcels.length];
+        System.arraycopy(parcels, 0, accounts, 0, parcels.length);
+        return new Runnable() {
             @Override
             public void run() {
-                Account[] accounts = new Account[parcels.length];
-                System.arraycopy(parcels, 0, accounts, 0, parcels.length);
                 mListener.onAccountsUpdated(accounts);
             }
-        });
+        };
     }
 }
@@ -6,17 +6,19 @@ import android.location.GpsStatus;
 import android.os.Bundle;
 import android.support.annotation.VisibleForTesting;
 import com.permissionnanny.lib.Err;
-import com.permissionnanny.lib.Event;
 import com.permissionnanny.lib.Nanny;
 import com.permissionnanny.lib.NannyBundle;
 import com.permissionnanny.lib.PPP;
 import com.permissionnanny.lib.request.Ack;
+import com.permissionnanny.lib.request.DecodingEvent;
+import com.permissionnanny.lib.request.NannyExecutors;
+import java.util.concurrent.Executor;
 import timber.log.Timber;
 
 /**
  * Event filter that handles {@link Nanny#GPS_STATUS_SERVICE} responses.
  */
-public class GpsStatusEvent implements Event {
+public class GpsStatusEvent extends DecodingEvent {
 
     @PPP public static final String EVENT = "event";
 
@@ -24,11 +26,21 @@ public class GpsStatusEvent implements Event {
     private final Ack mAck;
 
     public GpsStatusEvent(GpsStatus.Listener listener) {
-        this(listener, new Ack());
+        this(listener, NannyExecutors.mainThread());
+    }
+
+    public GpsStatusEvent(GpsStatus.Listener listener, Executor executor) {
+        this(listener, NannyExecutors.decoder(), executor, new Ack());
     }
 
     @VisibleForTesting
     GpsStatusEvent(GpsStatus.Listener listener, Ack ack) {
+        this(listener, NannyExecutors.direct(), NannyExecutors.direct(), ack);
+    }
+
+    @VisibleForTesting
+    GpsStatusEvent(GpsStatus.Listener listener, Executor decoder, Executor delivery, Ack ack) {
+        super(decoder, delivery);
         mListener = listener;
         mAck = ack;
     }
@@ -39,15 +51,20 @@ public class GpsStatusEvent implements Event {
     }
 
     @Override
-    public void process(Context context, Intent intent) {
+    protected Runnable decode(Context context, Intent intent) {
         mAck.sendAck(context, intent);
 
         Bundle entity = new NannyBundle(intent).getEntityBody();
         if (entity == null) {
             Timber.wtf(Err.NO_ENTITY);
-            return;
+            return null;
         }
-        int event = entity.getInt(EVENT, -1);
-        mListener.onGpsStatusChanged(event);
+        final int event = entity.getInt(EVENT, -1);
+        return new Runnable() {
+            @Override
+            public void run() {
+                mListener.onGpsStatusChanged(event);
+            }
+        };
     }
 }
@@ -8,17 +8,19 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.support.annotation.VisibleForTesting;
 import com.permissionnanny.lib.Err;
-import com.permissionnanny.lib.Event;
 import com.permissionnanny.lib.Nanny;
 import com.permissionnanny.lib.NannyBundle;
 import com.permissionnanny.lib.PPP;
 import com.permissionnanny.lib.request.Ack;
+import com.permissionnanny.lib.request.DecodingEvent;
+import com.permissionnanny.lib.request.NannyExecutors;
+import java.util.concurrent.Executor;
 import timber.log.Timber;
 
 /**
  * Event filter that handles {@link Nanny#LOCATION_SERVICE} responses.
  */
-public class LocationEvent implements Event {
+public class LocationEvent extends DecodingEvent {
 
     @PPP public static final String LOCATION = "location";
     @PPP public static final String PROVIDER = "provider";
@@ -31,17 +33,25 @@ public class LocationEvent implements Event {
     @PPP public static final String ON_STATUS_CHANGED = "onStatusChanged";
 
     private final LocationListener mLocationListener;
-    private final Handler mHandler;
     private final Ack mAck;
 
     public LocationEvent(LocationListener location, Handler handler) {
-        this(location, handler, new Ack());
+        this(location, NannyExecutors.of(handler));
+    }
+
+    public LocationEvent(LocationListener location, Executor executor) {
+        this(location, NannyExecutors.decoder(), executor, new Ack());
     }
 
     @VisibleForTesting
     LocationEvent(LocationListener locationListener, Handler handler, Ack ack) {
+        this(locationListener, NannyExecutors.direct(), NannyExecutors.of(handler), ack);
+    }
+
+    @VisibleForTesting
+    LocationEvent(LocationListener locationListener, Executor decoder, Executor delivery, Ack ack) {
+        super(decoder, delivery);
         mLocationListener = locationListener;
-        mHandler = handler;
         mAck = ack;
     }
 
@@ -51,35 +61,50 @@ public class LocationEvent implements Event {
     }
 
     @Override
-    public void process(Context context, Intent intent) {
+    protected Runnable decode(Context context, Intent intent) {
         mAck.sendAck(context, intent);
 
-        final Bundle entity = new NannyBundle(intent).getEntityBody();
+        Bundle entity = new NannyBundle(intent).getEntityBody();
         if (entity == null) {
             Timber.wtf(Err.NO_ENTITY);
-            return;
+            return null;
         }
 
-        mHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                String type = entity.getString(Nanny.TYPE);
-                if (ON_LOCATION_CHANGED.equals(type)) {
-                    Location location = entity.getParcelable(LOCATION);
+        String type = entity.getString(Nanny.TYPE);
+        if (ON_LOCATION_CHANGED.equals(type)) {
+            final Location location = entity.getParcelable(LOCATION);
+            return new Runnable() {
+                @Override
+                public void run() {
                     mLocationListener.onLocationChanged(location);
-                } else if (ON_PROVIDER_DISABLED.equals(type)) {
-                    String provider = entity.getString(PROVIDER);
+                }
+            };
+        }
+        final String provider = entity.getString(PROVIDER);
+        if (ON_PROVIDER_DISABLED.equals(type)) {
+            return new Runnable() {
+                @Override
+                public void run() {
                     mLocationListener.onProviderDisabled(provider);
-                } else if (ON_PROVIDER_ENABLED.equals(type)) {
-                    String provider = entity.getString(PROVIDER);
+                }
+            };
+        } else if (ON_PROVIDER_ENABLED.equals(type)) {
+            return new Runnable() {
+                @Override
+                public void run() {
                     mLocationListener.onProviderEnabled(provider);
-                } else if (ON_STATUS_CHANGED.equals(type)) {
-                    String provider = entity.getString(PROVIDER);
-                    int status = entity.getInt(STATUS, -1);
-                    Bundle extras = entity.getBundle(EXTRAS);
+                }
+            };
+        } else if (ON_STATUS_CHANGED.equals(type)) {
+            final int status = entity.getInt(STATUS, -1);
+            final Bundle extras = entity.getBundle(EXTRAS);
+            return new Runnable() {
+                @Override
+                public void run() {
                     mLocationListener.onStatusChanged(provider, status, extras);
                 }
-            }
-        });
+            };
+        }
+        return null;
     }
 }
@@ -1,16 +1,16 @@
 package com.permissionnanny.lib.request.simple;
 
 import android.app.PendingIntent;
-import android.content.Context;
 import android.location.Criteria;
 import android.location.GpsStatus.Listener;
 import android.location.GpsStatus.NmeaListener;
 import android.location.LocationListener;
 import android.os.Looper;
-import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import com.permissionnanny.lib.PPP;
+import com.permissionnanny.lib.request.Params;
 import com.permissionnanny.lib.request.RequestParams;
+import java.util.concurrent.Executor;
 
 /**
  * Factory that creates {@link android.location.LocationManager} requests.
@@ -19,22 +19,35 @@ public class LocationRequest extends SimpleRequest {
 
     @PPP public static final String ADD_GPS_STATUS_LISTENER = "addGpsStatusListener";
     @PPP public static final String ADD_NMEA_LISTENER = "addNmeaListener";
-    @PPP public static final String ADD_PROXIMITY_ALERT = "addProximityAlert";
-    @PPP public static final String GET_LAST_KNOWN_LOCATION = "getLastKnownLocation";
+    @PPP @Params({"latitude:double0", "longitude:double1", "radius:float0", "expiration:long0",
+            "intent:pendingIntent0"})
+    public static final String ADD_PROXIMITY_ALERT = "addProximityAlert";
+    @PPP @Params({"provider:string0"})
+    public static final String GET_LAST_KNOWN_LOCATION = "getLastKnownLocation";
     @PPP public static final String REMOVE_GPS_STATUS_LISTENER = "removeGpsStatusListener";
     @PPP public static final String REMOVE_NMEA_LISTENER = "removeNmeaListener";
-    @PPP public static final String REMOVE_PROXIMITY_ALERT = "removeProximityAlert";
-    @PPP public static final String REMOVE_UPDATES = "removeUpdates";
+    @PPP @Params({"intent:pendingIntent0"})
+    public static final String REMOVE_PROXIMITY_ALERT = "removeProximityAlert";
+    @PPP @Params({"intent:pendingIntent0"})
+    public static final String REMOVE_UPDATES = "removeUpdates";
     @PPP public static final String REMOVE_UPDATES1 = "removeUpdates1";
-    @PPP public static final String REQUEST_LOCATION_UPDATES = "requestLocationUpdates";
-    @PPP public static final String REQUEST_LOCATION_UPDATES1 = "requestLocationUpdates1";
-    @PPP public static final String REQUEST_LOCATION_UPDATES2 = "requestLocationUpdates2";
-    @PPP public static final String REQUEST_LOCATION_UPDATES3 = "requestLocationUpdates3";
+    @PPP @Params({"minTime:long0", "minDistance:float0", "criteria:criteria0", "intent:pendingIntent0"})
+    public static final String REQUEST_LOCATION_UPDATES = "requestLocationUpdates";
+    @PPP @Params({"minTime:long0", "minDistance:float0", "criteria:criteria0"})
+    public static final String REQUEST_LOCATION_UPDATES1 = "requestLocationUpdates1";
+    @PPP @Params({"provider:string0", "minTime:long0", "minDistance:float0"})
+    public static final String REQUEST_LOCATION_UPDATES2 = "requestLocationUpdates2";
+    @PPP @Params({"provider:string0", "minTime:long0", "minDistance:float0", "intent:pendingIntent0"})
+    public static final String REQUEST_LOCATION_UPDATES3 = "requestLocationUpdates3";
     @PPP public static final String REQUEST_LOCATION_UPDATES4 = "requestLocationUpdates4";
-    @PPP public static final String REQUEST_SINGLE_UPDATE = "requestSingleUpdate";
-    @PPP public static final String REQUEST_SINGLE_UPDATE1 = "requestSingleUpdate1";
-    @PPP public static final String REQUEST_SINGLE_UPDATE2 = "requestSingleUpdate2";
-    @PPP public static final String REQUEST_SINGLE_UPDATE3 = "requestSingleUpdate3";
+    @PPP @Params({"provider:string0"})
+    public static final String REQUEST_SINGLE_UPDATE = "requestSingleUpdate";
+    @PPP @Params({"criteria:criteria0"})
+    public static final String REQUEST_SINGLE_UPDATE1 = "requestSingleUpdate1";
+    @PPP @Params({"provider:string0", "intent:pendingIntent0"})
+    public static final String REQUEST_SINGLE_UPDATE2 = "requestSingleUpdate2";
+    @PPP @Params({"criteria:criteria0", "intent:pendingIntent0"})
+    public static final String REQUEST_SINGLE_UPDATE3 = "requestSingleUpdate3";
 
     public static LocationRequest addGpsStatusListener(Listener listener) {
         RequestParams p = new RequestParams();
@@ -44,6 +57,18 @@ public class LocationRequest extends SimpleRequest {
         return request;
     }
 
+    /**
+     * Like {@link #addGpsStatusListener(Listener)}, but calls {@code listener} on {@code executor} instead of the main
+     * thread.
+     */
+    public static LocationRequest addGpsStatusListener(Executor executor, Listener listener) {
+        RequestParams p = new RequestParams();
+        p.opCode = ADD_GPS_STATUS_LISTENER;
+        LocationRequest request = new LocationRequest(p);
+        request.addFilter(new GpsStatusEvent(listener, executor));
+        return request;
+    }
+
     public static LocationRequest addNmeaListener(NmeaListener listener) {
         RequestParams p = new RequestParams();
         p.opCode = ADD_NMEA_LISTENER;
@@ -52,36 +77,37 @@ public class LocationRequest extends SimpleRequest {
         return request;
     }
 
-    public static LocationRequest addProximityAlert(double latitude, double longtitude, float radius, long
-            expiration, PendingIntent intent) {
+    /**
+     * Like {@link #addNmeaListener(NmeaListener)}, but calls {@code listener} on {@code executor} instead of the main
+     * thread.
+     */
+    public static LocationRequest addNmeaListener(Executor executor, NmeaListener listener) {
         RequestParams p = new RequestParams();
-        p.opCode = ADD_PROXIMITY_ALERT;
-        p.double0 = latitude;
-        p.double1 = longtitude;
-        p.float0 = radius;
-        p.long0 = expiration;
-        p.pendingIntent0 = intent;
+        p.opCode = ADD_NMEA_LISTENER;
+        LocationRequest request = new LocationRequest(p);
+        request.addFilter(new NmeaEvent(listener, executor));
+        return request;
+    }
+
+    public static LocationRequest addProximityAlert(double latitude, double longitude, float radius, long
+            expiration, PendingIntent intent) {
+        RequestParams p = new LocationPayloads.AddProximityAlert(latitude, longitude, radius, expiration,
+                intent).toRequestParams();
         return new LocationRequest(p);
     }
 
     public static LocationRequest getLastKnownLocation(String provider) {
-        RequestParams p = new RequestParams();
-        p.opCode = GET_LAST_KNOWN_LOCATION;
-        p.string0 = provider;
+        RequestParams p = new LocationPayloads.GetLastKnownLocation(provider).toRequestParams();
         return new LocationRequest(p);
     }
 
     public static LocationRequest removeProximityAlert(PendingIntent intent) {
-        RequestParams p = new RequestParams();
-        p.opCode = REMOVE_PROXIMITY_ALERT;
-        p.pendingIntent0 = intent;
+        RequestParams p = new LocationPayloads.RemoveProximityAlert(intent).toRequestParams();
         return new LocationRequest(p);
     }
 
     public static LocationRequest removeUpdates(PendingIntent intent) {
-        RequestParams p = new RequestParams();
-        p.opCode = REMOVE_UPDATES;
-        p.pendingIntent0 = intent;
+        RequestParams p = new LocationPayloads.RemoveUpdates(intent).toRequestParams();
         return new LocationRequest(p);
     }
 
@@ -89,12 +115,8 @@ public class LocationRequest extends SimpleRequest {
                                                          float minDistance,
                                                          Criteria criteria,
                                                          PendingIntent intent) {
-        RequestParams p = new RequestParams();
-        p.opCode = REQUEST_LOCATION_UPDATES;
-        p.long0 = minTime;
-        p.float0 = minDistance;
-        p.criteria0 = criteria;
-        p.pendingIntent0 = intent;
+        RequestParams p = new LocationPayloads.RequestLocationUpdates(minTime, minDistance, criteria,
+                intent).toRequestParams();
         return new LocationRequest(p);
     }
 
@@ -103,16 +125,29 @@ public class LocationRequest extends SimpleRequest {
                                                          Criteria criteria,
                                                          LocationListener listener,
                                                          Looper looper) {
-        RequestParams p = new RequestParams();
-        p.opCode = REQUEST_LOCATION_UPDATES1;
-        p.long0 = minTime;
-        p.float0 = minDistance;
-        p.criteria0 = criteria;
+        RequestParams p = new LocationPayloads.RequestLocationUpdates1(minTime, minDistance,
+                criteria).toRequestParams();
         LocationRequest request = new LocationRequest(p);
         request.addFilter(new LocationEvent(listener, newHandler(looper)));
         return request;
     }
 
+    /**
+     * Like {@link #requestLocationUpdates(long, float, Criteria, LocationListener, Looper)}, but calls {@code
+     * listener} on {@code executor}.
+     */
+    public static LocationRequest requestLocationUpdates(long minTime,
+                                                         float minDistance,
+                                                         Criteria criteria,
+                                                         Executor executor,
+                                                         LocationListener listener) {
+        RequestParams p = new LocationPayloads.RequestLocationUpdates1(minTime, minDistance,
+                criteria).toRequestParams();
+        LocationRequest request = new LocationRequest(p);
+        request.addFilter(new LocationEvent(listener, executor));
+        return request;
+    }
+
     public static LocationRequest requestLocationUpdates(String provider,
                                                          long minTime,
                                                          float minDistance,
@@ -125,77 +160,64 @@ public class LocationRequest extends SimpleRequest {
                                                          float minDistance,
                                                          LocationListener listener,
                                                          @Nullable Looper looper) {
-        RequestParams p = new RequestParams();
-        p.opCode = REQUEST_LOCATION_UPDATES2;
-        p.string0 = provider;
-        p.long0 = minTime;
-        p.float0 = minDistance;
+        RequestParams p = new LocationPayloads.RequestLocationUpdates2(provider, minTime,
+                minDistance).toRequestParams();
         LocationRequest request = new LocationRequest(p);
         request.addFilter(new LocationEvent(listener, newHandler(looper)));
         return request;
     }
 
+    /**
+     * Like {@link #requestLocationUpdates(String, long, float, LocationListener, Looper)}, but calls {@code listener}
+     * on {@code executor}.
+     */
+    public static LocationRequest requestLocationUpdates(String provider,
+                                                         long minTime,
+                                                         float minDistance,
+                                                         Executor executor,
+                                                         LocationListener listener) {
+        RequestParams p = new LocationPayloads.RequestLocationUpdates2(provider, minTime,
+                minDistance).toRequestParams();
+        LocationRequest request = new LocationRequest(p);
+        request.addFilter(new LocationEvent(listener, executor));
+        return request;
+    }
+
     public static LocationRequest requestLocationUpdates(String provider,
                                                          long minTime,
                                                          float minDistance,
                                                          PendingIntent intent) {
-        RequestParams p = new RequestParams();
-        p.opCode = REQUEST_LOCATION_UPDATES3;
-        p.string0 = provider;
-        p.long0 = minTime;
-        p.float0 = minDistance;
-        p.pendingIntent0 = intent;
+        RequestParams p = new LocationPayloads.RequestLocationUpdates3(provider, minTime, minDistance,
+                intent).toRequestParams();
         return new LocationRequest(p);
     }
 
     public static LocationRequest requestSingleUpdate(String provider, LocationListener listener, Looper looper) {
-        RequestParams p = new RequestParams();
-        p.opCode = REQUEST_SINGLE_UPDATE;
-        p.string0 = provider;
+        RequestParams p = new LocationPayloads.RequestSingleUpdate(provider).toRequestParams();
         LocationRequest request = new LocationRequest(p);
         request.addFilter(new LocationEvent(listener, newHandler(looper)));
         return request;
     }
 
     public static LocationRequest requestSingleUpdate(Criteria criteria, LocationListener listener, Looper looper) {
-        RequestParams p = new RequestParams();
-        p.opCode = REQUEST_SINGLE_UPDATE1;
-        p.criteria0 = criteria;
+        RequestParams p = new LocationPayloads.RequestSingleUpdate1(criteria).toRequestParams();
         LocationRequest request = new LocationRequest(p);
         request.addFilter(new LocationEvent(listener, newHandler(looper)));
         return request;
     }
 
     public static LocationRequest requestSingleUpdate(String provider, PendingIntent intent) {
-        RequestParams p = new RequestParams();
-        p.opCode = REQUEST_SINGLE_UPDATE2;
-        p.string0 = provider;
-        p.pendingIntent0 = intent;
+        RequestParams p = new LocationPayloads.RequestSingleUpdate2(provider, intent).toRequestParams();
         return new LocationRequest(p);
     }
 
     public static LocationRequest requestSingleUpdate(Criteria criteria, PendingIntent intent) {
-        RequestParams p = new RequestParams();
-        p.opCode = REQUEST_SINGLE_UPDATE3;
-        p.criteria0 = criteria;
-        p.pendingIntent0 = intent;
+        RequestParams p = new LocationPayloads.RequestSingleUpdate3(criteria, intent).toRequestParams();
         return new LocationRequest(p);
     }
 
-    private Context mContext;
-
     public LocationRequest(RequestParams params) {
         super(params);
     }
-
-    @Override
-    public void startRequest(@NonNull Context context, @Nullable String rationale) {
-        mContext = context;
-        super.startRequest(context, rationale);
-    }
-
-    public void stop() {
-        stop(mContext);
-    }
 }
 
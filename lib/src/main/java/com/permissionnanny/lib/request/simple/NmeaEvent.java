@@ -6,17 +6,19 @@ import android.location.GpsStatus.NmeaListener;
 import android.os.Bundle;
 import android.support.annotation.VisibleForTesting;
 import com.permissionnanny.lib.Err;
-import com.permissionnanny.lib.Event;
 import com.permissionnanny.lib.Nanny;
 import com.permissionnanny.lib.NannyBundle;
 import com.permissionnanny.lib.PPP;
 import com.permissionnanny.lib.request.Ack;
+import com.permissionnanny.lib.request.DecodingEvent;
+import com.permissionnanny.lib.request.NannyExecutors;
+import java.util.concurrent.Executor;
 import timber.log.Timber;
 
 /**
  * Event filter that handles {@link Nanny#NMEA_SERVICE} responses.
  */
-public class NmeaEvent implements Event {
+public class NmeaEvent extends DecodingEvent {
 
     @PPP public static final String TIMESTAMP = "timestamp";
     @PPP public static final String NMEA = "nmea";
@@ -25,11 +27,21 @@ public class NmeaEvent implements Event {
     private final Ack mAck;
 
     public NmeaEvent(NmeaListener listener) {
-        this(listener, new Ack());
+        this(listener, NannyExecutors.mainThread());
+    }
+
+    public NmeaEvent(NmeaListener listener, Executor executor) {
+        this(listener, NannyExecutors.decoder(), executor, new Ack());
     }
 
     @VisibleForTesting
     NmeaEvent(NmeaListener listener, Ack ack) {
+        this(listener, NannyExecutors.direct(), NannyExecutors.direct(), ack);
+    }
+
+    @VisibleForTesting
+    NmeaEvent(NmeaListener listener, Executor decoder, Executor delivery, Ack ack) {
+        super(decoder, delivery);
         mListener = listener;
         mAck = ack;
     }
@@ -40,17 +52,22 @@ public class NmeaEvent implements Event {
     }
 
     @Override
-    public void process(Context context, Intent intent) {
+    protected Runnable decode(Context context, Intent intent) {
         mAck.sendAck(context, intent);
 
         Bundle entity = new NannyBundle(intent).getEntityBody();
         if (entity == null) {
             Timber.wtf(Err.NO_ENTITY);
-            return;
+            return null;
         }
 
-        long timestamp = entity.getLong(TIMESTAMP, -1);
-        String nmea = entity.getString(NMEA);
-        mListener.onNmeaReceived(timestamp, nmea);
+        final long timestamp = entity.getLong(TIMESTAMP, -1);
+        final String nmea = entity.getString(NMEA);
+        return new Runnable() {
+            @Override
+            public void run() {
+                mListener.onNmeaReceived(timestamp, nmea);
+            }
+        };
     }
 }
@@ -5,6 +5,10 @@ import android.os.Handler;
 import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import com.permissionnanny.lib.Event;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.request.DecodingEvent;
+import com.permissionnanny.lib.request.Overflow;
 import com.permissionnanny.lib.request.PermissionEvent;
 import com.permissionnanny.lib.request.PermissionRequest;
 import com.permissionnanny.lib.request.RequestParams;
@@ -15,6 +19,12 @@ import com.permissionnanny.lib.request.RequestParams;
  */
 public class SimpleRequest extends PermissionRequest {
 
+    /** Event filters of ongoing requests, whose listeners can fall behind. */
+    private static final String[] STREAMS = {Nanny.LOCATION_SERVICE, Nanny.NMEA_SERVICE, Nanny.GPS_STATUS_SERVICE,
+            AccountsUpdateEvent.FILTER};
+
+    private Context mContext;
+
     public SimpleRequest(RequestParams params) {
         super(params);
     }
@@ -29,6 +39,23 @@ public class SimpleRequest extends PermissionRequest {
         return (SimpleRequest) addFilter(new PermissionEvent(listener));
     }
 
+    /**
+     * Bound the events an ongoing request queues for a listener that falls behind. Read the policy's counters to see
+     * how many events it dropped or conflated. Requests without ongoing listeners ignore it.
+     *
+     * @param overflow New policy, used by no other request
+     * @return itself
+     */
+    public SimpleRequest overflow(@NonNull Overflow overflow) {
+        for (String server : STREAMS) {
+            Event event = getFilter(server);
+            if (event instanceof DecodingEvent) {
+                ((DecodingEvent) event).setOverflow(overflow);
+            }
+        }
+        return this;
+    }
+
     /**
      * Start the request.
      *
@@ -42,6 +69,22 @@ public class SimpleRequest extends PermissionRequest {
         startRequest(context, reason);
     }
 
+    @Override
+    public void startRequest(@NonNull Context context, @Nullable String rationale) {
+        mContext = context;
+        super.startRequest(context, rationale);
+    }
+
+    /**
+     * Stop an ongoing request started earlier: its listeners receive no more events and Permission Nanny unregisters
+     * the request.
+     */
+    public void stop() {
+        if (mContext != null) {
+            stop(mContext);
+        }
+    }
+
     protected static Handler newHandler(@Nullable Looper looper) {
         return looper != null ? new Handler(looper) : new Handler();
     }
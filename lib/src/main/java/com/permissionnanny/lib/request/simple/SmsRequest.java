@@ -6,6 +6,7 @@ import android.content.Context;
 import android.net.Uri;
 import android.os.Bundle;
 import com.permissionnanny.lib.PPP;
+import com.permissionnanny.lib.request.Params;
 import com.permissionnanny.lib.request.RequestParams;
 
 import java.util.ArrayList;
@@ -15,10 +16,17 @@ import java.util.ArrayList;
  */
 public class SmsRequest extends SimpleRequest {
 
-    @PPP public static final String SEND_DATA_MESSAGE = "sendDataMessage";
-    @PPP public static final String SEND_MULTIMEDIA_MESSAGE = "sendMultimediaMessage";
-    @PPP public static final String SEND_MULTIPART_TEXT_MESSAGE = "sendMultipartTextMessage";
-    @PPP public static final String SEND_TEXT_MESSAGE = "sendTextMessage";
+    @PPP @Params({"destinationAddress:string0", "scAddress:string1", "destinationPort:int0", "data:byteArray0",
+            "sentIntent:pendingIntent0", "deliveryIntent:pendingIntent1"})
+    public static final String SEND_DATA_MESSAGE = "sendDataMessage";
+    @PPP @Params({"contentUri:uri0", "locationUrl:string0", "configOverrides:bundle0", "sentIntent:pendingIntent0"})
+    public static final String SEND_MULTIMEDIA_MESSAGE = "sendMultimediaMessage";
+    @PPP @Params({"destinationAddress:string0", "scAddress:string1", "parts:arrayListOfStrings0",
+            "sentIntents:arrayListOfPendingIntents0", "deliveryIntents:arrayListOfPendingIntents1"})
+    public static final String SEND_MULTIPART_TEXT_MESSAGE = "sendMultipartTextMessage";
+    @PPP @Params({"destinationAddress:string0", "scAddress:string1", "text:string2", "sentIntent:pendingIntent0",
+            "deliveryIntent:pendingIntent1"})
+    public static final String SEND_TEXT_MESSAGE = "sendTextMessage";
 
     /**
      * Send a data based SMS to a specific application port. <p/> <p class="note"><strong>Note:</strong> Using this
@@ -47,14 +55,8 @@ public class SmsRequest extends SimpleRequest {
                                              byte[] data,
                                              PendingIntent sentIntent,
                                              PendingIntent deliveryIntent) {
-        RequestParams p = new RequestParams();
-        p.opCode = SEND_DATA_MESSAGE;
-        p.string0 = destinationAddress;
-        p.string1 = scAddress;
-        p.int0 = destinationPort;
-        p.byteArray0 = data;
-        p.pendingIntent0 = sentIntent;
-        p.pendingIntent1 = deliveryIntent;
+        RequestParams p = new SmsPayloads.SendDataMessage(destinationAddress, scAddress, destinationPort, data,
+                sentIntent, deliveryIntent).toRequestParams();
         return new SmsRequest(p);
     }
 
@@ -75,12 +77,8 @@ public class SmsRequest extends SimpleRequest {
                                                    String locationUrl,
                                                    Bundle configOverrides,
                                                    PendingIntent sentIntent) {
-        RequestParams p = new RequestParams();
-        p.opCode = SEND_MULTIMEDIA_MESSAGE;
-        p.uri0 = contentUri;
-        p.string0 = locationUrl;
-        p.bundle0 = configOverrides;
-        p.pendingIntent0 = sentIntent;
+        RequestParams p = new SmsPayloads.SendMultimediaMessage(contentUri, locationUrl, configOverrides,
+                sentIntent).toRequestParams();
         return new SmsRequest(p);
     }
 
@@ -117,13 +115,8 @@ public class SmsRequest extends SimpleRequest {
                                                       ArrayList<String> parts,
                                                       ArrayList<PendingIntent> sentIntents,
                                                       ArrayList<PendingIntent> deliveryIntents) {
-        RequestParams p = new RequestParams();
-        p.opCode = SEND_MULTIPART_TEXT_MESSAGE;
-        p.string0 = destinationAddress;
-        p.string1 = scAddress;
-        p.arrayListOfStrings0 = parts;
-        p.arrayListOfPendingIntents0 = sentIntents;
-        p.arrayListOfPendingIntents1 = deliveryIntents;
+        RequestParams p = new SmsPayloads.SendMultipartTextMessage(destinationAddress, scAddress, parts, sentIntents,
+                deliveryIntents).toRequestParams();
         return new SmsRequest(p);
     }
 
@@ -156,13 +149,8 @@ public class SmsRequest extends SimpleRequest {
                                              String text,
                                              PendingIntent sentIntent,
                                              PendingIntent deliveryIntent) {
-        RequestParams p = new RequestParams();
-        p.opCode = SEND_TEXT_MESSAGE;
-        p.string0 = destinationAddress;
-        p.string1 = scAddress;
-        p.string2 = text;
-        p.pendingIntent0 = sentIntent;
-        p.pendingIntent1 = deliveryIntent;
+        RequestParams p = new SmsPayloads.SendTextMessage(destinationAddress, scAddress, text, sentIntent,
+                deliveryIntent).toRequestParams();
         return new SmsRequest(p);
     }
 
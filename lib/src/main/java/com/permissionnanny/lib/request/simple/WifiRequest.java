@@ -2,6 +2,7 @@ package com.permissionnanny.lib.request.simple;
 
 import android.net.wifi.WifiConfiguration;
 import com.permissionnanny.lib.PPP;
+import com.permissionnanny.lib.request.Params;
 import com.permissionnanny.lib.request.RequestParams;
 
 /**
@@ -9,10 +10,13 @@ import com.permissionnanny.lib.request.RequestParams;
  */
 public class WifiRequest extends SimpleRequest {
 
-    @PPP public static final String ADD_NETWORK = "addNetwork";
-    @PPP public static final String DISABLE_NETWORK = "disableNetwork";
+    @PPP @Params({"wifiConfiguration:wifiConfiguration0"})
+    public static final String ADD_NETWORK = "addNetwork";
+    @PPP @Params({"netId:int0"})
+    public static final String DISABLE_NETWORK = "disableNetwork";
     @PPP public static final String DISCONNECT = "disconnect";
-    @PPP public static final String ENABLE_NETWORK = "enableNetwork";
+    @PPP @Params({"netId:int0", "disableOthers:boolean0"})
+    public static final String ENABLE_NETWORK = "enableNetwork";
     @PPP public static final String GET_CONFIGURED_NETWORKS = "getConfiguredNetworks";
     @PPP public static final String GET_CONNECTION_INFO = "getConnectionInfo";
     @PPP public static final String GET_DHCP_INFO = "getDhcpInfo";
@@ -22,19 +26,20 @@ public class WifiRequest extends SimpleRequest {
     @PPP public static final String PING_SUPPLICANT = "pingSupplicant";
     @PPP public static final String REASSOCIATE = "reassociate";
     @PPP public static final String RECONNECT = "reconnect";
-    @PPP public static final String REMOVE_NETWORK = "removeNetwork";
+    @PPP @Params({"netId:int0"})
+    public static final String REMOVE_NETWORK = "removeNetwork";
     @PPP public static final String SAVE_CONFIGURATION = "saveConfiguration";
-    @PPP public static final String SET_WIFI_ENABLED = "setWifiEnabled";
+    @PPP @Params({"enabled:boolean0"})
+    public static final String SET_WIFI_ENABLED = "setWifiEnabled";
     @PPP public static final String START_SCAN = "startScan";
-    @PPP public static final String UPDATE_NETWORK = "updateNetwork";
+    @PPP @Params({"wifiConfiguration:wifiConfiguration0"})
+    public static final String UPDATE_NETWORK = "updateNetwork";
 
     /**
      * @see {@link android.net.wifi.WifiManager#addNetwork(WifiConfiguration)}
      */
     public static WifiRequest addNetwork(WifiConfiguration wifiConfiguration) {
-        RequestParams p = new RequestParams();
-        p.opCode = ADD_NETWORK;
-        p.wifiConfiguration0 = wifiConfiguration;
+        RequestParams p = new WifiPayloads.AddNetwork(wifiConfiguration).toRequestParams();
         return new WifiRequest(p);
     }
 
@@ -42,9 +47,7 @@ public class WifiRequest extends SimpleRequest {
      * @see {@link android.net.wifi.WifiManager#disableNetwork(int)}
      */
     public static WifiRequest disableNetwork(int netId) {
-        RequestParams p = new RequestParams();
-        p.opCode = DISABLE_NETWORK;
-        p.int0 = netId;
+        RequestParams p = new WifiPayloads.DisableNetwork(netId).toRequestParams();
         return new WifiRequest(p);
     }
 
@@ -61,10 +64,7 @@ public class WifiRequest extends SimpleRequest {
      * @see {@link android.net.wifi.WifiManager#enableNetwork(int, boolean)}
      */
     public static WifiRequest enableNetwork(int netId, boolean disableOthers) {
-        RequestParams p = new RequestParams();
-        p.opCode = ENABLE_NETWORK;
-        p.int0 = netId;
-        p.boolean0 = disableOthers;
+        RequestParams p = new WifiPayloads.EnableNetwork(netId, disableOthers).toRequestParams();
         return new WifiRequest(p);
     }
 
@@ -155,9 +155,7 @@ public class WifiRequest extends SimpleRequest {
      * @see {@link android.net.wifi.WifiManager#removeNetwork(int)}
      */
     public static WifiRequest removeNetwork(int netId) {
-        RequestParams p = new RequestParams();
-        p.opCode = REMOVE_NETWORK;
-        p.int0 = netId;
+        RequestParams p = new WifiPayloads.RemoveNetwork(netId).toRequestParams();
         return new WifiRequest(p);
     }
 
@@ -174,9 +172,7 @@ public class WifiRequest extends SimpleRequest {
      * @see {@link android.net.wifi.WifiManager#setWifiEnabled(boolean)}
      */
     public static WifiRequest setWifiEnabled(boolean enabled) {
-        RequestParams p = new RequestParams();
-        p.opCode = SET_WIFI_ENABLED;
-        p.boolean0 = enabled;
+        RequestParams p = new WifiPayloads.SetWifiEnabled(enabled).toRequestParams();
         return new WifiRequest(p);
     }
 
@@ -193,9 +189,7 @@ public class WifiRequest extends SimpleRequest {
      * @see {@link android.net.wifi.WifiManager#updateNetwork(WifiConfiguration)}
      */
     public static WifiRequest updateNetwork(WifiConfiguration wifiConfiguration) {
-        RequestParams p = new RequestParams();
-        p.opCode = UPDATE_NETWORK;
-        p.wifiConfiguration0 = wifiConfiguration;
+        RequestParams p = new WifiPayloads.UpdateNetwork(wifiConfiguration).toRequestParams();
         return new WifiRequest(p);
     }
 
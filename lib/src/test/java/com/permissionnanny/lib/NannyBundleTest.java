@@ -1,6 +1,7 @@
 package com.permissionnanny.lib;
 
 import android.app.PendingIntent;
+import android.content.Intent;
 import android.content.IntentSender;
 import android.os.Bundle;
 import android.os.Parcelable;
@@ -102,12 +103,86 @@ public class NannyBundleTest extends NannyLibTestCase {
         assertThat(actual.getRequestRationale(), is("reason"));
     }
 
+    @Test
+    public void getMethods_shouldDecodeEntityOnce() throws Exception {
+        Bundle bundle = simpleBundle();
+        NannyBundle actual = new NannyBundle(bundle);
+        Bundle entity = actual.getEntityBody();
+        RequestParams request = actual.getRequest();
+
+        bundle.remove(Nanny.ENTITY_BODY);
+
+        assertThat(actual.getEntityBody(), sameInstance(entity));
+        assertThat(actual.getRequest(), sameInstance(request));
+        assertThat(actual.getSenderIdentity(), is("sender"));
+        assertThat(actual.getRequestRationale(), is("d"));
+    }
+
+    @Test
+    public void header_shouldParseMetadataAccordingToPPP() throws Exception {
+        Intent intent = new Intent().putExtras(simpleBundle());
+
+        NannyBundle.Header actual = new NannyBundle.Header(intent);
+
+        assertThat(actual.getStatusCode(), is(1));
+        assertThat(actual.getConnection(), is("b"));
+        assertThat(actual.getServer(), is("c"));
+        assertThat(actual.isClosed(), is(false));
+    }
+
+    @Test
+    public void header_isClosed_shouldReturnTrue_whenConnectionIsClose() throws Exception {
+        Intent intent = new Intent().putExtras(mBuilder.connection(Nanny.CLOSE).build());
+
+        NannyBundle.Header actual = new NannyBundle.Header(intent);
+
+        assertThat(actual.isClosed(), is(true));
+    }
+
+    @Test
+    public void builder_shouldParcelStructuredError_whenLegacyErrorIsNotSet() throws Exception {
+        mNannyException = new NannyException(NannyError.NO_REQUEST_PARAMS, "oops!");
+
+        Bundle actual = mBuilder.error(mNannyException).build();
+
+        assertThat(actual.getParcelable(Nanny.ENTITY_ERROR),
+                Matchers.<Parcelable>is(new NannyError(NannyError.NO_REQUEST_PARAMS, "oops!", null)));
+    }
+
+    @Test
+    public void getError_shouldReturnNannyException_whenErrorIsStructured() throws Exception {
+        mNannyException = new NannyException(NannyError.NO_REQUEST_PARAMS, "oops!");
+
+        NannyBundle actual = new NannyBundle(mBuilder.error(mNannyException).build());
+
+        NannyException error = (NannyException) actual.getError();
+        assertThat(error, is(mNannyException));
+        assertThat(error.getCode(), is(NannyError.NO_REQUEST_PARAMS));
+    }
+
+    @Test
+    public void getRetryAfter_shouldReturnHint_whenServerSentOne() throws Exception {
+        Bundle bundle = mBuilder.statusCode(Nanny.SC_TOO_MANY_REQUESTS).retryAfter(250).build();
+
+        assertThat(new NannyBundle(bundle).getRetryAfter(), is(250L));
+        assertThat(new NannyBundle.Header(new Intent().putExtras(bundle)).getRetryAfter(), is(250L));
+    }
+
+    @Test
+    public void getRetryAfter_shouldReturn0_whenServerSentNone() throws Exception {
+        Bundle bundle = mBuilder.statusCode(Nanny.SC_OK).build();
+
+        assertThat(bundle.containsKey(Nanny.RETRY_AFTER), is(false));
+        assertThat(new NannyBundle(bundle).getRetryAfter(), is(0L));
+    }
+
     private Bundle simpleBundle() {
         return mBuilder.statusCode(1)
                 .clientAddress("a")
                 .connection("b")
                 .server("c")
                 .error(mNannyException)
+                .legacyError(true)
                 .entity(mEntityBody)
                 .sender(mSender)
                 .params(mRequestParams)
@@ -0,0 +1,73 @@
+package com.permissionnanny.lib;
+
+import android.os.Parcel;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class NannyErrorTest extends NannyLibTestCase {
+
+    @Test
+    public void from_shouldKeepCodeAndMessage_whenErrorIsNannyException() throws Exception {
+        NannyError error = NannyError.from(new NannyException(NannyError.NO_ENTITY, "no %s", "entity"));
+
+        assertThat(error.getCode(), is(NannyError.NO_ENTITY));
+        assertThat(error.getMessage(), is("no entity"));
+        assertThat(error.getCause(), nullValue());
+    }
+
+    @Test
+    public void from_shouldSummarizeCauseChain() throws Exception {
+        Throwable root = new IllegalStateException("root");
+        Throwable error = new RuntimeException("top", new SecurityException("denied", root));
+
+        NannyError actual = NannyError.from(error);
+
+        assertThat(actual.getCode(), is(NannyError.EXECUTION_FAILED));
+        assertThat(actual.getMessage(), is("top"));
+        assertThat(actual.getCause(),
+                is("java.lang.SecurityException: denied <- java.lang.IllegalStateException: root"));
+    }
+
+    @Test
+    public void toException_shouldCarryCodeMessageAndCause() throws Exception {
+        NannyException actual = new NannyError(NannyError.UNSUPPORTED_OPCODE, "unsupported", "cause").toException();
+
+        assertThat(actual.getCode(), is(NannyError.UNSUPPORTED_OPCODE));
+        assertThat(actual.getMessage(), containsString("unsupported"));
+        assertThat(actual.getMessage(), containsString("cause"));
+    }
+
+    @Test
+    public void parcel_shouldRoundTrip() throws Exception {
+        NannyError expected = new NannyError(NannyError.NOT_INSTALLED, "message", "cause");
+
+        Parcel parcel = Parcel.obtain();
+        expected.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        NannyError actual = NannyError.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    public void parcel_shouldBeSmallerThanSerializedThrowable() throws Exception {
+        NannyException exception = new NannyException(new SecurityException("denied"), "oops!");
+
+        Parcel parcel = Parcel.obtain();
+        NannyError.from(exception).writeToParcel(parcel, 0);
+        int structured = parcel.dataSize();
+        parcel.recycle();
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        new ObjectOutputStream(serialized).writeObject(exception);
+
+        assertThat(structured, lessThan(serialized.size()));
+    }
+}
@@ -0,0 +1,47 @@
+package com.permissionnanny.lib;
+
+import android.util.Base64;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class NannyExceptionTest extends NannyLibTestCase {
+
+    /** {@code new NannyException("Unsupported opcode %s", "foo")} serialized by the class before error codes. */
+    static final String LEGACY_EXCEPTION = "rO0ABXNyACZjb20ucGVybWlzc2lvbm5hbm55LmxpYi5OYW5ueUV4Y2VwdGlvbtKcvStdtXIB" +
+            "AgAAeHIAE2phdmEubGFuZy5FeGNlcHRpb27Q/R8+GjscxAIAAHhyABNqYXZhLmxhbmcuVGhyb3dhYmxl1cY1Jzl3uMsDAARMAAVjYXVz" +
+            "ZXQAFUxqYXZhL2xhbmcvVGhyb3dhYmxlO0wADWRldGFpbE1lc3NhZ2V0ABJMamF2YS9sYW5nL1N0cmluZztbAApzdGFja1RyYWNldAAe" +
+            "W0xqYXZhL2xhbmcvU3RhY2tUcmFjZUVsZW1lbnQ7TAAUc3VwcHJlc3NlZEV4Y2VwdGlvbnN0ABBMamF2YS91dGlsL0xpc3Q7eHBxAH4A" +
+            "B3QAFlVuc3VwcG9ydGVkIG9wY29kZSBmb291cgAeW0xqYXZhLmxhbmcuU3RhY2tUcmFjZUVsZW1lbnQ7AkYqPDz9IjkCAAB4cAAAAABz" +
+            "cgAfamF2YS51dGlsLkNvbGxlY3Rpb25zJEVtcHR5TGlzdHq4F7Q8p57eAgAAeHB4";
+
+    @Test
+    public void readObject_shouldReadLegacyException() throws Exception {
+        ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(Base64.decode(LEGACY_EXCEPTION, Base64.DEFAULT)));
+
+        NannyException actual = (NannyException) in.readObject();
+
+        assertThat(actual.getMessage(), is("Unsupported opcode foo"));
+        assertThat(actual.getCode(), is(NannyError.UNKNOWN));
+    }
+
+    @Test
+    public void readObject_shouldKeepCode() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(new NannyException(NannyError.NO_ENTITY, "no %s", "entity"));
+        out.close();
+
+        NannyException actual = (NannyException) new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        assertThat(actual.getMessage(), is("no entity"));
+        assertThat(actual.getCode(), is(NannyError.NO_ENTITY));
+    }
+}
@@ -19,7 +19,10 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.notNull;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -31,6 +34,7 @@ public class NannyRequestTest extends NannyLibTestCase {
     @Mock private Event mEvent;
     @Mock private Context mContext;
     @Captor private ArgumentCaptor<IntentFilter> mIntentFilterCaptor;
+    @Captor private ArgumentCaptor<BroadcastReceiver> mReceiverCaptor;
 
     @Before
     public void setUp() throws Exception {
@@ -87,6 +91,32 @@ public class NannyRequestTest extends NannyLibTestCase {
         verify(mContext).unregisterReceiver((BroadcastReceiver) notNull());
     }
 
+    @Test
+    public void stop_shouldNotUnregisterAgain_whenServerClosedConnection() throws Exception {
+        when(Nanny.isPermissionNannyInstalled(mContext)).thenReturn(true);
+        mNannyRequest.addFilter(mEvent);
+        mNannyRequest.setPayload(mIntent);
+        mNannyRequest.startRequest(mContext);
+        verify(mContext).registerReceiver(mReceiverCaptor.capture(), (IntentFilter) notNull());
+
+        mReceiverCaptor.getValue().onReceive(mContext, new Intent().putExtras(new NannyBundle.Builder()
+                .connection(Nanny.CLOSE)
+                .build()));
+        mNannyRequest.stop(mContext);
+        mNannyRequest.stop(mContext);
+
+        verify(mContext, times(1)).unregisterReceiver(mReceiverCaptor.getValue());
+    }
+
+    @Test
+    public void stop_shouldDoNothing_whenNotStarted() throws Exception {
+        mNannyRequest.addFilter(mEvent);
+
+        mNannyRequest.stop(mContext);
+
+        verify(mContext, never()).unregisterReceiver((BroadcastReceiver) any());
+    }
+
     @Test
     public void startRequest_shouldReceive404_whenServerIsNotInstalled() throws Exception {
         when(Nanny.isPermissionNannyInstalled(mContext)).thenReturn(false);
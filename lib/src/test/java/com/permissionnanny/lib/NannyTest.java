@@ -54,4 +54,39 @@ public class NannyTest extends NannyLibTestCase {
     public void isIntentFromPermissionNannyShouldThrowWhenEntityIsMissing() throws Exception {
         Nanny.isIntentFromPermissionNanny(intent);
     }
+
+    @Test
+    public void newResponseIntentShouldTargetClientPackageWhenAddressIsDispatchAddress() throws Exception {
+        String clientAddr = Nanny.newDispatchAddress("client.app", "123");
+
+        Intent ans = Nanny.newResponseIntent(clientAddr);
+
+        assertThat(ans.getAction(), is(Nanny.ACTION_DISPATCH));
+        assertThat(ans.getPackage(), is("client.app"));
+        assertThat(ans.getStringExtra(Nanny.CLIENT_ADDRESS), is(clientAddr));
+    }
+
+    @Test
+    public void newResponseIntentShouldUseAddressAsActionWhenAddressIsLegacy() throws Exception {
+        Intent ans = Nanny.newResponseIntent("123");
+
+        assertThat(ans.getAction(), is("123"));
+        assertThat(ans.getPackage(), is((String) null));
+    }
+
+    @Test
+    public void getResponseAddressShouldReturnClientAddressWhenResponseIsDispatched() throws Exception {
+        String clientAddr = Nanny.newDispatchAddress("client.app", "123");
+
+        String ans = Nanny.getResponseAddress(Nanny.newResponseIntent(clientAddr));
+
+        assertThat(ans, is(clientAddr));
+    }
+
+    @Test
+    public void getResponseAddressShouldReturnActionWhenResponseIsLegacy() throws Exception {
+        String ans = Nanny.getResponseAddress(Nanny.newResponseIntent("123"));
+
+        assertThat(ans, is("123"));
+    }
 }
@@ -0,0 +1,50 @@
+package com.permissionnanny.lib;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class NonceTest extends NannyLibTestCase {
+
+    @Test
+    public void nextLong_shouldNotRepeat_acrossBatches() throws Exception {
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            seen.add(Nonce.nextLong());
+        }
+
+        assertThat(seen.size(), is(1000));
+    }
+
+    @Test
+    public void nextLong_shouldNotRepeat_acrossThreads() throws Exception {
+        final Set<Long> seen = Collections.synchronizedSet(new HashSet<Long>());
+        final CountDownLatch done = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 500; i++) {
+                        seen.add(Nonce.nextLong());
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertThat(seen.size(), is(2000));
+    }
+
+    @Test
+    public void nextAddress_shouldBeDecimalLong() throws Exception {
+        String address = Nonce.nextAddress();
+
+        assertThat(Long.toString(Long.parseLong(address)), is(address));
+    }
+}
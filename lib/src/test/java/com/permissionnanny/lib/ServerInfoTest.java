@@ -0,0 +1,102 @@
+package com.permissionnanny.lib;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.os.Bundle;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerInfoTest extends NannyLibTestCase {
+
+    @Mock Context ctx;
+    @Mock PackageManager pm;
+    ApplicationInfo appInfo;
+
+    @Before
+    public void setUp() throws Exception {
+        Nanny.refreshServerInfo();
+        appInfo = new ApplicationInfo();
+        appInfo.metaData = new Bundle();
+        appInfo.metaData.putString(Nanny.META_PROTOCOL_VERSION, Nanny.PPP_0_2);
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+    }
+
+    @Test
+    public void get_shouldAskPackageManagerOnce() throws Exception {
+        assertThat(Nanny.isPermissionNannyInstalled(ctx), is(true));
+        assertThat(Nanny.getServerProtocolVersion(ctx), is(Nanny.PPP_0_2));
+        assertThat(Nanny.isPermissionNannyInstalled(ctx), is(true));
+
+        verify(pm, times(1)).getApplicationInfo(anyString(), anyInt());
+    }
+
+    @Test
+    public void get_shouldReportNotInstalled_whenServerIsMissing() throws Exception {
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenThrow(new PackageManager.NameNotFoundException());
+
+        assertThat(Nanny.isPermissionNannyInstalled(ctx), is(false));
+        assertThat(Nanny.getServerProtocolVersion(ctx), is(Nanny.PPP_0_1));
+    }
+
+    @Test
+    public void refreshServerInfo_shouldAskPackageManagerAgain() throws Exception {
+        Nanny.isPermissionNannyInstalled(ctx);
+        Nanny.refreshServerInfo();
+        Nanny.isPermissionNannyInstalled(ctx);
+
+        verify(pm, times(2)).getApplicationInfo(anyString(), anyInt());
+    }
+
+    @Test
+    public void get_shouldNotCacheLookup_whenInvalidatedDuringIt() throws Exception {
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenAnswer(new Answer<ApplicationInfo>() {
+            @Override
+            public ApplicationInfo answer(InvocationOnMock invocation) throws Throwable {
+                Nanny.refreshServerInfo(); // The package listener fires while PackageManager answers
+                return appInfo;
+            }
+        });
+
+        Nanny.isPermissionNannyInstalled(ctx);
+        Nanny.isPermissionNannyInstalled(ctx);
+
+        verify(pm, times(2)).getApplicationInfo(anyString(), anyInt());
+    }
+
+    @Test
+    public void onReceive_shouldInvalidate_whenServerIsRemoved() throws Exception {
+        Nanny.isPermissionNannyInstalled(ctx);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenThrow(new PackageManager.NameNotFoundException());
+
+        new ServerInfo.PackageListener().onReceive(ctx, new Intent(Intent.ACTION_PACKAGE_REMOVED,
+                Uri.fromParts("package", Nanny.getServerAppId(), null)));
+
+        assertThat(Nanny.isPermissionNannyInstalled(ctx), is(false));
+    }
+
+    @Test
+    public void onReceive_shouldKeepCache_whenOtherPackageChanges() throws Exception {
+        Nanny.isPermissionNannyInstalled(ctx);
+
+        new ServerInfo.PackageListener().onReceive(ctx, new Intent(Intent.ACTION_PACKAGE_REMOVED,
+                Uri.fromParts("package", "other.app", null)));
+        Nanny.isPermissionNannyInstalled(ctx);
+
+        verify(pm, times(1)).getApplicationInfo(anyString(), anyInt());
+    }
+}
@@ -2,6 +2,8 @@ package com.permissionnanny.lib.request;
 
 import android.content.Context;
 import android.content.Intent;
+import android.os.Bundle;
+import android.os.SystemClock;
 import com.permissionnanny.lib.Nanny;
 import com.permissionnanny.lib.NannyBundle;
 import com.permissionnanny.lib.NannyLibTestCase;
@@ -13,6 +15,9 @@ import org.mockito.Mock;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class AckTest extends NannyLibTestCase {
@@ -42,4 +47,99 @@ public class AckTest extends NannyLibTestCase {
         assertThat(mIntentCaptor.getValue().getStringExtra(Nanny.PROTOCOL_VERSION), is(Nanny.PPP_0_1));
         assertThat(mIntentCaptor.getValue().getStringExtra(Nanny.CLIENT_ADDRESS), is("clientAddr"));
     }
+
+    @Test
+    public void sendAck_shouldAckEveryEvent_whenServerHasNoWindow() throws Exception {
+        mIntent.setAction("clientAddr")
+                .putExtras(mBuilder.ackAddress("ackAddr").build());
+
+        for (int i = 0; i < 3; i++) {
+            mAck.sendAck(mContext, mIntent);
+        }
+
+        verify(mContext, times(3)).sendBroadcast(any(Intent.class));
+    }
+
+    @Test
+    public void sendAck_shouldAckOncePerWindow_whenServerAdvertisesWindow() throws Exception {
+        mAck = new Ack(4, 60000);
+        mIntent.setAction("clientAddr")
+                .putExtras(mBuilder.ackAddress("ackAddr").build())
+                .putExtra(Nanny.ACK_WINDOW, 64);
+
+        for (int i = 0; i < 9; i++) { // Acks events 0, 4 and 8
+            mAck.sendAck(mContext, mIntent);
+        }
+
+        verify(mContext, times(3)).sendBroadcast(mIntentCaptor.capture());
+        assertThat(mIntentCaptor.getValue().getIntExtra(Nanny.ACK_WINDOW, 0), is(4));
+        assertThat(mIntentCaptor.getValue().getLongExtra(Nanny.ACK_INTERVAL, 0), is(60000L));
+    }
+
+    @Test
+    public void sendAck_shouldGrantNoMoreThanServerWindow() throws Exception {
+        mIntent.setAction("clientAddr")
+                .putExtras(mBuilder.ackAddress("ackAddr").build())
+                .putExtra(Nanny.ACK_WINDOW, 2);
+
+        mAck.sendAck(mContext, mIntent);
+
+        verify(mContext).sendBroadcast(mIntentCaptor.capture());
+        assertThat(mIntentCaptor.getValue().getIntExtra(Nanny.ACK_WINDOW, 0), is(2));
+    }
+
+    @Test
+    public void sendAck_shouldAck_whenIntervalPassedWithinWindow() throws Exception {
+        mAck = new Ack(100, 1000);
+        mIntent.setAction("clientAddr")
+                .putExtras(mBuilder.ackAddress("ackAddr").build())
+                .putExtra(Nanny.ACK_WINDOW, 100);
+        mAck.sendAck(mContext, mIntent);
+        mAck.sendAck(mContext, mIntent);
+
+        SystemClock.sleep(1000);
+        mAck.sendAck(mContext, mIntent);
+
+        verify(mContext, times(2)).sendBroadcast(any(Intent.class));
+    }
+
+    @Test
+    public void sendAck_shouldAckDispatchedResponseWithClientAddress() throws Exception {
+        Intent response = Nanny.newResponseIntent("dispatch:com.example/1")
+                .putExtras(mBuilder.ackAddress("ackAddr").build());
+
+        mAck.sendAck(mContext, response);
+
+        verify(mContext).sendBroadcast(mIntentCaptor.capture());
+        assertThat(mIntentCaptor.getValue().getStringExtra(Nanny.CLIENT_ADDRESS), is("dispatch:com.example/1"));
+    }
+
+    @Test
+    public void process_shouldAckDispatchedResponseWithClientAddress() throws Exception {
+        String clientAddr = Nanny.newDispatchAddress("com.example", "1");
+        Intent response = Nanny.newResponseIntent(clientAddr)
+                .putExtras(mBuilder.ackAddress("ackAddr").build());
+        BaseEvent event = new BaseEvent() {
+            @Override
+            public String filter() {
+                return "filter";
+            }
+
+            @Override
+            public void processEntity(Context context, Bundle entity) {}
+        };
+
+        event.process(mContext, response);
+
+        verify(mContext).sendBroadcast(mIntentCaptor.capture());
+        assertThat(mIntentCaptor.getValue().getAction(), is("ackAddr"));
+        assertThat(mIntentCaptor.getValue().getStringExtra(Nanny.CLIENT_ADDRESS), is(clientAddr));
+    }
+
+    @Test
+    public void sendAck_shouldNotAck_whenNoAckAddress() throws Exception {
+        mAck.sendAck(mContext, mIntent.setAction("clientAddr"));
+
+        verify(mContext, never()).sendBroadcast(any(Intent.class));
+    }
 }
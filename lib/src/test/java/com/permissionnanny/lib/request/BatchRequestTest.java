@@ -0,0 +1,110 @@
+package com.permissionnanny.lib.request;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
+import com.permissionnanny.lib.NannyError;
+import com.permissionnanny.lib.NannyException;
+import com.permissionnanny.lib.NannyLibTestCase;
+import com.permissionnanny.lib.request.simple.WifiRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BatchRequestTest extends NannyLibTestCase {
+
+    BatchRequest target;
+    ApplicationInfo appInfo;
+    @Mock BatchListener listener;
+    @Mock Context ctx;
+    @Mock PackageManager pm;
+    @Captor ArgumentCaptor<Intent> intentCaptor;
+    @Captor ArgumentCaptor<Bundle> bundleCaptor;
+    @Captor ArgumentCaptor<List<Bundle>> responsesCaptor;
+
+    @Before
+    public void setUp() throws Exception {
+        Nanny.refreshServerInfo();
+        appInfo = new ApplicationInfo();
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(ctx.getPackageName()).thenReturn("client.app");
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+        target = new BatchRequest(WifiRequest.getWifiState(), WifiRequest.getConnectionInfo());
+    }
+
+    @Test
+    public void startRequest_shouldSendAllRequestsInOneBroadcast() throws Exception {
+        speakPpp02();
+        target.listener(listener);
+
+        target.startRequest(ctx, "rationale");
+
+        verify(ctx).sendBroadcast(intentCaptor.capture());
+        NannyBundle request = new NannyBundle(intentCaptor.getValue());
+        assertThat(request.getProtocol(), is(Nanny.PPP_0_2));
+        assertThat(request.getRequest() == null, is(true));
+        ArrayList<RequestParams> batch = request.getBatch();
+        assertThat(batch.size(), is(2));
+        assertThat(batch.get(0).opCode, is(WifiRequest.GET_WIFI_STATE));
+        assertThat(batch.get(1).opCode, is(WifiRequest.GET_CONNECTION_INFO));
+    }
+
+    @Test
+    public void startRequest_shouldFailLocally_whenServerSpeaksPpp01() throws Exception {
+        target.listener(listener);
+
+        target.startRequest(ctx, null);
+
+        verify(ctx, never()).sendBroadcast(any(Intent.class));
+        verify(ctx, never()).registerReceiver(any(BroadcastReceiver.class), any(IntentFilter.class));
+        verify(listener).onResponse(bundleCaptor.capture(), responsesCaptor.capture());
+        Throwable error = new NannyBundle(bundleCaptor.getValue()).getError();
+        assertThat(((NannyException) error).getCode(), is(NannyError.UNSUPPORTED_PROTOCOL));
+        assertThat(responsesCaptor.getValue().isEmpty(), is(true));
+    }
+
+    @Test
+    public void batchEvent_shouldDeliverResponsesInOrder() throws Exception {
+        Bundle first = new NannyBundle.Builder().statusCode(Nanny.SC_OK).build();
+        Bundle second = new NannyBundle.Builder().statusCode(Nanny.SC_FORBIDDEN).build();
+        Bundle entity = new Bundle();
+        entity.putParcelableArrayList(Nanny.BATCH_RESPONSES, new ArrayList<>(Arrays.asList(first, second)));
+        Intent response = new Intent().putExtras(new NannyBundle.Builder()
+                .statusCode(Nanny.SC_OK)
+                .server(Nanny.AUTHORIZATION_SERVICE)
+                .entity(entity)
+                .build());
+
+        new BatchEvent(listener).process(ctx, response);
+
+        verify(listener).onResponse(bundleCaptor.capture(), responsesCaptor.capture());
+        assertThat(responsesCaptor.getValue().size(), is(2));
+        assertThat(responsesCaptor.getValue().get(0).getInt(Nanny.STATUS_CODE), is(Nanny.SC_OK));
+        assertThat(responsesCaptor.getValue().get(1).getInt(Nanny.STATUS_CODE), is(Nanny.SC_FORBIDDEN));
+    }
+
+    private void speakPpp02() {
+        appInfo.metaData = new Bundle();
+        appInfo.metaData.putString(Nanny.META_PROTOCOL_VERSION, Nanny.PPP_0_2);
+    }
+}
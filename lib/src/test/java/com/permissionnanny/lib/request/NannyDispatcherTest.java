@@ -0,0 +1,99 @@
+package com.permissionnanny.lib.request;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import com.permissionnanny.lib.Event;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
+import com.permissionnanny.lib.NannyLibTestCase;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NannyDispatcherTest extends NannyLibTestCase {
+
+    NannyDispatcher mDispatcher;
+    PermissionReceiver mReceiver;
+    String mClientAddr;
+    @Mock Event mEventFilter;
+    @Mock Context mContext;
+    @Mock Context mAppContext;
+    @Captor ArgumentCaptor<IntentFilter> mFilterCaptor;
+
+    @Before
+    public void setUp() throws Exception {
+        when(mContext.getApplicationContext()).thenReturn(mAppContext);
+        when(mEventFilter.filter()).thenReturn("filter");
+        mDispatcher = new NannyDispatcher();
+        mReceiver = new PermissionReceiver().addFilter(mEventFilter);
+        mClientAddr = Nanny.newDispatchAddress("client.app", "123");
+    }
+
+    @Test
+    public void register_shouldRegisterWithApplicationContextOnce() throws Exception {
+        mDispatcher.register(mContext, mClientAddr, mReceiver);
+        mDispatcher.register(mContext, Nanny.newDispatchAddress("client.app", "456"), new PermissionReceiver());
+
+        verify(mAppContext, times(1)).registerReceiver(any(BroadcastReceiver.class), mFilterCaptor.capture());
+        assertThat(mFilterCaptor.getValue().getAction(0), is(Nanny.ACTION_DISPATCH));
+        assertThat(mDispatcher.size(), is(2));
+    }
+
+    @Test
+    public void onReceive_shouldRouteByClientAddress() throws Exception {
+        Intent response = newResponse(mClientAddr, null);
+
+        mDispatcher.register(mContext, mClientAddr, mReceiver);
+        mDispatcher.onReceive(mContext, response);
+
+        verify(mEventFilter).process(mContext, response);
+        assertThat(mDispatcher.size(), is(1));
+    }
+
+    @Test
+    public void onReceive_shouldForgetReceiver_whenConnectionCloseIsSet() throws Exception {
+        Intent response = newResponse(mClientAddr, Nanny.CLOSE);
+
+        mDispatcher.register(mContext, mClientAddr, mReceiver);
+        mDispatcher.onReceive(mContext, response);
+
+        verify(mEventFilter).process(mContext, response);
+        verify(mContext, never()).unregisterReceiver(any(BroadcastReceiver.class));
+        assertThat(mDispatcher.size(), is(0));
+    }
+
+    @Test
+    public void onReceive_shouldDropResponse_whenClientAddressIsUnknown() throws Exception {
+        mDispatcher.register(mContext, mClientAddr, mReceiver);
+        mDispatcher.onReceive(mContext, newResponse(Nanny.newDispatchAddress("client.app", "456"), Nanny.CLOSE));
+
+        verify(mEventFilter, never()).process(any(Context.class), any(Intent.class));
+        assertThat(mDispatcher.size(), is(1));
+    }
+
+    @Test
+    public void onReceive_shouldDropResponse_whenRequestWasUnregistered() throws Exception {
+        mDispatcher.register(mContext, mClientAddr, mReceiver);
+        mDispatcher.unregister(mClientAddr);
+        mDispatcher.onReceive(mContext, newResponse(mClientAddr, null));
+
+        verify(mEventFilter, never()).process(any(Context.class), any(Intent.class));
+    }
+
+    private Intent newResponse(String clientAddr, String connection) {
+        return Nanny.newResponseIntent(clientAddr)
+                .putExtras(new NannyBundle.Builder().server("filter").connection(connection).build());
+    }
+}
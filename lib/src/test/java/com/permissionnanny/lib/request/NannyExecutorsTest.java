@@ -0,0 +1,40 @@
+package com.permissionnanny.lib.request;
+
+import android.os.Handler;
+import com.permissionnanny.lib.NannyLibTestCase;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class NannyExecutorsTest extends NannyLibTestCase {
+
+    @Mock Handler handler;
+    @Mock Runnable task;
+
+    @Test
+    public void direct_shouldRunOnCallingThread() throws Exception {
+        final AtomicReference<Thread> ran = new AtomicReference<>();
+
+        NannyExecutors.direct().execute(new Runnable() {
+            @Override
+            public void run() {
+                ran.set(Thread.currentThread());
+            }
+        });
+
+        assertThat(ran.get(), sameInstance(Thread.currentThread()));
+    }
+
+    @Test
+    public void of_shouldPostToHandler() throws Exception {
+        NannyExecutors.of(handler).execute(task);
+
+        verify(handler).post(task);
+        verify(task, never()).run();
+    }
+}
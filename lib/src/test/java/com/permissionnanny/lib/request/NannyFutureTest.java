@@ -0,0 +1,143 @@
+package com.permissionnanny.lib.request;
+
+import com.permissionnanny.lib.NannyLibTestCase;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class NannyFutureTest extends NannyLibTestCase {
+
+    NannyFuture<String> f1;
+    NannyFuture<String> f2;
+    @Mock Runnable onAbort1;
+    @Mock Runnable onAbort2;
+    @Mock NannyFuture.Listener<String> listener;
+
+    @Before
+    public void setUp() throws Exception {
+        f1 = new NannyFuture<>(onAbort1);
+        f2 = new NannyFuture<>(onAbort2);
+    }
+
+    @Test
+    public void complete_shouldDeliverValueOnce() throws Exception {
+        f1.addListener(listener);
+
+        assertThat(f1.complete("a"), is(true));
+        assertThat(f1.complete("b"), is(false));
+        assertThat(f1.cancel(false), is(false));
+
+        assertThat(f1.get(), is("a"));
+        verify(listener, times(1)).onDone(f1);
+        verify(onAbort1, never()).run();
+    }
+
+    @Test
+    public void addListener_shouldCallBack_whenAlreadyDone() throws Exception {
+        f1.complete("a");
+
+        f1.addListener(listener);
+
+        verify(listener).onDone(f1);
+    }
+
+    @Test
+    public void cancel_shouldAbort() throws Exception {
+        assertThat(f1.cancel(false), is(true));
+
+        assertThat(f1.isCancelled(), is(true));
+        verify(onAbort1).run();
+    }
+
+    @Test(expected = CancellationException.class)
+    public void get_shouldThrow_whenCancelled() throws Exception {
+        f1.cancel(false);
+
+        f1.get();
+    }
+
+    @Test
+    public void get_shouldWrapFailure() throws Exception {
+        TimeoutException error = new TimeoutException();
+        f1.fail(error);
+
+        try {
+            f1.get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is((Throwable) error));
+        }
+        verify(onAbort1).run();
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void get_shouldTimeOut_whenPending() throws Exception {
+        f1.get(1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void allOf_shouldCollectResultsInOrder() throws Exception {
+        NannyFuture<List<String>> all = NannyFuture.allOf(Arrays.asList(f1, f2));
+
+        f2.complete("b");
+        assertThat(all.isDone(), is(false));
+        f1.complete("a");
+
+        assertThat(all.get(), is(Arrays.asList("a", "b")));
+    }
+
+    @Test
+    public void allOf_shouldFailAndCancelRest_whenOneFails() throws Exception {
+        NannyFuture<List<String>> all = NannyFuture.allOf(Arrays.asList(f1, f2));
+
+        f1.fail(new TimeoutException());
+
+        assertThat(all.getError(), instanceOf(TimeoutException.class));
+        assertThat(f2.isCancelled(), is(true));
+        verify(onAbort2).run();
+    }
+
+    @Test
+    public void allOf_shouldCancelAll_whenCancelled() throws Exception {
+        NannyFuture<List<String>> all = NannyFuture.allOf(Arrays.asList(f1, f2));
+
+        all.cancel(false);
+
+        assertThat(f1.isCancelled(), is(true));
+        assertThat(f2.isCancelled(), is(true));
+    }
+
+    @Test
+    public void anyOf_shouldTakeFirstResultAndCancelRest() throws Exception {
+        NannyFuture<String> any = NannyFuture.anyOf(Arrays.asList(f1, f2));
+
+        f2.complete("b");
+
+        assertThat(any.get(), is("b"));
+        assertThat(f1.isCancelled(), is(true));
+        assertThat(f2.isCancelled(), is(false));
+    }
+
+    @Test
+    public void anyOf_shouldFail_whenAllFail() throws Exception {
+        NannyFuture<String> any = NannyFuture.anyOf(Arrays.asList(f1, f2));
+
+        f1.fail(new IllegalStateException());
+        assertThat(any.isDone(), is(false));
+        f2.fail(new TimeoutException());
+
+        assertThat(any.getError(), instanceOf(TimeoutException.class));
+    }
+}
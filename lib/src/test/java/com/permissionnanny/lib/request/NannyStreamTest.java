@@ -0,0 +1,111 @@
+package com.permissionnanny.lib.request;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.IBinder;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
+import com.permissionnanny.lib.NannyLibTestCase;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NannyStreamTest extends NannyLibTestCase {
+
+    NannyStream mStream;
+    String mClientAddr;
+    @Mock NannyDispatcher mDispatcher;
+    @Mock Context mContext;
+    @Mock Context mAppContext;
+    @Mock INannyStream mService;
+    @Mock IBinder mBinder;
+    @Captor ArgumentCaptor<Intent> mIntentCaptor;
+
+    @Before
+    public void setUp() throws Exception {
+        when(mContext.getApplicationContext()).thenReturn(mAppContext);
+        when(mAppContext.bindService(any(Intent.class), any(ServiceConnection.class), anyInt())).thenReturn(true);
+        when(mBinder.queryLocalInterface(anyString())).thenReturn(mService);
+        mStream = new NannyStream(mDispatcher);
+        mClientAddr = Nanny.newDispatchAddress("client.app", "123");
+    }
+
+    @Test
+    public void attach_shouldBindToStreamServiceOnce() throws Exception {
+        mStream.attach(mContext, mClientAddr);
+        mStream.attach(mContext, Nanny.newDispatchAddress("client.app", "456"));
+
+        verify(mAppContext, times(1)).bindService(mIntentCaptor.capture(), eq(mStream), anyInt());
+        assertThat(mIntentCaptor.getValue().getComponent().getClassName(), is(Nanny.STREAM_SERVICE));
+    }
+
+    @Test
+    public void onServiceConnected_shouldRegisterAttachedAddresses() throws Exception {
+        mStream.attach(mContext, mClientAddr);
+
+        mStream.onServiceConnected(new ComponentName("a", "b"), mBinder);
+        mStream.attach(mContext, Nanny.newDispatchAddress("client.app", "456"));
+
+        verify(mService).register(mClientAddr, mStream);
+        verify(mService).register(Nanny.newDispatchAddress("client.app", "456"), mStream);
+    }
+
+    @Test
+    public void detach_shouldUnbind_whenLastAddressIsDetached() throws Exception {
+        mStream.attach(mContext, mClientAddr);
+        mStream.onServiceConnected(new ComponentName("a", "b"), mBinder);
+
+        mStream.detach(mClientAddr);
+
+        verify(mService).unregister(mClientAddr);
+        verify(mAppContext).unbindService(mStream);
+        assertThat(mStream.isAttached(mClientAddr), is(false));
+    }
+
+    @Test
+    public void attach_shouldFallBackToBroadcasts_whenServiceIsMissing() throws Exception {
+        when(mAppContext.bindService(any(Intent.class), any(ServiceConnection.class), anyInt())).thenReturn(false);
+
+        mStream.attach(mContext, mClientAddr);
+
+        assertThat(mStream.isAttached(mClientAddr), is(false));
+    }
+
+    @Test
+    public void attach_shouldDoNothing_whenDisabled() throws Exception {
+        mStream.setEnabled(false);
+
+        mStream.attach(mContext, mClientAddr);
+
+        verify(mAppContext, never()).bindService(any(Intent.class), any(ServiceConnection.class), anyInt());
+    }
+
+    @Test
+    public void onResponse_shouldDispatchOnMainThread_andDetachOnClose() throws Exception {
+        mStream.attach(mContext, mClientAddr);
+        Intent response = Nanny.newResponseIntent(mClientAddr)
+                .putExtras(new NannyBundle.Builder().server(Nanny.LOCATION_SERVICE).connection(Nanny.CLOSE).build());
+
+        mStream.onResponse(response);
+        ShadowLooper.idleMainLooper();
+
+        verify(mDispatcher).onReceive(mAppContext, response);
+        assertThat(mStream.isAttached(mClientAddr), is(false));
+    }
+}
@@ -0,0 +1,110 @@
+package com.permissionnanny.lib.request;
+
+import com.permissionnanny.lib.NannyLibTestCase;
+import com.permissionnanny.lib.request.content.ContentRequest;
+import com.permissionnanny.lib.request.simple.AccountRequest;
+import com.permissionnanny.lib.request.simple.LocationRequest;
+import com.permissionnanny.lib.request.simple.SmsRequest;
+import com.permissionnanny.lib.request.simple.TelephonyRequest;
+import com.permissionnanny.lib.request.simple.WifiRequest;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class OpCodesTest extends NannyLibTestCase {
+
+    @Test
+    public void requestFactories_shouldFindEveryFactory() throws Exception {
+        assertThat(requestFactories(), hasItems(AccountRequest.class, LocationRequest.class, SmsRequest.class,
+                TelephonyRequest.class, WifiRequest.class, ContentRequest.class));
+    }
+
+    @Test
+    public void idOf_shouldCoverEveryOpCode() throws Exception {
+        Set<Integer> ids = new HashSet<>();
+        for (Class<?> factory : requestFactories()) {
+            for (String opCode : opCodes(factory)) {
+                int id = OpCodes.idOf(opCode);
+
+                assertThat(opCode, id, not(OpCodes.UNKNOWN));
+                assertThat(opCode, ids.add(id), is(true));
+                assertThat(OpCodes.nameOf(id), sameInstance(opCode));
+            }
+        }
+        assertThat(ids.size(), is(OpCodes.size() - 1));
+    }
+
+    @Test
+    public void idOf_shouldReturnUnknown_whenOpCodeIsNotInTable() throws Exception {
+        assertThat(OpCodes.idOf("notAnOpCode"), is(OpCodes.UNKNOWN));
+        assertThat(OpCodes.idOf(null), is(OpCodes.UNKNOWN));
+    }
+
+    @Test
+    public void nameOf_shouldReturnNull_whenIdIsOutOfRange() throws Exception {
+        assertThat(OpCodes.nameOf(OpCodes.UNKNOWN), nullValue());
+        assertThat(OpCodes.nameOf(-1), nullValue());
+        assertThat(OpCodes.nameOf(OpCodes.size()), nullValue());
+    }
+
+    @Test
+    public void nameOf_shouldMatchNamedConstants() throws Exception {
+        assertThat(OpCodes.nameOf(OpCodes.ACCOUNT_GET_ACCOUNTS), sameInstance(AccountRequest.GET_ACCOUNTS));
+        assertThat(OpCodes.nameOf(OpCodes.WIFI_GET_CONNECTION_INFO), sameInstance(WifiRequest.GET_CONNECTION_INFO));
+        assertThat(OpCodes.nameOf(OpCodes.CONTENT_SELECT), sameInstance(ContentRequest.SELECT));
+    }
+
+    /**
+     * Every {@link PermissionRequest} in the compiled request packages, so that an opcode declared in a new factory is
+     * checked without anyone remembering to list it here.
+     */
+    private static List<Class<?>> requestFactories() throws Exception {
+        String pkg = PermissionRequest.class.getPackage().getName();
+        List<Class<?>> factories = new ArrayList<>();
+        for (URL root : Collections.list(OpCodesTest.class.getClassLoader().getResources(pkg.replace('.', '/')))) {
+            assertThat("Request classes are not in a directory", root.getProtocol(), is("file"));
+            collectFactories(new File(root.toURI()), pkg, factories);
+        }
+        return factories;
+    }
+
+    private static void collectFactories(File dir, String pkg, List<Class<?>> factories) throws Exception {
+        for (File file : dir.listFiles()) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                collectFactories(file, pkg + "." + name, factories);
+            } else if (name.endsWith(".class") && !name.contains("$")) {
+                Class<?> type = Class.forName(pkg + "." + name.substring(0, name.length() - ".class".length()));
+                if (PermissionRequest.class.isAssignableFrom(type)) {
+                    factories.add(type);
+                }
+            }
+        }
+    }
+
+    private static Set<String> opCodes(Class<?> factory) throws IllegalAccessException {
+        Set<String> opCodes = new HashSet<>();
+        for (Field field : factory.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isPublic(modifiers) && Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers) &&
+                    field.getType() == String.class) {
+                opCodes.add((String) field.get(null));
+            }
+        }
+        return opCodes;
+    }
+}
@@ -0,0 +1,83 @@
+package com.permissionnanny.lib.request;
+
+import com.permissionnanny.lib.NannyLibTestCase;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class OverflowTest extends NannyLibTestCase {
+
+    @Mock Runnable first;
+    @Mock Runnable second;
+    @Mock Runnable third;
+
+    @Test
+    public void offer_shouldScheduleOneDrain_whenListenerIsBehind() throws Exception {
+        Overflow overflow = Overflow.buffer(8);
+
+        assertThat(overflow.offer(first), is(true));
+        assertThat(overflow.offer(second), is(false));
+        assertThat(overflow.poll(), sameInstance(first));
+        assertThat(overflow.poll(), sameInstance(second));
+        assertThat(overflow.poll(), nullValue());
+        assertThat(overflow.offer(third), is(true));
+    }
+
+    @Test
+    public void conflate_shouldKeepLatest() throws Exception {
+        Overflow overflow = Overflow.conflate();
+
+        overflow.offer(first);
+        overflow.offer(second);
+        overflow.offer(third);
+
+        assertThat(overflow.poll(), sameInstance(third));
+        assertThat(overflow.poll(), nullValue());
+        assertThat(overflow.getConflatedCount(), is(2L));
+        assertThat(overflow.getDroppedCount(), is(0L));
+    }
+
+    @Test
+    public void dropOldest_shouldKeepLatestCapacity() throws Exception {
+        Overflow overflow = Overflow.dropOldest(2);
+
+        overflow.offer(first);
+        overflow.offer(second);
+        overflow.offer(third);
+
+        assertThat(overflow.poll(), sameInstance(second));
+        assertThat(overflow.poll(), sameInstance(third));
+        assertThat(overflow.getDroppedCount(), is(1L));
+    }
+
+    @Test
+    public void buffer_shouldDropNewest_whenFull() throws Exception {
+        Overflow overflow = Overflow.buffer(2);
+
+        overflow.offer(first);
+        overflow.offer(second);
+        overflow.offer(third);
+
+        assertThat(overflow.poll(), sameInstance(first));
+        assertThat(overflow.poll(), sameInstance(second));
+        assertThat(overflow.poll(), nullValue());
+        assertThat(overflow.getDroppedCount(), is(1L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void attach_shouldThrow_whenSharedBetweenSubscriptions() throws Exception {
+        Overflow overflow = Overflow.conflate();
+
+        overflow.attach(new Object());
+        overflow.attach(new Object());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void buffer_shouldThrow_whenCapacityIsNotPositive() throws Exception {
+        Overflow.buffer(0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.permissionnanny.lib.request;
+
+import android.accounts.Account;
+import android.os.Bundle;
+import com.permissionnanny.lib.NannyLibTestCase;
+import com.permissionnanny.lib.request.simple.AccountPayloads;
+import com.permissionnanny.lib.request.simple.AccountRequest;
+import com.permissionnanny.lib.request.simple.LocationPayloads;
+import com.permissionnanny.lib.request.simple.SmsPayloads;
+import com.permissionnanny.lib.request.simple.SmsRequest;
+import com.permissionnanny.lib.request.simple.WifiPayloads;
+import com.permissionnanny.lib.request.simple.WifiRequest;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class PayloadsTest extends NannyLibTestCase {
+
+    @Test
+    public void from_shouldReadFactorySlots() throws Exception {
+        RequestParams params = WifiRequest.enableNetwork(1, true).mParams;
+
+        WifiPayloads.EnableNetwork actual = WifiPayloads.EnableNetwork.from(params);
+
+        assertThat(actual.netId, is(1));
+        assertThat(actual.disableOthers, is(true));
+    }
+
+    @Test
+    public void toRequestParams_shouldWriteOpCodeAndSlots() throws Exception {
+        RequestParams actual = new SmsPayloads.SendTextMessage("5551234", null, "text", null, null).toRequestParams();
+
+        assertThat(actual.opCode, sameInstance(SmsRequest.SEND_TEXT_MESSAGE));
+        assertThat(actual.string0, is("5551234"));
+        assertThat(actual.string1, nullValue());
+        assertThat(actual.string2, is("text"));
+        assertThat(actual.getFingerprint(),
+                is(SmsRequest.sendTextMessage("5551234", null, "text", null, null).mParams.getFingerprint()));
+    }
+
+    @Test
+    public void getAuthToken_shouldCarryAccount() throws Exception {
+        Account account = new Account("name", "type");
+        RequestParams params = AccountRequest.getAuthToken(account, "authTokenType", new Bundle(), true, null, null)
+                .mParams;
+
+        AccountPayloads.GetAuthToken2 actual = AccountPayloads.GetAuthToken2.from(params);
+
+        assertThat(actual.account, is(account));
+        assertThat(actual.authTokenType, is("authTokenType"));
+        assertThat(actual.notifyAuthFailure, is(true));
+    }
+
+    @Test
+    public void from_shouldRoundTripThroughRequestParams() throws Exception {
+        LocationPayloads.AddProximityAlert expected = new LocationPayloads.AddProximityAlert(1.5, 2.5, 3.5f, 4, null);
+
+        LocationPayloads.AddProximityAlert actual = LocationPayloads.AddProximityAlert.from(
+                expected.toRequestParams());
+
+        assertThat(actual.latitude, is(1.5));
+        assertThat(actual.longitude, is(2.5));
+        assertThat(actual.radius, is(3.5f));
+        assertThat(actual.expiration, is(4L));
+        assertThat(actual.intent, nullValue());
+    }
+}
@@ -10,6 +10,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -37,6 +42,16 @@ public class PermissionReceiverTest extends NannyLibTestCase {
         verify(mEventFilter).process(mContext, mIntent);
     }
 
+    @Test
+    public void onReceive_shouldDropResponse_whenNoEventFilterMatches() throws Exception {
+        mIntent.putExtras(new NannyBundle.Builder().server("unknown").build());
+
+        mReceiver.addFilter(mEventFilter);
+        mReceiver.onReceive(mContext, mIntent);
+
+        verify(mEventFilter, never()).process(any(Context.class), any(Intent.class));
+    }
+
     @Test
     public void onReceive_shouldUnregisterReceiver_whenConnectionCloseIsSet() throws Exception {
         mIntent.putExtras(new NannyBundle.Builder().server("filter").connection(Nanny.CLOSE).build());
@@ -46,4 +61,16 @@ public class PermissionReceiverTest extends NannyLibTestCase {
 
         verify(mContext).unregisterReceiver(mReceiver);
     }
+
+    @Test
+    public void unregister_shouldDoNothing_whenReceiverUnregisteredItself() throws Exception {
+        mIntent.putExtras(new NannyBundle.Builder().server("filter").connection(Nanny.CLOSE).build());
+        mReceiver.addFilter(mEventFilter);
+        mReceiver.onReceive(mContext, mIntent);
+
+        boolean ans = mReceiver.unregister(mContext);
+
+        assertThat(ans, is(false));
+        verify(mContext, times(1)).unregisterReceiver(mReceiver);
+    }
 }
@@ -8,22 +8,30 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
 import com.permissionnanny.lib.NannyLibTestCase;
+import com.permissionnanny.lib.request.simple.LocationRequest;
 import com.permissionnanny.lib.request.simple.SimpleListener;
 import com.permissionnanny.lib.request.simple.SimpleRequest;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
+import org.robolectric.shadows.ShadowLooper;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.isA;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.notNull;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -38,9 +46,11 @@ public class PermissionRequestTest extends NannyLibTestCase {
     @Captor ArgumentCaptor<Intent> intentCaptor;
     @Captor ArgumentCaptor<Bundle> bundleCaptor;
     @Captor ArgumentCaptor<IntentFilter> filterCaptor;
+    @Captor ArgumentCaptor<BroadcastReceiver> receiverCaptor;
 
     @Before
     public void setUp() throws Exception {
+        Nanny.refreshServerInfo();
         requestParams = new RequestParams();
         target = new SimpleRequest(requestParams);
     }
@@ -65,6 +75,30 @@ public class PermissionRequestTest extends NannyLibTestCase {
         assertThat(entity.containsKey(Nanny.REQUEST_RATIONALE), is(true));
     }
 
+    @Test
+    public void startRequest_ShouldSpeakPpp01_WhenServerDoesNotAdvertiseProtocolVersion() throws Exception {
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+
+        target.startRequest(ctx, null);
+
+        verify(ctx).sendBroadcast(intentCaptor.capture());
+        assertThat(intentCaptor.getValue().getStringExtra(Nanny.PROTOCOL_VERSION), is(Nanny.PPP_0_1));
+    }
+
+    @Test
+    public void startRequest_ShouldSpeakPpp02_WhenServerAdvertisesPpp02() throws Exception {
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+        appInfo.metaData = new Bundle();
+        appInfo.metaData.putString(Nanny.META_PROTOCOL_VERSION, Nanny.PPP_0_2);
+
+        target.startRequest(ctx, null);
+
+        verify(ctx).sendBroadcast(intentCaptor.capture());
+        assertThat(intentCaptor.getValue().getStringExtra(Nanny.PROTOCOL_VERSION), is(Nanny.PPP_0_2));
+    }
+
     @Test
     public void startRequest_ShouldNotSendClientAddress_WhenNoListenerIsAttached() throws Exception {
         when(ctx.getPackageManager()).thenReturn(pm);
@@ -76,4 +110,109 @@ public class PermissionRequestTest extends NannyLibTestCase {
         verify(ctx).sendBroadcast(intentCaptor.capture());
         assertThat(intentCaptor.getValue().hasExtra(Nanny.CLIENT_ADDRESS), is(false));
     }
+
+    @Test
+    public void startRequest_ShouldUseDispatcher_WhenServerAdvertisesPpp02() throws Exception {
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(ctx.getPackageName()).thenReturn("client.app");
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+        appInfo.metaData = new Bundle();
+        appInfo.metaData.putString(Nanny.META_PROTOCOL_VERSION, Nanny.PPP_0_2);
+        target.listener(listener);
+
+        target.startRequest(ctx, null);
+
+        verify(ctx).sendBroadcast(intentCaptor.capture());
+        String clientAddr = intentCaptor.getValue().getStringExtra(Nanny.CLIENT_ADDRESS);
+        assertThat(clientAddr.startsWith(Nanny.DISPATCH_ADDRESS_PREFIX + "client.app/"), is(true));
+        verify(ctx, never()).registerReceiver(isA(PermissionReceiver.class), (IntentFilter) any());
+    }
+
+    @Test
+    public void submit_shouldCompleteWithResponse_andCallAttachedListener() throws Exception {
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+        target.listener(listener);
+
+        NannyFuture<Bundle> future = target.submit(ctx, null);
+        verify(ctx).registerReceiver(receiverCaptor.capture(), (IntentFilter) any());
+        Intent response = new Intent().putExtras(new NannyBundle.Builder()
+                .statusCode(Nanny.SC_OK)
+                .server(Nanny.AUTHORIZATION_SERVICE)
+                .build());
+        receiverCaptor.getValue().onReceive(ctx, response);
+
+        assertThat(future.get().getInt(Nanny.STATUS_CODE), is(Nanny.SC_OK));
+        verify(listener).onResponse((Bundle) notNull());
+        verify(ctx).unregisterReceiver(receiverCaptor.getValue());
+    }
+
+    @Test
+    public void submit_shouldKeepListening_whenOngoingRequestSucceeds() throws Exception {
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+        requestParams.opCode = LocationRequest.REQUEST_LOCATION_UPDATES1;
+
+        NannyFuture<Bundle> future = target.submit(ctx, null);
+        verify(ctx).registerReceiver(receiverCaptor.capture(), (IntentFilter) any());
+        receiverCaptor.getValue().onReceive(ctx, new Intent().putExtras(new NannyBundle.Builder()
+                .statusCode(Nanny.SC_OK)
+                .server(Nanny.AUTHORIZATION_SERVICE)
+                .build()));
+
+        assertThat(future.isDone(), is(true));
+        verify(ctx, never()).unregisterReceiver((BroadcastReceiver) any());
+    }
+
+    @Test
+    public void submit_shouldFailAndStop_whenDeadlinePasses() throws Exception {
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+
+        NannyFuture<Bundle> future = target.submit(ctx, null, 1, TimeUnit.SECONDS);
+        ShadowLooper.idleMainLooper(1000);
+
+        assertThat(future.getError(), instanceOf(TimeoutException.class));
+        verify(ctx).unregisterReceiver((BroadcastReceiver) notNull());
+    }
+
+    @Test
+    public void submit_shouldStop_whenCancelled() throws Exception {
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+
+        target.submit(ctx, null).cancel(false);
+
+        verify(ctx).unregisterReceiver((BroadcastReceiver) notNull());
+    }
+
+    @Test
+    public void stop_shouldUnregisterOnce_whenCalledAfterCancel() throws Exception {
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+
+        target.submit(ctx, null).cancel(false);
+        target.stop();
+
+        verify(ctx, times(1)).unregisterReceiver((BroadcastReceiver) notNull());
+    }
+
+    @Test
+    public void stop_shouldNotUnregister_whenServerClosedConnection() throws Exception {
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(appInfo);
+        requestParams.opCode = LocationRequest.REQUEST_LOCATION_UPDATES1;
+        NannyFuture<Bundle> future = target.submit(ctx, null);
+        verify(ctx).registerReceiver(receiverCaptor.capture(), (IntentFilter) any());
+
+        receiverCaptor.getValue().onReceive(ctx, new Intent().putExtras(new NannyBundle.Builder()
+                .statusCode(Nanny.SC_FORBIDDEN)
+                .connection(Nanny.CLOSE)
+                .server(Nanny.AUTHORIZATION_SERVICE)
+                .build()));
+        future.cancel(false);
+        target.stop();
+
+        verify(ctx, times(1)).unregisterReceiver((BroadcastReceiver) notNull());
+    }
 }
@@ -0,0 +1,167 @@
+package com.permissionnanny.lib.request;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import com.permissionnanny.lib.Event;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
+import com.permissionnanny.lib.NannyLibTestCase;
+import com.permissionnanny.lib.request.simple.SimpleListener;
+import com.permissionnanny.lib.request.simple.WifiRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RequestCoalescerTest extends NannyLibTestCase {
+
+    RequestCoalescer target;
+    Bundle ok;
+    @Mock Context ctx;
+    @Mock PackageManager pm;
+    @Mock Event event1;
+    @Mock Event event2;
+    @Mock SimpleListener listener1;
+    @Mock SimpleListener listener2;
+    @Mock RequestCoalescer.Successor successor;
+
+    @Before
+    public void setUp() throws Exception {
+        Nanny.refreshServerInfo();
+        RequestCoalescer.getInstance().clear();
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(new ApplicationInfo());
+        target = new RequestCoalescer();
+        ok = new NannyBundle.Builder().statusCode(Nanny.SC_OK).server(Nanny.AUTHORIZATION_SERVICE).build();
+    }
+
+    @Test
+    public void coalesce_shouldJoin_whenEqualParamsAreInFlight() throws Exception {
+        Event lead = target.coalesce(WifiRequest.getWifiState().mParams, event1, successor);
+
+        assertThat(lead, notNullValue());
+        assertThat(target.coalesce(WifiRequest.getWifiState().mParams, event2, successor), nullValue());
+        assertThat(target.getAbsorbedCount(), is(1L));
+    }
+
+    @Test
+    public void coalesce_shouldLead_whenParamsDiffer() throws Exception {
+        target.coalesce(WifiRequest.getWifiState().mParams, event1, successor);
+
+        assertThat(target.coalesce(WifiRequest.getConnectionInfo().mParams, event2, successor), notNullValue());
+        assertThat(target.getAbsorbedCount(), is(0L));
+    }
+
+    @Test
+    public void process_shouldFanOutToLeadAndJoiners() throws Exception {
+        Event lead = target.coalesce(WifiRequest.getWifiState().mParams, event1, successor);
+        target.coalesce(WifiRequest.getWifiState().mParams, event2, successor);
+        Intent response = new Intent().putExtras(ok);
+
+        lead.process(ctx, response);
+
+        verify(event1).process(ctx, response);
+        verify(event2).process(any(Context.class), any(Intent.class));
+        assertThat(target.coalesce(WifiRequest.getWifiState().mParams, event2, successor), notNullValue());
+    }
+
+    @Test
+    public void leave_shouldStopFanningOutToJoiner() throws Exception {
+        Event lead = target.coalesce(WifiRequest.getWifiState().mParams, event1, successor);
+        target.coalesce(WifiRequest.getWifiState().mParams, event2, successor);
+
+        target.leave(WifiRequest.getWifiState().mParams, event2);
+        lead.process(ctx, new Intent().putExtras(ok));
+
+        verify(event2, never()).process(any(Context.class), any(Intent.class));
+    }
+
+    @Test
+    public void leave_shouldLetNextRequestLead_whenLeadLeaves() throws Exception {
+        Event lead = target.coalesce(WifiRequest.getWifiState().mParams, event1, successor);
+
+        target.leave(WifiRequest.getWifiState().mParams, lead);
+
+        Event next = target.coalesce(WifiRequest.getWifiState().mParams, event2, successor);
+        assertThat(next, notNullValue());
+        assertThat(next, not(sameInstance(lead)));
+    }
+
+    @Test
+    public void leave_shouldPromoteFirstJoiner_whenLeadLeaves() throws Exception {
+        Event lead = target.coalesce(WifiRequest.getWifiState().mParams, event1, successor);
+        target.coalesce(WifiRequest.getWifiState().mParams, event2, successor);
+        Intent response = new Intent().putExtras(ok);
+
+        target.leave(WifiRequest.getWifiState().mParams, lead);
+        lead.process(ctx, response);
+
+        verify(successor).lead(lead);
+        verify(event1, never()).process(any(Context.class), any(Intent.class));
+        verify(event2).process(ctx, response);
+    }
+
+    @Test
+    public void stop_shouldHandJoinersToPromotedRequest_whenLeaderStops() throws Exception {
+        ArgumentCaptor<BroadcastReceiver> receiver = ArgumentCaptor.forClass(BroadcastReceiver.class);
+        WifiRequest leader = WifiRequest.getWifiState().listener(listener1);
+        leader.startRequest(ctx, null);
+        WifiRequest.getWifiState().listener(listener2).startRequest(ctx, null);
+
+        leader.stop();
+        verify(ctx, times(2)).sendBroadcast(any(Intent.class));
+        verify(ctx, times(2)).registerReceiver(receiver.capture(), any(IntentFilter.class));
+        receiver.getValue().onReceive(ctx, new Intent().putExtras(ok));
+
+        verify(listener1, never()).onResponse(any(Bundle.class));
+        verify(listener2).onResponse(any(Bundle.class));
+    }
+
+    @Test
+    public void startRequest_shouldSendOneBroadcast_forIdenticalReadOnlyRequests() throws Exception {
+        ArgumentCaptor<BroadcastReceiver> receiver = ArgumentCaptor.forClass(BroadcastReceiver.class);
+        long absorbed = RequestCoalescer.getInstance().getAbsorbedCount();
+
+        WifiRequest.getWifiState().listener(listener1).startRequest(ctx, null);
+        WifiRequest.getWifiState().listener(listener2).startRequest(ctx, null);
+        verify(ctx, times(1)).sendBroadcast(any(Intent.class));
+        verify(ctx, times(1)).registerReceiver(receiver.capture(), any(IntentFilter.class));
+        receiver.getValue().onReceive(ctx, new Intent().putExtras(ok));
+
+        verify(listener1).onResponse(any(Bundle.class));
+        verify(listener2).onResponse(any(Bundle.class));
+        assertThat(RequestCoalescer.getInstance().getAbsorbedCount(), is(absorbed + 1));
+    }
+
+    @Test
+    public void startRequest_shouldNotCoalesce_whenOpCodeIsNotReadOnly() throws Exception {
+        WifiRequest.enableNetwork(1, true).listener(listener1).startRequest(ctx, null);
+        WifiRequest.enableNetwork(1, true).listener(listener2).startRequest(ctx, null);
+
+        verify(ctx, times(2)).sendBroadcast(any(Intent.class));
+    }
+
+    @Test
+    public void getInstance_shouldReturnSingleton() throws Exception {
+        assertThat(RequestCoalescer.getInstance(), sameInstance(RequestCoalescer.getInstance()));
+    }
+}
@@ -0,0 +1,282 @@
+package com.permissionnanny.lib.request;
+
+import android.accounts.Account;
+import android.app.PendingIntent;
+import android.content.ContentValues;
+import android.location.Criteria;
+import android.net.Uri;
+import android.net.wifi.WifiConfiguration;
+import android.os.Bundle;
+import android.os.Parcel;
+import com.permissionnanny.lib.NannyLibTestCase;
+import com.permissionnanny.lib.request.content.ContentRequest;
+import com.permissionnanny.lib.request.simple.AccountRequest;
+import com.permissionnanny.lib.request.simple.LocationRequest;
+import com.permissionnanny.lib.request.simple.SmsRequest;
+import com.permissionnanny.lib.request.simple.WifiRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.permissionnanny.common.test.AndroidMatchers.equalToBundle;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class RequestParamsTest extends NannyLibTestCase {
+
+    List<PermissionRequest> requests;
+
+    @Before
+    public void setUp() throws Exception {
+        requests = newRequests();
+    }
+
+    /**
+     * @return A request of every kind of slot, for each request factory
+     */
+    static List<PermissionRequest> newRequests() {
+        Account account = new Account("name", "type");
+        Bundle bundle = new Bundle();
+        bundle.putString("key", "value");
+        Criteria criteria = new Criteria();
+        criteria.setAccuracy(Criteria.ACCURACY_FINE);
+        WifiConfiguration wifiConfiguration = new WifiConfiguration();
+        wifiConfiguration.SSID = "\"ssid\"";
+        ContentValues contentValues = new ContentValues();
+        contentValues.put("key", "value");
+        Uri uri = Uri.parse("content://sms/inbox");
+
+        return Arrays.<PermissionRequest>asList(
+                AccountRequest.addAccountExplicitly(account, "password", bundle),
+                AccountRequest.blockingGetAuthToken(account, "authTokenType", true),
+                AccountRequest.clearPassword(account),
+                AccountRequest.getAccounts(),
+                AccountRequest.getAccountsByType("type"),
+                AccountRequest.getUserData(account, "key"),
+                AccountRequest.invalidateAuthToken("type", "authToken"),
+                AccountRequest.setUserData(account, "key", "value"),
+                WifiRequest.addNetwork(wifiConfiguration),
+                WifiRequest.disableNetwork(1),
+                WifiRequest.enableNetwork(1, true),
+                WifiRequest.getConnectionInfo(),
+                WifiRequest.setWifiEnabled(true),
+                WifiRequest.updateNetwork(wifiConfiguration),
+                SmsRequest.sendDataMessage("5551234", null, (short) 80, new byte[]{1, 2, 3}, null, null),
+                SmsRequest.sendMultipartTextMessage("5551234", null, new ArrayList<>(Arrays.asList("a", "b")), null,
+                        null),
+                SmsRequest.sendTextMessage("5551234", null, "text", null, null),
+                LocationRequest.addProximityAlert(1.5, 2.5, 3.5f, 4, null),
+                LocationRequest.getLastKnownLocation("gps"),
+                LocationRequest.requestLocationUpdates(1, 2f, criteria, null),
+                LocationRequest.requestSingleUpdate(criteria, null),
+                ContentRequest.newBuilder().select().uri(uri).projection(new String[]{"_id"}).selection("_id = ?")
+                        .selectionArgs(new String[]{"1"}).sortOrder("_id").build(),
+                ContentRequest.newBuilder().insert().uri(uri).contentValues(contentValues).build(),
+                ContentRequest.newBuilder().update().uri(uri).contentValues(contentValues).selection("_id = 1").build(),
+                ContentRequest.newBuilder().delete().uri(uri).selection("_id = 1").build());
+    }
+
+    @Test
+    public void writeToParcel_shouldProduceSmallerParcel_whenEncodingIsCompact() throws Exception {
+        for (PermissionRequest request : requests) {
+            RequestParams params = request.mParams;
+            int legacy = size(params, RequestParams.ENCODING_LEGACY);
+            int compact = size(params, RequestParams.ENCODING_COMPACT);
+
+            assertThat(params.opCode, compact, lessThan(legacy));
+        }
+    }
+
+    @Test
+    public void createFromParcel_shouldRoundTrip_whenEncodingIsCompact() throws Exception {
+        for (PermissionRequest request : requests) {
+            RequestParams params = request.mParams;
+
+            assertSameParams(roundTrip(params, RequestParams.ENCODING_COMPACT), params);
+        }
+    }
+
+    @Test
+    public void createFromParcel_shouldRoundTrip_whenEncodingIsLegacy() throws Exception {
+        for (PermissionRequest request : requests) {
+            RequestParams params = request.mParams;
+
+            assertSameParams(roundTrip(params, RequestParams.ENCODING_LEGACY), params);
+        }
+    }
+
+    @Test
+    public void createFromParcel_shouldRoundTrip_whenParamsAreEmpty() throws Exception {
+        RequestParams params = new RequestParams();
+
+        assertSameParams(roundTrip(params, RequestParams.ENCODING_COMPACT), params);
+        assertSameParams(roundTrip(params, RequestParams.ENCODING_LEGACY), params);
+    }
+
+    @Test
+    public void writeToParcel_shouldDefaultToCompactEncoding() throws Exception {
+        RequestParams params = WifiRequest.disableNetwork(1).mParams;
+        Parcel parcel = Parcel.obtain();
+
+        params.writeToParcel(parcel, 0);
+
+        assertThat(parcel.dataSize(), is(size(params, RequestParams.ENCODING_COMPACT)));
+        parcel.recycle();
+    }
+
+    @Test
+    public void createFromParcel_shouldResolveOpCodeId_whenEncodingIsCompact() throws Exception {
+        RequestParams params = WifiRequest.getConnectionInfo().mParams;
+
+        RequestParams actual = roundTrip(params, RequestParams.ENCODING_COMPACT);
+
+        assertThat(actual.opCode, sameInstance(WifiRequest.GET_CONNECTION_INFO));
+        assertThat(actual.getOpCodeId(), is(OpCodes.WIFI_GET_CONNECTION_INFO));
+    }
+
+    @Test
+    public void createFromParcel_shouldResolveOpCodeId_whenEncodingIsLegacy() throws Exception {
+        RequestParams params = WifiRequest.getConnectionInfo().mParams;
+
+        RequestParams actual = roundTrip(params, RequestParams.ENCODING_LEGACY);
+
+        assertThat(actual.opCode, sameInstance(WifiRequest.GET_CONNECTION_INFO));
+        assertThat(actual.getOpCodeId(), is(OpCodes.WIFI_GET_CONNECTION_INFO));
+    }
+
+    @Test
+    public void createFromParcel_shouldKeepOpCodeString_whenOpCodeIsNotInTable() throws Exception {
+        RequestParams params = new RequestParams();
+        params.opCode = "notAnOpCode";
+
+        RequestParams actual = roundTrip(params, RequestParams.ENCODING_COMPACT);
+
+        assertThat(actual.opCode, is("notAnOpCode"));
+        assertThat(actual.getOpCodeId(), is(OpCodes.UNKNOWN));
+    }
+
+    @Test
+    public void getOpCodeId_shouldFollowOpCode_whenOpCodeChanges() throws Exception {
+        RequestParams params = WifiRequest.getConnectionInfo().mParams;
+        assertThat(params.getOpCodeId(), is(OpCodes.WIFI_GET_CONNECTION_INFO));
+
+        params.opCode = WifiRequest.GET_WIFI_STATE;
+
+        assertThat(params.getOpCodeId(), is(OpCodes.WIFI_GET_WIFI_STATE));
+    }
+
+    /**
+     * Bundle, Criteria and WifiConfiguration do not override equals(), so they are compared by content before the
+     * rest of the fields are compared with {@link RequestParams#equals(Object)}.
+     */
+    @Test
+    public void getFingerprint_shouldSurviveRoundTrip() throws Exception {
+        for (PermissionRequest request : requests) {
+            RequestParams params = request.mParams;
+            long expected = params.getFingerprint();
+
+            assertThat(params.opCode, roundTrip(params, RequestParams.ENCODING_COMPACT).getFingerprint(), is(expected));
+            assertThat(params.opCode, roundTrip(params, RequestParams.ENCODING_LEGACY).getFingerprint(), is(expected));
+        }
+    }
+
+    @Test
+    public void getFingerprint_shouldDifferBetweenRequests() throws Exception {
+        Set<Long> fingerprints = new HashSet<>();
+        for (PermissionRequest request : requests) {
+            assertThat(request.mParams.opCode, fingerprints.add(request.mParams.getFingerprint()), is(true));
+        }
+        assertThat(WifiRequest.disableNetwork(1).mParams.getFingerprint(),
+                not(WifiRequest.disableNetwork(2).mParams.getFingerprint()));
+    }
+
+    @Test
+    public void getFingerprint_shouldFollowFieldChanges() throws Exception {
+        RequestParams params = WifiRequest.disableNetwork(1).mParams;
+        long before = params.getFingerprint();
+
+        params.int0 = 2;
+
+        assertThat(params.getFingerprint(), not(before));
+        assertThat(params.getFingerprint(), is(WifiRequest.disableNetwork(2).mParams.getFingerprint()));
+    }
+
+    @Test
+    public void getFingerprint_shouldMatch_whenOnlyPendingIntentsDiffer() throws Exception {
+        RequestParams params = SmsRequest.sendTextMessage("5551234", null, "text", null, null).mParams;
+        RequestParams withCallback = SmsRequest.sendTextMessage("5551234", null, "text", null, null).mParams;
+        withCallback.pendingIntent0 = mock(PendingIntent.class);
+
+        assertThat(withCallback.getFingerprint(), is(params.getFingerprint()));
+    }
+
+    @Test
+    public void getFingerprint_shouldHashBundleValuesByContent() throws Exception {
+        RequestParams params = new RequestParams();
+        params.opCode = AccountRequest.GET_AUTH_TOKEN1;
+        params.bundle0 = new Bundle();
+        params.bundle0.putIntArray("ints", new int[]{1, 2});
+        params.bundle0.putParcelable("uri", Uri.parse("content://a"));
+        RequestParams other = new RequestParams();
+        other.opCode = AccountRequest.GET_AUTH_TOKEN1;
+        other.bundle0 = new Bundle();
+        other.bundle0.putIntArray("ints", new int[]{1, 3});
+        other.bundle0.putParcelable("uri", Uri.parse("content://a"));
+
+        assertThat(params.getFingerprint(), not(0L));
+        assertThat(params.getFingerprint(), not(other.getFingerprint()));
+    }
+
+    @Test
+    public void getFingerprint_shouldBeZero_whenBundleHoldsUnknownParcelable() throws Exception {
+        RequestParams params = new RequestParams();
+        params.opCode = AccountRequest.GET_AUTH_TOKEN1;
+        params.bundle0 = new Bundle();
+        params.bundle0.putParcelable("intent", mock(PendingIntent.class));
+
+        assertThat(params.getFingerprint(), is(0L));
+    }
+
+    private static void assertSameParams(RequestParams actual, RequestParams expected) {
+        assertThat(expected.opCode, actual.bundle0, equalToBundle(expected.bundle0));
+        assertThat(expected.opCode, actual.bundle1, equalToBundle(expected.bundle1));
+        assertThat(expected.opCode, actual.criteria0 == null, is(expected.criteria0 == null));
+        if (expected.criteria0 != null) {
+            assertThat(expected.opCode, actual.criteria0.getAccuracy(), is(expected.criteria0.getAccuracy()));
+        }
+        assertThat(expected.opCode, actual.wifiConfiguration0 == null, is(expected.wifiConfiguration0 == null));
+        if (expected.wifiConfiguration0 != null) {
+            assertThat(expected.opCode, actual.wifiConfiguration0.SSID, is(expected.wifiConfiguration0.SSID));
+        }
+        actual.bundle0 = expected.bundle0;
+        actual.bundle1 = expected.bundle1;
+        actual.criteria0 = expected.criteria0;
+        actual.wifiConfiguration0 = expected.wifiConfiguration0;
+        assertThat(expected.opCode, actual, is(expected));
+    }
+
+    static int size(RequestParams params, @RequestParams.Encoding int encoding) {
+        Parcel parcel = Parcel.obtain();
+        params.writeToParcel(parcel, 0, encoding);
+        int size = parcel.dataSize();
+        parcel.recycle();
+        return size;
+    }
+
+    static RequestParams roundTrip(RequestParams params, @RequestParams.Encoding int encoding) {
+        Parcel parcel = Parcel.obtain();
+        params.writeToParcel(parcel, 0, encoding);
+        parcel.setDataPosition(0);
+        RequestParams result = RequestParams.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+        return result;
+    }
+}
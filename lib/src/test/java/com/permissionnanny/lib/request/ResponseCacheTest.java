@@ -0,0 +1,174 @@
+package com.permissionnanny.lib.request;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.net.wifi.WifiManager;
+import android.os.Bundle;
+import android.os.SystemClock;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
+import com.permissionnanny.lib.NannyLibTestCase;
+import com.permissionnanny.lib.request.simple.SimpleListener;
+import com.permissionnanny.lib.request.simple.SmsRequest;
+import com.permissionnanny.lib.request.simple.TelephonyRequest;
+import com.permissionnanny.lib.request.simple.WifiRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResponseCacheTest extends NannyLibTestCase {
+
+    ResponseCache cache;
+    Bundle ok;
+    @Mock Context ctx;
+    @Mock PackageManager pm;
+    @Mock SimpleListener listener;
+    @Captor ArgumentCaptor<Bundle> bundleCaptor;
+
+    @Before
+    public void setUp() throws Exception {
+        Nanny.refreshServerInfo();
+        when(ctx.getPackageManager()).thenReturn(pm);
+        when(pm.getApplicationInfo(anyString(), anyInt())).thenReturn(new ApplicationInfo());
+        cache = new ResponseCache(2).ttl(WifiRequest.GET_WIFI_STATE, 60000);
+        ok = new NannyBundle.Builder().statusCode(Nanny.SC_OK).server(Nanny.AUTHORIZATION_SERVICE).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ResponseCache.uninstall(ctx);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ttl_shouldThrow_whenOpCodeIsNotReadOnly() throws Exception {
+        cache.ttl(SmsRequest.SEND_TEXT_MESSAGE, 1000);
+    }
+
+    @Test
+    public void get_shouldHit_whenSameParamsWereStored() throws Exception {
+        cache.put(WifiRequest.getWifiState().mParams, ok);
+
+        assertThat(cache.get(WifiRequest.getWifiState().mParams), notNullValue());
+        assertThat(cache.get(WifiRequest.enableNetwork(1, true).mParams), nullValue());
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void put_shouldIgnoreErrorsAndUncachedOpCodes() throws Exception {
+        cache.put(WifiRequest.getWifiState().mParams, new NannyBundle.Builder().statusCode(Nanny.SC_FORBIDDEN).build());
+        cache.put(WifiRequest.getConnectionInfo().mParams, ok);
+
+        assertThat(cache.get(WifiRequest.getWifiState().mParams), nullValue());
+        assertThat(cache.get(WifiRequest.getConnectionInfo().mParams), nullValue());
+    }
+
+    @Test
+    public void isCacheable_shouldBeFalse_whenParamsHaveNoFingerprint() throws Exception {
+        RequestParams params = WifiRequest.getWifiState().mParams;
+        params.bundle0 = new Bundle();
+        params.bundle0.putParcelable("intent", mock(PendingIntent.class));
+
+        assertThat(cache.isCacheable(params), is(false));
+        assertThat(cache.isCacheable(WifiRequest.getWifiState().mParams), is(true));
+    }
+
+    @Test
+    public void get_shouldMiss_whenTtlExpired() throws Exception {
+        cache.ttl(WifiRequest.GET_WIFI_STATE, 10);
+        cache.put(WifiRequest.getWifiState().mParams, ok);
+
+        SystemClock.sleep(20);
+
+        assertThat(cache.get(WifiRequest.getWifiState().mParams), nullValue());
+    }
+
+    @Test
+    public void put_shouldEvictLeastRecentlyUsed_whenFull() throws Exception {
+        cache.ttl(TelephonyRequest.GET_DEVICE_ID, 60000).ttl(TelephonyRequest.GET_LINE_1_NUMBER, 60000);
+        cache.put(WifiRequest.getWifiState().mParams, ok);
+        cache.put(TelephonyRequest.getDeviceId().mParams, ok);
+        cache.get(WifiRequest.getWifiState().mParams);
+        cache.put(TelephonyRequest.getLine1Number().mParams, ok);
+
+        assertThat(cache.get(TelephonyRequest.getDeviceId().mParams), nullValue());
+        assertThat(cache.get(WifiRequest.getWifiState().mParams), notNullValue());
+    }
+
+    @Test
+    public void invalidate_shouldDropAffectedOpCodes_onSystemBroadcast() throws Exception {
+        cache.ttl(TelephonyRequest.GET_DEVICE_ID, 60000);
+        cache.put(WifiRequest.getWifiState().mParams, ok);
+        cache.put(TelephonyRequest.getDeviceId().mParams, ok);
+        ArgumentCaptor<BroadcastReceiver> receiver = ArgumentCaptor.forClass(BroadcastReceiver.class);
+        ResponseCache.install(ctx, cache);
+        verify(ctx).registerReceiver(receiver.capture(), any(IntentFilter.class));
+
+        receiver.getValue().onReceive(ctx, new Intent(WifiManager.WIFI_STATE_CHANGED_ACTION));
+
+        assertThat(cache.get(WifiRequest.getWifiState().mParams), nullValue());
+        assertThat(cache.get(TelephonyRequest.getDeviceId().mParams), notNullValue());
+    }
+
+    @Test
+    public void startRequest_shouldAnswerFromCache_whenInstalled() throws Exception {
+        ResponseCache.install(ctx, cache);
+        cache.put(WifiRequest.getWifiState().mParams, ok);
+
+        WifiRequest.getWifiState().listener(listener).startRequest(ctx, null);
+
+        verify(ctx, never()).sendBroadcast(any(Intent.class));
+        verify(listener).onResponse(bundleCaptor.capture());
+        assertThat(bundleCaptor.getValue().getInt(Nanny.STATUS_CODE), is(Nanny.SC_OK));
+    }
+
+    @Test
+    public void startRequest_shouldStoreResponse_onMiss() throws Exception {
+        ResponseCache.install(ctx, cache);
+        ArgumentCaptor<BroadcastReceiver> receiver = ArgumentCaptor.forClass(BroadcastReceiver.class);
+
+        WifiRequest.getWifiState().listener(listener).startRequest(ctx, null);
+        verify(ctx, times(2)).registerReceiver(receiver.capture(), any(IntentFilter.class));
+        receiver.getValue().onReceive(ctx, new Intent().putExtras(ok));
+
+        verify(listener).onResponse(any(Bundle.class));
+        assertThat(cache.get(WifiRequest.getWifiState().mParams), notNullValue());
+    }
+
+    @Test
+    public void startRequest_shouldNotNestWrappers_whenRestarted() throws Exception {
+        ResponseCache.install(ctx, cache);
+        ArgumentCaptor<BroadcastReceiver> receiver = ArgumentCaptor.forClass(BroadcastReceiver.class);
+        WifiRequest request = WifiRequest.getWifiState().listener(listener);
+
+        request.startRequest(ctx, null);
+        request.stop();
+        request.startRequest(ctx, null);
+        verify(ctx, times(3)).registerReceiver(receiver.capture(), any(IntentFilter.class));
+        receiver.getValue().onReceive(ctx, new Intent().putExtras(ok));
+
+        verify(listener, times(1)).onResponse(any(Bundle.class));
+        assertThat(cache.get(WifiRequest.getWifiState().mParams), notNullValue());
+    }
+}
@@ -10,6 +10,7 @@ import android.os.Bundle;
 import android.os.Handler;
 import com.permissionnanny.lib.Nanny;
 import com.permissionnanny.lib.NannyLibTestCase;
+import com.permissionnanny.lib.request.NannyExecutors;
 import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
@@ -37,7 +38,8 @@ public class AccountManagerEventTest extends NannyLibTestCase {
 
     @Before
     public void setUp() throws Exception {
-        mEventFilter = new AccountManagerEvent<>(mAccountManagerCallback, mHandler, Account.class);
+        mEventFilter = new AccountManagerEvent<>(mAccountManagerCallback, NannyExecutors.direct(),
+                NannyExecutors.of(mHandler), Account.class);
         mIntent = new Intent();
         mBundle = new Bundle();
         mAccount = new Account("name", "type");
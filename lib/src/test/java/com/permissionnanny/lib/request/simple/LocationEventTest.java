@@ -2,23 +2,53 @@ package com.permissionnanny.lib.request.simple;
 
 import android.content.Context;
 import android.content.Intent;
+import android.location.GpsStatus;
 import android.location.Location;
 import android.location.LocationListener;
 import android.os.Bundle;
 import android.os.Handler;
+import com.permissionnanny.lib.Event;
 import com.permissionnanny.lib.Nanny;
 import com.permissionnanny.lib.NannyLibTestCase;
 import com.permissionnanny.lib.request.Ack;
+import com.permissionnanny.lib.request.Overflow;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class LocationEventTest extends NannyLibTestCase {
 
+    static final int FIXES = 20;
+    static final int SENTENCES_PER_FIX = 8; // GGA, GSA, RMC, VTG and a few GSVs per fix
+    static final long FIX_PERIOD_MS = 100; // 10 Hz
+    /** Simulated time to ack and unparcel one response, and to run one listener callback. */
+    static final long DECODE_MS = 5;
+    static final long DELIVERY_MS = 1;
+
     LocationEvent mEventFilter;
     Intent mIntent;
     Bundle mBundle;
@@ -85,6 +115,184 @@ public class LocationEventTest extends NannyLibTestCase {
         verify(mLocationListener).onStatusChanged("a", 1, mExtras);
     }
 
+    @Test
+    public void process_shouldDecodeOffCallerThread_andDeliverEveryUpdate_withNmeaLoad() throws Exception {
+        ExecutorService decoder = Executors.newSingleThreadExecutor();
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        final CountDownLatch delivered = new CountDownLatch(FIXES * (1 + SENTENCES_PER_FIX));
+        final Set<Thread> deliveryThreads = Collections.synchronizedSet(new HashSet<Thread>());
+        LocationEvent location = new LocationEvent(new LocationAdapter() {
+            @Override
+            public void onLocationChanged(Location location) {
+                deliveryThreads.add(Thread.currentThread());
+                delivered.countDown();
+            }
+        }, decoder, delivery, mAck);
+        NmeaEvent nmea = new NmeaEvent(new GpsStatus.NmeaListener() {
+            @Override
+            public void onNmeaReceived(long timestamp, String nmea) {
+                deliveryThreads.add(Thread.currentThread());
+                delivered.countDown();
+            }
+        }, decoder, delivery, mAck);
+
+        for (int fix = 0; fix < FIXES; fix++) {
+            location.process(mContext, newLocationIntent(new Location("gps")));
+            for (int sentence = 0; sentence < SENTENCES_PER_FIX; sentence++) {
+                nmea.process(mContext, newNmeaIntent(sentence));
+            }
+        }
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        decoder.shutdown();
+        delivery.shutdown();
+        assertThat(deliveryThreads.contains(Thread.currentThread()), is(false));
+    }
+
+    @Test
+    public void process_shouldDeliverEveryUpdateWithinFixPeriod_withNmeaLoad() throws Exception {
+        final SimulatedClock clock = new SimulatedClock();
+        SimulatedExecutor decoder = new SimulatedExecutor(clock, DECODE_MS);
+        SimulatedExecutor delivery = new SimulatedExecutor(clock, DELIVERY_MS);
+        final Map<Location, Long> fixTimes = new IdentityHashMap<>();
+        final List<Long> latencies = new ArrayList<>();
+        LocationEvent location = new LocationEvent(new LocationAdapter() {
+            @Override
+            public void onLocationChanged(Location location) {
+                latencies.add(clock.now - fixTimes.get(location));
+            }
+        }, decoder, delivery, mAck);
+        NmeaEvent nmea = new NmeaEvent(new GpsStatus.NmeaListener() {
+            @Override
+            public void onNmeaReceived(long timestamp, String nmea) {
+                latencies.add(clock.now - timestamp);
+            }
+        }, decoder, delivery, mAck);
+
+        for (int fix = 0; fix < FIXES; fix++) {
+            clock.now = fix * FIX_PERIOD_MS;
+            Location update = new Location("gps");
+            fixTimes.put(update, clock.now);
+            location.process(mContext, newLocationIntent(update));
+            for (int sentence = 0; sentence < SENTENCES_PER_FIX; sentence++) {
+                nmea.process(mContext, newNmeaIntent(clock.now));
+            }
+            assertThat(latencies.size(), is(fix * (1 + SENTENCES_PER_FIX))); // The receiver only enqueues
+
+            clock.runUntil(clock.now + FIX_PERIOD_MS, decoder, delivery);
+        }
+
+        assertThat(latencies.size(), is(FIXES * (1 + SENTENCES_PER_FIX)));
+        for (long latency : latencies) {
+            assertThat(latency, lessThanOrEqualTo(FIX_PERIOD_MS));
+        }
+    }
+
+    private Intent newLocationIntent(Location location) {
+        Bundle entity = new Bundle();
+        entity.putString(Nanny.TYPE, LocationEvent.ON_LOCATION_CHANGED);
+        entity.putParcelable(LocationEvent.LOCATION, location);
+        return new Intent().putExtra(Nanny.ENTITY_BODY, entity);
+    }
+
+    private Intent newNmeaIntent(long timestamp) {
+        Bundle entity = new Bundle();
+        entity.putLong(NmeaEvent.TIMESTAMP, timestamp);
+        entity.putString(NmeaEvent.NMEA, "$GPGGA,123519,4807.038,N,01131.000,E,1,08,0.9,545.4,M,46.9,M,,*47");
+        return new Intent().putExtra(Nanny.ENTITY_BODY, entity);
+    }
+
+    /**
+     * Time shared by {@link SimulatedExecutor}s, advanced only by the test and by the simulated cost of each task.
+     */
+    private static class SimulatedClock {
+        long now;
+
+        /**
+         * Run the executors' tasks that start before {@code end}, earliest first, as if each executor were a thread.
+         */
+        void runUntil(long end, SimulatedExecutor... executors) {
+            while (true) {
+                SimulatedExecutor next = null;
+                for (SimulatedExecutor executor : executors) {
+                    if (!executor.mTasks.isEmpty() && (next == null || executor.nextStart() < next.nextStart())) {
+                        next = executor;
+                    }
+                }
+                if (next == null || next.nextStart() >= end) {
+                    now = end;
+                    return;
+                }
+                next.runNext();
+            }
+        }
+    }
+
+    /**
+     * Single thread whose tasks each take {@code costMs} of simulated time. A task's effects, including tasks it
+     * submits, happen when it finishes.
+     */
+    private static class SimulatedExecutor implements Executor {
+        private final SimulatedClock mClock;
+        private final long mCostMs;
+        private final Queue<Runnable> mTasks = new ArrayDeque<>();
+        private final Queue<Long> mSubmitTimes = new ArrayDeque<>();
+        private long mBusyUntil;
+
+        SimulatedExecutor(SimulatedClock clock, long costMs) {
+            mClock = clock;
+            mCostMs = costMs;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            mTasks.add(task);
+            mSubmitTimes.add(mClock.now);
+        }
+
+        long nextStart() {
+            return Math.max(mSubmitTimes.peek(), mBusyUntil);
+        }
+
+        void runNext() {
+            mClock.now = mBusyUntil = nextStart() + mCostMs;
+            mSubmitTimes.remove();
+            mTasks.remove().run();
+        }
+    }
+
+    private abstract static class LocationAdapter implements LocationListener {
+        @Override
+        public void onStatusChanged(String provider, int status, Bundle extras) {}
+
+        @Override
+        public void onProviderEnabled(String provider) {}
+
+        @Override
+        public void onProviderDisabled(String provider) {}
+    }
+
+    @Test
+    public void process_shouldConflate_whenMainThreadFallsBehind() throws Exception {
+        Overflow overflow = Overflow.conflate();
+        mEventFilter.setOverflow(overflow);
+        Location latest = new Location("b");
+
+        for (int i = 0; i < FIXES; i++) {
+            Bundle entity = new Bundle();
+            entity.putString(Nanny.TYPE, LocationEvent.ON_LOCATION_CHANGED);
+            entity.putParcelable(LocationEvent.LOCATION, i == FIXES - 1 ? latest : mLocation);
+            mEventFilter.process(mContext, new Intent().putExtra(Nanny.ENTITY_BODY, entity));
+        }
+        verify(mHandler, times(1)).post(mRunnableCaptor.capture());
+        mRunnableCaptor.getValue().run();
+
+        verify(mLocationListener, never()).onLocationChanged(mLocation);
+        verify(mLocationListener).onLocationChanged(latest);
+        assertThat(overflow.getConflatedCount(), is((long) FIXES - 1));
+        assertThat(overflow.getDroppedCount(), is(0L));
+    }
+
     private void runProcess() {
         mEventFilter.process(mContext, mIntent);
 
@@ -0,0 +1,270 @@
+package com.permissionnanny.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a typed payload per opcode annotated with {@code @Params}. Opcodes declared in {@code FooRequest} produce
+ * nested classes in {@code FooPayloads}. Each payload holds only the declared fields and converts to and from {@code
+ * RequestParams}, which stays the wire format.
+ */
+public class PayloadProcessor extends AbstractProcessor {
+
+    static final String PARAMS = "com.permissionnanny.lib.request.Params";
+    static final String REQUEST_PARAMS = "com.permissionnanny.lib.request.RequestParams";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(PARAMS);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement params = processingEnv.getElementUtils().getTypeElement(PARAMS);
+        if (params == null || annotations.isEmpty()) {
+            return false;
+        }
+        Map<String, String> slots = slotTypes();
+        if (slots == null) {
+            error(null, "Cannot find %s", REQUEST_PARAMS);
+            return true;
+        }
+
+        Map<TypeElement, List<Payload>> factories = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(params)) {
+            Payload payload = parse((VariableElement) element, params, slots);
+            if (payload == null) {
+                continue;
+            }
+            TypeElement factory = (TypeElement) element.getEnclosingElement();
+            List<Payload> payloads = factories.get(factory);
+            if (payloads == null) {
+                payloads = new ArrayList<>();
+                factories.put(factory, payloads);
+            }
+            payloads.add(payload);
+        }
+        for (Map.Entry<TypeElement, List<Payload>> entry : factories.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * @return Declared type of every RequestParams slot, keyed by slot name
+     */
+    private Map<String, String> slotTypes() {
+        TypeElement requestParams = processingEnv.getElementUtils().getTypeElement(REQUEST_PARAMS);
+        if (requestParams == null) {
+            return null;
+        }
+        Map<String, String> slots = new HashMap<>();
+        for (VariableElement field : ElementFilter.fieldsIn(requestParams.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC)) {
+                slots.put(field.getSimpleName().toString(), field.asType().toString());
+            }
+        }
+        slots.remove("opCode");
+        return slots;
+    }
+
+    private Payload parse(VariableElement opCode, TypeElement params, Map<String, String> slots) {
+        if (opCode.getKind() != ElementKind.FIELD || opCode.getConstantValue() == null ||
+                !"java.lang.String".equals(opCode.asType().toString())) {
+            error(opCode, "@Params must annotate a String opcode constant");
+            return null;
+        }
+        Payload payload = new Payload(opCode.getSimpleName().toString());
+        List<String> usedSlots = new ArrayList<>();
+        for (String declaration : values(opCode, params)) {
+            String[] parts = declaration.split(":");
+            if (parts.length != 2 || !SourceVersion.isIdentifier(parts[0].trim())) {
+                error(opCode, "Expected \"name:slot\", got \"%s\"", declaration);
+                return null;
+            }
+            String name = parts[0].trim();
+            String slot = parts[1].trim();
+            String type = slots.get(slot);
+            if (type == null) {
+                error(opCode, "RequestParams has no slot \"%s\"", slot);
+                return null;
+            }
+            if (usedSlots.contains(slot)) {
+                error(opCode, "Slot \"%s\" is declared twice", slot);
+                return null;
+            }
+            usedSlots.add(slot);
+            payload.fields.add(new Field(name, slot, type));
+        }
+        return payload;
+    }
+
+    private List<String> values(Element element, TypeElement annotation) {
+        List<String> values = new ArrayList<>();
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().asElement().equals(annotation)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                    mirror.getElementValues().entrySet()) {
+                Object value = entry.getValue().getValue();
+                if (value instanceof List) {
+                    for (Object item : (List<?>) value) {
+                        values.add((String) ((AnnotationValue) item).getValue());
+                    }
+                } else {
+                    values.add((String) value);
+                }
+            }
+        }
+        return values;
+    }
+
+    private void write(TypeElement factory, List<Payload> payloads) {
+        String pkg = processingEnv.getElementUtils().getPackageOf(factory).getQualifiedName().toString();
+        String factoryName = factory.getSimpleName().toString();
+        String className = (factoryName.endsWith("Request") ?
+                factoryName.substring(0, factoryName.length() - "Request".length()) : factoryName) + "Payloads";
+
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(pkg).append(";\n\n")
+                .append("import ").append(REQUEST_PARAMS).append(";\n\n")
+                .append("/**\n")
+                .append(" * Typed payloads of the {@link ").append(factoryName)
+                .append("} opcodes. Generated from their {@code @Params}; do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(className).append(" {\n\n")
+                .append("    private ").append(className).append("() {}\n");
+        for (Payload payload : payloads) {
+            writePayload(out, factoryName, payload);
+        }
+        out.append("}\n");
+
+        try {
+            Writer writer = processingEnv.getFiler().createSourceFile(pkg + "." + className, factory).openWriter();
+            try {
+                writer.write(out.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error(factory, "Failed to write %s: %s", className, e.getMessage());
+        }
+    }
+
+    private void writePayload(StringBuilder out, String factoryName, Payload payload) {
+        String name = payload.className();
+        String opCode = factoryName + "." + payload.opCode;
+        List<Field> fields = payload.fields;
+
+        out.append("\n    /** Payload of {@link ").append(factoryName).append('#').append(payload.opCode)
+                .append("}. */\n")
+                .append("    public static final class ").append(name).append(" {\n\n");
+        for (Field field : fields) {
+            out.append("        public final ").append(field.sourceType()).append(' ').append(field.name).append(";\n");
+        }
+        if (!fields.isEmpty()) {
+            out.append('\n');
+        }
+
+        // Constructor
+        out.append("        public ").append(name).append('(');
+        for (int i = 0; i < fields.size(); i++) {
+            out.append(i > 0 ? ", " : "").append(fields.get(i).sourceType()).append(' ').append(fields.get(i).name);
+        }
+        out.append(") {\n");
+        for (Field field : fields) {
+            out.append("            this.").append(field.name).append(" = ").append(field.name).append(";\n");
+        }
+        out.append("        }\n\n");
+
+        // RequestParams adapter
+        out.append("        public static ").append(name).append(" from(RequestParams p) {\n")
+                .append("            return new ").append(name).append('(');
+        for (int i = 0; i < fields.size(); i++) {
+            out.append(i > 0 ? ", " : "").append("p.").append(fields.get(i).slot);
+        }
+        out.append(");\n")
+                .append("        }\n\n")
+                .append("        public RequestParams toRequestParams() {\n")
+                .append("            RequestParams p = new RequestParams();\n")
+                .append("            p.opCode = ").append(opCode).append(";\n");
+        for (Field field : fields) {
+            out.append("            p.").append(field.slot).append(" = ").append(field.name).append(";\n");
+        }
+        out.append("            return p;\n")
+                .append("        }\n")
+                .append("    }\n");
+    }
+
+    private void error(Element element, String format, Object... args) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format(format, args), element);
+    }
+
+    static class Payload {
+        final String opCode;
+        final List<Field> fields = new ArrayList<>();
+
+        Payload(String opCode) {
+            this.opCode = opCode;
+        }
+
+        /**
+         * @return Opcode constant in UpperCamelCase, eg: REQUEST_LOCATION_UPDATES3 -> RequestLocationUpdates3
+         */
+        String className() {
+            StringBuilder name = new StringBuilder();
+            for (String word : opCode.split("_")) {
+                if (!word.isEmpty()) {
+                    name.append(word.charAt(0)).append(word.substring(1).toLowerCase());
+                }
+            }
+            return name.toString();
+        }
+    }
+
+    static class Field {
+        final String name;
+        final String slot;
+        final String type;
+
+        Field(String name, String slot, String type) {
+            this.name = name;
+            this.slot = slot;
+            this.type = type;
+        }
+
+        /**
+         * @return {@link #type} as written in generated source; java.lang types are not qualified
+         */
+        String sourceType() {
+            return type.replace("java.lang.", "");
+        }
+    }
+}
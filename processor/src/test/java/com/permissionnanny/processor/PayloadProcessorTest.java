@@ -0,0 +1,99 @@
+package com.permissionnanny.processor;
+
+import com.google.testing.compile.JavaFileObjects;
+import java.util.Arrays;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+
+public class PayloadProcessorTest {
+
+    static final JavaFileObject PARAMS = JavaFileObjects.forSourceLines("com.permissionnanny.lib.request.Params",
+            "package com.permissionnanny.lib.request;",
+            "public @interface Params {",
+            "    String[] value();",
+            "}");
+    static final JavaFileObject REQUEST_PARAMS = JavaFileObjects.forSourceLines(
+            "com.permissionnanny.lib.request.RequestParams",
+            "package com.permissionnanny.lib.request;",
+            "public class RequestParams {",
+            "    public String opCode;",
+            "    public int int0;",
+            "    public boolean boolean0;",
+            "}");
+
+    @Test
+    public void process_shouldGeneratePayloads() throws Exception {
+        assertAbout(javaSources())
+                .that(Arrays.asList(PARAMS, REQUEST_PARAMS, factory("\"netId:int0\", \"disableOthers:boolean0\"")))
+                .processedWith(new PayloadProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(JavaFileObjects.forSourceLines("test.WifiPayloads",
+                        "package test;",
+                        "import com.permissionnanny.lib.request.RequestParams;",
+                        "public final class WifiPayloads {",
+                        "    private WifiPayloads() {}",
+                        "    public static final class EnableNetwork {",
+                        "        public final int netId;",
+                        "        public final boolean disableOthers;",
+                        "        public EnableNetwork(int netId, boolean disableOthers) {",
+                        "            this.netId = netId;",
+                        "            this.disableOthers = disableOthers;",
+                        "        }",
+                        "        public static EnableNetwork from(RequestParams p) {",
+                        "            return new EnableNetwork(p.int0, p.boolean0);",
+                        "        }",
+                        "        public RequestParams toRequestParams() {",
+                        "            RequestParams p = new RequestParams();",
+                        "            p.opCode = WifiRequest.ENABLE_NETWORK;",
+                        "            p.int0 = netId;",
+                        "            p.boolean0 = disableOthers;",
+                        "            return p;",
+                        "        }",
+                        "    }",
+                        "}"));
+    }
+
+    @Test
+    public void process_shouldFail_whenSlotIsUnknown() throws Exception {
+        assertAbout(javaSources())
+                .that(Arrays.asList(PARAMS, REQUEST_PARAMS, factory("\"netId:int9\"")))
+                .processedWith(new PayloadProcessor())
+                .failsToCompile()
+                .withErrorContaining("RequestParams has no slot \"int9\"");
+    }
+
+    @Test
+    public void process_shouldFail_whenSlotIsDeclaredTwice() throws Exception {
+        assertAbout(javaSources())
+                .that(Arrays.asList(PARAMS, REQUEST_PARAMS, factory("\"netId:int0\", \"other:int0\"")))
+                .processedWith(new PayloadProcessor())
+                .failsToCompile()
+                .withErrorContaining("Slot \"int0\" is declared twice");
+    }
+
+    @Test
+    public void process_shouldFail_whenPairIsMalformed() throws Exception {
+        assertAbout(javaSources())
+                .that(Arrays.asList(PARAMS, REQUEST_PARAMS, factory("\"netId\"")))
+                .processedWith(new PayloadProcessor())
+                .failsToCompile()
+                .withErrorContaining("Expected \"name:slot\", got \"netId\"");
+    }
+
+    /**
+     * @param params Arguments of the {@code @Params} annotation on {@code WifiRequest.ENABLE_NETWORK}
+     */
+    private static JavaFileObject factory(String params) {
+        return JavaFileObjects.forSourceLines("test.WifiRequest",
+                "package test;",
+                "import com.permissionnanny.lib.request.Params;",
+                "public class WifiRequest {",
+                "    @Params({" + params + "})",
+                "    public static final String ENABLE_NETWORK = \"enableNetwork\";",
+                "}");
+    }
+}
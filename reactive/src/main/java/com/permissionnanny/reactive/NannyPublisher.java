@@ -0,0 +1,88 @@
+package com.permissionnanny.reactive;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.permissionnanny.lib.Nanny;
+import com.permissionnanny.lib.NannyBundle;
+import com.permissionnanny.lib.NannyException;
+import com.permissionnanny.lib.request.Ack;
+import com.permissionnanny.lib.request.simple.SimpleListener;
+import com.permissionnanny.lib.request.simple.SimpleRequest;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+/**
+ * Cold publisher of an ongoing request: every subscriber starts its own request, and cancelling stops it.
+ * <p/>
+ * Events are signalled on Permission Nanny's decoder thread, or on the thread that requests more of them. Move them to
+ * the main thread with an operator such as {@code observeOn} if needed.
+ *
+ * @param <T> Event type
+ * @see NannyPublishers
+ */
+public abstract class NannyPublisher<T> implements Publisher<T> {
+
+    /** Events a subscription queues for its subscriber by default; one acknowledgement window. */
+    public static final int DEFAULT_CAPACITY = Ack.DEFAULT_WINDOW;
+
+    private final Context mContext;
+    @Nullable private final String mRationale;
+    private int mCapacity = DEFAULT_CAPACITY;
+
+    NannyPublisher(Context context, @Nullable String rationale) {
+        mContext = context.getApplicationContext();
+        mRationale = rationale;
+    }
+
+    /**
+     * @param capacity Events each subscription queues before dropping the oldest
+     * @return itself
+     */
+    public NannyPublisher<T> capacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        mCapacity = capacity;
+        return this;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) { // Rule 1.9
+            throw new NullPointerException("Subscriber cannot be null.");
+        }
+        final NannySubscription<T> subscription = new NannySubscription<>(subscriber, mCapacity);
+        final SimpleRequest request = newRequest(subscription);
+        request.listener(new SimpleListener() {
+            @Override
+            public void onResponse(@NonNull Bundle response) {
+                NannyBundle bundle = new NannyBundle(response);
+                if (bundle.getStatusCode() != Nanny.SC_OK) {
+                    Throwable error = bundle.getError();
+                    subscription.onError(error != null ? error :
+                            new NannyException("Permission Nanny responded %d", bundle.getStatusCode()));
+                } else if (Nanny.CLOSE.equals(bundle.getConnection())) {
+                    subscription.onComplete();
+                }
+            }
+        });
+        subscription.setStop(new Runnable() {
+            @Override
+            public void run() {
+                request.stop();
+            }
+        });
+        subscriber.onSubscribe(subscription);
+        if (!subscription.isCancelled()) {
+            request.startRequest(mContext, mRationale);
+        }
+    }
+
+    /**
+     * Create the request for a new subscription. Its listener must hand every event to {@link
+     * NannySubscription#onNext(Object)}, without switching threads.
+     */
+    abstract SimpleRequest newRequest(NannySubscription<T> subscription);
+}
@@ -0,0 +1,152 @@
+package com.permissionnanny.reactive;
+
+import android.accounts.Account;
+import android.accounts.OnAccountsUpdateListener;
+import android.content.Context;
+import android.location.Criteria;
+import android.location.GpsStatus;
+import android.location.Location;
+import android.location.LocationListener;
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import com.permissionnanny.lib.request.NannyExecutors;
+import com.permissionnanny.lib.request.simple.AccountRequest;
+import com.permissionnanny.lib.request.simple.LocationRequest;
+import com.permissionnanny.lib.request.simple.SimpleRequest;
+import java.util.concurrent.Executor;
+
+/**
+ * Factory that exposes ongoing {@link LocationRequest}s and {@link AccountRequest}s as Reactive Streams Publishers.
+ * <pre>
+ * <code>
+ *  Flowable.fromPublisher(NannyPublishers.requestLocationUpdates(context, "gps", 0, 0, "Trust me"))
+ *          .sample(1, TimeUnit.SECONDS)
+ *          .observeOn(AndroidSchedulers.mainThread())
+ *          .subscribe(location -> ...);
+ * </code>
+ * </pre>
+ * A request is started for each subscriber and stopped when its subscription is cancelled or fails. If the user denies
+ * a request, the subscriber receives the error Permission Nanny responded with.
+ */
+public final class NannyPublishers {
+
+    /** Listeners run where their events were decoded; {@link NannySubscription} does the rest. */
+    private static final Executor DIRECT = NannyExecutors.direct();
+
+    private NannyPublishers() {}
+
+    /**
+     * @see LocationRequest#requestLocationUpdates(String, long, float, Executor, LocationListener)
+     */
+    public static NannyPublisher<Location> requestLocationUpdates(Context context,
+                                                                  final String provider,
+                                                                  final long minTime,
+                                                                  final float minDistance,
+                                                                  @Nullable String rationale) {
+        return new NannyPublisher<Location>(context, rationale) {
+            @Override
+            SimpleRequest newRequest(NannySubscription<Location> subscription) {
+                return LocationRequest.requestLocationUpdates(provider, minTime, minDistance, DIRECT,
+                        new LocationAdapter(subscription));
+            }
+        };
+    }
+
+    /**
+     * @see LocationRequest#requestLocationUpdates(long, float, Criteria, Executor, LocationListener)
+     */
+    public static NannyPublisher<Location> requestLocationUpdates(Context context,
+                                                                  final long minTime,
+                                                                  final float minDistance,
+                                                                  final Criteria criteria,
+                                                                  @Nullable String rationale) {
+        return new NannyPublisher<Location>(context, rationale) {
+            @Override
+            SimpleRequest newRequest(NannySubscription<Location> subscription) {
+                return LocationRequest.requestLocationUpdates(minTime, minDistance, criteria, DIRECT,
+                        new LocationAdapter(subscription));
+            }
+        };
+    }
+
+    /**
+     * @see LocationRequest#addNmeaListener(Executor, GpsStatus.NmeaListener)
+     */
+    public static NannyPublisher<NmeaSentence> addNmeaListener(Context context, @Nullable String rationale) {
+        return new NannyPublisher<NmeaSentence>(context, rationale) {
+            @Override
+            SimpleRequest newRequest(final NannySubscription<NmeaSentence> subscription) {
+                return LocationRequest.addNmeaListener(DIRECT, new GpsStatus.NmeaListener() {
+                    @Override
+                    public void onNmeaReceived(long timestamp, String nmea) {
+                        subscription.onNext(new NmeaSentence(timestamp, nmea));
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Publishes GPS status events, such as {@link GpsStatus#GPS_EVENT_FIRST_FIX}.
+     *
+     * @see LocationRequest#addGpsStatusListener(Executor, GpsStatus.Listener)
+     */
+    public static NannyPublisher<Integer> addGpsStatusListener(Context context, @Nullable String rationale) {
+        return new NannyPublisher<Integer>(context, rationale) {
+            @Override
+            SimpleRequest newRequest(final NannySubscription<Integer> subscription) {
+                return LocationRequest.addGpsStatusListener(DIRECT, new GpsStatus.Listener() {
+                    @Override
+                    public void onGpsStatusChanged(int event) {
+                        subscription.onNext(event);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * @see AccountRequest#addOnAccountsUpdatedListener(Executor, OnAccountsUpdateListener, boolean)
+     */
+    public static NannyPublisher<Account[]> addOnAccountsUpdatedListener(Context context,
+                                                                         final boolean updateImmediately,
+                                                                         @Nullable String rationale) {
+        return new NannyPublisher<Account[]>(context, rationale) {
+            @Override
+            SimpleRequest newRequest(final NannySubscription<Account[]> subscription) {
+                return AccountRequest.addOnAccountsUpdatedListener(DIRECT, new OnAccountsUpdateListener() {
+                    @Override
+                    public void onAccountsUpdated(Account[] accounts) {
+                        subscription.onNext(accounts);
+                    }
+                }, updateImmediately);
+            }
+        };
+    }
+
+    private static class LocationAdapter implements LocationListener {
+
+        private final NannySubscription<Location> mSubscription;
+
+        LocationAdapter(NannySubscription<Location> subscription) {
+            mSubscription = subscription;
+        }
+
+        @Override
+        public void onLocationChanged(Location location) {
+            mSubscription.onNext(location);
+        }
+
+        @Override
+        public void onStatusChanged(String provider, int status, Bundle extras) {
+        }
+
+        @Override
+        public void onProviderEnabled(String provider) {
+        }
+
+        @Override
+        public void onProviderDisabled(String provider) {
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.permissionnanny.reactive;
+
+import android.support.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Subscription to an ongoing request.
+ * <p/>
+ * Permission Nanny sends one acknowledgement window of events per acknowledgement and keeps only the latest of the
+ * rest, but the client acknowledges events as they arrive, not as the subscriber asks for them. Events nobody requested
+ * yet wait in a queue of {@code capacity} events, and the oldest is dropped when it is full. Cancelling stops the request, which unregisters it on the server.
+ *
+ * @param <T> Event type
+ */
+public final class NannySubscription<T> implements Subscription {
+
+    private final Subscriber<? super T> mSubscriber;
+    private final int mCapacity;
+    private final ArrayDeque<T> mQueue = new ArrayDeque<>();
+    /** Non-zero while a thread is signalling the subscriber; counts the drains requested meanwhile. */
+    private final AtomicInteger mWip = new AtomicInteger();
+    /** Stops the request. */
+    @Nullable private Runnable mStop;
+    private long mRequested;
+    private long mDropped;
+    private boolean mDone;
+    @Nullable private Throwable mError;
+    private boolean mCancelled;
+
+    NannySubscription(Subscriber<? super T> subscriber, int capacity) {
+        mSubscriber = subscriber;
+        mCapacity = capacity;
+    }
+
+    /**
+     * @return Events dropped because the subscriber did not request them in time
+     */
+    public synchronized long getDroppedCount() {
+        return mDropped;
+    }
+
+    @Override
+    public void request(long n) {
+        synchronized (this) {
+            if (n <= 0) { // Rule 3.9
+                mError = new IllegalArgumentException("Expected positive request, got " + n);
+                mDone = true;
+            } else {
+                mRequested = mRequested + n < 0 ? Long.MAX_VALUE : mRequested + n;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        Runnable stop;
+        synchronized (this) {
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            mQueue.clear();
+            stop = mStop;
+        }
+        if (stop != null) {
+            stop.run();
+        }
+    }
+
+    synchronized void setStop(Runnable stop) {
+        mStop = stop;
+    }
+
+    synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    void onNext(T event) {
+        synchronized (this) {
+            if (mCancelled || mDone) {
+                return;
+            }
+            if (mQueue.size() >= mCapacity) {
+                mQueue.pollFirst();
+                mDropped++;
+            }
+            mQueue.offerLast(event);
+        }
+        drain();
+    }
+
+    void onError(Throwable error) {
+        synchronized (this) {
+            if (mDone) {
+                return;
+            }
+            mError = error;
+            mDone = true;
+        }
+        drain();
+    }
+
+    void onComplete() {
+        synchronized (this) {
+            mDone = true;
+        }
+        drain();
+    }
+
+    /**
+     * Signal the subscriber everything it may receive now. Only one thread signals at a time; others leave their work
+     * to it.
+     */
+    private void drain() {
+        if (mWip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (true) {
+                T event = null;
+                Throwable error;
+                boolean terminate;
+                synchronized (this) {
+                    if (mCancelled) {
+                        return;
+                    }
+                    error = mError;
+                    terminate = error != null || (mDone && mQueue.isEmpty());
+                    if (!terminate) {
+                        if (mRequested == 0 || mQueue.isEmpty()) {
+                            break;
+                        }
+                        event = mQueue.pollFirst();
+                        if (mRequested != Long.MAX_VALUE) {
+                            mRequested--;
+                        }
+                    }
+                }
+                if (!terminate) {
+                    mSubscriber.onNext(event);
+                    continue;
+                }
+                cancel(); // Terminal signals end the request too
+                if (error != null) {
+                    mSubscriber.onError(error);
+                } else {
+                    mSubscriber.onComplete();
+                }
+                return;
+            }
+            missed = mWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -0,0 +1,23 @@
+package com.permissionnanny.reactive;
+
+/**
+ * NMEA sentence received from the GPS engine.
+ *
+ * @see android.location.GpsStatus.NmeaListener#onNmeaReceived(long, String)
+ */
+public final class NmeaSentence {
+
+    /** Time the sentence was received, in milliseconds since the epoch. */
+    public final long timestamp;
+    public final String nmea;
+
+    public NmeaSentence(long timestamp, String nmea) {
+        this.timestamp = timestamp;
+        this.nmea = nmea;
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + " " + nmea;
+    }
+}
@@ -0,0 +1,164 @@
+package com.permissionnanny.reactive;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class NannySubscriptionTest {
+
+    RecordingSubscriber mSubscriber;
+    NannySubscription<Integer> mSubscription;
+    int mStops;
+
+    @Before
+    public void setUp() throws Exception {
+        mSubscriber = new RecordingSubscriber();
+        mSubscription = new NannySubscription<>(mSubscriber, 2);
+        mSubscription.setStop(new Runnable() {
+            @Override
+            public void run() {
+                mStops++;
+            }
+        });
+    }
+
+    @Test
+    public void onNext_shouldWaitForDemand() throws Exception {
+        mSubscription.onNext(1);
+        assertThat(mSubscriber.events.isEmpty(), is(true));
+
+        mSubscription.request(1);
+        mSubscription.onNext(2);
+
+        assertThat(mSubscriber.events, is(list(1)));
+        mSubscription.request(1);
+        assertThat(mSubscriber.events, is(list(1, 2)));
+    }
+
+    @Test
+    public void onNext_shouldDropOldest_whenQueueIsFull() throws Exception {
+        mSubscription.onNext(1);
+        mSubscription.onNext(2);
+        mSubscription.onNext(3);
+
+        mSubscription.request(Long.MAX_VALUE);
+
+        assertThat(mSubscriber.events, is(list(2, 3)));
+        assertThat(mSubscription.getDroppedCount(), is(1L));
+    }
+
+    @Test
+    public void request_shouldNotOverflow_whenUnbounded() throws Exception {
+        mSubscription.request(Long.MAX_VALUE);
+        mSubscription.request(Long.MAX_VALUE);
+        mSubscription.onNext(1);
+        mSubscription.onNext(2);
+
+        assertThat(mSubscriber.events, is(list(1, 2)));
+    }
+
+    @Test
+    public void request_shouldFail_whenNotPositive() throws Exception {
+        mSubscription.request(0);
+
+        assertThat(mSubscriber.error, instanceOf(IllegalArgumentException.class));
+        assertThat(mStops, is(1));
+    }
+
+    @Test
+    public void cancel_shouldStopRequestOnce() throws Exception {
+        mSubscription.request(1);
+        mSubscription.cancel();
+        mSubscription.cancel();
+        mSubscription.onNext(1);
+
+        assertThat(mStops, is(1));
+        assertThat(mSubscriber.events.isEmpty(), is(true));
+    }
+
+    @Test
+    public void onError_shouldSkipQueuedEventsAndStopRequest() throws Exception {
+        Exception denied = new Exception();
+        mSubscription.onNext(1);
+
+        mSubscription.onError(denied);
+
+        assertThat(mSubscriber.error, is((Throwable) denied));
+        assertThat(mSubscriber.events.isEmpty(), is(true));
+        assertThat(mStops, is(1));
+    }
+
+    @Test
+    public void onComplete_shouldWaitForQueuedEvents() throws Exception {
+        mSubscription.onNext(1);
+        mSubscription.onComplete();
+        assertThat(mSubscriber.completed, is(false));
+
+        mSubscription.request(1);
+
+        assertThat(mSubscriber.events, is(list(1)));
+        assertThat(mSubscriber.completed, is(true));
+        assertThat(mSubscriber.error, nullValue());
+    }
+
+    @Test
+    public void onNext_shouldNotReenter_whenSubscriberRequestsFromOnNext() throws Exception {
+        mSubscriber.requestFromOnNext = true;
+        mSubscription.onNext(1);
+        mSubscription.onNext(2);
+
+        mSubscription.request(1);
+
+        assertThat(mSubscriber.events, is(list(1, 2)));
+        assertThat(mSubscriber.maxDepth, is(1));
+    }
+
+    private static List<Integer> list(Integer... events) {
+        List<Integer> list = new ArrayList<>();
+        for (Integer event : events) {
+            list.add(event);
+        }
+        return list;
+    }
+
+    class RecordingSubscriber implements Subscriber<Integer> {
+        final List<Integer> events = new ArrayList<>();
+        Throwable error;
+        boolean completed;
+        boolean requestFromOnNext;
+        int depth;
+        int maxDepth;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+        }
+
+        @Override
+        public void onNext(Integer event) {
+            maxDepth = Math.max(maxDepth, ++depth);
+            events.add(event);
+            if (requestFromOnNext) {
+                mSubscription.request(1);
+            }
+            depth--;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}